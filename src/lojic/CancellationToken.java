@@ -0,0 +1,34 @@
+package lojic;
+
+/**
+ * @author AlienIdeology
+ *
+ * A flag that cancels long-running computations cooperatively
+ *
+ * A computation that accepts a token checks it regularly, and stops soon after the token is cancelled.
+ * One token can be shared by multiple computations, which are then cancelled at once.
+ * A cancelled token stays cancelled, so a new token is needed for every new batch of computations.
+ * @see lojic.table.TTableBuilder#setCancellationToken(CancellationToken)
+ */
+public class CancellationToken {
+
+    private volatile boolean cancelled;
+
+    /**
+     * Cancel the computations that use this token
+     * This method can be invoked from any thread, and does nothing if this token is already cancelled
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Check if this token is cancelled
+     *
+     * @return true if {@link #cancel()} has been invoked
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+}
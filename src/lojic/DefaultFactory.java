@@ -6,6 +6,16 @@ import lojic.argument.inference_rule.AssumptionIR;
 import lojic.argument.inference_rule.DischargeIR;
 import lojic.argument.inference_rule.InferenceRule;
 import lojic.argument.inference_rule.PremiseIR;
+import lojic.engine.BddEngine;
+import lojic.engine.CubeEngine;
+import lojic.engine.PlannerEngine;
+import lojic.engine.PortfolioEngine;
+import lojic.engine.ResolutionEngine;
+import lojic.engine.SatEngine;
+import lojic.engine.ShannonEngine;
+import lojic.engine.SimulationEngine;
+import lojic.engine.TableauEngine;
+import lojic.engine.TableEngine;
 import lojic.nodes.connectives.BinaryConnective;
 import lojic.nodes.connectives.Connective;
 import lojic.nodes.connectives.UnaryConnective;
@@ -17,6 +27,7 @@ import lojic.table.TTableBuilder;
  * Contains static fields of:
  * 1. Default, recognized connectives, their precedence, and their associativity (right associative by default)
  * 2. Default true/false atoms (See {@link TTableBuilder#useDefaultTFAtoms()}
+ * 3. Default engines for semantic checks (See {@link lojic.engine.Engine})
  */
 // FEATURE: No symbols stripping - Remove official symbols
 public class DefaultFactory {
@@ -97,6 +108,64 @@ public class DefaultFactory {
 
     public static final String[] FALSE_ATOMS = new String[]{"F", "⊥", "0"};
 
+    /* Engines */
+
+    /**
+     * The engine that checks the root column of a truth table
+     */
+    public static final TableEngine ENGINE_TABLE = new TableEngine();
+
+    /**
+     * The engine that refutes a Tseitin encoding with a CDCL SAT solver, for nodes and arguments with many atoms
+     */
+    public static final SatEngine ENGINE_SAT = new SatEngine();
+
+    /**
+     * The engine that builds a reduced ordered binary decision diagram, for nodes whose functions are compact as BDDs
+     */
+    public static final BddEngine ENGINE_BDD = new BddEngine();
+
+    /**
+     * The engine that rejects most non-tautologies by random simulation, and checks the rest with {@link #ENGINE_SAT}
+     */
+    public static final SimulationEngine ENGINE_SIMULATION = new SimulationEngine(ENGINE_SAT);
+
+    /**
+     * The engine that refutes the question with a semantic tableau, for arguments with many atoms but short proofs
+     */
+    public static final TableauEngine ENGINE_TABLEAU = new TableauEngine();
+
+    /**
+     * The engine that refutes a Tseitin encoding by resolution, for Horn-like premises with long derivations,
+     * and gives up to {@link #ENGINE_SAT} when its clauses grow too many
+     */
+    public static final ResolutionEngine ENGINE_RESOLUTION = new ResolutionEngine(ENGINE_SAT);
+
+    /**
+     * The engine that expands the question on its atoms and caches the residual formulas, for nodes with large shared
+     * parts and few atoms that control them
+     */
+    public static final ShannonEngine ENGINE_SHANNON = new ShannonEngine();
+
+    /**
+     * The engine that races {@link #ENGINE_TABLE}, {@link #ENGINE_BDD}, {@link #ENGINE_SAT} and a SAT engine
+     * of another seed on multiple threads, for nodes and arguments whose best engine is not known in advance
+     */
+    public static final PortfolioEngine ENGINE_PORTFOLIO = new PortfolioEngine(ENGINE_TABLE, ENGINE_BDD, ENGINE_SAT, new SatEngine(1));
+
+    /**
+     * The engine that splits the question into cubes by lookahead, and conquers them with {@link #ENGINE_SAT}
+     * on multiple threads, for hard questions that one thread cannot answer in time
+     */
+    public static final CubeEngine ENGINE_CUBE = new CubeEngine(ENGINE_SAT);
+
+    /**
+     * The engine that estimates the cost of every question, and dispatches it to {@link #ENGINE_TABLE},
+     * {@link #ENGINE_TABLEAU}, {@link #ENGINE_BDD} or {@link #ENGINE_SAT}, which is the default engine of nodes
+     * and arguments
+     */
+    public static final PlannerEngine ENGINE_PLANNER = new PlannerEngine(ENGINE_TABLE, ENGINE_TABLEAU, ENGINE_BDD, ENGINE_SAT);
+
     /* Inference Rules */
 
     public static final PremiseIR IR_PREMISE = new PremiseIR();
@@ -0,0 +1,686 @@
+package lojic.aig;
+
+import lojic.DefaultFactory;
+import lojic.nodes.Atom;
+import lojic.nodes.Formula;
+import lojic.nodes.LocalAtom;
+import lojic.nodes.Node;
+import lojic.nodes.SyntheticFormula;
+import lojic.nodes.connectives.Connective;
+import lojic.table.TTableBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * @author AlienIdeology
+ *
+ * An and-inverter graph (AIG), which represents formulas with two-input {@code AND} gates and negations only
+ *
+ * Nodes are numbered from {@code 0}, which is the constant {@code false}, and are stored in flat {@code int} arrays
+ * in topological order, so every gate comes after its operands. A literal is a node and a negation bit,
+ * {@code (node << 1) | negated}, as in the AIGER format: {@link #FALSE} is {@code 0}, {@link #TRUE} is {@code 1},
+ * and {@link #not(int)} flips the last bit. Gates are structurally hashed, so every formula added to the same graph
+ * shares its identical gates with the others, and trivial gates (constants, {@code x ∧ x}, {@code x ∧ ¬x})
+ * are never created.
+ *
+ * Any connective is added from its truth code (See {@link Connective#getTruthCode()}), and {@code XOR} and
+ * {@code IFF} take three gates. Outputs mark the literals that are kept by {@link #rewrite()}.
+ */
+public class Aig {
+
+    /**
+     * The literal of the constant {@code false}
+     */
+    public static final int FALSE = 0;
+
+    /**
+     * The literal of the constant {@code true}
+     */
+    public static final int TRUE = 1;
+
+    private static final int INPUT = -1; // the left operand of an input node
+    private static final int MAX_NODES = 1 << 30;
+
+    // the right operand of an input node is the index of the input
+    private int[] lefts;
+    private int[] rights;
+    private int[] levels;
+    private int nodeCount;
+
+    private final List<String> inputs;
+    private final Map<String, Integer> literals;
+    private int[] outputs;
+    private int outputCount;
+
+    // open addressing hash table of the gates, from their operands to their nodes
+    private long[] keys;
+    private int[] gates;
+    private int gateCount;
+
+    private boolean rewriting; // whether two-level rewrites are applied when gates are created
+    private int[] leaves; // the operands of a chain of gates, while rewriting
+
+    /**
+     * Constructor of an empty graph
+     */
+    public Aig() {
+        this.lefts = new int[1024];
+        this.rights = new int[1024];
+        this.levels = new int[1024];
+        this.nodeCount = 1;
+        this.inputs = new ArrayList<>();
+        this.literals = new HashMap<>();
+        this.outputs = new int[16];
+        this.keys = new long[1024];
+        this.gates = new int[1024];
+    }
+
+    /**
+     * Add a node to this graph
+     * True/False atoms are recognized with the settings of the node's {@link TTableBuilder}.
+     *
+     * @param node The node
+     * @return The literal that is equivalent to the node
+     * @throws UnsupportedOperationException if the node's logic is three-valued
+     */
+    public int add(Node node) {
+        return add(node, node.getTableBuilder());
+    }
+
+    /**
+     * Add a node to this graph
+     * Atoms that are not yet inputs of this graph are added as new inputs, in the order which they appear in the node.
+     *
+     * @param node The node
+     * @param settings The settings that recognize True/False atoms
+     * @return The literal that is equivalent to the node
+     * @throws UnsupportedOperationException if the logic of the settings is three-valued
+     */
+    public int add(Node node, TTableBuilder settings) {
+        if (settings.getLogic().isThreeValued())
+            throw new UnsupportedOperationException("Cannot add a node of the three-valued logic " + settings.getLogic() + " to an AIG!");
+
+        Map<Node, Integer> literals = new IdentityHashMap<>();
+        // children are visited before their parents
+        node.climb().forEach(n -> literals.put(n, n.isFormula()
+                ? addFormula((Formula) n, literals)
+                : addAtom(n.getString(), settings)));
+        return literals.get(node);
+    }
+
+    /**
+     * Get the literal of an input, which adds the atom as a new input if it is not yet an input
+     *
+     * @param atom The string of the atom
+     * @return The literal of the input
+     */
+    public int input(String atom) {
+        Integer literal = literals.get(atom);
+        if (literal == null) {
+            int n = allocate();
+            lefts[n] = INPUT;
+            rights[n] = inputs.size();
+            levels[n] = 0;
+            literal = n << 1;
+            inputs.add(atom);
+            literals.put(atom, literal);
+        }
+        return literal;
+    }
+
+    /**
+     * Get the negation of a literal
+     *
+     * @param literal The literal
+     * @return The negated literal
+     */
+    public static int not(int literal) {
+        return literal ^ 1;
+    }
+
+    /**
+     * Get the literal of the conjunction of two literals
+     *
+     * @param a The left literal
+     * @param b The right literal
+     * @return The literal of the conjunction
+     */
+    public int and(int a, int b) {
+        checkLiteral(a);
+        checkLiteral(b);
+        return gate(a, b);
+    }
+
+    /**
+     * Get the literal of the disjunction of two literals, which is {@code ¬(¬a ∧ ¬b)}
+     *
+     * @param a The left literal
+     * @param b The right literal
+     * @return The literal of the disjunction
+     */
+    public int or(int a, int b) {
+        return not(and(not(a), not(b)));
+    }
+
+    /**
+     * Get the literal of the exclusive disjunction of two literals, which is {@code ¬(a ∧ b) ∧ ¬(¬a ∧ ¬b)}
+     *
+     * @param a The left literal
+     * @param b The right literal
+     * @return The literal of the exclusive disjunction
+     */
+    public int xor(int a, int b) {
+        checkLiteral(a);
+        checkLiteral(b);
+        return xorGate(a, b);
+    }
+
+    /**
+     * Get the literal of a binary connective applied to two literals
+     *
+     * @param connective The connective
+     * @param a The left literal
+     * @param b The right literal, which is ignored if the connective is unary
+     * @return The literal
+     */
+    public int apply(Connective connective, int a, int b) {
+        checkLiteral(a);
+        if (connective.isUnary()) return unary(connective.getTruthCode(), a);
+        checkLiteral(b);
+        return binary(connective.getTruthCode(), a, b);
+    }
+
+    /**
+     * Mark a literal as an output, which is kept by {@link #rewrite()}
+     *
+     * @param literal The literal
+     * @return The index of the output
+     */
+    public int addOutput(int literal) {
+        checkLiteral(literal);
+        if (outputCount == outputs.length) outputs = Arrays.copyOf(outputs, outputCount * 2);
+        outputs[outputCount] = literal;
+        return outputCount++;
+    }
+
+    /**
+     * Get the literal of an output
+     *
+     * @param index The index of the output
+     * @return The literal
+     * @throws IndexOutOfBoundsException if the index is {@code < 0 || >= }{@link #getOutputCount()}
+     */
+    public int getOutput(int index) {
+        if (index < 0 || index >= outputCount)
+            throw new IndexOutOfBoundsException("Cannot get the output " + index + " of an AIG of " + outputCount + " outputs!");
+        return outputs[index];
+    }
+
+    /**
+     * Get the number of outputs
+     *
+     * @return The number of outputs
+     */
+    public int getOutputCount() {
+        return outputCount;
+    }
+
+    /**
+     * Get the atoms of the inputs, in the order of the inputs
+     *
+     * @return The list of atom strings
+     */
+    public List<String> getAtoms() {
+        return Collections.unmodifiableList(inputs);
+    }
+
+    /**
+     * Get the number of inputs
+     *
+     * @return The number of inputs
+     */
+    public int getInputCount() {
+        return inputs.size();
+    }
+
+    /**
+     * Get the number of {@code AND} gates
+     *
+     * @return The number of gates
+     */
+    public int getAndCount() {
+        return gateCount;
+    }
+
+    /**
+     * Get the number of nodes, which are the constant, the inputs and the gates
+     * Nodes are numbered from {@code 0} to this number {@code - 1}.
+     *
+     * @return The number of nodes
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Check if a node is an input
+     *
+     * @param node The node, which is {@code literal >> 1}
+     * @return True if the node is an input
+     */
+    public boolean isInput(int node) {
+        checkNode(node);
+        return lefts[node] == INPUT;
+    }
+
+    /**
+     * Check if a node is an {@code AND} gate
+     *
+     * @param node The node, which is {@code literal >> 1}
+     * @return True if the node is a gate
+     */
+    public boolean isAnd(int node) {
+        checkNode(node);
+        return node != 0 && lefts[node] != INPUT;
+    }
+
+    /**
+     * Get the left operand of a gate, which is always smaller than the right operand
+     *
+     * @param node The node of the gate
+     * @return The literal of the operand
+     * @throws IllegalArgumentException if the node is not a gate
+     */
+    public int getLeft(int node) {
+        checkGate(node);
+        return lefts[node];
+    }
+
+    /**
+     * Get the right operand of a gate
+     *
+     * @param node The node of the gate
+     * @return The literal of the operand
+     * @throws IllegalArgumentException if the node is not a gate
+     */
+    public int getRight(int node) {
+        checkGate(node);
+        return rights[node];
+    }
+
+    /**
+     * Get the index of an input, in the list of {@link #getAtoms()}
+     *
+     * @param node The node of the input
+     * @return The index of the input
+     * @throws IllegalArgumentException if the node is not an input
+     */
+    public int getInputIndex(int node) {
+        if (!isInput(node))
+            throw new IllegalArgumentException("Cannot get the input index of the node " + node + " that is not an input!");
+        return rights[node];
+    }
+
+    /**
+     * Get the depth of a literal, which is the largest number of gates on a path from the literal to an input
+     *
+     * @param literal The literal
+     * @return The depth
+     */
+    public int getDepth(int literal) {
+        checkLiteral(literal);
+        return levels[literal >>> 1];
+    }
+
+    /**
+     * Rewrite the outputs into a new graph, which has the same inputs in the same order and the same outputs
+     * Nodes that do not lead to an output are dropped. Chains of {@code AND} gates, whose inner gates have no other
+     * use, are balanced so that their depth grows with the logarithm of their length, and gates are simplified by
+     * two-level rules, which never add gates:
+     * <pre>
+     *     (a ∧ b) ∧ ¬a = ⊥      (a ∧ b) ∧ a = a ∧ b
+     *     ¬(a ∧ b) ∧ ¬a = ¬a    ¬(a ∧ b) ∧ a = a ∧ ¬b
+     *     ¬(a ∧ b) ∧ ¬(a ∧ ¬b) = ¬a
+     * </pre>
+     *
+     * @return The rewritten graph
+     */
+    public Aig rewrite() {
+        Aig result = new Aig();
+        result.rewriting = true;
+        int[] map = new int[nodeCount];
+        for (String atom : inputs) map[literals.get(atom) >>> 1] = result.input(atom);
+
+        // count the uses of every node, and the uses by positive operands of gates
+        boolean[] reached = new boolean[nodeCount];
+        int[] uses = new int[nodeCount];
+        int[] positiveUses = new int[nodeCount];
+        for (int i = 0; i < outputCount; i++) {
+            reached[outputs[i] >>> 1] = true;
+            uses[outputs[i] >>> 1]++;
+        }
+        for (int n = nodeCount - 1; n > 0; n--) {
+            if (!reached[n] || lefts[n] == INPUT) continue;
+            for (int operand : new int[]{lefts[n], rights[n]}) {
+                reached[operand >>> 1] = true;
+                uses[operand >>> 1]++;
+                if ((operand & 1) == 0) positiveUses[operand >>> 1]++;
+            }
+        }
+
+        // a gate that is only used as a positive operand of one gate is inside the chain of that gate
+        leaves = new int[16];
+        for (int n = 1; n < nodeCount; n++) {
+            if (!reached[n] || lefts[n] == INPUT) continue;
+            if (uses[n] == 1 && positiveUses[n] == 1) continue;
+
+            int size = collectLeaves(n, uses, positiveUses);
+            int[] operands = new int[size];
+            for (int i = 0; i < size; i++) operands[i] = map[leaves[i] >>> 1] ^ (leaves[i] & 1);
+            map[n] = result.balance(operands);
+        }
+        leaves = null;
+
+        for (int i = 0; i < outputCount; i++) result.addOutput(map[outputs[i] >>> 1] ^ (outputs[i] & 1));
+        result.rewriting = false;
+        return result;
+    }
+
+    /**
+     * Convert a literal into a {@link Node}, with {@code AND}, {@code OR} and negations
+     * A gate whose operands are both negated is written as the negated disjunction of the operands.
+     * Since a node is a tree, a gate that is shared by many gates is written once for every use,
+     * so the node may be exponentially larger than the graph.
+     *
+     * @param literal The literal
+     * @return The node
+     */
+    public Node toNode(int literal) {
+        checkLiteral(literal);
+        return toNode(literal, null, 0);
+    }
+
+    @Override
+    public String toString() {
+        return "Aig{" +
+                "inputs=" + inputs.size() +
+                ", ands=" + gateCount +
+                ", outputs=" + outputCount +
+                "}";
+    }
+
+    /* Building */
+
+    private int addAtom(String atom, TTableBuilder settings) {
+        if (settings.isTAtom(atom)) return TRUE;
+        if (settings.isFAtom(atom)) return FALSE;
+        return input(atom);
+    }
+
+    private int addFormula(Formula formula, Map<Node, Integer> literals) {
+        Connective connective = formula.getConnective();
+        Node[] children = formula.getChildren();
+        if (connective.isUnary()) {
+            return unary(connective.getTruthCode(), literals.get(children[0]));
+        }
+        return binary(connective.getTruthCode(), literals.get(children[0]), literals.get(children[1]));
+    }
+
+    // bit r of the code is the value of the function when the literal has the value r
+    private static int unary(int code, int literal) {
+        switch (code & 0b11) {
+            case 0b00: return FALSE;
+            case 0b11: return TRUE;
+            case 0b10: return literal;
+            default: return literal ^ 1;
+        }
+    }
+
+    // bit (l << 1) | r of the code is the value of the function when the literals have the values l and r
+    private int binary(int code, int a, int b) {
+        int ones = Integer.bitCount(code & 0b1111);
+        if (ones == 0) return FALSE;
+        if (ones == 4) return TRUE;
+        if (ones == 1 || ones == 3) {
+            // one true (or false) row: the conjunction of the operands that take the values of that row
+            int row = Integer.numberOfTrailingZeros(ones == 1 ? code : ~code);
+            int gate = gate((row & 0b10) != 0 ? a : a ^ 1, (row & 0b01) != 0 ? b : b ^ 1);
+            return ones == 1 ? gate : gate ^ 1;
+        }
+        switch (code & 0b1111) {
+            case 0b1100: return a;
+            case 0b0011: return a ^ 1;
+            case 0b1010: return b;
+            case 0b0101: return b ^ 1;
+            case 0b0110: return xorGate(a, b);
+            default: return xorGate(a, b) ^ 1;
+        }
+    }
+
+    private int xorGate(int a, int b) {
+        return gate(gate(a, b) ^ 1, gate(a ^ 1, b ^ 1) ^ 1);
+    }
+
+    private int gate(int a, int b) {
+        if (a > b) {
+            int swap = a;
+            a = b;
+            b = swap;
+        }
+        if (a == FALSE || a == (b ^ 1)) return FALSE;
+        if (a == TRUE || a == b) return b;
+        if (rewriting) {
+            int rewritten = rewrite(a, b);
+            if (rewritten != -1) return rewritten;
+        }
+
+        long key = (long) a << 32 | b;
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) return gates[slot] << 1;
+            slot = (slot + 1) & mask;
+        }
+
+        int n = allocate();
+        lefts[n] = a;
+        rights[n] = b;
+        levels[n] = 1 + Math.max(levels[a >>> 1], levels[b >>> 1]);
+        keys[slot] = key;
+        gates[slot] = n;
+        if (++gateCount * 2 > keys.length) rehash();
+        return n << 1;
+    }
+
+    /* Rewriting */
+
+    // the literal of a two-level rewrite of a ∧ b, or -1 if no rule applies
+    private int rewrite(int a, int b) {
+        int result = rewriteOne(a, b);
+        if (result == -1) result = rewriteOne(b, a);
+        if (result != -1 || !isGate(a) || !isGate(b)) return result;
+
+        int al = lefts[a >>> 1], ar = rights[a >>> 1];
+        int bl = lefts[b >>> 1], br = rights[b >>> 1];
+        boolean aNegated = (a & 1) != 0, bNegated = (b & 1) != 0;
+        if (!aNegated && !bNegated) {
+            // (x ∧ y) ∧ (¬x ∧ z) = ⊥
+            if (al == (bl ^ 1) || al == (br ^ 1) || ar == (bl ^ 1) || ar == (br ^ 1)) return FALSE;
+        } else if (aNegated && bNegated) {
+            // ¬(x ∧ y) ∧ ¬(x ∧ ¬y) = ¬x
+            if (al == bl && ar == (br ^ 1)) return al ^ 1;
+            if (ar == br && al == (bl ^ 1)) return ar ^ 1;
+            if (al == br && ar == (bl ^ 1)) return al ^ 1;
+            if (ar == bl && al == (br ^ 1)) return ar ^ 1;
+        } else {
+            int positive = aNegated ? b : a, negative = aNegated ? a : b;
+            int pl = lefts[positive >>> 1], pr = rights[positive >>> 1];
+            int nl = lefts[negative >>> 1], nr = rights[negative >>> 1];
+            // (x ∧ y) ∧ ¬(¬x ∧ z) = x ∧ y
+            if (pl == (nl ^ 1) || pl == (nr ^ 1) || pr == (nl ^ 1) || pr == (nr ^ 1)) return positive;
+            // (x ∧ y) ∧ ¬(x ∧ z) = (x ∧ y) ∧ ¬z
+            if (nl == pl || nl == pr) return gate(positive, nr ^ 1);
+            if (nr == pl || nr == pr) return gate(positive, nl ^ 1);
+        }
+        return -1;
+    }
+
+    // rules of a gate and an operand
+    private int rewriteOne(int gate, int operand) {
+        if (!isGate(gate)) return -1;
+        int l = lefts[gate >>> 1], r = rights[gate >>> 1];
+        if ((gate & 1) == 0) {
+            // (x ∧ y) ∧ ¬x = ⊥, (x ∧ y) ∧ x = x ∧ y
+            if (operand == (l ^ 1) || operand == (r ^ 1)) return FALSE;
+            if (operand == l || operand == r) return gate;
+        } else {
+            // ¬(x ∧ y) ∧ ¬x = ¬x, ¬(x ∧ y) ∧ x = x ∧ ¬y
+            if (operand == (l ^ 1) || operand == (r ^ 1)) return operand;
+            if (operand == l) return gate(operand, r ^ 1);
+            if (operand == r) return gate(operand, l ^ 1);
+        }
+        return -1;
+    }
+
+    private boolean isGate(int literal) {
+        int n = literal >>> 1;
+        return n != 0 && lefts[n] != INPUT;
+    }
+
+    // the operands of the chain of gates below a gate, iteratively
+    private int collectLeaves(int root, int[] uses, int[] positiveUses) {
+        int size = 0;
+        int[] stack = new int[]{lefts[root], rights[root]};
+        int top = 2;
+        while (top > 0) {
+            int literal = stack[--top];
+            int n = literal >>> 1;
+            if ((literal & 1) == 0 && n != 0 && lefts[n] != INPUT && uses[n] == 1 && positiveUses[n] == 1) {
+                if (top + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+                stack[top++] = lefts[n];
+                stack[top++] = rights[n];
+            } else {
+                if (size == leaves.length) leaves = Arrays.copyOf(leaves, size * 2);
+                leaves[size++] = literal;
+            }
+        }
+        return size;
+    }
+
+    // the conjunction of literals, pairing the shallowest literals first
+    private int balance(int[] operands) {
+        // x and ¬x are next to each other once sorted
+        Arrays.sort(operands);
+        PriorityQueue<Long> queue = new PriorityQueue<>(operands.length);
+        for (int i = 0; i < operands.length; i++) {
+            if (i > 0 && operands[i] >>> 1 == operands[i - 1] >>> 1) {
+                if (operands[i] != operands[i - 1]) return FALSE;
+                continue;
+            }
+            queue.add((long) levels[operands[i] >>> 1] << 32 | operands[i]);
+        }
+        while (queue.size() > 1) {
+            int a = (int) (long) queue.poll();
+            int b = (int) (long) queue.poll();
+            int gate = gate(a, b);
+            if (gate == FALSE) return FALSE;
+            queue.add((long) levels[gate >>> 1] << 32 | gate);
+        }
+        return (int) (long) queue.poll();
+    }
+
+    /* Nodes */
+
+    private Node toNode(int literal, Node parent, int level) {
+        int n = literal >>> 1;
+        if (n == 0) {
+            String constant = literal == TRUE ? DefaultFactory.TRUE_ATOMS[0] : DefaultFactory.FALSE_ATOMS[0];
+            return new LocalAtom(level, parent, new Atom(constant));
+        }
+        boolean negated = (literal & 1) != 0;
+        if (lefts[n] == INPUT) {
+            if (!negated) return new LocalAtom(level, parent, new Atom(inputs.get(rights[n])));
+            SyntheticFormula negation = new SyntheticFormula(level, DefaultFactory.NEG, parent);
+            return negation.setChildren(toNode(literal ^ 1, negation, level + 1));
+        }
+
+        int l = lefts[n], r = rights[n];
+        if (negated && (l & 1) != 0 && (r & 1) != 0) {
+            // ¬(¬x ∧ ¬y) = x ∨ y
+            SyntheticFormula formula = new SyntheticFormula(level, DefaultFactory.OR, parent);
+            return formula.setChildren(toNode(l ^ 1, formula, level + 1), toNode(r ^ 1, formula, level + 1));
+        }
+        if (negated) {
+            SyntheticFormula negation = new SyntheticFormula(level, DefaultFactory.NEG, parent);
+            return negation.setChildren(toNode(literal ^ 1, negation, level + 1));
+        }
+        SyntheticFormula formula = new SyntheticFormula(level, DefaultFactory.AND, parent);
+        return formula.setChildren(toNode(l, formula, level + 1), toNode(r, formula, level + 1));
+    }
+
+    /* Internal */
+
+    // the operands of all nodes, for the simulator
+    int[] lefts() {
+        return lefts;
+    }
+
+    int[] rights() {
+        return rights;
+    }
+
+    private int allocate() {
+        if (nodeCount == MAX_NODES)
+            throw new IllegalStateException("Cannot create more than " + MAX_NODES + " AIG nodes!");
+        if (nodeCount == lefts.length) {
+            int capacity = (int) Math.min((long) lefts.length * 2, MAX_NODES);
+            lefts = Arrays.copyOf(lefts, capacity);
+            rights = Arrays.copyOf(rights, capacity);
+            levels = Arrays.copyOf(levels, capacity);
+        }
+        return nodeCount++;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldGates = gates;
+        keys = new long[oldKeys.length * 2];
+        gates = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0) continue;
+            int slot = hash(oldKeys[i]) & mask;
+            while (keys[slot] != 0) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            gates[slot] = oldGates[i];
+        }
+    }
+
+    private void checkLiteral(int literal) {
+        if (literal < 0 || (literal >>> 1) >= nodeCount)
+            throw new IllegalArgumentException("Cannot use the unknown literal " + literal + " of an AIG!");
+    }
+
+    private void checkNode(int node) {
+        if (node < 0 || node >= nodeCount)
+            throw new IllegalArgumentException("Cannot use the unknown node " + node + " of an AIG!");
+    }
+
+    private void checkGate(int node) {
+        if (!isAnd(node))
+            throw new IllegalArgumentException("Cannot get the operands of the node " + node + " that is not a gate!");
+    }
+
+    private static int hash(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+
+}
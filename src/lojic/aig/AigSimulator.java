@@ -0,0 +1,160 @@
+package lojic.aig;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * @author AlienIdeology
+ *
+ * A bit-parallel simulator of an {@link Aig}, which evaluates 64 assignments of the inputs at once
+ *
+ * Every input is given a random {@code long} word, whose bit {@code i} is the value of the input in the assignment
+ * {@code i}, and every gate is evaluated with one {@code AND} of the words of its operands. Only the gates that
+ * lead to the simulated literal are evaluated, so a literal of a large, shared graph is as fast to simulate
+ * as a literal of a graph of its own.
+ *
+ * Simulation cannot prove that a literal is constant, but a random assignment falsifies most formulas that are
+ * not tautologies, so it is a cheap filter before an exact check.
+ * @see lojic.engine.SimulationEngine
+ */
+public class AigSimulator {
+
+    private final Aig aig;
+    private final SplittableRandom random;
+
+    // the cone of the latest simulated node, which never changes since the nodes of a graph are never modified
+    private int coneRoot = -1;
+    private int[] cone;
+    private int[] coneInputs; // the inputs of the cone
+    private long[] coneValues;
+
+    /**
+     * Constructor of a simulator with a random seed
+     *
+     * @param aig The graph
+     */
+    public AigSimulator(Aig aig) {
+        this.aig = aig;
+        this.random = new SplittableRandom();
+    }
+
+    /**
+     * Constructor of a simulator with a seed, whose assignments are the same for every run
+     *
+     * @param aig The graph
+     * @param seed The seed of the random assignments
+     */
+    public AigSimulator(Aig aig, long seed) {
+        this.aig = aig;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Evaluate a literal for 64 assignments
+     * The cone of the latest literal is kept, so evaluating a literal for many words, one word at a time,
+     * only finds and sorts the cone once.
+     *
+     * @param literal The literal
+     * @param inputs The words of the inputs, indexed as {@link Aig#getAtoms()}
+     * @return The word of the literal
+     * @throws IllegalArgumentException if there are fewer words than inputs
+     */
+    public long simulate(int literal, long[] inputs) {
+        if (inputs.length < aig.getInputCount())
+            throw new IllegalArgumentException("Cannot simulate an AIG of " + aig.getInputCount() + " inputs with " + inputs.length + " words!");
+        if (literal >>> 1 != coneRoot) {
+            aig.getDepth(literal); // checks the literal
+            coneRoot = literal >>> 1;
+            cone = cone(coneRoot);
+            coneInputs = Arrays.stream(cone).filter(aig::isInput).toArray();
+            coneValues = new long[coneRoot + 1];
+        }
+
+        for (int n : coneInputs) {
+            coneValues[n] = inputs[aig.getInputIndex(n)];
+        }
+        return evaluate(literal, cone, coneValues);
+    }
+
+    /**
+     * Find an assignment of the inputs under which a literal has a value, with random simulation
+     * The search stops at the first word that contains such an assignment.
+     *
+     * @param literal The literal
+     * @param value The value
+     * @param words The number of words to simulate, which is {@code 64} assignments each
+     * @return The assignment of every input in the order of {@link Aig#getAtoms()}, in which inputs that do not affect
+     * the literal are {@code false}, or null if no assignment is found
+     */
+    public Map<String, Boolean> findAssignment(int literal, boolean value, int words) {
+        aig.getDepth(literal); // checks the literal
+        int[] cone = cone(literal >>> 1);
+        long[] values = new long[(literal >>> 1) + 1];
+
+        for (int w = 0; w < words; w++) {
+            for (int n : cone) {
+                if (aig.isInput(n)) values[n] = random.nextLong();
+            }
+            long word = evaluate(literal, cone, values);
+            long matches = value ? word : ~word;
+            if (matches != 0) return assignment(Long.numberOfTrailingZeros(matches), cone, values);
+        }
+        return null;
+    }
+
+    /* Internal */
+
+    // the gates and inputs that lead to a node, in topological order
+    private int[] cone(int root) {
+        int[] lefts = aig.lefts(), rights = aig.rights();
+        boolean[] marks = new boolean[root + 1];
+        int[] cone = new int[16];
+        int size = 0;
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int n = stack[--top];
+            if (n == 0 || marks[n]) continue;
+            marks[n] = true;
+            if (size == cone.length) cone = Arrays.copyOf(cone, size * 2);
+            cone[size++] = n;
+            if (aig.isAnd(n)) {
+                if (top + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+                stack[top++] = lefts[n] >>> 1;
+                stack[top++] = rights[n] >>> 1;
+            }
+        }
+        cone = Arrays.copyOf(cone, size);
+        Arrays.sort(cone);
+        return cone;
+    }
+
+    private long evaluate(int literal, int[] cone, long[] values) {
+        int[] lefts = aig.lefts(), rights = aig.rights();
+        for (int n : cone) {
+            int l = lefts[n];
+            if (l < 0) continue; // an input
+            int r = rights[n];
+            // a negated operand is the complement of its word
+            values[n] = (values[l >>> 1] ^ -(l & 1)) & (values[r >>> 1] ^ -(r & 1));
+        }
+        return values[literal >>> 1] ^ -(literal & 1);
+    }
+
+    private Map<String, Boolean> assignment(int bit, int[] cone, long[] values) {
+        List<String> atoms = aig.getAtoms();
+        boolean[] inputs = new boolean[atoms.size()];
+        for (int n : cone) {
+            if (aig.isInput(n)) inputs[aig.getInputIndex(n)] = (values[n] >>> bit & 1) != 0;
+        }
+
+        Map<String, Boolean> assignment = new LinkedHashMap<>();
+        for (int i = 0; i < inputs.length; i++) assignment.put(atoms.get(i), inputs[i]);
+        return assignment;
+    }
+
+}
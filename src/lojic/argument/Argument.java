@@ -3,13 +3,18 @@ package lojic.argument;
 import lojic.DefaultFactory;
 import lojic.argument.inference_rule.InferenceRule;
 import lojic.argument.inference_rule.PremiseIR;
+import lojic.engine.ArgumentSession;
+import lojic.engine.Backbone;
+import lojic.engine.Engine;
 import lojic.nodes.Node;
 import lojic.nodes.connectives.BinaryConnective;
 import lojic.nodes.connectives.Connective;
 import lojic.parser.LojicParser;
 import lojic.parser.SyntaxException;
 import lojic.table.TTableBuilder;
+import lojic.table.TruthTable;
 
+import java.lang.ref.SoftReference;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
@@ -51,6 +56,10 @@ public class Argument {
 
     private final LojicParser parser;
     private TTableBuilder tableBuilder;
+    private Engine engine;
+    // of the last corresponding conditional, reused by the next buildTruthTable() and held softly,
+    // so that the memory of a large table can be reclaimed
+    private SoftReference<TruthTable> lastTable;
 
     // TODO: Merge premises and proofs list
     private List<Line> lines;
@@ -78,6 +87,7 @@ public class Argument {
         Objects.requireNonNull(parser, "The LojicParser for the argument cannot be null!");
         this.parser = parser;
         this.tableBuilder = new TTableBuilder();
+        this.engine = DefaultFactory.ENGINE_PLANNER;
         this.lines = new ArrayList<>();
     }
 
@@ -89,8 +99,24 @@ public class Argument {
      * @throws NullPointerException if the setting is null
      */
     public Argument setTableBuilder(TTableBuilder tableBuilder) {
-        Objects.requireNonNull(parser, "The TTableSetting for the argument cannot be null!");
+        Objects.requireNonNull(tableBuilder, "The TTableSetting for the argument cannot be null!");
         this.tableBuilder = tableBuilder;
+        this.lastTable = null;
+        return this;
+    }
+
+    /**
+     * Set the {@link Engine} which this Argument uses to check for semantic validity
+     * @see DefaultFactory for the default engines
+     *
+     * @param engine The engine
+     * @return This argument for method chaining
+     * @throws NullPointerException if the engine is null
+     */
+    public Argument setEngine(Engine engine) {
+        Objects.requireNonNull(engine, "The engine for the argument cannot be null!");
+        this.engine = engine;
+        this.lastTable = null;
         return this;
     }
 
@@ -367,6 +393,7 @@ public class Argument {
         });
 
         this.lines.removeAll(toBeRemoved);
+        this.lastTable = null;
         return this;
     }
 
@@ -417,6 +444,16 @@ public class Argument {
         return tableBuilder;
     }
 
+    /**
+     * Get the {@link Engine} used to check for semantic validity,
+     * which is {@link DefaultFactory#ENGINE_PLANNER} by default.
+     *
+     * @return The engine
+     */
+    public Engine getEngine() {
+        return engine;
+    }
+
     /**
      * Get a list of {@link Line} in this argument
      *
@@ -481,6 +518,10 @@ public class Argument {
      * This method does not check the provability of the conclusion from premises and lines of proofs, so no
      * {@link InferenceException} will be thrown. For checking syntactic validity, see {@link #checkProvability()}.
      *
+     * The validity is checked with this argument's {@link Engine}, which plans the check by default, and builds the
+     * truth table of the corresponding conditional for small arguments (See {@link #buildTruthTable()}).
+     * @see #setEngine(Engine) for checking with another engine
+     *
      * @return True if the root is never false given that the premises are true
      * @throws UnsupportedOperationException if no conclusions are registered in this argument. See {@link #getConclusion()}
      *                                      for what instances has conclusions
@@ -489,6 +530,105 @@ public class Argument {
         if (getConclusion() == null)
             throw new UnsupportedOperationException("Cannot compute the semantic validity of an argument when it lacks a conclusion!");
 
+        return engine.isValid(this);
+    }
+
+    /**
+     * Find a counterexample of this argument, which makes the lines other than the conclusion true,
+     * and the conclusion false
+     * The counterexample is found by this argument's {@link Engine} in the search that decides the validity,
+     * so finding it costs no more than {@link #isValid()}.
+     * @see Engine#findCounterexample(Argument)
+     *
+     * @return The counterexample, or null if this argument is valid
+     * @throws UnsupportedOperationException if no conclusions are registered in this argument,
+     * or the logic of this argument is three-valued
+     */
+    public Counterexample findCounterexample() {
+        if (getConclusion() == null)
+            throw new UnsupportedOperationException("Cannot find a counterexample of an argument when it lacks a conclusion!");
+
+        Map<String, Boolean> assignment = engine.findCounterexample(this);
+        return assignment == null ? null : new Counterexample(this, assignment);
+    }
+
+    /**
+     * Find a minimal subset of the premises of this argument that entails its conclusion
+     * No premise can be removed from the subset without losing the entailment, but a smaller subset may exist.
+     * @see ArgumentSession#findMinimalPremises(int...) for minimizing many subsets of the same premises
+     *
+     * @return The line numbers of the subset in ascending order, or null if this argument is not valid
+     * @throws UnsupportedOperationException if this argument lacks a conclusion, or its logic is three-valued
+     */
+    public int[] findMinimalPremises() {
+        return new ArgumentSession(this).findMinimalPremises();
+    }
+
+    /**
+     * Find a minimal subset of the premises of this argument that cannot be true at the same time,
+     * which is a minimal unsatisfiable subset (MUS) of the premises
+     * The premises are the lines other than the conclusion, or all lines if this argument lacks a conclusion.
+     * @see ArgumentSession#findMinimalConflict(int...) for minimizing many subsets of the same premises
+     *
+     * @return The line numbers of the subset in ascending order, or null if the premises are consistent
+     * @throws UnsupportedOperationException if the logic of this argument is three-valued
+     */
+    public int[] findMinimalConflict() {
+        return new ArgumentSession(this).findMinimalConflict();
+    }
+
+    /**
+     * Get the backbone of the premises of this argument, which is the atoms that have the same value
+     * whenever all premises are true
+     * The premises are the lines other than the conclusion, or all lines if this argument lacks a conclusion.
+     * @see Backbone for how the backbone is found and cached
+     *
+     * @return The unmodifiable map of the atoms in the backbone to their values,
+     * or null if the premises are never all true
+     * @throws UnsupportedOperationException if the logic of this argument is three-valued
+     */
+    public Map<String, Boolean> backbone() {
+        return Backbone.of(this);
+    }
+
+    /**
+     * Build the {@link TruthTable} of the corresponding conditional of this argument,
+     * which is {@code (A ∧ B ∧ ...) → Z} for the premises {@code A, B, ...} and the conclusion {@code Z}.
+     * The argument is valid if the root column of the table is a tautology.
+     *
+     * The columns of the table built by the previous invocation are reused, since premises are often added one at a time.
+     * The previous table is forgotten when lines are removed, or when the {@link TTableBuilder} or the {@link Engine}
+     * is set, and it may be reclaimed by the garbage collector at any time.
+     *
+     * @return The truth table
+     * @throws UnsupportedOperationException if no conclusions are registered in this argument
+     * @throws lojic.table.BuildException if the table exceeds the budget of this argument's {@link TTableBuilder},
+     * or the build is interrupted or cancelled
+     */
+    public TruthTable buildTruthTable() {
+        if (getConclusion() == null)
+            throw new UnsupportedOperationException("Cannot build the truth table of an argument when it lacks a conclusion!");
+
+        Node node = buildConditional();
+        TruthTable previous = lastTable == null ? null : lastTable.get();
+        TruthTable table = previous == null ? node.getTableBuilder().build() : node.getTableBuilder().build(previous);
+        lastTable = new SoftReference<>(table);
+        return table;
+    }
+
+    /**
+     * Build the corresponding conditional of this argument,
+     * which is {@code (A ∧ B ∧ ...) → Z} for the premises {@code A, B, ...} and the conclusion {@code Z}.
+     * The argument is valid if the conditional is a tautology, and the node has the settings of this argument's
+     * {@link TTableBuilder}.
+     *
+     * @return The node of the conditional
+     * @throws UnsupportedOperationException if no conclusions are registered in this argument
+     */
+    public Node buildConditional() {
+        if (getConclusion() == null)
+            throw new UnsupportedOperationException("Cannot build the conditional of an argument when it lacks a conclusion!");
+
         // Corresponding Conditional
         // Premises : {A, B...}, Conclusion: Z
         // If the argument is valid, then (A & B & C...) -> Z must be true
@@ -534,16 +674,16 @@ public class Argument {
         }
 
         // Premises
-        if (!lines.isEmpty()) {
+        if (lines.size() > 1) {
             corrCon.append("(");
-            Line lastP = lines.get(lines.size() - 1);
             for (int i = 0; i < lines.size()-1; i++) {
                 Line prem = lines.get(i);
                 linecount++;
                 tracker.put(corrCon.length() + 2, linecount);
                 corrCon.append("(").append(prem).append(")");
 
-                if (!prem.toString().equals(lastP.toString()))
+                // the last line is the conclusion
+                if (i < lines.size() - 2)
                     corrCon.append(and.getOfficialSymbol());
             }
             corrCon.append(")")
@@ -566,10 +706,8 @@ public class Argument {
         if (setImpl)
             parser.removeConnectives(impl);
 
-        return node.getTableBuilder()
-                .copySetting(tableBuilder)
-                .build()
-                .rootIsTautology();
+        node.getTableBuilder().copySetting(tableBuilder);
+        return node;
 
          /*
          Old code. above parsing will never meet SyntaxException due to lines of proofs already being checked for syntax
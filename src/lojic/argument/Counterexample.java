@@ -0,0 +1,141 @@
+package lojic.argument;
+
+import lojic.nodes.Formula;
+import lojic.nodes.Node;
+import lojic.table.TTableBuilder;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author AlienIdeology
+ *
+ * A counterexample of an {@link Argument}, which is an assignment of the atoms under which the lines other than
+ * the conclusion are true, and the conclusion is false
+ *
+ * The assignment is the one that the argument's {@link lojic.engine.Engine} found while checking the argument,
+ * completed with {@code false} for the atoms that the engine left out. The value of every line is evaluated
+ * under the assignment, so the counterexample can be shown next to the lines (See {@link #print()}).
+ * @see Argument#findCounterexample()
+ */
+public class Counterexample {
+
+    private final Argument argument;
+    private final Map<String, Boolean> assignment;
+    private final boolean[] values; // per line
+
+    /**
+     * Constructor of a counterexample
+     * This constructor is for the Lojic library's internal use only, users should ignore this
+     * @see Argument#findCounterexample() for finding a counterexample
+     *
+     * @param argument The argument
+     * @param assignment The assignment found by an engine
+     */
+    Counterexample(Argument argument, Map<String, Boolean> assignment) {
+        this.argument = argument;
+        TTableBuilder settings = argument.getTableBuilder();
+        List<Line> lines = argument.getLines();
+
+        Map<String, Boolean> complete = new LinkedHashMap<>();
+        this.values = new boolean[lines.size()];
+        for (int i = 0; i < values.length; i++) {
+            Map<Node, Boolean> nodeValues = new IdentityHashMap<>();
+            // children are visited before their parents
+            lines.get(i).getNode().climb().forEach(n -> nodeValues.put(n, n.isFormula()
+                    ? evaluate((Formula) n, nodeValues)
+                    : evaluate(n.getString(), settings, assignment, complete)));
+            values[i] = nodeValues.get(lines.get(i).getNode());
+        }
+        this.assignment = Collections.unmodifiableMap(complete);
+    }
+
+    /**
+     * Get the argument of this counterexample
+     *
+     * @return The argument
+     */
+    public Argument getArgument() {
+        return argument;
+    }
+
+    /**
+     * Get the assignment of this counterexample
+     * True/False atoms are not in the assignment.
+     *
+     * @return The unmodifiable map of every atom of the argument to its value, in the order which the atoms appear
+     */
+    public Map<String, Boolean> getAssignment() {
+        return assignment;
+    }
+
+    /**
+     * Get the value of a line under the assignment of this counterexample,
+     * which is {@code true} for the lines other than the conclusion, and {@code false} for the conclusion
+     *
+     * @param lineNum The line number, starting from {@code 1}
+     * @return The value of the line
+     * @throws IndexOutOfBoundsException if the line number is out of range
+     */
+    public boolean getValue(int lineNum) {
+        if (lineNum < 1 || lineNum > values.length)
+            throw new IndexOutOfBoundsException("Cannot get the value of the line " + lineNum + "!");
+        return values[lineNum - 1];
+    }
+
+    /**
+     * Get the values of every line under the assignment of this counterexample
+     *
+     * @return The values, indexed by the line numbers minus {@code 1}
+     */
+    public boolean[] getValues() {
+        return values.clone();
+    }
+
+    /**
+     * Get the string representation of this counterexample, which is the assignment
+     * followed by the lines of the argument and their values
+     *
+     * @return The string representation
+     */
+    public String print() {
+        StringBuilder builder = new StringBuilder();
+        assignment.forEach((atom, value) -> builder.append(atom).append(" = ").append(tfChar(value)).append("\n"));
+        List<Line> lines = argument.getLines();
+        for (int i = 0; i < values.length; i++) {
+            builder.append(i + 1).append(". ").append(lines.get(i)).append("    ").append(tfChar(values[i])).append("\n");
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "Counterexample{" +
+                "assignment=" + assignment +
+                "}";
+    }
+
+    /* Internal */
+
+    private static boolean evaluate(Formula formula, Map<Node, Boolean> nodeValues) {
+        Node[] children = formula.getChildren();
+        return formula.getConnective().isUnary()
+                ? formula.getConnective().computeTruth(nodeValues.get(children[0]))
+                : formula.getConnective().computeTruth(nodeValues.get(children[0]), nodeValues.get(children[1]));
+    }
+
+    private static boolean evaluate(String atom, TTableBuilder settings,
+                                    Map<String, Boolean> assignment, Map<String, Boolean> complete) {
+        if (settings.isTAtom(atom)) return true;
+        if (settings.isFAtom(atom)) return false;
+        return complete.computeIfAbsent(atom, a -> assignment.getOrDefault(a, false));
+    }
+
+    private static char tfChar(boolean value) {
+        return value ? 'T' : 'F';
+    }
+
+}
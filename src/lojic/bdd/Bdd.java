@@ -0,0 +1,214 @@
+package lojic.bdd;
+
+import lojic.DefaultFactory;
+import lojic.nodes.connectives.Connective;
+
+import java.math.BigInteger;
+import java.util.Map;
+
+/**
+ * @author AlienIdeology
+ *
+ * A reduced ordered binary decision diagram, which is an edge into the nodes of a {@link BddManager}
+ *
+ * A BDD is immutable, and operations return new BDDs of the same manager. Since BDDs are canonical,
+ * tautology, contradiction and equivalence are checked in constant time, and counting models and restricting
+ * atoms take time linear in the size of the BDD.
+ * @see lojic.nodes.Node#toBdd() for building a BDD
+ */
+public final class Bdd {
+
+    final BddManager manager;
+    final int edge;
+
+    /**
+     * Constructor of a BDD
+     * This constructor is for the Lojic library's internal use only, users should ignore this
+     * @see BddManager for building BDDs
+     *
+     * @param manager The manager of the nodes
+     * @param edge The edge of the root node
+     */
+    Bdd(BddManager manager, int edge) {
+        this.manager = manager;
+        this.edge = edge;
+    }
+
+    /**
+     * Get the manager of this BDD
+     *
+     * @return The manager
+     */
+    public BddManager getManager() {
+        return manager;
+    }
+
+    /**
+     * Get the negation of this BDD, in constant time
+     *
+     * @return The BDD
+     */
+    public Bdd not() {
+        return manager.handle(edge ^ 1);
+    }
+
+    /**
+     * Get the conjunction of this BDD and another BDD
+     *
+     * @param other The other BDD
+     * @return The BDD
+     * @throws IllegalArgumentException if the BDDs are of different managers
+     */
+    public Bdd and(Bdd other) {
+        return apply(DefaultFactory.AND, other);
+    }
+
+    /**
+     * Get the disjunction of this BDD and another BDD
+     *
+     * @param other The other BDD
+     * @return The BDD
+     * @throws IllegalArgumentException if the BDDs are of different managers
+     */
+    public Bdd or(Bdd other) {
+        return apply(DefaultFactory.OR, other);
+    }
+
+    /**
+     * Get the exclusive disjunction of this BDD and another BDD
+     *
+     * @param other The other BDD
+     * @return The BDD
+     * @throws IllegalArgumentException if the BDDs are of different managers
+     */
+    public Bdd xor(Bdd other) {
+        return apply(DefaultFactory.XOR, other);
+    }
+
+    /**
+     * Get the conditional of this BDD (the antecedent) and another BDD (the consequent)
+     *
+     * @param other The other BDD
+     * @return The BDD
+     * @throws IllegalArgumentException if the BDDs are of different managers
+     */
+    public Bdd implies(Bdd other) {
+        return apply(DefaultFactory.IF, other);
+    }
+
+    /**
+     * Get the biconditional of this BDD and another BDD
+     *
+     * @param other The other BDD
+     * @return The BDD
+     * @throws IllegalArgumentException if the BDDs are of different managers
+     */
+    public Bdd iff(Bdd other) {
+        return apply(DefaultFactory.IFF, other);
+    }
+
+    /**
+     * Apply a connective to this BDD (the left operand) and another BDD (the right operand)
+     * @see Connective#getTruthCode()
+     *
+     * @param connective The connective
+     * @param other The other BDD, which is ignored if the connective is unary
+     * @return The BDD
+     * @throws IllegalArgumentException if the BDDs are of different managers
+     */
+    public Bdd apply(Connective connective, Bdd other) {
+        if (connective.isUnary()) return manager.handle(BddManager.unary(connective.getTruthCode(), edge));
+        return manager.apply(connective.getTruthCode(), this, other);
+    }
+
+    /**
+     * Restrict an atom of this BDD to a value
+     *
+     * @param atom The string of the atom
+     * @param value The value of the atom
+     * @return The BDD, which is this BDD if the atom is not a variable of the manager
+     */
+    public Bdd restrict(String atom, boolean value) {
+        return manager.restrict(this, atom, value);
+    }
+
+    /**
+     * Check if this BDD is always {@code true}
+     *
+     * @return True if this BDD is a tautology
+     */
+    public boolean isTautology() {
+        return edge == BddManager.TRUE;
+    }
+
+    /**
+     * Check if this BDD is always {@code false}
+     *
+     * @return True if this BDD is a contradiction
+     */
+    public boolean isContradiction() {
+        return edge == BddManager.FALSE;
+    }
+
+    /**
+     * Check if this BDD has the same value as another BDD under every assignment
+     *
+     * @param other The other BDD
+     * @return True if the BDDs are equivalent
+     * @throws IllegalArgumentException if the BDDs are of different managers
+     */
+    public boolean isEquivalent(Bdd other) {
+        manager.check(other);
+        return edge == other.edge;
+    }
+
+    /**
+     * Count the assignments of all variables of the manager that make this BDD {@code true}
+     * A BDD built by {@link lojic.nodes.Node#toBdd()} has a manager of its own, whose variables are the atoms
+     * of the node.
+     *
+     * @return The number of models
+     */
+    public BigInteger satCount() {
+        return manager.satCount(this);
+    }
+
+    /**
+     * Find an assignment that makes this BDD {@code true}, by following one path from the root to the terminal
+     * Variables that are not on the path can have either value, and are left out of the assignment.
+     *
+     * @return The assignment of the variables on the path in the order of the manager,
+     * or null if this BDD is a contradiction
+     */
+    public Map<String, Boolean> anySat() {
+        return manager.anySat(this);
+    }
+
+    /**
+     * Get the number of nodes of this BDD, including the terminal node
+     *
+     * @return The number of nodes
+     */
+    public int getNodeCount() {
+        return manager.size(this);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Bdd && ((Bdd) obj).manager == manager && ((Bdd) obj).edge == edge;
+    }
+
+    @Override
+    public int hashCode() {
+        return edge;
+    }
+
+    @Override
+    public String toString() {
+        return "Bdd{" +
+                "edge=" + edge +
+                ", nodes=" + getNodeCount() +
+                "}";
+    }
+
+}
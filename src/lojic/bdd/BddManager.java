@@ -0,0 +1,563 @@
+package lojic.bdd;
+
+import lojic.nodes.Formula;
+import lojic.nodes.Node;
+import lojic.nodes.connectives.Connective;
+import lojic.table.TTableBuilder;
+
+import java.lang.ref.WeakReference;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+/**
+ * @author AlienIdeology
+ *
+ * A manager of reduced ordered binary decision diagrams ({@link Bdd}s)
+ *
+ * Every BDD of a manager shares the nodes of the manager, and nodes are hash-consed in a unique table, so two
+ * BDDs are equivalent exactly when they are the same node. Edges may be complemented, which negates a BDD
+ * in constant time and lets a function and its negation share all of their nodes.
+ * Results of operations are kept in a computed table, so every pair of nodes is combined at most once
+ * by an operation, and an operation takes time linear in the product of the sizes of its operands at most.
+ *
+ * The variables are ordered by the order which their atoms are added, either by {@link #atom(String)}
+ * or by building {@link Node}s. The size of a BDD depends heavily on this order, so atoms that are related
+ * should be added close to each other.
+ *
+ * Nodes that are not reachable from any {@link Bdd} in use are dead, and they are collected when the manager
+ * runs out of room, or by {@link #collectGarbage()}.
+ *
+ * An operation stops with a {@link CancellationException} soon after its thread is interrupted. The BDDs that have
+ * been built are still valid, and the nodes of the stopped operation are dead.
+ */
+public class BddManager {
+
+    static final int TRUE = 0, FALSE = 1;
+
+    private static final int TERMINAL = Integer.MAX_VALUE; // the variable of the terminal, below every variable
+    private static final int FREE = -1; // the variable of a free node
+    private static final int MAX_NODES = 1 << 30;
+
+    private static final int AND = 1, XOR = 2, RESTRICT = 3;
+    private static final int CHECK_MASK = (1 << 14) - 1; // the interrupted status is checked every 2^14 nodes
+
+    private final Map<String, Integer> atoms;
+    private final List<String> variables;
+
+    // nodes, node 0 is the terminal; an edge is (node << 1) | complement
+    private int[] vars;
+    private int[] lows;
+    private int[] highs; // never complemented
+    private int[] next; // the next node of the same bucket, or of the free list
+    private int top; // the largest node that has been used
+    private int free; // the first free node, 0 if there is none
+    private int nodeCount;
+    private int[] buckets;
+
+    // computed table, direct-mapped
+    private int[] cacheOps;
+    private int[] cacheFs;
+    private int[] cacheGs;
+    private int[] cacheResults;
+
+    private final List<WeakReference<Bdd>> handles;
+    private int handleLimit; // the number of handles at which cleared handles are removed
+    private int threshold; // the number of nodes at which dead nodes are collected
+    private int collections;
+
+    /**
+     * Constructor of an empty manager
+     */
+    public BddManager() {
+        this.atoms = new HashMap<>();
+        this.variables = new ArrayList<>();
+        this.vars = new int[1024];
+        this.lows = new int[1024];
+        this.highs = new int[1024];
+        this.next = new int[1024];
+        this.vars[0] = TERMINAL;
+        this.buckets = new int[1024];
+        this.cacheOps = new int[4096];
+        this.cacheFs = new int[4096];
+        this.cacheGs = new int[4096];
+        this.cacheResults = new int[4096];
+        this.handles = new ArrayList<>();
+        this.handleLimit = 1024;
+        this.threshold = 1 << 18;
+    }
+
+    /**
+     * Build the BDD of a node
+     * True/False atoms are recognized with the settings of the node's {@link TTableBuilder}.
+     *
+     * @param node The node
+     * @return The BDD
+     * @throws UnsupportedOperationException if the node's logic is three-valued
+     */
+    public Bdd build(Node node) {
+        return build(node, node.getTableBuilder());
+    }
+
+    /**
+     * Build the BDD of a node
+     * Atoms that are not yet variables of this manager are added after the existing variables,
+     * in the order which they appear in the node.
+     *
+     * @param node The node
+     * @param settings The settings that recognize True/False atoms
+     * @return The BDD
+     * @throws UnsupportedOperationException if the logic of the settings is three-valued
+     */
+    public Bdd build(Node node, TTableBuilder settings) {
+        if (settings.getLogic().isThreeValued())
+            throw new UnsupportedOperationException("Cannot build a BDD with the three-valued logic " + settings.getLogic() + "!");
+        collectIfFull();
+
+        Map<Node, Integer> edges = new IdentityHashMap<>();
+        // children are visited before their parents
+        node.climb().forEach(n -> edges.put(n, n.isFormula()
+                ? buildFormula((Formula) n, edges)
+                : buildAtom(n.getString(), settings)));
+        return handle(edges.get(node));
+    }
+
+    /**
+     * Get the BDD of an atom, which adds the atom as the last variable if it is not yet a variable
+     *
+     * @param atom The string of the atom
+     * @return The BDD that is true exactly when the atom is true
+     */
+    public Bdd atom(String atom) {
+        collectIfFull();
+        return handle(variable(atom));
+    }
+
+    /**
+     * Get the BDD that is always {@code true}
+     *
+     * @return The BDD
+     */
+    public Bdd getTrue() {
+        return handle(TRUE);
+    }
+
+    /**
+     * Get the BDD that is always {@code false}
+     *
+     * @return The BDD
+     */
+    public Bdd getFalse() {
+        return handle(FALSE);
+    }
+
+    /**
+     * Get the atoms of the variables, in the order of the variables
+     *
+     * @return The list of atom strings
+     */
+    public List<String> getAtoms() {
+        return Collections.unmodifiableList(variables);
+    }
+
+    /**
+     * Get the number of variables
+     *
+     * @return The number of variables
+     */
+    public int getVariableCount() {
+        return variables.size();
+    }
+
+    /**
+     * Get the number of nodes in the unique table, including dead nodes that are not yet collected
+     *
+     * @return The number of nodes
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Get the number of times which dead nodes have been collected
+     *
+     * @return The number of collections
+     */
+    public int getCollections() {
+        return collections;
+    }
+
+    /**
+     * Collect the nodes that are not reachable from any {@link Bdd} in use
+     * This also clears the computed table.
+     *
+     * @return The number of nodes collected
+     */
+    public int collectGarbage() {
+        BitSet marks = new BitSet(top + 1);
+        int[] stack = new int[64];
+        handles.removeIf(handle -> handle.get() == null);
+        for (WeakReference<Bdd> handle : handles) {
+            Bdd bdd = handle.get();
+            if (bdd != null) stack = mark(bdd.edge >>> 1, marks, stack);
+        }
+
+        // sweep, and rebuild the unique table and the free list
+        Arrays.fill(buckets, 0);
+        free = 0;
+        int collected = 0;
+        for (int n = top; n > 0; n--) {
+            if (marks.get(n)) {
+                int slot = hash(vars[n], lows[n], highs[n]) & (buckets.length - 1);
+                next[n] = buckets[slot];
+                buckets[slot] = n;
+            } else {
+                if (vars[n] != FREE) collected++;
+                vars[n] = FREE;
+                next[n] = free;
+                free = n;
+            }
+        }
+        nodeCount -= collected;
+        Arrays.fill(cacheOps, 0);
+        collections++;
+        return collected;
+    }
+
+    @Override
+    public String toString() {
+        return "BddManager{" +
+                "variables=" + variables.size() +
+                ", nodes=" + nodeCount +
+                "}";
+    }
+
+    /* Operations for Bdd */
+
+    Bdd handle(int edge) {
+        Bdd bdd = new Bdd(this, edge);
+        if (edge > FALSE) {
+            if (handles.size() == handleLimit) {
+                handles.removeIf(handle -> handle.get() == null);
+                handleLimit = Math.max(1024, handles.size() * 2);
+            }
+            handles.add(new WeakReference<>(bdd));
+        }
+        return bdd;
+    }
+
+    Bdd apply(int code, Bdd f, Bdd g) {
+        check(f);
+        check(g);
+        collectIfFull();
+        return handle(binary(code, f.edge, g.edge));
+    }
+
+    Bdd restrict(Bdd f, String atom, boolean value) {
+        check(f);
+        Integer variable = atoms.get(atom);
+        if (variable == null) return f;
+        collectIfFull();
+        return handle(restrict(f.edge, variable, value));
+    }
+
+    BigInteger satCount(Bdd f) {
+        check(f);
+        int edge = f.edge;
+        return count(edge, new HashMap<>()).shiftLeft(level(edge));
+    }
+
+    Map<String, Boolean> anySat(Bdd f) {
+        check(f);
+        if (f.edge == FALSE) return null;
+        Map<String, Boolean> assignment = new LinkedHashMap<>();
+        // every edge other than FALSE leads to TRUE, since the BDD is reduced
+        for (int edge = f.edge; edge != TRUE; ) {
+            int n = edge >>> 1;
+            int low = lows[n] ^ (edge & 1);
+            assignment.put(variables.get(vars[n]), low == FALSE);
+            edge = low == FALSE ? highs[n] ^ (edge & 1) : low;
+        }
+        return assignment;
+    }
+
+    int size(Bdd f) {
+        check(f);
+        BitSet marks = new BitSet(top + 1);
+        mark(f.edge >>> 1, marks, new int[64]);
+        return marks.cardinality() + 1;
+    }
+
+    void check(Bdd bdd) {
+        if (bdd.manager != this)
+            throw new IllegalArgumentException("Cannot combine BDDs of different managers!");
+    }
+
+    /* Building */
+
+    private int buildAtom(String atom, TTableBuilder settings) {
+        if (settings.isTAtom(atom)) return TRUE;
+        if (settings.isFAtom(atom)) return FALSE;
+        return variable(atom);
+    }
+
+    private int buildFormula(Formula formula, Map<Node, Integer> edges) {
+        Connective connective = formula.getConnective();
+        Node[] children = formula.getChildren();
+        if (connective.isUnary()) {
+            return unary(connective.getTruthCode(), edges.get(children[0]));
+        }
+        return binary(connective.getTruthCode(), edges.get(children[0]), edges.get(children[1]));
+    }
+
+    private int variable(String atom) {
+        Integer variable = atoms.get(atom);
+        if (variable == null) {
+            variable = variables.size();
+            atoms.put(atom, variable);
+            variables.add(atom);
+        }
+        return make(variable, FALSE, TRUE);
+    }
+
+    // bit r of the code is the value of the function when the edge has the value r
+    static int unary(int code, int f) {
+        switch (code & 0b11) {
+            case 0b00: return FALSE;
+            case 0b11: return TRUE;
+            case 0b10: return f;
+            default: return f ^ 1;
+        }
+    }
+
+    // bit (l << 1) | r of the code is the value of the function when the edges have the values l and r
+    int binary(int code, int f, int g) {
+        int ones = Integer.bitCount(code & 0b1111);
+        if (ones == 0) return FALSE;
+        if (ones == 4) return TRUE;
+        if (ones == 1 || ones == 3) {
+            // one true (or false) row: the conjunction of the operands that take the values of that row
+            int row = Integer.numberOfTrailingZeros(ones == 1 ? code : ~code);
+            int result = and((row & 0b10) != 0 ? f : f ^ 1, (row & 0b01) != 0 ? g : g ^ 1);
+            return ones == 1 ? result : result ^ 1;
+        }
+        switch (code & 0b1111) {
+            case 0b1100: return f;
+            case 0b0011: return f ^ 1;
+            case 0b1010: return g;
+            case 0b0101: return g ^ 1;
+            case 0b0110: return xor(f, g);
+            default: return xor(f, g) ^ 1;
+        }
+    }
+
+    /* Algorithms */
+
+    private int and(int f, int g) {
+        if (f == g || g == TRUE) return f;
+        if (f == TRUE) return g;
+        if (f == (g ^ 1) || f == FALSE || g == FALSE) return FALSE;
+        if (f > g) {
+            int swap = f;
+            f = g;
+            g = swap;
+        }
+
+        int slot = cacheSlot(AND, f, g);
+        if (cacheOps[slot] == AND && cacheFs[slot] == f && cacheGs[slot] == g) return cacheResults[slot];
+
+        int v = Math.min(vars[f >>> 1], vars[g >>> 1]);
+        int low = and(low(f, v), low(g, v));
+        int high = and(high(f, v), high(g, v));
+        int result = make(v, low, high);
+        cache(slot, AND, f, g, result);
+        return result;
+    }
+
+    private int xor(int f, int g) {
+        if (f == g) return FALSE;
+        if (f == (g ^ 1)) return TRUE;
+        if (f == FALSE) return g;
+        if (g == FALSE) return f;
+        if (f == TRUE) return g ^ 1;
+        if (g == TRUE) return f ^ 1;
+
+        // the complements of the operands complement the result
+        int complement = (f ^ g) & 1;
+        f &= ~1;
+        g &= ~1;
+        if (f > g) {
+            int swap = f;
+            f = g;
+            g = swap;
+        }
+
+        int slot = cacheSlot(XOR, f, g);
+        if (cacheOps[slot] == XOR && cacheFs[slot] == f && cacheGs[slot] == g) return cacheResults[slot] ^ complement;
+
+        int v = Math.min(vars[f >>> 1], vars[g >>> 1]);
+        int low = xor(low(f, v), low(g, v));
+        int high = xor(high(f, v), high(g, v));
+        int result = make(v, low, high);
+        cache(slot, XOR, f, g, result);
+        return result ^ complement;
+    }
+
+    private int restrict(int f, int variable, boolean value) {
+        int n = f >>> 1;
+        if (vars[n] > variable) return f;
+        int complement = f & 1;
+        if (vars[n] == variable) return (value ? highs[n] : lows[n]) ^ complement;
+
+        int key = variable << 1 | (value ? 1 : 0);
+        int regular = f & ~1;
+        int slot = cacheSlot(RESTRICT, regular, key);
+        if (cacheOps[slot] == RESTRICT && cacheFs[slot] == regular && cacheGs[slot] == key) return cacheResults[slot] ^ complement;
+
+        int low = restrict(lows[n], variable, value);
+        int high = restrict(highs[n], variable, value);
+        int result = make(vars[n], low, high);
+        cache(slot, RESTRICT, regular, key, result);
+        return result ^ complement;
+    }
+
+    // the number of models over the variables from the variable of the edge to the last variable
+    private BigInteger count(int f, Map<Integer, BigInteger> counts) {
+        if (f == TRUE) return BigInteger.ONE;
+        if (f == FALSE) return BigInteger.ZERO;
+
+        int n = f >>> 1;
+        BigInteger count = counts.get(n);
+        if (count == null) {
+            int level = vars[n];
+            count = count(lows[n], counts).shiftLeft(level(lows[n]) - level - 1)
+                    .add(count(highs[n], counts).shiftLeft(level(highs[n]) - level - 1));
+            counts.put(n, count);
+        }
+        return (f & 1) == 0 ? count : BigInteger.ONE.shiftLeft(variables.size() - vars[n]).subtract(count);
+    }
+
+    private int level(int f) {
+        int v = vars[f >>> 1];
+        return v == TERMINAL ? variables.size() : v;
+    }
+
+    private int low(int f, int v) {
+        int n = f >>> 1;
+        return vars[n] == v ? lows[n] ^ (f & 1) : f;
+    }
+
+    private int high(int f, int v) {
+        int n = f >>> 1;
+        return vars[n] == v ? highs[n] ^ (f & 1) : f;
+    }
+
+    /* Unique Table */
+
+    private int make(int v, int low, int high) {
+        if (low == high) return low;
+        // the high edge is never complemented, so every function has one representation
+        int complement = high & 1;
+        low ^= complement;
+        high ^= complement;
+
+        int slot = hash(v, low, high) & (buckets.length - 1);
+        for (int n = buckets[slot]; n != 0; n = next[n]) {
+            if (vars[n] == v && lows[n] == low && highs[n] == high) return n << 1 | complement;
+        }
+
+        if ((nodeCount & CHECK_MASK) == 0 && Thread.currentThread().isInterrupted())
+            throw new CancellationException("Cannot finish a BDD operation, since the thread is interrupted!");
+        int n = allocate();
+        vars[n] = v;
+        lows[n] = low;
+        highs[n] = high;
+        next[n] = buckets[slot];
+        buckets[slot] = n;
+        if (++nodeCount > buckets.length) resize();
+        return n << 1 | complement;
+    }
+
+    private int allocate() {
+        if (free != 0) {
+            int n = free;
+            free = next[n];
+            return n;
+        }
+        if (top + 1 == MAX_NODES)
+            throw new IllegalStateException("Cannot create more than " + MAX_NODES + " BDD nodes!");
+        if (++top == vars.length) {
+            int capacity = (int) Math.min((long) vars.length * 2, MAX_NODES);
+            vars = Arrays.copyOf(vars, capacity);
+            lows = Arrays.copyOf(lows, capacity);
+            highs = Arrays.copyOf(highs, capacity);
+            next = Arrays.copyOf(next, capacity);
+        }
+        return top;
+    }
+
+    private void resize() {
+        buckets = new int[buckets.length * 2];
+        for (int n = 1; n <= top; n++) {
+            if (vars[n] == FREE) continue;
+            int slot = hash(vars[n], lows[n], highs[n]) & (buckets.length - 1);
+            next[n] = buckets[slot];
+            buckets[slot] = n;
+        }
+        // the computed table grows with the unique table, up to 2^22 entries
+        if (cacheOps.length < buckets.length && cacheOps.length < 1 << 22) {
+            cacheOps = new int[buckets.length];
+            cacheFs = new int[buckets.length];
+            cacheGs = new int[buckets.length];
+            cacheResults = new int[buckets.length];
+        }
+    }
+
+    /* Internal */
+
+    // collecting is only safe before an operation, when every edge in use is held by a Bdd
+    private void collectIfFull() {
+        if (nodeCount < threshold) return;
+        collectGarbage();
+        if (nodeCount > threshold / 2) threshold = (int) Math.min((long) threshold * 2, MAX_NODES);
+    }
+
+    private int[] mark(int root, BitSet marks, int[] stack) {
+        int size = 0;
+        stack[size++] = root;
+        while (size > 0) {
+            int n = stack[--size];
+            if (n == 0 || marks.get(n)) continue;
+            marks.set(n);
+            if (size + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+            stack[size++] = lows[n] >>> 1;
+            stack[size++] = highs[n] >>> 1;
+        }
+        return stack;
+    }
+
+    private int cacheSlot(int op, int f, int g) {
+        return hash(op, f, g) & (cacheOps.length - 1);
+    }
+
+    private void cache(int slot, int op, int f, int g, int result) {
+        cacheOps[slot] = op;
+        cacheFs[slot] = f;
+        cacheGs[slot] = g;
+        cacheResults[slot] = result;
+    }
+
+    private static int hash(int a, int b, int c) {
+        long key = ((long) a * 0x9E3779B97F4A7C15L) ^ ((long) b * 0xC2B2AE3D27D4EB4FL) ^ ((long) c * 0x165667B19E3779F9L);
+        return (int) (key ^ (key >>> 29));
+    }
+
+}
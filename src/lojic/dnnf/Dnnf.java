@@ -0,0 +1,395 @@
+package lojic.dnnf;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author AlienIdeology
+ *
+ * A smooth decision-DNNF circuit, which is compiled once and answers queries in time linear in its size
+ *
+ * The circuit is a graph of literals, {@code AND} nodes and {@code OR} nodes, in which
+ * 1. The children of every {@code AND} node share no variable (decomposable)
+ * 2. The children of every {@code OR} node contradict each other, since they decide a variable (deterministic)
+ * 3. The children of every {@code OR} node have the same variables (smooth)
+ * so a query visits every node once: satisfiability is an {@code OR} of {@code AND}s, model counting is a sum of
+ * products, and conditioning replaces literals with constants. The circuit has every variable of the clauses
+ * that it was compiled from, so counts are over all of its variables.
+ *
+ * The nodes are stored in flat arrays in topological order, so every node comes after its children, and the last
+ * node is the root. Node {@code 0} is {@code false} (an {@code OR} of no children), and node {@code 1} is
+ * {@code true} (an {@code AND} of no children). Literals are written as in the DIMACS format
+ * (See {@link lojic.sat.SatSolver}), and the atoms of a circuit compiled from a {@link lojic.nodes.Node} are mapped
+ * to their variables (See {@link #getAtomVariables()}).
+ *
+ * A circuit is immutable, so it can be queried by many threads at once, and it can be written to a stream
+ * and read back (See {@link #write(OutputStream)}), so that a rule base is compiled once and loaded by every service.
+ * @see DnnfCompiler for compiling a circuit
+ */
+public final class Dnnf {
+
+    static final byte LITERAL = 0, AND = 1, OR = 2;
+    static final int FALSE = 0, TRUE = 1;
+
+    private static final int MAGIC = 0x444E4E46; // "DNNF"
+    private static final int VERSION = 1;
+
+    private final int variables;
+    private final byte[] kinds;
+    private final int[] values; // the literal of a literal node, or the decided variable of an OR node
+    private final int[] starts; // the children of node n are edges[starts[n]] to edges[starts[n + 1] - 1]
+    private final int[] edges;
+    private final Map<String, Integer> atoms;
+
+    /**
+     * Constructor of a circuit
+     * This constructor is for the Lojic library's internal use only, users should ignore this
+     * @see DnnfCompiler for compiling a circuit
+     */
+    Dnnf(int variables, byte[] kinds, int[] values, int[] starts, int[] edges, Map<String, Integer> atoms) {
+        this.variables = variables;
+        this.kinds = kinds;
+        this.values = values;
+        this.starts = starts;
+        this.edges = edges;
+        this.atoms = Collections.unmodifiableMap(new LinkedHashMap<>(atoms));
+    }
+
+    /**
+     * Get the number of variables, which are numbered from {@code 1}
+     *
+     * @return The number of variables
+     */
+    public int getVariableCount() {
+        return variables;
+    }
+
+    /**
+     * Get the number of nodes, including the constants
+     *
+     * @return The number of nodes
+     */
+    public int getNodeCount() {
+        return kinds.length;
+    }
+
+    /**
+     * Get the number of edges from the nodes to their children
+     *
+     * @return The number of edges
+     */
+    public int getEdgeCount() {
+        return edges.length;
+    }
+
+    /**
+     * Get the variables of the atoms
+     *
+     * @return The unmodifiable map of atom strings to variables, which is empty if the circuit is compiled from clauses
+     * whose atoms are not named
+     */
+    public Map<String, Integer> getAtomVariables() {
+        return atoms;
+    }
+
+    /**
+     * Get the literal of an atom
+     *
+     * @param atom The string of the atom
+     * @param value The value of the atom
+     * @return The variable of the atom if the value is {@code true}, or its negation otherwise
+     * @throws IllegalArgumentException if the atom is not an atom of this circuit
+     */
+    public int getLiteral(String atom, boolean value) {
+        Integer variable = atoms.get(atom);
+        if (variable == null)
+            throw new IllegalArgumentException("Cannot find the atom " + atom + " in the d-DNNF!");
+        return value ? variable : -variable;
+    }
+
+    /**
+     * Check if the circuit is satisfiable together with some literals
+     *
+     * @param literals The literals, which are assumed to be true
+     * @return True if some assignment makes the circuit and all literals true
+     * @throws IllegalArgumentException if a literal is {@code 0} or its variable is not a variable of this circuit
+     */
+    public boolean isSatisfiable(int... literals) {
+        byte[] assumed = assume(literals);
+        if (assumed == null) return false;
+
+        boolean[] satisfiable = new boolean[kinds.length];
+        for (int n = 0; n < kinds.length; n++) {
+            if (kinds[n] == LITERAL) {
+                satisfiable[n] = !contradicts(assumed, values[n]);
+                continue;
+            }
+            boolean and = kinds[n] == AND;
+            boolean result = and;
+            for (int e = starts[n]; e < starts[n + 1] && result == and; e++) {
+                result = satisfiable[edges[e]];
+            }
+            satisfiable[n] = result;
+        }
+        return satisfiable[kinds.length - 1];
+    }
+
+    /**
+     * Check if the circuit entails a clause, which is that every model of the circuit satisfies the clause
+     *
+     * @param clause The literals of the clause, which is {@code false} if there is no literal
+     * @return True if the circuit entails the clause
+     * @throws IllegalArgumentException if a literal is {@code 0} or its variable is not a variable of this circuit
+     */
+    public boolean isEntailed(int... clause) {
+        int[] negations = new int[clause.length];
+        for (int i = 0; i < clause.length; i++) negations[i] = -clause[i];
+        return !isSatisfiable(negations);
+    }
+
+    /**
+     * Count the models of the circuit together with some literals, over all variables of the circuit
+     *
+     * @param literals The literals, which are assumed to be true
+     * @return The number of assignments of every variable that make the circuit and all literals true
+     * @throws IllegalArgumentException if a literal is {@code 0} or its variable is not a variable of this circuit
+     */
+    public BigInteger count(int... literals) {
+        byte[] assumed = assume(literals);
+        if (assumed == null) return BigInteger.ZERO;
+
+        BigInteger[] counts = new BigInteger[kinds.length];
+        for (int n = 0; n < kinds.length; n++) {
+            if (kinds[n] == LITERAL) {
+                counts[n] = contradicts(assumed, values[n]) ? BigInteger.ZERO : BigInteger.ONE;
+                continue;
+            }
+            boolean and = kinds[n] == AND;
+            BigInteger result = and ? BigInteger.ONE : BigInteger.ZERO;
+            for (int e = starts[n]; e < starts[n + 1]; e++) {
+                result = and ? result.multiply(counts[edges[e]]) : result.add(counts[edges[e]]);
+                if (and && result.signum() == 0) break;
+            }
+            counts[n] = result;
+        }
+        return counts[kinds.length - 1];
+    }
+
+    /**
+     * Condition the circuit on some literals, which replaces the literals with {@code true}
+     * and their negations with {@code false}, and simplifies the nodes
+     * The conditioned circuit has the same number of variables, and the same count as {@link #count(int...)}
+     * of the literals, in which the conditioned variables are not free.
+     *
+     * @param literals The literals, which are assumed to be true
+     * @return The conditioned circuit
+     * @throws IllegalArgumentException if a literal is {@code 0} or its variable is not a variable of this circuit
+     */
+    public Dnnf condition(int... literals) {
+        byte[] assumed = assume(literals);
+        if (assumed == null) return constant(false);
+
+        /*
+            Algorithm:
+                1. Replace every literal by its constant, and simplify every node from its simplified children:
+                   a false child falsifies an AND and is dropped from an OR, and a true child is dropped from an AND
+                   and makes an OR true, since its smooth siblings are constants that contradict it
+                2. Copy the nodes that the root reaches, in the same order
+         */
+        int[] simplified = new int[kinds.length]; // the node that a node simplifies to
+        int[] children = new int[edges.length];
+        int[] childStarts = new int[kinds.length + 1];
+        int childCount = 0;
+        for (int n = 0; n < kinds.length; n++) {
+            childStarts[n] = childCount;
+            simplified[n] = n;
+            if (kinds[n] == LITERAL) {
+                int variable = Math.abs(values[n]);
+                if (assumed[variable] != 0) simplified[n] = contradicts(assumed, values[n]) ? FALSE : TRUE;
+                continue;
+            }
+            if (n <= TRUE) continue;
+
+            boolean and = kinds[n] == AND;
+            int absorbing = and ? FALSE : TRUE, neutral = and ? TRUE : FALSE;
+            int start = childCount;
+            boolean absorbed = false;
+            for (int e = starts[n]; e < starts[n + 1]; e++) {
+                int child = simplified[edges[e]];
+                if (child == absorbing) {
+                    absorbed = true;
+                    break;
+                }
+                if (child != neutral) children[childCount++] = child;
+            }
+            if (absorbed || childCount == start) {
+                simplified[n] = absorbed ? absorbing : neutral;
+                childCount = start;
+            } else if (childCount == start + 1) {
+                simplified[n] = children[start];
+                childCount = start;
+            }
+        }
+        childStarts[kinds.length] = childCount;
+        return copyReachable(simplified[kinds.length - 1], simplified, children, childStarts);
+    }
+
+    /**
+     * Write this circuit to a stream in a binary format, which {@link #read(InputStream)} reads back
+     * The stream is not closed.
+     *
+     * @param out The stream
+     * @throws IOException if the stream cannot be written
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(variables);
+        data.writeInt(kinds.length);
+        data.writeInt(edges.length);
+        data.write(kinds);
+        for (int value : values) data.writeInt(value);
+        for (int start : starts) data.writeInt(start);
+        for (int edge : edges) data.writeInt(edge);
+        data.writeInt(atoms.size());
+        for (Map.Entry<String, Integer> entry : atoms.entrySet()) {
+            data.writeUTF(entry.getKey());
+            data.writeInt(entry.getValue());
+        }
+        data.flush();
+    }
+
+    /**
+     * Read a circuit that is written by {@link #write(OutputStream)}
+     * The stream is not closed.
+     *
+     * @param in The stream
+     * @return The circuit
+     * @throws IOException if the stream cannot be read, or it is not a valid circuit
+     */
+    public static Dnnf read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC)
+            throw new IOException("Cannot read a d-DNNF from a stream of another format!");
+        int version = data.readInt();
+        if (version != VERSION)
+            throw new IOException("Cannot read a d-DNNF of the version " + version + "!");
+
+        int variables = data.readInt();
+        int nodes = data.readInt();
+        int edgeCount = data.readInt();
+        if (variables < 0 || nodes < 2 || edgeCount < 0)
+            throw new IOException("Cannot read a d-DNNF of " + nodes + " nodes and " + edgeCount + " edges!");
+        byte[] kinds = new byte[nodes];
+        data.readFully(kinds);
+        int[] values = readInts(data, nodes);
+        int[] starts = readInts(data, nodes + 1);
+        int[] edges = readInts(data, edgeCount);
+        Map<String, Integer> atoms = new LinkedHashMap<>();
+        for (int i = data.readInt(); i > 0; i--) {
+            atoms.put(data.readUTF(), data.readInt());
+        }
+
+        // the queries trust the structure, so it is checked once here
+        if (kinds[FALSE] != OR || kinds[TRUE] != AND || starts[0] != 0 || starts[nodes] != edgeCount)
+            throw new IOException("Cannot read a d-DNNF with invalid constants or edges!");
+        for (int n = 0; n < nodes; n++) {
+            if (starts[n] > starts[n + 1] || (n <= TRUE && starts[n] != starts[n + 1]))
+                throw new IOException("Cannot read a d-DNNF with invalid edges at the node " + n + "!");
+            if (kinds[n] == LITERAL && (values[n] == 0 || Math.abs(values[n]) > variables || starts[n] != starts[n + 1]))
+                throw new IOException("Cannot read a d-DNNF with an invalid literal at the node " + n + "!");
+            if (kinds[n] != LITERAL && kinds[n] != AND && kinds[n] != OR)
+                throw new IOException("Cannot read a d-DNNF with an invalid kind at the node " + n + "!");
+            for (int e = starts[n]; e < starts[n + 1]; e++) {
+                if (edges[e] < 0 || edges[e] >= n)
+                    throw new IOException("Cannot read a d-DNNF with an edge out of order at the node " + n + "!");
+            }
+        }
+        return new Dnnf(variables, kinds, values, starts, edges, atoms);
+    }
+
+    @Override
+    public String toString() {
+        return "Dnnf{" +
+                "variables=" + variables +
+                ", nodes=" + kinds.length +
+                ", edges=" + edges.length +
+                "}";
+    }
+
+    /* Internal */
+
+    // the value of every variable under the literals, 1 for true and -1 for false, or null if they contradict
+    private byte[] assume(int[] literals) {
+        byte[] assumed = new byte[variables + 1];
+        for (int literal : literals) {
+            int variable = Math.abs(literal);
+            if (literal == 0 || variable > variables)
+                throw new IllegalArgumentException("Cannot assume the unknown literal " + literal + "!");
+            byte value = (byte) (literal > 0 ? 1 : -1);
+            if (assumed[variable] == -value) return null;
+            assumed[variable] = value;
+        }
+        return assumed;
+    }
+
+    private static boolean contradicts(byte[] assumed, int literal) {
+        return assumed[Math.abs(literal)] == (literal > 0 ? -1 : 1);
+    }
+
+    private Dnnf constant(boolean value) {
+        byte[] kinds = new byte[] {OR, AND, value ? AND : OR};
+        return new Dnnf(variables, kinds, new int[3], new int[4], new int[0], atoms);
+    }
+
+    private Dnnf copyReachable(int root, int[] simplified, int[] children, int[] childStarts) {
+        if (root <= TRUE) return constant(root == TRUE);
+
+        boolean[] reachable = new boolean[kinds.length];
+        reachable[root] = true;
+        for (int n = root; n > TRUE; n--) {
+            if (!reachable[n]) continue;
+            for (int e = childStarts[n]; e < childStarts[n + 1]; e++) reachable[children[e]] = true;
+        }
+        reachable[FALSE] = reachable[TRUE] = true;
+
+        int[] index = new int[kinds.length];
+        int nodes = 0, edgeCount = 0;
+        for (int n = 0; n <= root; n++) {
+            if (reachable[n]) {
+                index[n] = nodes++;
+                edgeCount += childStarts[n + 1] - childStarts[n];
+            }
+        }
+        byte[] newKinds = new byte[nodes];
+        int[] newValues = new int[nodes];
+        int[] newStarts = new int[nodes + 1];
+        int[] newEdges = new int[edgeCount];
+        int e = 0;
+        for (int n = 0; n <= root; n++) {
+            if (!reachable[n]) continue;
+            int i = index[n];
+            newKinds[i] = kinds[n];
+            newValues[i] = values[n];
+            newStarts[i] = e;
+            for (int c = childStarts[n]; c < childStarts[n + 1]; c++) newEdges[e++] = index[children[c]];
+        }
+        newStarts[nodes] = e;
+        return new Dnnf(variables, newKinds, newValues, newStarts, newEdges, atoms);
+    }
+
+    private static int[] readInts(DataInputStream data, int length) throws IOException {
+        int[] ints = new int[length];
+        for (int i = 0; i < length; i++) ints[i] = data.readInt();
+        return ints;
+    }
+
+}
@@ -0,0 +1,472 @@
+package lojic.dnnf;
+
+import lojic.argument.Argument;
+import lojic.argument.Line;
+import lojic.nodes.Node;
+import lojic.sat.ClauseStore;
+import lojic.sat.CnfEncoder;
+import lojic.table.TTableBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+/**
+ * @author AlienIdeology
+ *
+ * A compiler of clauses in conjunctive normal form into a smooth decision-DNNF circuit ({@link Dnnf})
+ *
+ * The compiler searches the assignments like a model counter: it propagates the unit clauses, splits the clauses
+ * that are left into components that share no variable, and decides a variable of each component, which is
+ * the {@code OR} of the component under the variable and under its negation. Every component is cached by
+ * its clauses and its variables, so a component that the search meets again under another assignment is compiled
+ * once. The variables of a component that are in no clause any more are added as {@code x OR NOT x}, so the circuit
+ * is smooth, and its counts are over all variables.
+ *
+ * A node is compiled with the Tseitin encoding (See {@link CnfEncoder#encode(Node)}), whose gate variables are
+ * determined by the atoms, so the counts of the circuit are the counts of the assignments of the atoms.
+ * The premises of an {@link Argument} are compiled once, and then each query takes time linear in the circuit,
+ * instead of a search of its own.
+ * The compilation stops with a {@link CancellationException} soon after its thread is interrupted.
+ * A compiler is not thread-safe, but it can compile many clause sets in turn.
+ */
+public class DnnfCompiler {
+
+    private static final int CHECK_MASK = (1 << 10) - 1; // the interrupted status is checked every 2^10 decisions
+
+    private int variables;
+    private int[][] clauses;
+    private int[][] occurrences; // the clauses of every literal, indexed by index(literal)
+    private byte[] values; // per variable, 1 for true, -1 for false and 0 if unassigned
+    private int[] trail;
+    private int trailSize;
+
+    // scratch arrays, which are clean between uses
+    private int[] parents; // union-find of the variables
+    private int[] components;
+    private int[] scores;
+
+    private Map<Key, Integer> cache;
+    private int decisions;
+    private int cacheHits;
+
+    // the nodes of the circuit
+    private byte[] kinds;
+    private int[] nodeValues;
+    private int[] starts;
+    private int[] edges;
+    private int nodeCount;
+    private int edgeCount;
+    private int[] literalNodes; // indexed by index(literal), 0 until it is added
+    private int[] freeNodes; // x OR NOT x, indexed by variable, 0 until it is added
+
+    /**
+     * Compile a node, whose atoms are mapped to their variables in the circuit
+     * True/False atoms are recognized with the settings of the node's {@link TTableBuilder}.
+     *
+     * @param node The node
+     * @return The circuit
+     * @throws UnsupportedOperationException if the logic of the node is three-valued
+     * @throws CancellationException if the thread is interrupted
+     */
+    public Dnnf compile(Node node) {
+        return compile(Collections.singletonList(node), node.getTableBuilder());
+    }
+
+    /**
+     * Compile the premises of an argument, which are its lines other than the conclusion,
+     * or all of its lines if it lacks a conclusion (See {@link Argument#getConclusion()})
+     * The circuit is the conjunction of the premises, so a clause of the atoms is entailed by the circuit
+     * when it follows from the premises (See {@link Dnnf#isEntailed(int...)}).
+     * True/False atoms are recognized with the settings of the argument's {@link TTableBuilder}.
+     *
+     * @param argument The argument
+     * @return The circuit
+     * @throws UnsupportedOperationException if the logic of the argument is three-valued
+     * @throws CancellationException if the thread is interrupted
+     */
+    public Dnnf compile(Argument argument) {
+        List<Line> lines = argument.getLines();
+        int premises = argument.getConclusion() == null ? lines.size() : lines.size() - 1;
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < premises; i++) nodes.add(lines.get(i).getNode());
+        return compile(nodes, argument.getTableBuilder());
+    }
+
+    /**
+     * Compile the clauses of a store, whose atoms are mapped to their variables in the circuit
+     *
+     * @param store The store
+     * @return The circuit
+     * @throws CancellationException if the thread is interrupted
+     */
+    public Dnnf compile(ClauseStore store) {
+        reset(store);
+        int root = compileRoot();
+        if (root != nodeCount - 1) root = and(new int[] {root}, 1);
+
+        // conditioning on no literal drops the nodes of the failed branches, which the root does not reach
+        return new Dnnf(variables, Arrays.copyOf(kinds, nodeCount), Arrays.copyOf(nodeValues, nodeCount),
+                Arrays.copyOf(starts, nodeCount + 1), Arrays.copyOf(edges, edgeCount), store.getAtomVariables())
+                .condition();
+    }
+
+    /**
+     * Get the number of decisions of the latest compilation
+     *
+     * @return The number of decisions
+     */
+    public int getDecisionCount() {
+        return decisions;
+    }
+
+    /**
+     * Get the number of components of the latest compilation that are found in the cache
+     *
+     * @return The number of cache hits
+     */
+    public int getCacheHitCount() {
+        return cacheHits;
+    }
+
+    /* Internal */
+
+    private Dnnf compile(List<Node> nodes, TTableBuilder settings) {
+        if (settings.getLogic().isThreeValued())
+            throw new UnsupportedOperationException("Cannot compile a d-DNNF with the three-valued logic " + settings.getLogic() + "!");
+
+        ClauseStore store = new ClauseStore();
+        CnfEncoder encoder = new CnfEncoder(store, settings);
+        for (Node node : nodes) store.addClause(encoder.encode(node));
+        encoder.getAtomVariables().forEach(store::setAtomVariable);
+
+        // a gate that is folded away after it is defined has no clause, so it is fixed to keep the counts of the atoms
+        boolean[] used = new boolean[store.getVariableCount() + 1];
+        for (int c = 0; c < store.getClauseCount(); c++) {
+            for (int literal : store.getClause(c)) used[Math.abs(literal)] = true;
+        }
+        for (int variable : store.getAtomVariables().values()) used[variable] = true;
+        for (int v = 1; v < used.length; v++) {
+            if (!used[v]) store.addClause(-v);
+        }
+        return compile(store);
+    }
+
+    private void reset(ClauseStore store) {
+        variables = store.getVariableCount();
+        values = new byte[variables + 1];
+        trail = new int[variables];
+        trailSize = 0;
+        parents = new int[variables + 1];
+        components = new int[variables + 1];
+        scores = new int[variables + 1];
+        cache = new HashMap<>();
+        decisions = 0;
+        cacheHits = 0;
+
+        kinds = new byte[64];
+        nodeValues = new int[64];
+        starts = new int[65];
+        edges = new int[128];
+        nodeCount = 0;
+        edgeCount = 0;
+        literalNodes = new int[2 * variables + 2];
+        freeNodes = new int[variables + 1];
+        addNode(Dnnf.OR, 0, new int[0], 0); // false
+        addNode(Dnnf.AND, 0, new int[0], 0); // true
+
+        // drop the repeated literals and the clauses that are always true
+        int[] counts = new int[2 * variables + 2];
+        int[][] kept = new int[store.getClauseCount()][];
+        int clauseCount = 0;
+        for (int c = 0; c < store.getClauseCount(); c++) {
+            int[] clause = store.getClause(c);
+            Arrays.sort(clause);
+            boolean tautology = false;
+            for (int literal : clause) tautology |= literal < 0 && Arrays.binarySearch(clause, -literal) >= 0;
+            if (tautology) continue;
+            int size = 0;
+            for (int i = 0; i < clause.length; i++) {
+                if (size == 0 || clause[size - 1] != clause[i]) clause[size++] = clause[i];
+            }
+            kept[clauseCount++] = Arrays.copyOf(clause, size);
+            for (int i = 0; i < size; i++) counts[index(clause[i])]++;
+        }
+        clauses = Arrays.copyOf(kept, clauseCount);
+
+        occurrences = new int[counts.length][];
+        for (int l = 0; l < counts.length; l++) occurrences[l] = new int[counts[l]];
+        Arrays.fill(counts, 0);
+        for (int c = 0; c < clauses.length; c++) {
+            for (int literal : clauses[c]) occurrences[index(literal)][counts[index(literal)]++] = c;
+        }
+    }
+
+    private int compileRoot() {
+        int[] allClauses = new int[clauses.length];
+        for (int c = 0; c < clauses.length; c++) {
+            if (clauses[c].length == 0) return Dnnf.FALSE;
+            allClauses[c] = c;
+        }
+        int[] allVariables = new int[variables];
+        for (int v = 1; v <= variables; v++) allVariables[v - 1] = v;
+
+        for (int[] clause : clauses) {
+            if (clause.length == 1 && !assign(clause[0])) return Dnnf.FALSE;
+        }
+        if (!propagate(0)) return Dnnf.FALSE;
+        return decompose(allClauses, allVariables, 0);
+    }
+
+    /*
+        Algorithm:
+            1. Return the node of the component if it is cached
+            2. Decide the variable that occurs the most in the clauses of the component
+            3. Compile the component under the variable and under its negation, and join them with an OR
+     */
+    private int compileComponent(int[] componentClauses, int[] componentVariables) {
+        Key key = new Key(componentClauses, componentVariables);
+        Integer cached = cache.get(key);
+        if (cached != null) {
+            cacheHits++;
+            return cached;
+        }
+        if ((++decisions & CHECK_MASK) == 0 && Thread.currentThread().isInterrupted())
+            throw new CancellationException("Cannot finish the d-DNNF compilation, since the thread is interrupted!");
+
+        int decision = 0;
+        for (int c : componentClauses) {
+            for (int literal : clauses[c]) {
+                int variable = Math.abs(literal);
+                if (values[variable] == 0 && ++scores[variable] > scores[decision]) decision = variable;
+            }
+        }
+        for (int c : componentClauses) {
+            for (int literal : clauses[c]) scores[Math.abs(literal)] = 0;
+        }
+
+        int high = branch(decision, componentClauses, componentVariables);
+        int low = branch(-decision, componentClauses, componentVariables);
+        int node = high == Dnnf.FALSE ? low
+                : low == Dnnf.FALSE ? high
+                : addNode(Dnnf.OR, decision, new int[] {high, low}, 2);
+        cache.put(key, node);
+        return node;
+    }
+
+    private int branch(int literal, int[] componentClauses, int[] componentVariables) {
+        int mark = trailSize;
+        int node = assign(literal) && propagate(mark)
+                ? decompose(componentClauses, componentVariables, mark)
+                : Dnnf.FALSE;
+        while (trailSize > mark) values[Math.abs(trail[--trailSize])] = 0;
+        return node;
+    }
+
+    /*
+        Algorithm:
+            1. Add the literals that are assigned since the mark
+            2. Join the unassigned variables of every clause that is not satisfied, and add the variables
+               that are left alone as x OR NOT x
+            3. Group the clauses and the variables by their joined sets, and compile every group as a component
+     */
+    private int decompose(int[] componentClauses, int[] componentVariables, int mark) {
+        int[] children = new int[trailSize - mark + componentVariables.length];
+        int childCount = 0;
+        for (int t = mark; t < trailSize; t++) children[childCount++] = literalNode(trail[t]);
+
+        int[] open = new int[componentClauses.length];
+        int openCount = 0;
+        for (int c : componentClauses) {
+            if (!isSatisfied(c)) open[openCount++] = c;
+        }
+        for (int v : componentVariables) parents[v] = v;
+        for (int i = 0; i < openCount; i++) {
+            int first = 0;
+            for (int literal : clauses[open[i]]) {
+                int variable = Math.abs(literal);
+                if (values[variable] != 0) continue;
+                if (first == 0) first = find(variable);
+                else parents[find(variable)] = first;
+                components[variable] = -1; // in a clause
+            }
+        }
+
+        // number the groups by their roots, from 1
+        int groups = 0;
+        int[] groupOfVariable = new int[componentVariables.length];
+        int[] variableCounts = new int[componentVariables.length + 1];
+        for (int i = 0; i < componentVariables.length; i++) {
+            int v = componentVariables[i];
+            if (values[v] != 0) continue;
+            if (components[v] == 0) {
+                children[childCount++] = freeNode(v);
+                continue;
+            }
+            int root = find(v);
+            if (components[root] <= 0) components[root] = ++groups;
+            groupOfVariable[i] = components[root];
+            variableCounts[components[root]]++;
+        }
+        int[] groupOfClause = new int[openCount];
+        int[] clauseCounts = new int[groups + 1];
+        for (int i = 0; i < openCount; i++) {
+            for (int literal : clauses[open[i]]) {
+                if (values[Math.abs(literal)] == 0) {
+                    groupOfClause[i] = components[find(Math.abs(literal))];
+                    break;
+                }
+            }
+            clauseCounts[groupOfClause[i]]++;
+        }
+        for (int v : componentVariables) {
+            components[v] = 0;
+            parents[v] = 0;
+        }
+
+        int[][] groupClauses = new int[groups + 1][], groupVariables = new int[groups + 1][];
+        for (int g = 1; g <= groups; g++) {
+            groupClauses[g] = new int[clauseCounts[g]];
+            groupVariables[g] = new int[variableCounts[g]];
+            clauseCounts[g] = variableCounts[g] = 0;
+        }
+        for (int i = 0; i < openCount; i++) {
+            int g = groupOfClause[i];
+            groupClauses[g][clauseCounts[g]++] = open[i];
+        }
+        for (int i = 0; i < componentVariables.length; i++) {
+            int g = groupOfVariable[i];
+            if (g != 0) groupVariables[g][variableCounts[g]++] = componentVariables[i];
+        }
+
+        for (int g = 1; g <= groups; g++) {
+            int child = compileComponent(groupClauses[g], groupVariables[g]);
+            if (child == Dnnf.FALSE) return Dnnf.FALSE;
+            children[childCount++] = child;
+        }
+        return childCount == 0 ? Dnnf.TRUE
+                : childCount == 1 ? children[0]
+                : and(children, childCount);
+    }
+
+    private boolean assign(int literal) {
+        int variable = Math.abs(literal);
+        byte value = (byte) (literal > 0 ? 1 : -1);
+        if (values[variable] != 0) return values[variable] == value;
+        values[variable] = value;
+        trail[trailSize++] = literal;
+        return true;
+    }
+
+    // propagate the unit clauses of the literals on the trail from the mark, false on a conflict
+    private boolean propagate(int mark) {
+        for (int t = mark; t < trailSize; t++) {
+            for (int c : occurrences[index(-trail[t])]) {
+                int unit = 0, unassigned = 0;
+                boolean satisfied = false;
+                for (int literal : clauses[c]) {
+                    int value = values[Math.abs(literal)];
+                    if (value == 0) {
+                        unit = literal;
+                        unassigned++;
+                    } else if (value == (literal > 0 ? 1 : -1)) {
+                        satisfied = true;
+                        break;
+                    }
+                }
+                if (satisfied || unassigned > 1) continue;
+                if (unassigned == 0) return false;
+                assign(unit);
+            }
+        }
+        return true;
+    }
+
+    private boolean isSatisfied(int clause) {
+        for (int literal : clauses[clause]) {
+            if (values[Math.abs(literal)] == (literal > 0 ? 1 : -1)) return true;
+        }
+        return false;
+    }
+
+    private int find(int variable) {
+        while (parents[variable] != variable) {
+            parents[variable] = parents[parents[variable]];
+            variable = parents[variable];
+        }
+        return variable;
+    }
+
+    private static int index(int literal) {
+        return literal > 0 ? 2 * literal : -2 * literal + 1;
+    }
+
+    private int literalNode(int literal) {
+        int index = index(literal);
+        if (literalNodes[index] == 0) literalNodes[index] = addNode(Dnnf.LITERAL, literal, new int[0], 0);
+        return literalNodes[index];
+    }
+
+    private int freeNode(int variable) {
+        if (freeNodes[variable] == 0) {
+            int[] children = {literalNode(variable), literalNode(-variable)};
+            freeNodes[variable] = addNode(Dnnf.OR, variable, children, 2);
+        }
+        return freeNodes[variable];
+    }
+
+    private int and(int[] children, int count) {
+        return addNode(Dnnf.AND, 0, children, count);
+    }
+
+    private int addNode(byte kind, int value, int[] children, int count) {
+        if (nodeCount == kinds.length) {
+            kinds = Arrays.copyOf(kinds, nodeCount * 2);
+            nodeValues = Arrays.copyOf(nodeValues, nodeCount * 2);
+            starts = Arrays.copyOf(starts, nodeCount * 2 + 1);
+        }
+        if (edgeCount + count > edges.length) edges = Arrays.copyOf(edges, Math.max(edges.length * 2, edgeCount + count));
+        kinds[nodeCount] = kind;
+        nodeValues[nodeCount] = value;
+        System.arraycopy(children, 0, edges, edgeCount, count);
+        edgeCount += count;
+        starts[nodeCount + 1] = edgeCount;
+        return nodeCount++;
+    }
+
+    /**
+     * Internal class for the key of a component in the cache, which is its clauses and its variables
+     * User should ignore this class
+     */
+    private static final class Key {
+
+        private final int[] clauses;
+        private final int[] variables;
+        private final int hash;
+
+        Key(int[] clauses, int[] variables) {
+            this.clauses = clauses;
+            this.variables = variables;
+            this.hash = 31 * Arrays.hashCode(clauses) + Arrays.hashCode(variables);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return hash == key.hash && Arrays.equals(clauses, key.clauses) && Arrays.equals(variables, key.variables);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+}
@@ -0,0 +1,326 @@
+package lojic.engine;
+
+import lojic.argument.Argument;
+import lojic.nodes.Node;
+import lojic.sat.CnfEncoder;
+import lojic.sat.SatSolver;
+import lojic.table.TTableBuilder;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+
+/**
+ * @author AlienIdeology
+ *
+ * An incremental session of a {@link SatSolver} over the premises of an {@link Argument}, which checks
+ * whether a chosen subset of the premises entails the conclusion
+ *
+ * Every premise is encoded once, and guarded by a selector literal {@code s}: the premise only holds when {@code s}
+ * is assumed, so a premise is switched on or off for a check without changing the clauses. A check solves under
+ * the assumptions of the chosen selectors and the negation of the conclusion, and the premises entail
+ * the conclusion if the solver refutes the assumptions. Clauses learned by one check are kept for the next checks,
+ * so checking many subsets of the same premises is much faster than checking each subset from scratch.
+ *
+ * The failed assumptions of a refutation tell which premises it used, so minimizing a subset of premises
+ * starts from the premises of the first refutation, and narrows to the premises of every later refutation.
+ * The subset is then minimized by the {@link Strategy} of the session.
+ *
+ * As in {@link Argument#isValid()}, the premises are the lines other than the conclusion, numbered as the lines
+ * of the argument, or all lines if the argument lacks a conclusion. Lines added to the argument after the session
+ * is created are not seen by the session.
+ * @see SatEngine for a single check of an argument
+ */
+public class ArgumentSession {
+
+    /**
+     * The algorithms that minimize a subset of premises
+     */
+    public enum Strategy {
+
+        /**
+         * Remove each premise in turn, and keep it removed if the rest is still refuted,
+         * which takes one check per premise of the first refutation
+         */
+        DELETION,
+
+        /**
+         * Split the premises in halves, and find the premises needed from each half given the other half
+         * (QuickXplain), which takes about {@code 2k log(n/k)} checks for {@code k} needed premises of {@code n},
+         * so it is faster than deletion when few premises are needed
+         */
+        QUICK_XPLAIN
+
+    }
+
+    private final TTableBuilder settings;
+    private final SatSolver solver;
+    private final CnfEncoder encoder;
+    private final Node conclusion;
+    private final int[] selectors; // per premise
+    private final Map<Integer, Integer> premises; // selector variable to line number
+    private final Map<String, Integer> conclusions; // encoded conclusions, by their strings
+    private Strategy strategy;
+
+    /**
+     * Constructor of a session, which encodes the premises of an argument
+     * Subsets of premises are minimized by {@link Strategy#DELETION}.
+     *
+     * @param argument The argument
+     * @throws UnsupportedOperationException if the argument's logic is three-valued
+     */
+    public ArgumentSession(Argument argument) {
+        this.settings = argument.getTableBuilder();
+        if (settings.getLogic().isThreeValued())
+            throw new UnsupportedOperationException("Cannot start a session with the three-valued logic " + settings.getLogic() + "!");
+
+        this.solver = new SatSolver();
+        this.encoder = new CnfEncoder(solver, settings);
+        this.conclusion = argument.getConclusion() == null ? null : argument.getConclusion().getNode();
+        this.premises = new HashMap<>();
+        this.conclusions = new HashMap<>();
+        this.strategy = Strategy.DELETION;
+
+        List<Node> nodes = Engine.premises(argument);
+        this.selectors = new int[nodes.size()];
+        for (int i = 0; i < selectors.length; i++) {
+            int literal = encoder.encode(nodes.get(i), true);
+            selectors[i] = solver.newVariable();
+            solver.addClause(-selectors[i], literal);
+            premises.put(selectors[i], i + 1);
+        }
+    }
+
+    /**
+     * Set the algorithm that minimizes subsets of premises
+     *
+     * @param strategy The strategy
+     * @return This session for method chaining
+     */
+    public ArgumentSession setStrategy(Strategy strategy) {
+        this.strategy = Objects.requireNonNull(strategy, "The strategy cannot be null!");
+        return this;
+    }
+
+    /**
+     * Get the algorithm that minimizes subsets of premises
+     *
+     * @return The strategy
+     */
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Get the number of premises, which are the lines {@code 1} to this number
+     *
+     * @return The number of premises
+     */
+    public int getPremiseCount() {
+        return selectors.length;
+    }
+
+    /**
+     * Check if some premises entail the conclusion of the argument
+     *
+     * @param lineNums The line numbers of the premises, which are all premises if none is given
+     * @return True if the conclusion is never false given that the premises are true
+     * @throws IndexOutOfBoundsException if a line number is not a premise
+     * @throws UnsupportedOperationException if the argument lacks a conclusion
+     */
+    public boolean isEntailed(int... lineNums) {
+        return isEntailed(conclusion(), lineNums);
+    }
+
+    /**
+     * Check if some premises entail a node, which is encoded once for all checks of the same node
+     *
+     * @param node The node, which is the conclusion in place of the argument's conclusion
+     * @param lineNums The line numbers of the premises, which are all premises if none is given
+     * @return True if the node is never false given that the premises are true
+     * @throws IndexOutOfBoundsException if a line number is not a premise
+     */
+    public boolean isEntailed(Node node, int... lineNums) {
+        return solve(Objects.requireNonNull(node, "The node cannot be null!"), premises(lineNums)) == SatSolver.Result.UNSATISFIABLE;
+    }
+
+    /**
+     * Check if some premises can be true at the same time
+     *
+     * @param lineNums The line numbers of the premises, which are all premises if none is given
+     * @return True if some assignment makes every premise true
+     * @throws IndexOutOfBoundsException if a line number is not a premise
+     */
+    public boolean isConsistent(int... lineNums) {
+        return solve(null, premises(lineNums)) == SatSolver.Result.SATISFIABLE;
+    }
+
+    /**
+     * Find a minimal subset of some premises that entails the conclusion of the argument
+     * No premise can be removed from the subset without losing the entailment, but a smaller subset may exist.
+     *
+     * @param lineNums The line numbers of the premises, which are all premises if none is given
+     * @return The line numbers of the subset in ascending order, or null if the premises do not entail the conclusion
+     * @throws IndexOutOfBoundsException if a line number is not a premise
+     * @throws UnsupportedOperationException if the argument lacks a conclusion
+     */
+    public int[] findMinimalPremises(int... lineNums) {
+        return findMinimalPremises(conclusion(), lineNums);
+    }
+
+    /**
+     * Find a minimal subset of some premises that entails a node
+     *
+     * @param node The node, which is the conclusion in place of the argument's conclusion
+     * @param lineNums The line numbers of the premises, which are all premises if none is given
+     * @return The line numbers of the subset in ascending order, or null if the premises do not entail the node
+     * @throws IndexOutOfBoundsException if a line number is not a premise
+     * @see #findMinimalPremises(int...)
+     */
+    public int[] findMinimalPremises(Node node, int... lineNums) {
+        return minimize(Objects.requireNonNull(node, "The node cannot be null!"), premises(lineNums));
+    }
+
+    /**
+     * Find a minimal subset of some premises that cannot be true at the same time,
+     * which is a minimal unsatisfiable subset (MUS) of the premises
+     * No premise can be removed from the subset without making the rest consistent, but a smaller subset may exist.
+     *
+     * @param lineNums The line numbers of the premises, which are all premises if none is given
+     * @return The line numbers of the subset in ascending order, or null if the premises are consistent
+     * @throws IndexOutOfBoundsException if a line number is not a premise
+     */
+    public int[] findMinimalConflict(int... lineNums) {
+        return minimize(null, premises(lineNums));
+    }
+
+    /**
+     * Get the solver of this session, whose statistics cover every check
+     *
+     * @return The solver
+     */
+    public SatSolver getSolver() {
+        return solver;
+    }
+
+    @Override
+    public String toString() {
+        return "ArgumentSession{" +
+                "premises=" + selectors.length +
+                ", strategy=" + strategy +
+                ", conclusion=" + conclusion +
+                ", variables=" + solver.getVariableCount() +
+                "}";
+    }
+
+    /* Minimizing */
+
+    // a minimal subset of the premises that entails the node, or that is inconsistent if the node is null
+    private int[] minimize(Node node, int[] lineNums) {
+        if (solve(node, lineNums) != SatSolver.Result.UNSATISFIABLE) return null;
+        int[] core = usedPremises();
+        if (core.length == 0) return core;
+        if (strategy == Strategy.DELETION) return deletion(node, core);
+        // the negated node is a hidden background, which may be refuted alone
+        int[] minimal = quickXplain(node, new int[0], node != null, core);
+        Arrays.sort(minimal);
+        return minimal;
+    }
+
+    /*
+        Algorithm:
+            1. Start from the premises that the refutation used
+            2. Remove each premise in turn, and keep it removed if the rest is still refuted
+            3. Every refutation narrows the rest to the premises that it used
+     */
+    private int[] deletion(Node node, int[] core) {
+        for (int i = 0; i < core.length; ) {
+            int[] rest = new int[core.length - 1];
+            System.arraycopy(core, 0, rest, 0, i);
+            System.arraycopy(core, i + 1, rest, i, rest.length - i);
+            if (solve(node, rest) == SatSolver.Result.UNSATISFIABLE) {
+                // the premises before i are needed by every subset, so they stay before i
+                core = usedPremises();
+            } else {
+                i++;
+            }
+        }
+        return core;
+    }
+
+    /*
+        Algorithm (QuickXplain):
+            1. If the background has changed and is refuted alone, no candidate is needed
+            2. A single candidate is needed, since the caller knows the background and the candidates are refuted
+            3. Otherwise, find the needed premises of the second half given the background and the first half,
+               then the needed premises of the first half given the background and the needed premises of the second
+     */
+    private int[] quickXplain(Node node, int[] background, boolean changed, int[] candidates) {
+        if (changed && solve(node, background) == SatSolver.Result.UNSATISFIABLE) return new int[0];
+        if (candidates.length == 1) return candidates;
+
+        int half = candidates.length / 2;
+        int[] first = Arrays.copyOfRange(candidates, 0, half);
+        int[] second = Arrays.copyOfRange(candidates, half, candidates.length);
+        int[] secondNeeded = quickXplain(node, concat(background, first), true, second);
+        int[] firstNeeded = quickXplain(node, concat(background, secondNeeded), secondNeeded.length > 0, first);
+        return concat(firstNeeded, secondNeeded);
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        int[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    /* Internal */
+
+    private Node conclusion() {
+        if (conclusion == null)
+            throw new UnsupportedOperationException("Cannot check the entailment of a session when the argument lacks a conclusion!");
+        return conclusion;
+    }
+
+    // the line numbers of the premises, which are all premises if none is given
+    private int[] premises(int[] lineNums) {
+        if (lineNums.length == 0) {
+            int[] all = new int[selectors.length];
+            for (int i = 0; i < all.length; i++) all[i] = i + 1;
+            return all;
+        }
+        for (int lineNum : lineNums) {
+            if (lineNum < 1 || lineNum > selectors.length)
+                throw new IndexOutOfBoundsException("Cannot use the line " + lineNum + " as a premise!");
+        }
+        return lineNums;
+    }
+
+    // solve the premises with the node false, or the premises alone if the node is null
+    private SatSolver.Result solve(Node node, int[] lineNums) {
+        int[] assumptions = new int[node == null ? lineNums.length : lineNums.length + 1];
+        for (int i = 0; i < lineNums.length; i++) assumptions[i] = selectors[lineNums[i] - 1];
+        if (node != null) {
+            // the node implies the literal, so assuming its negation makes the node false
+            int literal = conclusions.computeIfAbsent(node.getString(), s -> encoder.encode(node, false));
+            assumptions[assumptions.length - 1] = -literal;
+        }
+        SatSolver.Result result = solver.solve(assumptions);
+        if (result == SatSolver.Result.UNKNOWN)
+            throw new CancellationException("Cannot finish the check of a session, since the thread is interrupted!");
+        return result;
+    }
+
+    // the line numbers of the premises in the failed assumptions, in ascending order
+    private int[] usedPremises() {
+        return Arrays.stream(solver.getFailedAssumptions())
+                .filter(premises::containsKey)
+                .map(premises::get)
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+
+}
@@ -0,0 +1,233 @@
+package lojic.engine;
+
+import lojic.aig.Aig;
+import lojic.aig.AigSimulator;
+import lojic.argument.Argument;
+import lojic.nodes.Node;
+import lojic.sat.CnfEncoder;
+import lojic.sat.SatSolver;
+import lojic.table.TTableBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+
+/**
+ * @author AlienIdeology
+ *
+ * The backbone of a set of nodes, which is the atoms that have the same value in every assignment
+ * that makes all nodes true
+ *
+ * Sets of at most {@link #TABLE_ATOMS} atoms are enumerated as a packed truth table: the nodes are added to an
+ * {@link Aig} and simulated on every assignment, 64 rows per word (See {@link AigSimulator#simulate(int, long[])}),
+ * and the words of the rows that satisfy the set are ORed with the words of each atom and of its negation.
+ * An atom is in the backbone if one of the two ORs stays {@code 0}.
+ *
+ * Larger sets are checked by a {@link SatSolver}: the first model gives the candidates, and each candidate
+ * is assumed to be negated in turn. A refutation puts the candidate in the backbone, and adds it as a unit clause
+ * for the next checks. A model removes every candidate that the model negates, so most atoms that are not in
+ * the backbone are removed without a check of their own.
+ *
+ * The latest {@link #CACHE_SIZE} backbones are cached by the strings of the nodes and the True/False atoms
+ * of their settings, so asking again for the backbone of the same formulas does not check them again.
+ * Only {@link lojic.table.Logic#CLASSICAL} sets have backbones.
+ * @see Node#backbone()
+ * @see Argument#backbone()
+ */
+public final class Backbone {
+
+    /**
+     * The maximum number of atoms of a set whose backbone is found by enumerating its truth table
+     */
+    public static final int TABLE_ATOMS = 16;
+
+    /**
+     * The number of backbones that are cached
+     */
+    public static final int CACHE_SIZE = 256;
+
+    // least recently used backbones, null if the set is never true
+    private static final Map<String, Optional<Map<String, Boolean>>> CACHE =
+            new LinkedHashMap<String, Optional<Map<String, Boolean>>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Optional<Map<String, Boolean>>> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            };
+
+    private Backbone() {}
+
+    /**
+     * Get the backbone of a node
+     * True/False atoms are recognized with the settings of the node's {@link TTableBuilder}, and are never
+     * in the backbone.
+     * @see Node#backbone()
+     *
+     * @param node The node
+     * @return The unmodifiable map of the atoms in the backbone to their values, in the order which they appear
+     * in the node, or null if the node is never true
+     * @throws UnsupportedOperationException if the node's logic is three-valued
+     * @throws CancellationException if the thread is interrupted
+     */
+    public static Map<String, Boolean> of(Node node) {
+        return of(Collections.singletonList(node), node.getTableBuilder());
+    }
+
+    /**
+     * Get the backbone of the premises of an argument, which are its lines other than the conclusion,
+     * or all of its lines if it lacks a conclusion (See {@link Argument#getConclusion()})
+     * @see Argument#backbone()
+     *
+     * @param argument The argument
+     * @return The unmodifiable map of the atoms in the backbone to their values, in the order which they appear
+     * in the premises, or null if the premises are never all true
+     * @throws UnsupportedOperationException if the argument's logic is three-valued
+     * @throws CancellationException if the thread is interrupted
+     */
+    public static Map<String, Boolean> of(Argument argument) {
+        return of(Engine.premises(argument), argument.getTableBuilder());
+    }
+
+    /**
+     * Clear the cache of backbones
+     */
+    public static void clearCache() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    /* Internal */
+
+    private static Map<String, Boolean> of(List<Node> nodes, TTableBuilder settings) {
+        if (settings.getLogic().isThreeValued())
+            throw new UnsupportedOperationException("Cannot find the backbone with the three-valued logic " + settings.getLogic() + "!");
+
+        String key = key(nodes, settings);
+        Optional<Map<String, Boolean>> backbone;
+        synchronized (CACHE) {
+            backbone = CACHE.get(key);
+        }
+        if (backbone == null) {
+            Map<String, Boolean> result = find(nodes, settings);
+            backbone = Optional.ofNullable(result == null ? null : Collections.unmodifiableMap(result));
+            synchronized (CACHE) {
+                CACHE.put(key, backbone);
+            }
+        }
+        return backbone.orElse(null);
+    }
+
+    private static String key(List<Node> nodes, TTableBuilder settings) {
+        StringBuilder key = new StringBuilder();
+        for (Node node : nodes) key.append(node.getString()).append(Argument.PREMISE_SEPARATOR);
+        return key.append(" T").append(sorted(settings.getTrueAtoms()))
+                .append(" F").append(sorted(settings.getFalseAtoms()))
+                .toString();
+    }
+
+    private static String sorted(String[] atoms) {
+        if (atoms == null) return "[]";
+        String[] copy = atoms.clone();
+        Arrays.sort(copy);
+        return Arrays.toString(copy);
+    }
+
+    private static Map<String, Boolean> find(List<Node> nodes, TTableBuilder settings) {
+        Aig aig = new Aig();
+        int literal = Aig.TRUE;
+        for (Node node : nodes) literal = aig.and(literal, aig.add(node, settings));
+        if (aig.getInputCount() > TABLE_ATOMS) return fromSolver(nodes, settings);
+        if (literal == Aig.FALSE) return null;
+        if (literal == Aig.TRUE) return new LinkedHashMap<>();
+        return fromTable(aig, literal);
+    }
+
+    /*
+        Algorithm:
+            1. Simulate the literal of the nodes on every row, with the words of the inputs as the atom columns
+            2. OR the satisfying rows of every word where each atom is true, and where it is false,
+               and stop once every atom has been seen with both values
+     */
+    private static Map<String, Boolean> fromTable(Aig aig, int literal) {
+        List<String> atoms = aig.getAtoms();
+        int n = atoms.size();
+
+        AigSimulator simulator = new AigSimulator(aig);
+        long[] inputs = new long[n];
+        long[] trues = new long[n], falses = new long[n];
+        int words = TableScan.words(n);
+        long mask = TableScan.mask(n);
+        boolean satisfiable = false;
+        int free = 0;
+        for (int w = 0; w < words && free < n; w++) {
+            if ((w & 0xFF) == 0 && Thread.currentThread().isInterrupted())
+                throw new CancellationException("Cannot finish the backbone, since the thread is interrupted!");
+            for (int i = 0; i < n; i++) inputs[i] = TableScan.atom(n, i, w);
+            long rows = simulator.simulate(literal, inputs) & mask;
+            if (rows == 0) continue;
+            satisfiable = true;
+            free = 0;
+            for (int i = 0; i < n; i++) {
+                trues[i] |= rows & inputs[i];
+                falses[i] |= rows & ~inputs[i];
+                if (trues[i] != 0 && falses[i] != 0) free++;
+            }
+        }
+        if (!satisfiable) return null;
+
+        Map<String, Boolean> backbone = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            if (trues[i] == 0) backbone.put(atoms.get(i), false);
+            else if (falses[i] == 0) backbone.put(atoms.get(i), true);
+        }
+        return backbone;
+    }
+
+    /*
+        Algorithm:
+            1. Solve the nodes, whose model gives every atom a candidate value
+            2. Assume the negation of the next candidate: a refutation puts it in the backbone as a unit clause,
+               and a model removes the candidates whose values it negates
+     */
+    private static Map<String, Boolean> fromSolver(List<Node> nodes, TTableBuilder settings) {
+        SatSolver solver = new SatSolver();
+        CnfEncoder encoder = new CnfEncoder(solver, settings);
+        for (Node node : nodes) solver.addClause(encoder.encode(node, true));
+        if (solve(solver) == SatSolver.Result.UNSATISFIABLE) return null;
+
+        List<String> atoms = new ArrayList<>(encoder.getAtomVariables().keySet());
+        int[] candidates = new int[atoms.size()]; // literals of the candidate values, 0 once removed
+        for (int i = 0; i < candidates.length; i++) {
+            int variable = encoder.getAtomVariables().get(atoms.get(i));
+            candidates[i] = solver.getValue(variable) ? variable : -variable;
+        }
+
+        Map<String, Boolean> backbone = new LinkedHashMap<>();
+        for (int i = 0; i < candidates.length; i++) {
+            if (candidates[i] == 0) continue;
+            if (solve(solver, -candidates[i]) == SatSolver.Result.UNSATISFIABLE) {
+                backbone.put(atoms.get(i), candidates[i] > 0);
+                solver.addClause(candidates[i]);
+                continue;
+            }
+            for (int j = i + 1; j < candidates.length; j++) {
+                if (candidates[j] != 0 && solver.getValue(Math.abs(candidates[j])) != candidates[j] > 0) candidates[j] = 0;
+            }
+        }
+        return backbone;
+    }
+
+    private static SatSolver.Result solve(SatSolver solver, int... assumptions) {
+        SatSolver.Result result = solver.solve(assumptions);
+        if (result == SatSolver.Result.UNKNOWN)
+            throw new CancellationException("Cannot finish the backbone, since the thread is interrupted!");
+        return result;
+    }
+
+}
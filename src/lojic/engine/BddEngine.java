@@ -0,0 +1,85 @@
+package lojic.engine;
+
+import lojic.argument.Argument;
+import lojic.bdd.Bdd;
+import lojic.bdd.BddManager;
+import lojic.nodes.Node;
+import lojic.table.TTableBuilder;
+
+import java.util.Map;
+
+/**
+ * @author AlienIdeology
+ *
+ * The engine that builds a {@link Bdd} and checks whether it is a constant
+ * A BDD is often far smaller than a truth table, but it can still grow exponentially for some formulas,
+ * such as multiplications. This engine only supports {@link lojic.table.Logic#CLASSICAL} logic.
+ * @see BddManager for building BDDs
+ * @see lojic.DefaultFactory#ENGINE_BDD
+ */
+public class BddEngine extends Engine {
+
+    public BddEngine() {
+        super("BDD");
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the node's logic is three-valued
+     */
+    @Override
+    public boolean isTautology(Node node) {
+        return node.toBdd().isTautology();
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the node's logic is three-valued
+     */
+    @Override
+    public boolean isContradiction(Node node) {
+        return node.toBdd().isContradiction();
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the argument's logic is three-valued
+     */
+    @Override
+    public boolean isValid(Argument argument) {
+        return counterexamples(argument).isContradiction();
+    }
+
+    /**
+     * The nodes are equivalent if their BDDs, which are built with one manager, are the same
+     *
+     * @throws UnsupportedOperationException if the first node's logic is three-valued
+     */
+    @Override
+    public boolean isEquivalent(Node node1, Node node2) {
+        BddManager manager = new BddManager();
+        return manager.build(node1).isEquivalent(manager.build(node2, node1.getTableBuilder()));
+    }
+
+    /**
+     * The counterexample is a path of the BDD of the counterexamples (See {@link Bdd#anySat()})
+     *
+     * @throws UnsupportedOperationException if the argument's logic is three-valued
+     */
+    @Override
+    public Map<String, Boolean> findCounterexample(Argument argument) {
+        return counterexamples(argument).anySat();
+    }
+
+    // the BDD of the assignments that make the premises true and the conclusion false
+    private Bdd counterexamples(Argument argument) {
+        TTableBuilder settings = argument.getTableBuilder();
+        BddManager manager = new BddManager();
+
+        Bdd premises = manager.getTrue();
+        for (Node premise : premises(argument)) {
+            if (premises.isContradiction()) break;
+            premises = premises.and(manager.build(premise, settings));
+        }
+        if (premises.isContradiction()) return premises;
+        return premises.and(manager.build(argument.getConclusion().getNode(), settings).not());
+    }
+
+}
@@ -0,0 +1,302 @@
+package lojic.engine;
+
+import lojic.argument.Argument;
+import lojic.nodes.Node;
+import lojic.sat.CnfEncoder;
+import lojic.sat.SatSolver;
+import lojic.table.TTableBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+/**
+ * @author AlienIdeology
+ *
+ * The engine that splits a hard question into cubes, and conquers the cubes with another engine on multiple threads
+ *
+ * A cube is a partial assignment of some atoms, and the cubes of a split cover every assignment. The question
+ * "is there a counterexample?" is asked of every cube, with the atoms of the cube fixed as True/False atoms
+ * (See {@link TTableBuilder#setTrueAtoms(String...)}), so any engine can conquer the cubes: the truth table
+ * of a cube has the columns of its atoms fixed, and has {@code 2^k} times fewer rows for {@code k} fixed atoms.
+ * The node is a tautology if no cube has a counterexample, and the check stops as soon as one cube has one.
+ *
+ * The atoms to split on are chosen by lookahead on the clauses of the question (See {@link SatSolver#probe(int...)}):
+ * both values of every atom are propagated under the cube, and the atom whose two values imply the most
+ * other variables is chosen, which balances the cubes and simplifies both of them. A value that leads to a conflict
+ * is skipped, so such cubes are refuted while splitting, and are never conquered.
+ *
+ * The cubes are queued in order, and each of the {@link #getThreads()} threads takes the next cube as soon as
+ * it finishes one, so threads that get easy cubes take more of them. The threads share one queue instead of
+ * stealing work from each other: the cubes are independent and split up front, so a shared queue balances
+ * the load as well. Once a cube has a counterexample, the other cubes are cancelled by interrupting their threads.
+ * This engine only splits {@link lojic.table.Logic#CLASSICAL} questions. Other questions go to the conquering
+ * engine directly.
+ * @see lojic.DefaultFactory#ENGINE_CUBE
+ */
+public class CubeEngine extends Engine {
+
+    /**
+     * The default number of atoms in a cube, which splits a question into at most {@code 2^6} cubes
+     */
+    public static final int DEFAULT_DEPTH = 6;
+
+    private final Engine conquer;
+    private int depth;
+    private final EnginePool pool;
+
+    /**
+     * Constructor of an engine that splits questions into cubes of {@link #DEFAULT_DEPTH} atoms,
+     * and conquers them with one thread per processor
+     *
+     * @param conquer The engine that checks the cubes
+     */
+    public CubeEngine(Engine conquer) {
+        super("Cube + " + Objects.requireNonNull(conquer, "The conquering engine cannot be null!").getName());
+        this.conquer = conquer;
+        this.depth = DEFAULT_DEPTH;
+        this.pool = new EnginePool(name, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Set the number of atoms in a cube, which splits a question into at most {@code 2^depth} cubes
+     *
+     * @param depth The depth, from {@code 0} for no split to {@code 20}
+     * @return This engine for method chaining
+     * @throws IllegalArgumentException if the depth is out of range
+     */
+    public synchronized CubeEngine setDepth(int depth) {
+        if (depth < 0 || depth > 20)
+            throw new IllegalArgumentException("Cannot split a question into cubes of " + depth + " atoms!");
+        this.depth = depth;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of threads that conquer the cubes
+     * Checks that are running keep their threads until they finish.
+     *
+     * @param threads The number of threads
+     * @return This engine for method chaining
+     * @throws IllegalArgumentException if the number of threads is not positive
+     */
+    public CubeEngine setThreads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Cannot conquer cubes on less than one thread!");
+        pool.setThreads(threads);
+        return this;
+    }
+
+    /**
+     * Get the engine that checks the cubes
+     *
+     * @return The conquering engine
+     */
+    public Engine getConquer() {
+        return conquer;
+    }
+
+    /**
+     * Get the number of atoms in a cube
+     *
+     * @return The depth
+     */
+    public synchronized int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Get the maximum number of threads that conquer the cubes
+     *
+     * @return The number of threads
+     */
+    public int getThreads() {
+        return pool.getThreads();
+    }
+
+    /**
+     * @throws CancellationException if the thread is interrupted
+     */
+    @Override
+    public boolean isTautology(Node node) {
+        if (node.getTableBuilder().getLogic().isThreeValued()) return conquer.isTautology(node);
+        return !hasCounterexample(node, false);
+    }
+
+    /**
+     * @throws CancellationException if the thread is interrupted
+     */
+    @Override
+    public boolean isContradiction(Node node) {
+        if (node.getTableBuilder().getLogic().isThreeValued()) return conquer.isContradiction(node);
+        return !hasCounterexample(node, true);
+    }
+
+    /**
+     * The cubes are split over the atoms of the corresponding conditional of the argument
+     * (See {@link Argument#buildConditional()})
+     *
+     * @throws CancellationException if the thread is interrupted
+     */
+    @Override
+    public boolean isValid(Argument argument) {
+        if (argument.getTableBuilder().getLogic().isThreeValued()) return conquer.isValid(argument);
+        return !hasCounterexample(argument.buildConditional(), false);
+    }
+
+    /**
+     * Split a question into cubes by lookahead
+     * Cubes that are refuted while splitting are left out, so no cube is returned if the node never has the value.
+     *
+     * @param node The node
+     * @param value The value of the node that the cubes look for
+     * @return The cubes, each of which maps atoms to their values
+     * @throws UnsupportedOperationException if the node's logic is three-valued
+     */
+    public List<Map<String, Boolean>> split(Node node, boolean value) {
+        TTableBuilder settings = node.getTableBuilder();
+        if (settings.getLogic().isThreeValued())
+            throw new UnsupportedOperationException("Cannot split a question with the three-valued logic " + settings.getLogic() + "!");
+
+        SatSolver solver = new SatSolver();
+        CnfEncoder encoder = new CnfEncoder(solver, settings);
+        int literal = encoder.encode(node, value);
+        solver.addClause(value ? literal : -literal);
+
+        Map<Integer, String> atoms = new HashMap<>();
+        encoder.getAtomVariables().forEach((atom, variable) -> atoms.put(variable, atom));
+        int[] candidates = encoder.getAtomVariables().values().stream().mapToInt(Integer::intValue).toArray();
+
+        List<int[]> cubes = new ArrayList<>();
+        split(solver, candidates, new int[0], getDepth(), cubes);
+
+        List<Map<String, Boolean>> result = new ArrayList<>();
+        for (int[] cube : cubes) {
+            Map<String, Boolean> assignment = new LinkedHashMap<>();
+            for (int l : cube) assignment.put(atoms.get(Math.abs(l)), l > 0);
+            result.add(assignment);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "CubeEngine{" +
+                "conquer=" + conquer +
+                ", depth=" + getDepth() +
+                ", threads=" + getThreads() +
+                "}";
+    }
+
+    /* Splitting */
+
+    /*
+        Algorithm:
+            1. Propagate the cube, which is refuted if it leads to a conflict
+            2. Probe both values of every unassigned atom: a value that leads to a conflict fixes the other value
+               in the cube, and the atom that implies the most variables with both values is the best
+            3. Split the cube on the best atom, until the cube has enough atoms or every atom is assigned
+     */
+    private static void split(SatSolver solver, int[] candidates, int[] cube, int depth, List<int[]> cubes) {
+        int base = solver.probe(cube);
+        if (base < 0) return;
+        if (depth == 0) {
+            cubes.add(cube);
+            return;
+        }
+
+        int best = 0;
+        long bestScore = -1;
+        for (int i = 0; i < candidates.length; i++) {
+            int variable = candidates[i];
+            int positive = solver.probe(append(cube, variable));
+            int negative = solver.probe(append(cube, -variable));
+            // a value that assigns nothing new is already implied by the cube
+            if (positive == base || negative == base) continue;
+            if (positive < 0 && negative < 0) return;
+            if (positive < 0 || negative < 0) {
+                // a failed literal: the other value is implied, so it is added to the cube, and the probes start over
+                cube = append(cube, positive < 0 ? -variable : variable);
+                base = solver.probe(cube);
+                if (base < 0) return;
+                best = 0;
+                bestScore = -1;
+                i = -1;
+                continue;
+            }
+            // the product favors atoms that simplify both cubes; the sum breaks ties
+            long score = (long) (positive - base + 1) * (negative - base + 1) * 1024 + positive + negative;
+            if (score > bestScore) {
+                best = variable;
+                bestScore = score;
+            }
+        }
+
+        if (best == 0) {
+            cubes.add(cube);
+            return;
+        }
+        split(solver, candidates, append(cube, best), depth - 1, cubes);
+        split(solver, candidates, append(cube, -best), depth - 1, cubes);
+    }
+
+    private static int[] append(int[] cube, int literal) {
+        int[] copy = Arrays.copyOf(cube, cube.length + 1);
+        copy[cube.length] = literal;
+        return copy;
+    }
+
+    /* Conquering */
+
+    private boolean hasCounterexample(Node node, boolean value) {
+        List<Map<String, Boolean>> cubes = split(node, value);
+        if (cubes.isEmpty()) return false;
+
+        CompletionService<Boolean> service = new ExecutorCompletionService<>(pool.executor());
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (Map<String, Boolean> cube : cubes) futures.add(service.submit(() -> hasCounterexample(node, value, cube)));
+        try {
+            for (int i = 0; i < cubes.size(); i++) {
+                try {
+                    if (service.take().get()) return true;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof Error) throw (Error) cause;
+                    throw (RuntimeException) cause;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Cannot finish the cubes of the " + name + " engine, since the thread is interrupted!");
+        } finally {
+            for (Future<Boolean> future : futures) future.cancel(true);
+        }
+        return false;
+    }
+
+    // check a cube, with its atoms fixed as True/False atoms of a copy of the node
+    private boolean hasCounterexample(Node node, boolean value, Map<String, Boolean> cube) {
+        Node copy = node.copy();
+        TTableBuilder settings = copy.getTableBuilder();
+        List<String> trueAtoms = new ArrayList<>(atoms(settings.getTrueAtoms()));
+        List<String> falseAtoms = new ArrayList<>(atoms(settings.getFalseAtoms()));
+        cube.forEach((atom, v) -> (v ? trueAtoms : falseAtoms).add(atom));
+        settings.setTrueAtoms(trueAtoms.toArray(new String[0]))
+                .setFalseAtoms(falseAtoms.toArray(new String[0]));
+        return value ? !conquer.isContradiction(copy) : !conquer.isTautology(copy);
+    }
+
+    private static List<String> atoms(String[] atoms) {
+        return atoms == null ? new ArrayList<>() : Arrays.asList(atoms);
+    }
+
+}
@@ -0,0 +1,180 @@
+package lojic.engine;
+
+import lojic.DefaultFactory;
+import lojic.aig.Aig;
+import lojic.argument.Argument;
+import lojic.argument.Line;
+import lojic.nodes.Node;
+import lojic.nodes.SyntheticFormula;
+import lojic.sat.ClauseSink;
+import lojic.sat.CnfEncoder;
+import lojic.table.TTableBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author AlienIdeology
+ *
+ * An engine decides the semantic properties of nodes and arguments: tautologies, contradictions and validity
+ * Every engine gives the same answers, but they differ greatly in speed depending on the input.
+ * @see lojic.DefaultFactory for the default engines
+ * @see Node#setEngine(Engine) for choosing the engine of a node
+ * @see Argument#setEngine(Engine) for choosing the engine of an argument
+ */
+public abstract class Engine {
+
+    protected final String name;
+
+    public Engine(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Get the name of this engine
+     *
+     * @return The name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Check if a node is always {@code true}
+     * True/False atoms and the logic are the settings of the node's {@link lojic.table.TTableBuilder}.
+     *
+     * @param node The node
+     * @return True if the node is always true
+     */
+    public abstract boolean isTautology(Node node);
+
+    /**
+     * Check if a node is always {@code false}
+     * True/False atoms and the logic are the settings of the node's {@link lojic.table.TTableBuilder}.
+     *
+     * @param node The node
+     * @return True if the node is always false
+     */
+    public abstract boolean isContradiction(Node node);
+
+    /**
+     * Check if the conclusion of an argument is true whenever all the other lines of the argument are true
+     * True/False atoms and the logic are the settings of the argument's {@link lojic.table.TTableBuilder}.
+     * @see Argument#isValid()
+     *
+     * @param argument The argument, which has a conclusion
+     * @return True if the argument is valid
+     */
+    public abstract boolean isValid(Argument argument);
+
+    /**
+     * Find an assignment under which the lines of an argument other than the conclusion are true,
+     * and the conclusion is false
+     * True/False atoms are the settings of the argument's {@link lojic.table.TTableBuilder}.
+     * By default, this scans the rows of the truth table of the corresponding conditional 64 rows at a time,
+     * by simulating the argument as an {@link Aig}, and stops at the first row that is a counterexample,
+     * so the columns of the table are never built. Engines that refute the argument by searching for
+     * a counterexample return the one that they find instead.
+     * @see Argument#findCounterexample()
+     *
+     * @param argument The argument, which has a conclusion
+     * @return The assignment of the atoms in the order which they appear, in which atoms that do not affect
+     * the counterexample may be left out, or null if the argument is valid
+     * @throws UnsupportedOperationException if the argument's logic is three-valued
+     * @throws lojic.table.BuildException if the table exceeds the maximum rows of the argument's
+     * {@link lojic.table.TTableBuilder}, or the scan is interrupted
+     */
+    public Map<String, Boolean> findCounterexample(Argument argument) {
+        Aig aig = new Aig();
+        return TableScan.findRow(aig, counterexamples(aig, argument), argument.getTableBuilder());
+    }
+
+    /**
+     * Check if two nodes have the same value under every assignment of their atoms
+     * True/False atoms and the logic are the settings of the first node's {@link lojic.table.TTableBuilder}.
+     * By default, two-valued nodes are equivalent if this engine finds their biconditional a tautology.
+     * In a three-valued logic, the biconditional of two unknown values may be unknown (See {@link lojic.table.Logic}),
+     * so the columns of the nodes are compared instead (See {@link TableEngine#isEquivalent(Node, Node)}).
+     *
+     * @param node1 The first node
+     * @param node2 The second node
+     * @return True if the nodes are equivalent
+     * @throws lojic.table.BuildException if the logic is three-valued, and the table exceeds the budget of the first
+     * node's {@link lojic.table.TTableBuilder}, or the build is interrupted or cancelled
+     */
+    public boolean isEquivalent(Node node1, Node node2) {
+        if (node1.getTableBuilder().getLogic().isThreeValued()) return DefaultFactory.ENGINE_TABLE.isEquivalent(node1, node2);
+        return isTautology(biconditional(node1, node2));
+    }
+
+    /**
+     * Join two nodes with a biconditional, which has the settings of the first node's {@link TTableBuilder}
+     * The nodes are the children of the biconditional as they are, so it must only be used for checking them.
+     *
+     * @param node1 The left node
+     * @param node2 The right node
+     * @return The biconditional
+     */
+    static Node biconditional(Node node1, Node node2) {
+        int level = Math.min(node1.getLevel(), node2.getLevel()) - 1;
+        Node biconditional = new SyntheticFormula(level, DefaultFactory.IFF, null).setChildren(node1, node2);
+        biconditional.getTableBuilder().copySetting(node1.getTableBuilder());
+        return biconditional;
+    }
+
+    /**
+     * Get the nodes of the premises of an argument, which are its lines other than the conclusion,
+     * or all of its lines if it lacks a conclusion (See {@link Argument#getConclusion()})
+     *
+     * @param argument The argument
+     * @return The nodes, in the order of the lines
+     */
+    protected static List<Node> premises(Argument argument) {
+        List<Line> lines = argument.getLines();
+        int premises = argument.getConclusion() == null ? lines.size() : lines.size() - 1;
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < premises; i++) nodes.add(lines.get(i).getNode());
+        return nodes;
+    }
+
+    /**
+     * Add the counterexamples of an argument to an {@link Aig}, which make its premises true and its conclusion false
+     * True/False atoms are recognized with the settings of the argument's {@link TTableBuilder}.
+     *
+     * @param aig The and-inverter graph
+     * @param argument The argument, which has a conclusion
+     * @return The literal that is true under the counterexamples
+     */
+    protected static int counterexamples(Aig aig, Argument argument) {
+        TTableBuilder settings = argument.getTableBuilder();
+        int literal = Aig.TRUE;
+        for (Node premise : premises(argument)) {
+            literal = aig.and(literal, aig.add(premise, settings));
+        }
+        return aig.and(literal, Aig.not(aig.add(argument.getConclusion().getNode(), settings)));
+    }
+
+    /**
+     * Add the clauses of the counterexamples of an argument to a {@link ClauseSink}, which make its premises true
+     * and its conclusion false
+     *
+     * @param sink The sink that receives the clauses
+     * @param encoder The encoder of the sink
+     * @param argument The argument, which has a conclusion
+     */
+    protected static void requireCounterexample(ClauseSink sink, CnfEncoder encoder, Argument argument) {
+        for (Node premise : premises(argument)) {
+            sink.addClause(encoder.encode(premise, true));
+        }
+        sink.addClause(-encoder.encode(argument.getConclusion().getNode(), false));
+    }
+
+    @Override
+    public String toString() {
+        return "Engine{" +
+                "name='" + name + "'" +
+                "}";
+    }
+
+}
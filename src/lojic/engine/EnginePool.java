@@ -0,0 +1,50 @@
+package lojic.engine;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Internal class for the threads of the engines that check on multiple threads
+ * User should ignore this class
+ *
+ * The tasks share one queue, and run on at most {@link #getThreads()} daemon threads,
+ * which are started as tasks are submitted and stopped after a second idle.
+ */
+final class EnginePool {
+
+    private final String name;
+    private int threads;
+    private ThreadPoolExecutor executor;
+
+    EnginePool(String name, int threads) {
+        this.name = name;
+        this.threads = threads;
+    }
+
+    // checks that are running keep the threads of the previous executor until they finish
+    synchronized void setThreads(int threads) {
+        this.threads = threads;
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    synchronized int getThreads() {
+        return threads;
+    }
+
+    synchronized ThreadPoolExecutor executor() {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, name + " Engine");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
+}
@@ -0,0 +1,232 @@
+package lojic.engine;
+
+import lojic.table.Logic;
+
+/**
+ * @author AlienIdeology
+ *
+ * The plan of a {@link PlannerEngine} for one question: the measures of the question, the estimated costs
+ * of the engines, the engine that is chosen and the reason, and the result and the time of the check if it has run
+ * The estimates are rough on purpose. They are meant to be compared with the actual times of many checks,
+ * so that the limits of the planner can be tuned (See {@link PlannerEngine#setTableLimit(long)}).
+ * @see PlannerEngine#explainTautology(lojic.nodes.Node)
+ */
+public class Plan {
+
+    private final String question;
+    private final Logic logic;
+    private final int atoms;
+    private final int formulas;
+    private final int xors;
+    private final int depth;
+    private final double rows;
+    private final long clauses;
+    private final double branches;
+    private final Engine engine;
+    private final String reason;
+    private final long planNanos;
+
+    private Boolean result;
+    private long checkNanos;
+
+    /**
+     * Constructor of a plan
+     * This constructor is for the Lojic library's internal use only, users should ignore this
+     * @see PlannerEngine for planning questions
+     */
+    Plan(String question, Logic logic, int atoms, int formulas, int xors, int depth, double rows, long clauses,
+         double branches, Engine engine, String reason, long planNanos) {
+        this.question = question;
+        this.logic = logic;
+        this.atoms = atoms;
+        this.formulas = formulas;
+        this.xors = xors;
+        this.depth = depth;
+        this.rows = rows;
+        this.clauses = clauses;
+        this.branches = branches;
+        this.engine = engine;
+        this.reason = reason;
+        this.planNanos = planNanos;
+        this.checkNanos = -1;
+    }
+
+    /**
+     * Get the question of this plan, which is {@code "tautology"}, {@code "contradiction"}, {@code "validity"}
+     * or {@code "equivalence"}
+     *
+     * @return The question
+     */
+    public String getQuestion() {
+        return question;
+    }
+
+    /**
+     * Get the logic of the question
+     *
+     * @return The logic
+     */
+    public Logic getLogic() {
+        return logic;
+    }
+
+    /**
+     * Get the number of distinct atoms, not counting True/False atoms
+     *
+     * @return The number of atoms
+     */
+    public int getAtoms() {
+        return atoms;
+    }
+
+    /**
+     * Get the number of formulas (connectives), counting every occurrence
+     *
+     * @return The number of formulas
+     */
+    public int getFormulas() {
+        return formulas;
+    }
+
+    /**
+     * Get the number of formulas that are an exclusive disjunction or an equivalence of their operands,
+     * which are cheap for BDDs but expensive for clauses and tableaux
+     *
+     * @return The number of XOR and IFF formulas
+     */
+    public int getXors() {
+        return xors;
+    }
+
+    /**
+     * Get the depth of the deepest formula
+     *
+     * @return The depth
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Get the estimated number of rows of the truth table, which is {@code 2^atoms} or {@code 3^atoms}
+     *
+     * @return The number of rows
+     */
+    public double getEstimatedRows() {
+        return rows;
+    }
+
+    /**
+     * Get the estimated number of clauses of the Tseitin encoding
+     *
+     * @return The number of clauses
+     */
+    public long getEstimatedClauses() {
+        return clauses;
+    }
+
+    /**
+     * Get the estimated number of branches of the tableau, if no branch closes early
+     *
+     * @return The number of branches
+     */
+    public double getEstimatedBranches() {
+        return branches;
+    }
+
+    /**
+     * Get the engine that the planner chose
+     *
+     * @return The engine
+     */
+    public Engine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Get the reason that the planner chose the engine
+     *
+     * @return The reason
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * Get the time it took to plan the question
+     *
+     * @return The time in nanoseconds
+     */
+    public long getPlanNanos() {
+        return planNanos;
+    }
+
+    /**
+     * Get the result of the check, if it has run
+     *
+     * @return The result, or null if the question has only been planned
+     */
+    public Boolean getResult() {
+        return result;
+    }
+
+    /**
+     * Get the time it took the engine to check the question, if it has run
+     *
+     * @return The time in nanoseconds, or {@code -1} if the question has only been planned
+     */
+    public long getCheckNanos() {
+        return checkNanos;
+    }
+
+    /**
+     * Get a report of this plan, one measure per line
+     *
+     * @return The report
+     */
+    public String explain() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("Plan of ").append(question).append(": ").append(engine.getName()).append(" engine\n");
+        builder.append("  reason:     ").append(reason).append("\n");
+        builder.append("  logic:      ").append(logic).append("\n");
+        builder.append("  measures:   ").append(atoms).append(" atoms, ").append(formulas).append(" formulas, ")
+                .append(xors).append(" XOR/IFF, depth ").append(depth).append("\n");
+        builder.append("  estimates:  ").append(format(rows)).append(" rows, ").append(clauses).append(" clauses, ")
+                .append(format(branches)).append(" tableau branches\n");
+        builder.append("  planned in: ").append(millis(planNanos)).append(" ms");
+        if (result != null) {
+            builder.append("\n  checked in: ").append(millis(checkNanos)).append(" ms, result ").append(result);
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "Plan{" +
+                "question='" + question + "'" +
+                ", engine=" + engine.getName() +
+                ", atoms=" + atoms +
+                ", formulas=" + formulas +
+                ", rows=" + format(rows) +
+                ", clauses=" + clauses +
+                ", branches=" + format(branches) +
+                (result == null ? "" : ", result=" + result + ", checkNanos=" + checkNanos) +
+                "}";
+    }
+
+    /* Internal */
+
+    void setResult(boolean result, long checkNanos) {
+        this.result = result;
+        this.checkNanos = checkNanos;
+    }
+
+    private static String format(double estimate) {
+        return estimate < 1e15 ? String.valueOf((long) estimate) : String.format("%.3g", estimate);
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / 1e6);
+    }
+
+}
@@ -0,0 +1,456 @@
+package lojic.engine;
+
+import lojic.argument.Argument;
+import lojic.argument.Line;
+import lojic.nodes.Formula;
+import lojic.nodes.Node;
+import lojic.nodes.connectives.Connective;
+import lojic.table.TTableBuilder;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * @author AlienIdeology
+ *
+ * The engine that estimates the cost of a question from its measures, and dispatches it to the cheapest engine
+ *
+ * The question is measured in one pass: the atoms, the formulas, the formulas that are {@code XOR} or {@code IFF},
+ * and the depth. From these, the planner estimates the rows of the truth table, the clauses of the Tseitin
+ * encoding, and the branches of the tableau if no branch closes early. The engine is chosen by these rules in order:
+ * 1. Three-valued logics go to the table engine, which is the only engine that supports them
+ * 2. The table engine, if the rows times the formulas are at most the table limit
+ * 3. The tableau engine, if the branches are at most the tableau limit
+ * 4. The BDD engine, if at least a ratio of the formulas are {@code XOR} or {@code IFF}, which are cheap for BDDs
+ *    but make the clauses and the tableaux of parity-like questions blow up, and there are not too many atoms
+ * 5. The SAT engine otherwise, whose clauses grow linearly with the formulas
+ *
+ * {@link #explainTautology(Node)} and its siblings return the {@link Plan} with the measures, the estimates,
+ * the reason of the choice and the actual time of the check, so the limits can be tuned from real questions.
+ * @see lojic.DefaultFactory#ENGINE_PLANNER
+ */
+public class PlannerEngine extends Engine {
+
+    /**
+     * The default limit of the rows times the formulas of a question for the table engine
+     */
+    public static final long DEFAULT_TABLE_LIMIT = 1L << 24;
+
+    /**
+     * The default limit of the estimated branches of a question for the tableau engine
+     */
+    public static final long DEFAULT_TABLEAU_LIMIT = 1L << 10;
+
+    /**
+     * The default ratio of {@code XOR} and {@code IFF} formulas at which the BDD engine is chosen
+     */
+    public static final double DEFAULT_XOR_RATIO = 0.25;
+
+    /**
+     * The default limit of the atoms of a question for the BDD engine
+     */
+    public static final int DEFAULT_BDD_ATOMS = 64;
+
+    private final Engine table;
+    private final Engine tableau;
+    private final Engine bdd;
+    private final Engine sat;
+
+    private volatile long tableLimit;
+    private volatile long tableauLimit;
+    private volatile double xorRatio;
+    private volatile int bddAtoms;
+
+    /**
+     * Constructor of a planner with the default limits
+     *
+     * @param table The engine for small questions and three-valued logics
+     * @param tableau The engine for questions that split into few branches
+     * @param bdd The engine for parity-like questions
+     * @param sat The engine for every other question
+     * @throws NullPointerException if an engine is null
+     */
+    public PlannerEngine(Engine table, Engine tableau, Engine bdd, Engine sat) {
+        super("Planner");
+        this.table = Objects.requireNonNull(table, "The table engine cannot be null!");
+        this.tableau = Objects.requireNonNull(tableau, "The tableau engine cannot be null!");
+        this.bdd = Objects.requireNonNull(bdd, "The BDD engine cannot be null!");
+        this.sat = Objects.requireNonNull(sat, "The SAT engine cannot be null!");
+        this.tableLimit = DEFAULT_TABLE_LIMIT;
+        this.tableauLimit = DEFAULT_TABLEAU_LIMIT;
+        this.xorRatio = DEFAULT_XOR_RATIO;
+        this.bddAtoms = DEFAULT_BDD_ATOMS;
+    }
+
+    /**
+     * Set the limit of the rows times the formulas of a question for the table engine
+     *
+     * @param tableLimit The limit, {@link #DEFAULT_TABLE_LIMIT} by default
+     * @return This engine for method chaining
+     * @throws IllegalArgumentException if the limit is negative
+     */
+    public PlannerEngine setTableLimit(long tableLimit) {
+        if (tableLimit < 0)
+            throw new IllegalArgumentException("Cannot set a negative table limit!");
+        this.tableLimit = tableLimit;
+        return this;
+    }
+
+    /**
+     * Set the limit of the estimated branches of a question for the tableau engine
+     *
+     * @param tableauLimit The limit, {@link #DEFAULT_TABLEAU_LIMIT} by default
+     * @return This engine for method chaining
+     * @throws IllegalArgumentException if the limit is negative
+     */
+    public PlannerEngine setTableauLimit(long tableauLimit) {
+        if (tableauLimit < 0)
+            throw new IllegalArgumentException("Cannot set a negative tableau limit!");
+        this.tableauLimit = tableauLimit;
+        return this;
+    }
+
+    /**
+     * Set the ratio of {@code XOR} and {@code IFF} formulas at which the BDD engine is chosen
+     *
+     * @param xorRatio The ratio, {@link #DEFAULT_XOR_RATIO} by default, or more than {@code 1} to never choose BDDs
+     * @return This engine for method chaining
+     * @throws IllegalArgumentException if the ratio is negative
+     */
+    public PlannerEngine setXorRatio(double xorRatio) {
+        if (!(xorRatio >= 0))
+            throw new IllegalArgumentException("Cannot set a negative XOR ratio!");
+        this.xorRatio = xorRatio;
+        return this;
+    }
+
+    /**
+     * Set the limit of the atoms of a question for the BDD engine
+     *
+     * @param bddAtoms The limit, {@link #DEFAULT_BDD_ATOMS} by default
+     * @return This engine for method chaining
+     * @throws IllegalArgumentException if the limit is negative
+     */
+    public PlannerEngine setBddAtoms(int bddAtoms) {
+        if (bddAtoms < 0)
+            throw new IllegalArgumentException("Cannot set a negative BDD atom limit!");
+        this.bddAtoms = bddAtoms;
+        return this;
+    }
+
+    /**
+     * Get the limit of the rows times the formulas of a question for the table engine
+     *
+     * @return The table limit
+     */
+    public long getTableLimit() {
+        return tableLimit;
+    }
+
+    /**
+     * Get the limit of the estimated branches of a question for the tableau engine
+     *
+     * @return The tableau limit
+     */
+    public long getTableauLimit() {
+        return tableauLimit;
+    }
+
+    /**
+     * Get the ratio of {@code XOR} and {@code IFF} formulas at which the BDD engine is chosen
+     *
+     * @return The ratio
+     */
+    public double getXorRatio() {
+        return xorRatio;
+    }
+
+    /**
+     * Get the limit of the atoms of a question for the BDD engine
+     *
+     * @return The BDD atom limit
+     */
+    public int getBddAtoms() {
+        return bddAtoms;
+    }
+
+    @Override
+    public boolean isTautology(Node node) {
+        return planTautology(node).getEngine().isTautology(node);
+    }
+
+    @Override
+    public boolean isContradiction(Node node) {
+        return planContradiction(node).getEngine().isContradiction(node);
+    }
+
+    @Override
+    public boolean isValid(Argument argument) {
+        return planValidity(argument).getEngine().isValid(argument);
+    }
+
+    /**
+     * The nodes are checked by the engine that the plan of the equivalence chooses
+     */
+    @Override
+    public boolean isEquivalent(Node node1, Node node2) {
+        return planEquivalence(node1, node2).getEngine().isEquivalent(node1, node2);
+    }
+
+    /**
+     * The counterexample is found by the engine that the plan of the validity chooses
+     */
+    @Override
+    public Map<String, Boolean> findCounterexample(Argument argument) {
+        return planValidity(argument).getEngine().findCounterexample(argument);
+    }
+
+    /**
+     * Plan the check of whether a node is a tautology, without checking it
+     *
+     * @param node The node
+     * @return The plan
+     */
+    public Plan planTautology(Node node) {
+        return plan("tautology", node.getTableBuilder(), nodes(node), new boolean[]{false});
+    }
+
+    /**
+     * Plan the check of whether a node is a contradiction, without checking it
+     *
+     * @param node The node
+     * @return The plan
+     */
+    public Plan planContradiction(Node node) {
+        return plan("contradiction", node.getTableBuilder(), nodes(node), new boolean[]{true});
+    }
+
+    /**
+     * Plan the check of whether an argument is valid, without checking it
+     * The premises are measured as true, and the conclusion as false.
+     *
+     * @param argument The argument, which has a conclusion
+     * @return The plan
+     */
+    public Plan planValidity(Argument argument) {
+        List<Node> nodes = new ArrayList<>();
+        for (Line line : argument.getLines()) nodes.add(line.getNode());
+        boolean[] values = new boolean[nodes.size()];
+        for (int i = 0; i < values.length - 1; i++) values[i] = true;
+        return plan("validity", argument.getTableBuilder(), nodes, values);
+    }
+
+    /**
+     * Plan the check of whether two nodes are equivalent, without checking it
+     * The nodes are measured as their biconditional, which is false in a counterexample,
+     * with the settings of the first node's {@link TTableBuilder}.
+     *
+     * @param node1 The first node
+     * @param node2 The second node
+     * @return The plan
+     */
+    public Plan planEquivalence(Node node1, Node node2) {
+        return plan("equivalence", node1.getTableBuilder(), nodes(biconditional(node1, node2)), new boolean[]{false});
+    }
+
+    /**
+     * Plan and check whether a node is a tautology
+     *
+     * @param node The node
+     * @return The plan, with the result and the time of the check
+     */
+    public Plan explainTautology(Node node) {
+        Plan plan = planTautology(node);
+        long start = System.nanoTime();
+        boolean result = plan.getEngine().isTautology(node);
+        plan.setResult(result, System.nanoTime() - start);
+        return plan;
+    }
+
+    /**
+     * Plan and check whether a node is a contradiction
+     *
+     * @param node The node
+     * @return The plan, with the result and the time of the check
+     */
+    public Plan explainContradiction(Node node) {
+        Plan plan = planContradiction(node);
+        long start = System.nanoTime();
+        boolean result = plan.getEngine().isContradiction(node);
+        plan.setResult(result, System.nanoTime() - start);
+        return plan;
+    }
+
+    /**
+     * Plan and check whether an argument is valid
+     *
+     * @param argument The argument, which has a conclusion
+     * @return The plan, with the result and the time of the check
+     */
+    public Plan explainValidity(Argument argument) {
+        Plan plan = planValidity(argument);
+        long start = System.nanoTime();
+        boolean result = plan.getEngine().isValid(argument);
+        plan.setResult(result, System.nanoTime() - start);
+        return plan;
+    }
+
+    /**
+     * Plan and check whether two nodes are equivalent
+     *
+     * @param node1 The first node
+     * @param node2 The second node
+     * @return The plan, with the result and the time of the check
+     */
+    public Plan explainEquivalence(Node node1, Node node2) {
+        Plan plan = planEquivalence(node1, node2);
+        long start = System.nanoTime();
+        boolean result = plan.getEngine().isEquivalent(node1, node2);
+        plan.setResult(result, System.nanoTime() - start);
+        return plan;
+    }
+
+    @Override
+    public String toString() {
+        return "PlannerEngine{" +
+                "tableLimit=" + tableLimit +
+                ", tableauLimit=" + tableauLimit +
+                ", xorRatio=" + xorRatio +
+                ", bddAtoms=" + bddAtoms +
+                "}";
+    }
+
+    /* Planning */
+
+    // the nodes are measured with the values that the counterexample gives them
+    private Plan plan(String question, TTableBuilder settings, List<Node> nodes, boolean[] values) {
+        long start = System.nanoTime();
+        Set<String> atoms = new HashSet<>();
+        int formulas = 0, xors = 0, depth = 0;
+        long clauses = 0;
+        double branches = 1;
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            Map<Node, double[]> estimates = new IdentityHashMap<>();
+            for (Node n : climb(node)) {
+                if (!n.isFormula()) {
+                    String atom = n.getString();
+                    if (settings.isTAtom(atom)) {
+                        estimates.put(n, new double[]{0, 1});
+                    } else if (settings.isFAtom(atom)) {
+                        estimates.put(n, new double[]{1, 0});
+                    } else {
+                        atoms.add(atom);
+                        estimates.put(n, new double[]{1, 1});
+                    }
+                    continue;
+                }
+
+                Formula formula = (Formula) n;
+                Connective connective = formula.getConnective();
+                Node[] children = formula.getChildren();
+                int code = connective.getTruthCode();
+                formulas++;
+                double[] left = estimates.get(children[0]);
+                if (connective.isUnary()) {
+                    estimates.put(n, new double[]{unaryBranches(~code, left), unaryBranches(code, left)});
+                    continue;
+                }
+                int ones = Integer.bitCount(code & 0b1111);
+                if (ones == 1 || ones == 3) clauses += 3;
+                if (ones == 2 && ((code & 0b1111) == 0b0110 || (code & 0b1111) == 0b1001)) {
+                    clauses += 4;
+                    xors++;
+                }
+                double[] right = estimates.get(children[1]);
+                estimates.put(n, new double[]{binaryBranches(~code, left, right), binaryBranches(code, left, right)});
+            }
+            clauses++;
+            depth = Math.max(depth, node.getLevels());
+            branches *= estimates.get(node)[values[i] ? 1 : 0];
+        }
+        double rows = Math.pow(settings.getLogic().isThreeValued() ? 3 : 2, atoms.size());
+
+        Engine engine;
+        String reason;
+        if (settings.getLogic().isThreeValued()) {
+            engine = table;
+            reason = "only the table engine supports the three-valued logic " + settings.getLogic();
+        } else if (rows * Math.max(formulas, 1) <= tableLimit) {
+            engine = table;
+            reason = "rows times formulas are at most the table limit " + tableLimit;
+        } else if (branches <= tableauLimit) {
+            engine = tableau;
+            reason = "tableau branches are at most the tableau limit " + tableauLimit;
+        } else if (formulas > 0 && xors >= xorRatio * formulas && atoms.size() <= bddAtoms) {
+            engine = bdd;
+            reason = "XOR/IFF formulas reach the ratio " + xorRatio + " with at most " + bddAtoms + " atoms";
+        } else {
+            engine = sat;
+            reason = "clauses grow linearly with the formulas";
+        }
+        return new Plan(question, settings.getLogic(), atoms.size(), formulas, xors, depth, rows, clauses, branches,
+                engine, reason, System.nanoTime() - start);
+    }
+
+    // the branches of a one-operand function g, whose bit r is its value when the operand has the value r
+    private static double unaryBranches(int g, double[] operand) {
+        switch (g & 0b11) {
+            case 0b00: return 0;
+            case 0b11: return 1;
+            case 0b10: return operand[1];
+            default: return operand[0];
+        }
+    }
+
+    /*
+        The branches of a two-operand function g, as the tableau rules of g (See lojic.tableau.Tableau):
+            1. One true row is an α rule, whose branches are the product of both operands' branches
+            2. Three true rows are a β rule of two single operands, whose branches are the sum
+            3. Two true rows are either one operand, or a β rule of both operands for XOR and IFF
+     */
+    private static double binaryBranches(int g, double[] left, double[] right) {
+        g &= 0b1111;
+        switch (g) {
+            case 0b0000: return 0;
+            case 0b1111: return 1;
+            case 0b1100: return left[1];
+            case 0b0011: return left[0];
+            case 0b1010: return right[1];
+            case 0b0101: return right[0];
+        }
+        int ones = Integer.bitCount(g);
+        if (ones == 1) {
+            int row = Integer.numberOfTrailingZeros(g);
+            return left[row >> 1] * right[row & 1];
+        }
+        if (ones == 3) {
+            int row = Integer.numberOfTrailingZeros(~g);
+            return left[1 - (row >> 1)] + right[1 - (row & 1)];
+        }
+        double branches = 0;
+        for (int row = 0; row < 4; row++) {
+            if ((g >> row & 1) != 0) branches += left[row >> 1] * right[row & 1];
+        }
+        return branches;
+    }
+
+    // the nodes under a node, with children before their parents
+    private static List<Node> climb(Node node) {
+        List<Node> nodes = new ArrayList<>();
+        node.climb().forEach(nodes::add);
+        return nodes;
+    }
+
+    private static List<Node> nodes(Node node) {
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(node);
+        return nodes;
+    }
+
+}
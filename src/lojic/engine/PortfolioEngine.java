@@ -0,0 +1,172 @@
+package lojic.engine;
+
+import lojic.argument.Argument;
+import lojic.nodes.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * @author AlienIdeology
+ *
+ * The engine that races several engines on the same question, and answers with the first engine that finishes
+ * No engine is the fastest on every input: small nodes favor truth tables, structured nodes favor BDDs, and large
+ * nodes favor SAT solvers, whose speed also depends on their seeds. Every engine gives the same answer,
+ * so the portfolio is as fast as its fastest engine, given enough threads.
+ *
+ * Once an engine answers, the other engines are cancelled by interrupting their threads. The table, BDD, SAT and
+ * tableau engines stop soon after they are interrupted, while other engines may keep their thread until they finish.
+ * An engine that fails, such as a SAT engine given a three-valued logic or a table that exceeds its budget,
+ * leaves the question to the other engines, and the portfolio only fails if every engine fails.
+ *
+ * The engines run on at most {@link #getThreads()} threads, which are shared by every check of this portfolio.
+ * By default, every engine has its own thread, even if there are fewer processors: a racing engine that is slow
+ * must not keep a faster engine from starting, and the engines that lose are cancelled anyway.
+ * Engines that do not fit start in order, as soon as a thread is free. Idle threads are stopped after a second.
+ * The engines read the nodes concurrently, so the nodes must not be modified during a check.
+ * @see lojic.DefaultFactory#ENGINE_PORTFOLIO
+ */
+public class PortfolioEngine extends Engine {
+
+    private final List<Engine> engines;
+    private final EnginePool pool;
+
+    /**
+     * Constructor of a portfolio with one thread per engine
+     *
+     * @param engines The engines, in the order which they start
+     * @throws IllegalArgumentException if no engine is given
+     * @throws NullPointerException if an engine is null
+     */
+    public PortfolioEngine(Engine... engines) {
+        super("Portfolio");
+        if (engines.length == 0)
+            throw new IllegalArgumentException("Cannot race a portfolio of no engines!");
+        for (Engine engine : engines) Objects.requireNonNull(engine, "The engines cannot be null!");
+        this.engines = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(engines)));
+        this.pool = new EnginePool(name, engines.length);
+    }
+
+    /**
+     * Set the maximum number of threads that the engines run on
+     * Checks that are running keep their threads until they finish.
+     *
+     * @param threads The number of threads
+     * @return This engine for method chaining
+     * @throws IllegalArgumentException if the number of threads is not positive
+     */
+    public PortfolioEngine setThreads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Cannot race a portfolio on less than one thread!");
+        pool.setThreads(threads);
+        return this;
+    }
+
+    /**
+     * Get the maximum number of threads that the engines run on
+     *
+     * @return The number of threads
+     */
+    public int getThreads() {
+        return pool.getThreads();
+    }
+
+    /**
+     * Get the engines of this portfolio
+     *
+     * @return The unmodifiable list of engines, in the order which they start
+     */
+    public List<Engine> getEngines() {
+        return engines;
+    }
+
+    /**
+     * @throws CancellationException if the thread is interrupted
+     */
+    @Override
+    public boolean isTautology(Node node) {
+        return race(engine -> engine.isTautology(node));
+    }
+
+    /**
+     * @throws CancellationException if the thread is interrupted
+     */
+    @Override
+    public boolean isContradiction(Node node) {
+        return race(engine -> engine.isContradiction(node));
+    }
+
+    /**
+     * @throws CancellationException if the thread is interrupted
+     */
+    @Override
+    public boolean isValid(Argument argument) {
+        return race(engine -> engine.isValid(argument));
+    }
+
+    /**
+     * The counterexample is the one of the first engine that finishes
+     *
+     * @throws CancellationException if the thread is interrupted
+     */
+    @Override
+    public Map<String, Boolean> findCounterexample(Argument argument) {
+        return race(engine -> engine.findCounterexample(argument));
+    }
+
+    /**
+     * @throws CancellationException if the thread is interrupted
+     */
+    @Override
+    public boolean isEquivalent(Node node1, Node node2) {
+        return race(engine -> engine.isEquivalent(node1, node2));
+    }
+
+    @Override
+    public String toString() {
+        return "PortfolioEngine{" +
+                "engines=" + engines +
+                ", threads=" + getThreads() +
+                "}";
+    }
+
+    /* Internal */
+
+    private <T> T race(Function<Engine, T> check) {
+        CompletionService<T> service = new ExecutorCompletionService<>(pool.executor());
+        List<Future<T>> futures = new ArrayList<>();
+        for (Engine engine : engines) futures.add(service.submit(() -> check.apply(engine)));
+
+        RuntimeException[] failures = new RuntimeException[engines.size()];
+        try {
+            for (int i = 0; i < engines.size(); i++) {
+                Future<T> future = service.take();
+                try {
+                    return future.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof Error) throw (Error) cause;
+                    failures[futures.indexOf(future)] = (RuntimeException) cause;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Cannot finish the race of the " + name + " engine, since the thread is interrupted!");
+        } finally {
+            for (Future<T> future : futures) future.cancel(true);
+        }
+        // every engine failed, so the failure of the first engine is the most relevant
+        throw failures[0];
+    }
+
+}
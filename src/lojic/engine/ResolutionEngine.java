@@ -0,0 +1,140 @@
+package lojic.engine;
+
+import lojic.argument.Argument;
+import lojic.nodes.Node;
+import lojic.sat.CnfEncoder;
+import lojic.sat.ResolutionProver;
+import lojic.sat.SatSolver;
+import lojic.table.TTableBuilder;
+
+import java.util.Objects;
+
+/**
+ * @author AlienIdeology
+ *
+ * The engine that encodes the question into clauses and refutes it with a {@link ResolutionProver}
+ * A node is a tautology if the clauses of its negation can be refuted, and an argument is valid if the clauses of
+ * its lines other than the conclusion, together with the negation of the conclusion, can be refuted.
+ * Resolution is fast for Horn-like premises with long derivations, but the clauses it derives can grow exponentially
+ * for other problems, such as chains of {@code XOR}s. A prover that reaches its clause limit gives the question
+ * to a complete fallback engine, so every question is answered. This engine only supports
+ * {@link lojic.table.Logic#CLASSICAL} logic.
+ * @see CnfEncoder for the encoding of nodes
+ * @see lojic.DefaultFactory#ENGINE_RESOLUTION
+ */
+public class ResolutionEngine extends Engine {
+
+    /**
+     * The default number of clauses at which a prover gives up, which is far below
+     * {@link ResolutionProver#DEFAULT_CLAUSE_LIMIT}, since the fallback engine is complete
+     */
+    public static final int DEFAULT_CLAUSE_LIMIT = 1 << 14;
+
+    private final Engine fallback;
+    private final int clauseLimit;
+
+    /**
+     * Constructor of an engine whose provers stop at {@link #DEFAULT_CLAUSE_LIMIT} clauses,
+     * and give up to a new {@link SatEngine}
+     */
+    public ResolutionEngine() {
+        this(new SatEngine());
+    }
+
+    /**
+     * Constructor of an engine whose provers stop at {@link #DEFAULT_CLAUSE_LIMIT} clauses
+     *
+     * @param fallback The engine that checks the questions whose provers reach the clause limit
+     */
+    public ResolutionEngine(Engine fallback) {
+        this(fallback, DEFAULT_CLAUSE_LIMIT);
+    }
+
+    /**
+     * Constructor of an engine
+     *
+     * @param fallback The engine that checks the questions whose provers reach the clause limit
+     * @param clauseLimit The number of clauses at which a prover gives up
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    public ResolutionEngine(Engine fallback, int clauseLimit) {
+        super("Resolution");
+        if (clauseLimit <= 0)
+            throw new IllegalArgumentException("Cannot set a clause limit that is not positive!");
+        this.fallback = Objects.requireNonNull(fallback, "The fallback engine cannot be null!");
+        this.clauseLimit = clauseLimit;
+    }
+
+    /**
+     * Get the engine that checks the questions whose provers reach the clause limit
+     *
+     * @return The fallback engine
+     */
+    public Engine getFallback() {
+        return fallback;
+    }
+
+    /**
+     * Get the number of clauses at which a prover gives up
+     *
+     * @return The clause limit
+     */
+    public int getClauseLimit() {
+        return clauseLimit;
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the node's logic is three-valued
+     */
+    @Override
+    public boolean isTautology(Node node) {
+        Boolean refuted = refute(node, false);
+        return refuted != null ? refuted : fallback.isTautology(node);
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the node's logic is three-valued
+     */
+    @Override
+    public boolean isContradiction(Node node) {
+        Boolean refuted = refute(node, true);
+        return refuted != null ? refuted : fallback.isContradiction(node);
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the argument's logic is three-valued
+     */
+    @Override
+    public boolean isValid(Argument argument) {
+        TTableBuilder settings = argument.getTableBuilder();
+        checkLogic(settings);
+
+        ResolutionProver prover = new ResolutionProver().setClauseLimit(clauseLimit);
+        CnfEncoder encoder = new CnfEncoder(prover, settings);
+        requireCounterexample(prover, encoder, argument);
+        Boolean refuted = prove(prover);
+        return refuted != null ? refuted : fallback.isValid(argument);
+    }
+
+    // null if the prover reaches the clause limit
+    private Boolean refute(Node node, boolean value) {
+        checkLogic(node.getTableBuilder());
+
+        ResolutionProver prover = new ResolutionProver().setClauseLimit(clauseLimit);
+        int literal = new CnfEncoder(prover, node.getTableBuilder()).encode(node, value);
+        prover.addClause(value ? literal : -literal);
+        return prove(prover);
+    }
+
+    private Boolean prove(ResolutionProver prover) {
+        SatSolver.Result result = prover.prove();
+        if (result == SatSolver.Result.UNKNOWN) return null;
+        return result == SatSolver.Result.UNSATISFIABLE;
+    }
+
+    private void checkLogic(TTableBuilder settings) {
+        if (settings.getLogic().isThreeValued())
+            throw new UnsupportedOperationException("Cannot use the " + name + " engine with the three-valued logic " + settings.getLogic() + "!");
+    }
+
+}
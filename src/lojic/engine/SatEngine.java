@@ -0,0 +1,135 @@
+package lojic.engine;
+
+import lojic.argument.Argument;
+import lojic.nodes.Node;
+import lojic.sat.CnfEncoder;
+import lojic.sat.SatSolver;
+import lojic.table.TTableBuilder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+/**
+ * @author AlienIdeology
+ *
+ * The engine that encodes the question into clauses and refutes it with a {@link SatSolver}
+ * A node is a tautology if its negation cannot be satisfied, and an argument is valid if its lines other than
+ * the conclusion cannot be satisfied together with the negation of the conclusion.
+ * This engine handles thousands of atoms, but it only supports {@link lojic.table.Logic#CLASSICAL} logic.
+ * A check stops with a {@link CancellationException} soon after its thread is interrupted.
+ * @see CnfEncoder for the encoding of nodes
+ * @see lojic.DefaultFactory#ENGINE_SAT
+ */
+public class SatEngine extends Engine {
+
+    private final Long seed;
+
+    public SatEngine() {
+        super("SAT");
+        this.seed = null;
+    }
+
+    /**
+     * Constructor of an engine whose solvers search in a random order
+     * Engines of different seeds give the same answers, but one of them may be much faster than the others.
+     * @see SatSolver#setSeed(long)
+     *
+     * @param seed The seed of the solvers
+     */
+    public SatEngine(long seed) {
+        super("SAT (seed " + seed + ")");
+        this.seed = seed;
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the node's logic is three-valued
+     */
+    @Override
+    public boolean isTautology(Node node) {
+        return !isSatisfiable(node, false);
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the node's logic is three-valued
+     */
+    @Override
+    public boolean isContradiction(Node node) {
+        return !isSatisfiable(node, true);
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the argument's logic is three-valued
+     */
+    @Override
+    public boolean isValid(Argument argument) {
+        return findCounterexample(argument) == null;
+    }
+
+    /**
+     * The counterexample is the model of the clauses, in which every encoded atom has a value
+     *
+     * @throws UnsupportedOperationException if the argument's logic is three-valued
+     */
+    @Override
+    public Map<String, Boolean> findCounterexample(Argument argument) {
+        TTableBuilder settings = argument.getTableBuilder();
+        checkLogic(settings);
+
+        SatSolver solver = newSolver();
+        CnfEncoder encoder = new CnfEncoder(solver, settings);
+        requireCounterexample(solver, encoder, argument);
+        if (solve(solver) == SatSolver.Result.UNSATISFIABLE) return null;
+
+        Map<String, Boolean> assignment = new LinkedHashMap<>();
+        encoder.getAtomVariables().forEach((atom, variable) -> assignment.put(atom, solver.getValue(variable)));
+        return assignment;
+    }
+
+    /**
+     * The nodes are equivalent if no assignment makes exactly one of them true
+     *
+     * @throws UnsupportedOperationException if the first node's logic is three-valued
+     */
+    @Override
+    public boolean isEquivalent(Node node1, Node node2) {
+        TTableBuilder settings = node1.getTableBuilder();
+        checkLogic(settings);
+
+        SatSolver solver = newSolver();
+        CnfEncoder encoder = new CnfEncoder(solver, settings);
+        int literal1 = encoder.encode(node1);
+        int literal2 = encoder.encode(node2);
+        solver.addClause(literal1, literal2);
+        solver.addClause(-literal1, -literal2);
+        return solve(solver) == SatSolver.Result.UNSATISFIABLE;
+    }
+
+    private boolean isSatisfiable(Node node, boolean value) {
+        checkLogic(node.getTableBuilder());
+
+        SatSolver solver = newSolver();
+        int literal = new CnfEncoder(solver, node.getTableBuilder()).encode(node, value);
+        solver.addClause(value ? literal : -literal);
+        return solve(solver) == SatSolver.Result.SATISFIABLE;
+    }
+
+    private SatSolver newSolver() {
+        SatSolver solver = new SatSolver();
+        if (seed != null) solver.setSeed(seed);
+        return solver;
+    }
+
+    private SatSolver.Result solve(SatSolver solver) {
+        SatSolver.Result result = solver.solve();
+        if (result == SatSolver.Result.UNKNOWN)
+            throw new CancellationException("Cannot finish the search of the " + name + " engine, since the thread is interrupted!");
+        return result;
+    }
+
+    private void checkLogic(TTableBuilder settings) {
+        if (settings.getLogic().isThreeValued())
+            throw new UnsupportedOperationException("Cannot use the " + name + " engine with the three-valued logic " + settings.getLogic() + "!");
+    }
+
+}
@@ -0,0 +1,404 @@
+package lojic.engine;
+
+import lojic.aig.Aig;
+import lojic.argument.Argument;
+import lojic.nodes.Node;
+import lojic.table.TTableBuilder;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+/**
+ * @author AlienIdeology
+ *
+ * The engine that expands the question on its atoms one at a time (Shannon expansion), and caches the cofactors
+ *
+ * The question is added to an {@link Aig}, and split on the atom that the most gates of its cone use. Each cofactor
+ * is the cone rebuilt with the atom replaced by a constant, so the gates fold their constants away, and the
+ * structural hashing of the graph gives the same literal to the same residual formula under any partial assignment.
+ * The results are cached by these literals, so a formula with large shared parts and few atoms that control them is
+ * expanded once per distinct residual formula, instead of once per row of its truth table.
+ * A conjunction whose conjuncts fall into groups that share no atom is split into these groups, which are
+ * expanded on their own (like the components of {@link lojic.dnnf.DnnfCompiler}), so a long chain of clauses is
+ * not expanded as every combination of the residual formulas of its parts. The cofactors are rebuilt again
+ * after their cache reaches {@value #COFACTOR_LIMIT} entries, since each is only needed while its literal is expanded.
+ * A search for a satisfying assignment stops at the first one, and models are counted by adding the counts of
+ * the two cofactors. This engine only supports {@link lojic.table.Logic#CLASSICAL} logic.
+ * @see lojic.DefaultFactory#ENGINE_SHANNON
+ */
+public class ShannonEngine extends Engine {
+
+    private static final int CHECK_MASK = (1 << 10) - 1; // the interrupted status is checked every 2^10 splits
+    private static final int COFACTOR_LIMIT = 1 << 16;
+
+    public ShannonEngine() {
+        super("Shannon");
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the node's logic is three-valued
+     * @throws CancellationException if the thread is interrupted
+     */
+    @Override
+    public boolean isTautology(Node node) {
+        Expansion expansion = new Expansion();
+        return !expansion.isSatisfiable(Aig.not(expansion.aig.add(node)));
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the node's logic is three-valued
+     * @throws CancellationException if the thread is interrupted
+     */
+    @Override
+    public boolean isContradiction(Node node) {
+        Expansion expansion = new Expansion();
+        return !expansion.isSatisfiable(expansion.aig.add(node));
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the argument's logic is three-valued
+     * @throws CancellationException if the thread is interrupted
+     */
+    @Override
+    public boolean isValid(Argument argument) {
+        return findCounterexample(argument) == null;
+    }
+
+    /**
+     * The counterexample is the partial assignment of the atoms that the expansion split on
+     *
+     * @throws UnsupportedOperationException if the argument's logic is three-valued
+     * @throws CancellationException if the thread is interrupted
+     */
+    @Override
+    public Map<String, Boolean> findCounterexample(Argument argument) {
+        Expansion expansion = new Expansion();
+        return expansion.findModel(counterexamples(expansion.aig, argument));
+    }
+
+    /**
+     * Count the assignments of the atoms of a node that make the node true
+     * True/False atoms are recognized with the settings of the node's {@link TTableBuilder}, and are not counted.
+     *
+     * @param node The node
+     * @return The number of assignments, which is at most {@code 2^n} for {@code n} atoms
+     * @throws UnsupportedOperationException if the node's logic is three-valued
+     * @throws CancellationException if the thread is interrupted
+     */
+    public BigInteger count(Node node) {
+        Expansion expansion = new Expansion();
+        int literal = expansion.aig.add(node);
+        BigInteger count = expansion.count(literal);
+        return count.shiftLeft(expansion.aig.getInputCount() - expansion.supportOf(literal));
+    }
+
+    /**
+     * Internal class for the cofactors and the cached results of one question
+     * User should ignore this class
+     */
+    private static final class Expansion {
+
+        private final Aig aig = new Aig();
+        private final Map<Long, Integer> cofactors = new HashMap<>();
+        private final Map<Integer, Boolean> satisfiable = new HashMap<>(); // by literal
+        private final Map<Integer, BigInteger> counts = new HashMap<>(); // by node, over the inputs of its cone
+        private final Map<Integer, Integer> supports = new HashMap<>(); // by node, the number of inputs of its cone
+        private int splits;
+
+        // scratch arrays, indexed by node, which are valid where the stamp is the current stamp
+        private int[] stamps = new int[0];
+        private int[] results = new int[0];
+        private int[] references = new int[0];
+        private int stamp;
+        private int[] stack = new int[16];
+
+        private int support; // the number of inputs of the latest cone
+
+        boolean isSatisfiable(int literal) {
+            if (literal == Aig.TRUE || literal == Aig.FALSE) return literal == Aig.TRUE;
+            Boolean cached = satisfiable.get(literal);
+            if (cached != null) return cached;
+            checkInterrupted();
+
+            boolean result;
+            int[] parts = components(literal >>> 1);
+            if (parts != null) {
+                // a conjunction is satisfiable if every part is, and its negation if the negation of any part is
+                boolean negated = (literal & 1) != 0;
+                result = !negated;
+                for (int part : parts) {
+                    if (isSatisfiable(part ^ (literal & 1)) == negated) {
+                        result = negated;
+                        break;
+                    }
+                }
+            } else {
+                int input = cone(literal);
+                result = isSatisfiable(cofactor(literal, input, true))
+                        || isSatisfiable(cofactor(literal, input, false));
+            }
+            satisfiable.put(literal, result);
+            return result;
+        }
+
+        // the number of assignments of the inputs of the cone of the literal that make it true
+        BigInteger count(int literal) {
+            int node = literal >>> 1;
+            if (node == 0) return literal == Aig.TRUE ? BigInteger.ONE : BigInteger.ZERO;
+            BigInteger positive = counts.get(node);
+            if (positive == null) {
+                checkInterrupted();
+                int inputs;
+                int[] parts = components(node);
+                if (parts != null) {
+                    // the parts share no input, so their counts multiply and their inputs add up
+                    positive = BigInteger.ONE;
+                    inputs = 0;
+                    for (int part : parts) {
+                        positive = positive.multiply(count(part));
+                        inputs += supportOf(part);
+                    }
+                } else {
+                    int input = cone(node << 1);
+                    inputs = support;
+                    positive = BigInteger.ZERO;
+                    for (int value = 0; value < 2; value++) {
+                        int cofactor = cofactor(node << 1, input, value == 1);
+                        positive = positive.add(count(cofactor).shiftLeft(inputs - 1 - supportOf(cofactor)));
+                    }
+                }
+                counts.put(node, positive);
+                supports.put(node, inputs);
+            }
+            return (literal & 1) == 0 ? positive : BigInteger.ONE.shiftLeft(supports.get(node)).subtract(positive);
+        }
+
+        // the number of inputs of the cone of a literal that is counted
+        int supportOf(int literal) {
+            return literal >>> 1 == 0 ? 0 : supports.get(literal >>> 1);
+        }
+
+        Map<String, Boolean> findModel(int literal) {
+            if (!isSatisfiable(literal)) return null;
+            Map<String, Boolean> model = new LinkedHashMap<>();
+            while (literal != Aig.TRUE) {
+                int input = cone(literal);
+                int high = cofactor(literal, input, true);
+                boolean value = isSatisfiable(high);
+                model.put(aig.getAtoms().get(aig.getInputIndex(input)), value);
+                literal = value ? high : cofactor(literal, input, false);
+            }
+            return model;
+        }
+
+        /*
+            Algorithm:
+                1. Visit the cone of the literal from its node, and count the gates of the cone that use each input
+                2. Return the input that the most gates use, which is the first input of the cone on ties
+         */
+        private int cone(int literal) {
+            prepare();
+            int best = 0, inputs = 0;
+            int size = 0;
+            stack = push(stack, size++, literal >>> 1);
+            stamps[literal >>> 1] = stamp;
+            while (size > 0) {
+                int node = stack[--size];
+                if (aig.isInput(node)) {
+                    inputs++;
+                    if (best == 0 || references[node] > references[best]
+                            || references[node] == references[best] && node < best) best = node;
+                    continue;
+                }
+                for (int side = 0; side < 2; side++) {
+                    int operand = (side == 0 ? aig.getLeft(node) : aig.getRight(node)) >>> 1;
+                    if (operand == 0) continue;
+                    if (aig.isInput(operand)) {
+                        references[operand] = stamps[operand] == stamp ? references[operand] + 1 : 1;
+                    }
+                    if (stamps[operand] != stamp) {
+                        stamps[operand] = stamp;
+                        stack = push(stack, size++, operand);
+                    }
+                }
+            }
+            support = inputs;
+            return best;
+        }
+
+        /*
+            Algorithm:
+                1. Collect the conjuncts of the node, which are the operands of its AND gates,
+                   through the operands that are AND gates themselves
+                2. Visit the cone of each conjunct, and join the conjunct with the conjunct that visited a node first
+                3. Join the conjuncts of each group with AND gates, which are the parts of the node that share no input
+                4. Return null if the node is not a conjunction of more than one part
+         */
+        private int[] components(int node) {
+            if (aig.isInput(node)) return null;
+            prepare();
+            int[] conjuncts = new int[4];
+            int count = 0;
+            int size = 0;
+            stack = push(stack, size++, node);
+            stamps[node] = stamp;
+            results[node] = 1; // the polarities of a node that are seen, 1 for the positive and 2 for the negative
+            while (size > 0) {
+                int gate = stack[--size];
+                for (int side = 0; side < 2; side++) {
+                    int operand = side == 0 ? aig.getLeft(gate) : aig.getRight(gate);
+                    int operandNode = operand >>> 1, polarity = 1 << (operand & 1);
+                    if (stamps[operandNode] != stamp) {
+                        stamps[operandNode] = stamp;
+                        results[operandNode] = 0;
+                    }
+                    if ((results[operandNode] & polarity) != 0) continue;
+                    results[operandNode] |= polarity;
+                    if ((operand & 1) == 0 && !aig.isInput(operandNode)) {
+                        stack = push(stack, size++, operandNode);
+                    } else {
+                        conjuncts = push(conjuncts, count++, operand);
+                    }
+                }
+            }
+
+            prepare();
+            int[] parents = new int[count];
+            for (int i = 0; i < count; i++) {
+                parents[i] = i;
+                int start = conjuncts[i] >>> 1;
+                if (stamps[start] == stamp) {
+                    join(parents, i, references[start]);
+                    continue;
+                }
+                stamps[start] = stamp;
+                references[start] = i; // the first conjunct that visits the node
+                size = 0;
+                stack = push(stack, size++, start);
+                while (size > 0) {
+                    int n = stack[--size];
+                    if (aig.isInput(n)) continue;
+                    for (int side = 0; side < 2; side++) {
+                        int operand = (side == 0 ? aig.getLeft(n) : aig.getRight(n)) >>> 1;
+                        if (operand == 0) continue;
+                        if (stamps[operand] == stamp) {
+                            join(parents, i, references[operand]);
+                        } else {
+                            stamps[operand] = stamp;
+                            references[operand] = i;
+                            stack = push(stack, size++, operand);
+                        }
+                    }
+                }
+            }
+
+            int[] groups = new int[count]; // the part of each root, from 1
+            int parts = 0;
+            for (int i = 0; i < count; i++) {
+                int root = find(parents, i);
+                if (groups[root] == 0) groups[root] = ++parts;
+            }
+            if (parts < 2) return null;
+            int[] literals = new int[parts];
+            Arrays.fill(literals, Aig.TRUE);
+            for (int i = 0; i < count; i++) {
+                int part = groups[find(parents, i)] - 1;
+                literals[part] = aig.and(literals[part], conjuncts[i]);
+            }
+            return literals;
+        }
+
+        private static void join(int[] parents, int a, int b) {
+            parents[find(parents, a)] = find(parents, b);
+        }
+
+        private static int find(int[] parents, int i) {
+            while (parents[i] != i) {
+                parents[i] = parents[parents[i]];
+                i = parents[i];
+            }
+            return i;
+        }
+
+        private int cofactor(int literal, int input, boolean value) {
+            long key = (long) literal << 32 | (long) input << 1 | (value ? 1 : 0);
+            Integer cached = cofactors.get(key);
+            if (cached != null) return cached;
+            // the graph hashes the same cofactor to the same literal, so an evicted one is rebuilt as it was
+            if (cofactors.size() >= COFACTOR_LIMIT) cofactors.clear();
+
+            prepare();
+            stamps[0] = stamp;
+            results[0] = Aig.FALSE;
+            stamps[input] = stamp;
+            results[input] = value ? Aig.TRUE : Aig.FALSE;
+            int size = 0;
+            stack = push(stack, size++, literal >>> 1);
+            // operands are rebuilt before their gates, and a node is only rebuilt once
+            while (size > 0) {
+                int node = stack[size - 1];
+                if (stamps[node] == stamp) {
+                    size--;
+                    continue;
+                }
+                if (aig.isInput(node)) {
+                    stamps[node] = stamp;
+                    results[node] = node << 1;
+                    size--;
+                    continue;
+                }
+                int left = aig.getLeft(node), right = aig.getRight(node);
+                boolean ready = true;
+                if (stamps[left >>> 1] != stamp) {
+                    stack = push(stack, size++, left >>> 1);
+                    ready = false;
+                }
+                if (stamps[right >>> 1] != stamp) {
+                    stack = push(stack, size++, right >>> 1);
+                    ready = false;
+                }
+                if (!ready) continue;
+                size--;
+                int result = aig.and(results[left >>> 1] ^ (left & 1), results[right >>> 1] ^ (right & 1));
+                // the gates that are created here come after the scratch arrays, which only hold the old nodes
+                stamps[node] = stamp;
+                results[node] = result;
+            }
+            int result = results[literal >>> 1] ^ (literal & 1);
+            cofactors.put(key, result);
+            return result;
+        }
+
+        // start a new stamp, and grow the scratch arrays to the nodes of the graph
+        private void prepare() {
+            int nodes = aig.getNodeCount();
+            if (stamps.length < nodes) {
+                int length = Math.max(nodes, stamps.length * 2);
+                stamps = Arrays.copyOf(stamps, length);
+                results = Arrays.copyOf(results, length);
+                references = Arrays.copyOf(references, length);
+            }
+            if (++stamp == 0) {
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+        }
+
+        private void checkInterrupted() {
+            if ((++splits & CHECK_MASK) == 0 && Thread.currentThread().isInterrupted())
+                throw new CancellationException("Cannot finish the Shannon expansion, since the thread is interrupted!");
+        }
+
+        private static int[] push(int[] stack, int size, int node) {
+            if (size == stack.length) stack = Arrays.copyOf(stack, size * 2);
+            stack[size] = node;
+            return stack;
+        }
+
+    }
+
+}
@@ -0,0 +1,156 @@
+package lojic.engine;
+
+import lojic.aig.Aig;
+import lojic.aig.AigSimulator;
+import lojic.argument.Argument;
+import lojic.nodes.Node;
+import lojic.table.TTableBuilder;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * @author AlienIdeology
+ *
+ * The engine that looks for a falsifying assignment by random simulation before it asks an exact engine
+ * The question is added to an {@link Aig} and simulated on {@code 64} random assignments at a time
+ * (See {@link AigSimulator}). Most nodes that are not tautologies, and most arguments that are not valid,
+ * are rejected after the first few words, and only the rest are checked by the exact engine.
+ * Three-valued logics are not simulated, so they go to the exact engine directly,
+ * except for equivalences, which compare the columns of the nodes (See {@link Engine#isEquivalent(Node, Node)}).
+ * @see lojic.DefaultFactory#ENGINE_SIMULATION
+ */
+public class SimulationEngine extends Engine {
+
+    /**
+     * The default number of words to simulate, which is {@code 64} assignments each
+     */
+    public static final int DEFAULT_WORDS = 64;
+
+    private final Engine exact;
+    private final int words;
+
+    /**
+     * Constructor of an engine that simulates {@link #DEFAULT_WORDS} words
+     *
+     * @param exact The engine that checks the questions which the simulation does not answer
+     */
+    public SimulationEngine(Engine exact) {
+        this(exact, DEFAULT_WORDS);
+    }
+
+    /**
+     * Constructor of an engine
+     *
+     * @param exact The engine that checks the questions which the simulation does not answer
+     * @param words The number of words to simulate, which is {@code 64} assignments each
+     * @throws IllegalArgumentException if the number of words is negative
+     */
+    public SimulationEngine(Engine exact, int words) {
+        super("Simulation + " + Objects.requireNonNull(exact, "The exact engine cannot be null!").getName());
+        if (words < 0)
+            throw new IllegalArgumentException("Cannot simulate a negative number of words!");
+        this.exact = exact;
+        this.words = words;
+    }
+
+    /**
+     * Get the engine that checks the questions which the simulation does not answer
+     *
+     * @return The exact engine
+     */
+    public Engine getExact() {
+        return exact;
+    }
+
+    /**
+     * Get the number of words to simulate
+     *
+     * @return The number of words
+     */
+    public int getWords() {
+        return words;
+    }
+
+    @Override
+    public boolean isTautology(Node node) {
+        if (isThreeValued(node.getTableBuilder())) return exact.isTautology(node);
+        return findAssignment(node, false) == null && exact.isTautology(node);
+    }
+
+    @Override
+    public boolean isContradiction(Node node) {
+        if (isThreeValued(node.getTableBuilder())) return exact.isContradiction(node);
+        return findAssignment(node, true) == null && exact.isContradiction(node);
+    }
+
+    @Override
+    public boolean isValid(Argument argument) {
+        if (isThreeValued(argument.getTableBuilder())) return exact.isValid(argument);
+        return simulateCounterexample(argument) == null && exact.isValid(argument);
+    }
+
+    @Override
+    public boolean isEquivalent(Node node1, Node node2) {
+        if (isThreeValued(node1.getTableBuilder())) return super.isEquivalent(node1, node2);
+        return findDifference(node1, node2) == null && exact.isEquivalent(node1, node2);
+    }
+
+    /**
+     * Find an assignment of the atoms of a node under which the node has a value, by simulation only
+     * The atoms are assigned in the order which they appear in the node.
+     *
+     * @param node The node
+     * @param value The value
+     * @return The assignment, or null if the simulation finds none
+     * @throws UnsupportedOperationException if the node's logic is three-valued
+     */
+    public Map<String, Boolean> findAssignment(Node node, boolean value) {
+        Aig aig = new Aig();
+        return new AigSimulator(aig).findAssignment(aig.add(node), value, words);
+    }
+
+    /**
+     * The counterexample is found by simulation, or by the exact engine if the simulation finds none
+     */
+    @Override
+    public Map<String, Boolean> findCounterexample(Argument argument) {
+        if (isThreeValued(argument.getTableBuilder())) return exact.findCounterexample(argument);
+        Map<String, Boolean> counterexample = simulateCounterexample(argument);
+        return counterexample != null ? counterexample : exact.findCounterexample(argument);
+    }
+
+    /**
+     * Find an assignment under which the lines of an argument other than the conclusion are true,
+     * and the conclusion is false, by simulation only
+     *
+     * @param argument The argument, which has a conclusion
+     * @return The assignment, or null if the simulation finds none
+     * @throws UnsupportedOperationException if the argument's logic is three-valued
+     */
+    public Map<String, Boolean> simulateCounterexample(Argument argument) {
+        Aig aig = new Aig();
+        return new AigSimulator(aig).findAssignment(counterexamples(aig, argument), true, words);
+    }
+
+    /**
+     * Find an assignment under which two nodes have different values, by simulation only
+     * True/False atoms and the logic are the settings of the first node's {@link TTableBuilder}.
+     *
+     * @param node1 The first node
+     * @param node2 The second node
+     * @return The assignment, or null if the simulation finds none
+     * @throws UnsupportedOperationException if the first node's logic is three-valued
+     */
+    public Map<String, Boolean> findDifference(Node node1, Node node2) {
+        TTableBuilder settings = node1.getTableBuilder();
+        Aig aig = new Aig();
+        int literal = aig.xor(aig.add(node1, settings), aig.add(node2, settings));
+        return new AigSimulator(aig).findAssignment(literal, true, words);
+    }
+
+    private static boolean isThreeValued(TTableBuilder settings) {
+        return settings.getLogic().isThreeValued();
+    }
+
+}
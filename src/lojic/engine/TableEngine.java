@@ -0,0 +1,64 @@
+package lojic.engine;
+
+import lojic.argument.Argument;
+import lojic.nodes.Node;
+import lojic.table.Column;
+
+/**
+ * @author AlienIdeology
+ *
+ * The engine that builds a {@link lojic.table.TruthTable} and checks its root column
+ * This engine supports every {@link lojic.table.Logic}, but the size of the table is exponential in the number of atoms.
+ * Counterexamples are found by scanning the rows of the table in order, which stops at the first counterexample
+ * (See {@link Engine#findCounterexample(Argument)}).
+ * @see lojic.DefaultFactory#ENGINE_TABLE
+ */
+public class TableEngine extends Engine {
+
+    public TableEngine() {
+        super("Truth Table");
+    }
+
+    /**
+     * @throws lojic.table.BuildException if the table exceeds the budget of the node's {@link lojic.table.TTableBuilder},
+     * or the build is interrupted or cancelled
+     */
+    @Override
+    public boolean isTautology(Node node) {
+        return node.buildTruthTable().rootIsTautology();
+    }
+
+    /**
+     * @throws lojic.table.BuildException if the table exceeds the budget of the node's {@link lojic.table.TTableBuilder},
+     * or the build is interrupted or cancelled
+     */
+    @Override
+    public boolean isContradiction(Node node) {
+        return node.buildTruthTable().rootIsContradiction();
+    }
+
+    /**
+     * @throws lojic.table.BuildException if the table exceeds the budget of the argument's {@link lojic.table.TTableBuilder},
+     * or the build is interrupted or cancelled
+     */
+    @Override
+    public boolean isValid(Argument argument) {
+        return argument.buildTruthTable().rootIsTautology();
+    }
+
+    /**
+     * The nodes are equivalent if their columns are the same in the truth table of their biconditional,
+     * which is compared instead of the biconditional itself, so that the check holds for every logic
+     *
+     * @throws lojic.table.BuildException if the table exceeds the budget of the first node's
+     * {@link lojic.table.TTableBuilder}, or the build is interrupted or cancelled
+     */
+    @Override
+    public boolean isEquivalent(Node node1, Node node2) {
+        Node biconditional = biconditional(node1, node2);
+        biconditional.getTableBuilder().setSubColumnsLevel(1);
+        Column root = biconditional.buildTruthTable().getRootColumn();
+        return root.getSubColumnLeft().valueEquals(root.getSubColumnRight());
+    }
+
+}
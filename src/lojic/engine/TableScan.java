@@ -0,0 +1,68 @@
+package lojic.engine;
+
+import lojic.aig.Aig;
+import lojic.aig.AigSimulator;
+import lojic.table.Bits;
+import lojic.table.BuildException;
+import lojic.table.TTableBuilder;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Internal class for scanning the rows of a truth table in words of 64 rows, without building its columns
+ * User should ignore this class
+ */
+final class TableScan {
+
+    private TableScan() {}
+
+    // the number of words of a table of n atoms
+    static int words(int n) {
+        return n <= 6 ? 1 : 1 << (n - 6);
+    }
+
+    // the rows of a word that are in a table of n atoms
+    static long mask(int n) {
+        return n >= 6 ? -1L : (1L << (1 << n)) - 1;
+    }
+
+    // the values of the atom k of n atoms on the rows of a word, in the order of the rows of a TruthTable
+    static long atom(int n, int k, int word) {
+        int bit = n - 1 - k;
+        // the first atom is true on the first half of the rows, whose highest bit is 0
+        return bit < 6 ? ~Bits.projection(bit) : (word >>> (bit - 6) & 1) == 0 ? -1L : 0;
+    }
+
+    /*
+        Algorithm:
+            1. Simulate the literal on the rows of each word in order, with the words of the inputs as the atom columns
+            2. Stop at the first word that has a row where the literal is true, and read the atoms off the row
+     */
+    static Map<String, Boolean> findRow(Aig aig, int literal, TTableBuilder settings) {
+        if (literal == Aig.FALSE) return null;
+        List<String> atoms = aig.getAtoms();
+        int n = atoms.size();
+        long rowLimit = settings.getMaxRows() == TTableBuilder.NO_LIMIT ? Integer.MAX_VALUE : Math.min(settings.getMaxRows(), Integer.MAX_VALUE);
+        if (n > 62 || 1L << n > rowLimit)
+            throw new BuildException(BuildException.Type.TOO_MANY_ROWS, n > 62 ? Long.MAX_VALUE : 1L << n, rowLimit);
+
+        AigSimulator simulator = new AigSimulator(aig);
+        long[] inputs = new long[n];
+        for (int w = 0; w < words(n); w++) {
+            if ((w & 0xFF) == 0 && Thread.currentThread().isInterrupted())
+                throw new BuildException(BuildException.Type.INTERRUPTED);
+            for (int k = 0; k < n; k++) inputs[k] = atom(n, k, w);
+            long rows = (literal == Aig.TRUE ? -1L : simulator.simulate(literal, inputs)) & mask(n);
+            if (rows == 0) continue;
+
+            int bit = Long.numberOfTrailingZeros(rows);
+            Map<String, Boolean> assignment = new LinkedHashMap<>();
+            for (int k = 0; k < n; k++) assignment.put(atoms.get(k), (inputs[k] >>> bit & 1) != 0);
+            return assignment;
+        }
+        return null;
+    }
+
+}
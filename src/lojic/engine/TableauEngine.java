@@ -0,0 +1,79 @@
+package lojic.engine;
+
+import lojic.argument.Argument;
+import lojic.nodes.Node;
+import lojic.tableau.Tableau;
+
+import java.util.Map;
+
+/**
+ * @author AlienIdeology
+ *
+ * The engine that refutes the question with a semantic {@link Tableau}
+ * A node is a tautology if the tableau of {@code F node} closes, and an argument is valid if the tableau of its lines
+ * other than the conclusion signed {@code T} and its conclusion signed {@code F} closes.
+ * A tableau is fast for arguments with many atoms but short proofs, and its open branch is a counterexample.
+ * This engine only supports {@link lojic.table.Logic#CLASSICAL} logic.
+ * A check stops with a {@link java.util.concurrent.CancellationException} soon after its thread is interrupted.
+ * @see lojic.DefaultFactory#ENGINE_TABLEAU
+ */
+public class TableauEngine extends Engine {
+
+    public TableauEngine() {
+        super("Tableau");
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the node's logic is three-valued
+     */
+    @Override
+    public boolean isTautology(Node node) {
+        return new Tableau(node.getTableBuilder()).add(node, false).isClosed();
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the node's logic is three-valued
+     */
+    @Override
+    public boolean isContradiction(Node node) {
+        return new Tableau(node.getTableBuilder()).add(node, true).isClosed();
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the argument's logic is three-valued
+     */
+    @Override
+    public boolean isValid(Argument argument) {
+        return tableau(argument).isClosed();
+    }
+
+    /**
+     * The nodes are equivalent if the tableaux of {@code T node1, F node2} and {@code F node1, T node2} both close
+     *
+     * @throws UnsupportedOperationException if the first node's logic is three-valued
+     */
+    @Override
+    public boolean isEquivalent(Node node1, Node node2) {
+        return new Tableau(node1.getTableBuilder()).add(node1, true).add(node2, false).isClosed()
+                && new Tableau(node1.getTableBuilder()).add(node1, false).add(node2, true).isClosed();
+    }
+
+    /**
+     * The counterexample is the open branch of the tableau of the argument
+     *
+     * @throws UnsupportedOperationException if the argument's logic is three-valued
+     */
+    @Override
+    public Map<String, Boolean> findCounterexample(Argument argument) {
+        return tableau(argument).getOpenBranch();
+    }
+
+    private Tableau tableau(Argument argument) {
+        Tableau tableau = new Tableau(argument.getTableBuilder());
+        for (Node premise : premises(argument)) {
+            tableau.add(premise, true);
+        }
+        return tableau.add(argument.getConclusion().getNode(), false);
+    }
+
+}
@@ -1,13 +1,22 @@
 package lojic.nodes;
 
+import lojic.DefaultFactory;
+import lojic.bdd.Bdd;
+import lojic.bdd.BddManager;
+import lojic.engine.Backbone;
+import lojic.engine.Engine;
 import lojic.nodes.connectives.BinaryConnective;
 import lojic.nodes.connectives.Connective;
 import lojic.nodes.connectives.UnaryConnective;
+import lojic.table.NPN;
 import lojic.table.TTableBuilder;
 import lojic.table.TruthTable;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * @author AlienIdeology
@@ -28,6 +37,7 @@ public abstract class Node {
 
     protected NodeClimber climber;
     protected TTableBuilder tableBuilder;
+    protected Engine engine;
 
     /**
      * Constructor of a node
@@ -43,6 +53,7 @@ public abstract class Node {
         this.string = string;
         this.parent = parent;
         this.tableBuilder = new TTableBuilder(this);
+        this.engine = DefaultFactory.ENGINE_PLANNER;
     }
 
     /**
@@ -54,6 +65,8 @@ public abstract class Node {
      * @see TTableBuilder for more information on further confirguration
      *
      * @return The truth table
+     * @throws lojic.table.BuildException if the table exceeds the budget of the {@link TTableBuilder},
+     * or the build is interrupted or cancelled
      */
     public TruthTable buildTruthTable() {
         return tableBuilder.build();
@@ -81,6 +94,53 @@ public abstract class Node {
         );
     }
 
+    /**
+     * Build a {@link Bdd} that represents this node, with a new {@link BddManager}
+     * whose variables are the atoms of this node, in the order which they appear.
+     * True/False atoms are recognized with the settings of this node's {@link TTableBuilder}.
+     *
+     * @return The BDD
+     * @throws UnsupportedOperationException if the logic of this node is three-valued
+     */
+    public Bdd toBdd() {
+        return toBdd(new BddManager());
+    }
+
+    /**
+     * Build a {@link Bdd} that represents this node with a manager,
+     * so that it can be combined and compared with the other BDDs of the manager.
+     * @see BddManager#build(Node)
+     *
+     * @param manager The manager
+     * @return The BDD
+     * @throws UnsupportedOperationException if the logic of this node is three-valued
+     */
+    public Bdd toBdd(BddManager manager) {
+        return manager.build(this);
+    }
+
+    /**
+     * Get the {@link Engine} which this node uses to check for tautologies and contradictions
+     *
+     * @return The engine, {@link DefaultFactory#ENGINE_PLANNER} by default
+     */
+    public Engine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Set the {@link Engine} which this node uses to check for tautologies and contradictions
+     * @see DefaultFactory for the default engines
+     *
+     * @param engine The engine
+     * @return This node for method chaining
+     * @throws NullPointerException if the engine is null
+     */
+    public Node setEngine(Engine engine) {
+        this.engine = Objects.requireNonNull(engine, "The engine of a node cannot be null!");
+        return this;
+    }
+
     /**
      * Get the number of levels below this Node
      * The node itself is always at level 0
@@ -118,7 +178,8 @@ public abstract class Node {
     }
 
     /**
-     * Get the (unique, none-repeating) atoms in the Node
+     * Get the atoms of every local atom in the Node, from left to right
+     * An atom which occurs more than once is repeated, see {@link #getDistinctAtoms()} for the unique atoms
      *
      * @return The atoms
      */
@@ -129,6 +190,28 @@ public abstract class Node {
                 .toArray(Atom[]::new);
     }
 
+    /**
+     * Get the (unique, none-repeating) atoms in the Node, in the order which they first occur
+     *
+     * @return The atoms
+     */
+    public Atom[] getDistinctAtoms() {
+        // atoms of separately parsed or copied nodes are different objects, so compare by string
+        Map<String, Atom> atoms = new LinkedHashMap<>();
+        collectAtoms(this, atoms);
+        return atoms.values().toArray(new Atom[0]);
+    }
+
+    private static void collectAtoms(Node node, Map<String, Atom> atoms) {
+        if (node.isFormula()) {
+            for (Node child : ((Formula) node).getChildren()) {
+                collectAtoms(child, atoms);
+            }
+        } else {
+            atoms.putIfAbsent(node.getString(), ((LocalAtom) node).getAtom());
+        }
+    }
+
     /**
      * Get all the Nodes on a level
      *
@@ -171,25 +254,73 @@ public abstract class Node {
 
     /**
      * Check if this node is always {@code true}
-     * Note that this method generates a {@link TruthTable} with whatever
+     * Note that this method checks with this node's {@link Engine}, and with whatever
      * {@link TTableBuilder} settings that already exists in this Node.
-     * To configure
+     * The default engine plans the check, and generates a {@link TruthTable} for small nodes
+     * (See {@link lojic.engine.PlannerEngine}).
+     * @see #setEngine(Engine) for checking with another engine
      *
      * @return True if this node is always true
      */
     public boolean isTautology() {
-        return getTableBuilder().build().rootIsTautology();
+        return engine.isTautology(this);
     }
 
     /**
      * Check if this node is always {@code false}
-     * Note that this method generates a {@link TruthTable} with whatever
+     * Note that this method checks with this node's {@link Engine}, and with whatever
      * {@link TTableBuilder} settings that already exists in this Node.
+     * The default engine plans the check, and generates a {@link TruthTable} for small nodes
+     * (See {@link lojic.engine.PlannerEngine}).
+     * @see #setEngine(Engine) for checking with another engine
      *
      * @return True if this node is always false
      */
     public boolean isContradiction() {
-        return getTableBuilder().build().rootIsContradiction();
+        return engine.isContradiction(this);
+    }
+
+    /**
+     * Check if this node has the same value as another node under every assignment of their atoms
+     * Note that this method checks with this node's {@link Engine}, and with the
+     * {@link TTableBuilder} settings of this node.
+     * @see #setEngine(Engine) for checking with another engine
+     *
+     * @param node The other node
+     * @return True if the nodes are equivalent
+     * @throws UnsupportedOperationException if the logic of this node is three-valued,
+     * and this node's engine only supports {@link lojic.table.Logic#CLASSICAL} logic
+     */
+    public boolean isEquivalent(Node node) {
+        return engine.isEquivalent(this, node);
+    }
+
+    /**
+     * Get the NPN class of this node, which is the canonical truth table of every formula that is
+     * the same function as this node up to renaming (permuting) atoms, negating atoms and negating the whole formula.
+     * Two nodes with the same number of atoms are NPN-equivalent if and only if their NPN classes are equal.
+     * @see NPN#isEquivalent(Node, Node) for comparing nodes with different numbers of atoms
+     * True/False atoms are recognized with the settings of this node's {@link TTableBuilder}.
+     * @see NPN for the canonical form and the bit layout of the truth table
+     *
+     * @return The canonical 64-bit truth table
+     * @throws UnsupportedOperationException if this node has more than {@value NPN#MAX_ATOMS} atoms
+     */
+    public long npnClass() {
+        return NPN.classOf(this);
+    }
+
+    /**
+     * Get the backbone of this node, which is the atoms that have the same value whenever this node is true
+     * True/False atoms are recognized with the settings of this node's {@link TTableBuilder}, and are never
+     * in the backbone.
+     * @see Backbone for how the backbone is found and cached
+     *
+     * @return The unmodifiable map of the atoms in the backbone to their values, or null if this node is never true
+     * @throws UnsupportedOperationException if this node's logic is three-valued
+     */
+    public Map<String, Boolean> backbone() {
+        return Backbone.of(this);
     }
 
     /**
@@ -382,6 +513,7 @@ public abstract class Node {
     public Node copy() {
         Node copy = copy(null);
         copy.tableBuilder.copySetting(this.tableBuilder);
+        copy.engine = engine;
         return copy;
     }
 
@@ -0,0 +1,40 @@
+package lojic.nodes;
+
+import lojic.nodes.connectives.Connective;
+
+/**
+ * Internal class for the formulas that the library builds without a parser, such as from clauses
+ * or and-inverter graphs
+ * User should ignore this class
+ */
+public final class SyntheticFormula extends Formula {
+
+    /**
+     * Constructor of a formula whose children are set after they are built
+     * This constructor is for the Lojic library's internal use only, users should ignore this
+     *
+     * @param level The level of the tree which this formula is on
+     * @param connective The connective
+     * @param parent The formula's parent
+     */
+    public SyntheticFormula(int level, Connective connective, Node parent) {
+        super(level, "", connective, parent);
+    }
+
+    /**
+     * Set the children of this formula, and its string from the strings of the children
+     * and the official symbol of the connective
+     *
+     * @param nodes The child of a unary connective, or the left and the right children of a binary connective
+     * @return This formula
+     */
+    public SyntheticFormula setChildren(Node... nodes) {
+        String symbol = getConnective().getOfficialSymbol();
+        super.children = nodes;
+        super.string = nodes.length == 1
+                ? "(" + symbol + nodes[0].getString() + ")"
+                : "(" + nodes[0].getString() + symbol + nodes[1].getString() + ")";
+        return this;
+    }
+
+}
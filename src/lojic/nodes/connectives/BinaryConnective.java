@@ -28,6 +28,7 @@ public final class BinaryConnective extends Connective {
     };
 
     private final BiPredicate<Boolean, Boolean> computation;
+    private final int truthCode;
 
     /**
      * Constructor of a binary connective
@@ -44,6 +45,14 @@ public final class BinaryConnective extends Connective {
     public BinaryConnective(BiPredicate<Boolean, Boolean> computation, String official, int precedence, String... others) {
         super(official, precedence, others);
         this.computation = computation;
+
+        int code = 0;
+        for (int l = 0; l <= 1; l++) {
+            for (int r = 0; r <= 1; r++) {
+                if (computation.test(l == 1, r == 1)) code |= 1 << ((l << 1) | r);
+            }
+        }
+        this.truthCode = code;
     }
 
     /**
@@ -94,6 +103,22 @@ public final class BinaryConnective extends Connective {
         return computation.test(left, right);
     }
 
+    /**
+     * Compute 64 truth values at once based on the packed truth values of the nodes on its left and right.
+     *
+     * @param left left packed truth values
+     * @param right right packed truth values
+     * @return The packed truth values
+     */
+    long computeBits(long left, long right) {
+        return computeBits(truthCode, left, right);
+    }
+
+    @Override
+    public int getTruthCode() {
+        return truthCode;
+    }
+
     @Override
     public boolean[] getPossibleTruths() {
         boolean[] truths = new boolean[4];
@@ -142,6 +142,21 @@ public abstract class Connective {
      */
     public abstract boolean[] getPossibleTruths();
 
+    /**
+     * Get the truth code of this connective, which is {@link #getPossibleTruths()} packed into the bits of an int
+     *
+     * For Unary connectives, bit {@code r} is the truth value of the connective when the
+     * atom or formula to its right has the value {@code r} (1 for {@code true}, 0 for {@code false}).
+     *
+     * For Binary connectives, bit {@code (l << 1) | r} is the truth value of the connective when the
+     * atoms or formulas to its left and right have the values {@code l} and {@code r}.
+     * For example, the truth code of {@link DefaultFactory#AND} is {@code 0b1000},
+     * and the truth code of {@link DefaultFactory#IF} is {@code 0b1011}.
+     *
+     * @return The truth code
+     */
+    public abstract int getTruthCode();
+
     /**
      * Return the truth value of the connective given its operand'(s) truth values
      * This is a wrapper method for the subclasses {@link BinaryConnective} and {@link UnaryConnective}
@@ -162,5 +177,56 @@ public abstract class Connective {
         return false; // This will never be reached
     }
 
+    /**
+     * Return the truth values of the connective given 64 truth values of its operand'(s) at once,
+     * each packed into the bits of a {@code long} word
+     * This is a wrapper method for the subclasses {@link BinaryConnective} and {@link UnaryConnective}
+     *
+     * @param words The operand'(s) packed truth values
+     * @return The packed truth values of the connective
+     * @throws IllegalArgumentException if the number of word arguments passed to this method does not
+     *          fit the type of connective this object denotes.
+     */
+    public long computeBits(long... words) throws IllegalArgumentException {
+        if (this instanceof BinaryConnective) {
+            if (words.length != 2) throw new IllegalArgumentException("Unexpected number of parameter(s)!");
+            else return ((BinaryConnective) this).computeBits(words[0], words[1]);
+        } else if (this instanceof UnaryConnective) {
+            if (words.length != 1) throw new IllegalArgumentException("Unexpected number of parameter(s)!");
+            else return ((UnaryConnective) this).computeBits(words[0]);
+        }
+        return 0L; // This will never be reached
+    }
+
+    /**
+     * Compute the packed truth values of a binary truth code (See {@link #getTruthCode()})
+     * for 64 pairs of packed operand values at once
+     * This method is for the Lojic library's internal use only, users should ignore this
+     *
+     * @param code The binary truth code
+     * @param left The packed truth values on the left
+     * @param right The packed truth values on the right
+     * @return The packed truth values
+     */
+    public static long computeBits(int code, long left, long right) {
+        switch (code & 0b1111) {
+            case 0b0000: return 0L;
+            case 0b1000: return left & right;
+            case 0b0111: return ~(left & right);
+            case 0b1110: return left | right;
+            case 0b0001: return ~(left | right);
+            case 0b0110: return left ^ right;
+            case 0b1001: return ~(left ^ right);
+            case 0b1011: return ~left | right;
+            case 0b0100: return left & ~right;
+            case 0b1101: return left | ~right;
+            case 0b0010: return ~left & right;
+            case 0b1100: return left;
+            case 0b0011: return ~left;
+            case 0b1010: return right;
+            case 0b0101: return ~right;
+            default: return -1L;
+        }
+    }
 
 }
@@ -21,6 +21,7 @@ public final class UnaryConnective extends Connective {
     public static final boolean[] POSSIBLE_INPUT_VALUES = new boolean[]{true, false};
 
     private final Predicate<Boolean> computation;
+    private final int truthCode;
 
     /**
      * Constructor of a unary connective
@@ -37,6 +38,7 @@ public final class UnaryConnective extends Connective {
     public UnaryConnective(Predicate<Boolean> computation, String official, int precedence, String... others) {
         super(official, precedence, others);
         this.computation = computation;
+        this.truthCode = (computation.test(false) ? 0b01 : 0) | (computation.test(true) ? 0b10 : 0);
     }
 
     /**
@@ -58,6 +60,26 @@ public final class UnaryConnective extends Connective {
         return computation.test(right);
     }
 
+    /**
+     * Compute 64 truth values at once based on the packed truth values of the node on its right.
+     *
+     * @param right right packed truth values
+     * @return The packed truth values
+     */
+    long computeBits(long right) {
+        switch (truthCode) {
+            case 0b00: return 0L;
+            case 0b01: return ~right;
+            case 0b10: return right;
+            default: return -1L;
+        }
+    }
+
+    @Override
+    public int getTruthCode() {
+        return truthCode;
+    }
+
     @Override
     public boolean[] getPossibleTruths() {
         boolean[] truths = new boolean[2];
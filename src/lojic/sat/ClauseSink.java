@@ -0,0 +1,36 @@
+package lojic.sat;
+
+/**
+ * @author AlienIdeology
+ *
+ * A receiver of variables and clauses, such as a {@link SatSolver} or a {@link ClauseStore}
+ * Variables are numbered from {@code 1}, and literals are written as in the DIMACS format
+ * (See {@link SatSolver} for the format).
+ * @see CnfEncoder for encoding nodes into clauses
+ */
+public interface ClauseSink {
+
+    /**
+     * Add a new variable
+     *
+     * @return The variable, which is the number of variables of this sink
+     */
+    int newVariable();
+
+    /**
+     * Get the number of variables
+     *
+     * @return The number of variables
+     */
+    int getVariableCount();
+
+    /**
+     * Add a clause, which is the disjunction of its literals
+     *
+     * @param literals The literals
+     * @return false if the clauses of this sink are known to be unsatisfiable
+     * @throws IllegalArgumentException if a literal is {@code 0} or its variable has not been added
+     */
+    boolean addClause(int... literals);
+
+}
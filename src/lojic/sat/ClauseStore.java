@@ -0,0 +1,286 @@
+package lojic.sat;
+
+import lojic.DefaultFactory;
+import lojic.nodes.Atom;
+import lojic.nodes.LocalAtom;
+import lojic.nodes.Node;
+import lojic.nodes.SyntheticFormula;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author AlienIdeology
+ *
+ * A compact store of clauses in conjunctive normal form (CNF)
+ *
+ * The literals of all clauses are stored back to back in one {@code int} array, and the end of every clause
+ * is stored in another, so a clause takes 4 bytes per literal plus 4 bytes, and no objects.
+ * Variables are numbered from {@code 1}, and literals are written as in the DIMACS format (See {@link SatSolver}).
+ * A store also maps the names of atoms to their variables, so that the clauses can be read back as {@link Node}s.
+ * @see DimacsWriter for writing a store as a DIMACS CNF file
+ */
+public class ClauseStore implements ClauseSink {
+
+    private int variables;
+    private int[] literals;
+    private int literalCount;
+    private int[] ends;
+    private int clauseCount;
+    private final Map<String, Integer> atoms;
+
+    /**
+     * Constructor of an empty clause store
+     */
+    public ClauseStore() {
+        this.literals = new int[64];
+        this.ends = new int[16];
+        this.atoms = new LinkedHashMap<>();
+    }
+
+    /**
+     * Encode a node into a new clause store
+     * The clauses are satisfiable exactly when the node is, and the atoms of the node are mapped to their variables.
+     * True/False atoms are recognized with the settings of the node's {@link lojic.table.TTableBuilder}.
+     * @see CnfEncoder for the encoding
+     *
+     * @param node The node
+     * @return The clause store
+     */
+    public static ClauseStore fromNode(Node node) {
+        ClauseStore store = new ClauseStore();
+        CnfEncoder encoder = new CnfEncoder(store, node.getTableBuilder());
+        store.addClause(encoder.encode(node, true));
+        store.atoms.putAll(encoder.getAtomVariables());
+        return store;
+    }
+
+    @Override
+    public int newVariable() {
+        return ++variables;
+    }
+
+    @Override
+    public int getVariableCount() {
+        return variables;
+    }
+
+    /**
+     * Add a clause, which is the disjunction of its literals
+     * The literals are stored as they are, with no simplification.
+     *
+     * @param literals The literals
+     * @return true, since a store does not check satisfiability
+     * @throws IllegalArgumentException if a literal is {@code 0} or its variable has not been added
+     */
+    @Override
+    public boolean addClause(int... literals) {
+        for (int literal : literals) {
+            if (literal == 0 || Math.abs(literal) > variables)
+                throw new IllegalArgumentException("Cannot add a clause with the unknown literal " + literal + "!");
+        }
+        if (literalCount + literals.length > this.literals.length) {
+            this.literals = Arrays.copyOf(this.literals, Math.max(this.literals.length * 2, literalCount + literals.length));
+        }
+        System.arraycopy(literals, 0, this.literals, literalCount, literals.length);
+        literalCount += literals.length;
+
+        if (clauseCount == ends.length) ends = Arrays.copyOf(ends, clauseCount * 2);
+        ends[clauseCount++] = literalCount;
+        return true;
+    }
+
+    /**
+     * Get the number of clauses
+     *
+     * @return The number of clauses
+     */
+    public int getClauseCount() {
+        return clauseCount;
+    }
+
+    /**
+     * Get the number of literals of all clauses
+     *
+     * @return The number of literals
+     */
+    public int getLiteralCount() {
+        return literalCount;
+    }
+
+    /**
+     * Get the number of literals of a clause
+     *
+     * @param clause The index of the clause
+     * @return The number of literals
+     * @throws IndexOutOfBoundsException if the index is {@code < 0 || >= }{@link #getClauseCount()}
+     */
+    public int getClauseSize(int clause) {
+        checkClause(clause);
+        return ends[clause] - start(clause);
+    }
+
+    /**
+     * Get a literal of a clause
+     *
+     * @param clause The index of the clause
+     * @param index The index of the literal within the clause
+     * @return The literal
+     * @throws IndexOutOfBoundsException if the clause or the literal does not exist
+     */
+    public int getLiteral(int clause, int index) {
+        if (index < 0 || index >= getClauseSize(clause))
+            throw new IndexOutOfBoundsException("Cannot get the literal " + index + " of the clause " + clause + "!");
+        return literals[start(clause) + index];
+    }
+
+    /**
+     * Get a copy of the literals of a clause
+     *
+     * @param clause The index of the clause
+     * @return The literals
+     * @throws IndexOutOfBoundsException if the index is {@code < 0 || >= }{@link #getClauseCount()}
+     */
+    public int[] getClause(int clause) {
+        checkClause(clause);
+        return Arrays.copyOfRange(literals, start(clause), ends[clause]);
+    }
+
+    /**
+     * Get the variables of the atoms of the clauses, in the order which they are added
+     *
+     * @return The map of atom strings to variables
+     */
+    public Map<String, Integer> getAtomVariables() {
+        return Collections.unmodifiableMap(atoms);
+    }
+
+    /**
+     * Map an atom to a variable
+     *
+     * @param atom The string of the atom
+     * @param variable The variable
+     * @throws IllegalArgumentException if the variable has not been added
+     */
+    public void setAtomVariable(String atom, int variable) {
+        if (variable < 1 || variable > variables)
+            throw new IllegalArgumentException("Cannot map the atom " + atom + " to the unknown variable " + variable + "!");
+        atoms.put(atom, variable);
+    }
+
+    /**
+     * Add the variables and the clauses of this store to another sink
+     * The variables of this store are the first variables of the sink, so the sink must have no more variables
+     * than this store.
+     *
+     * @param sink The sink, such as a {@link SatSolver}
+     * @return false if the sink knows that its clauses are unsatisfiable
+     * @throws IllegalArgumentException if the sink has more variables than this store
+     */
+    public boolean addTo(ClauseSink sink) {
+        if (sink.getVariableCount() > variables)
+            throw new IllegalArgumentException("Cannot add the clauses of a store to a sink with more variables!");
+        while (sink.getVariableCount() < variables) sink.newVariable();
+
+        boolean ok = true;
+        for (int c = 0; c < clauseCount; c++) {
+            ok &= sink.addClause(Arrays.copyOfRange(literals, start(c), ends[c]));
+        }
+        return ok;
+    }
+
+    /**
+     * Convert the clauses into a {@link Node}, which is the conjunction of the clauses,
+     * in which every clause is the disjunction of its literals
+     *
+     * The conjunctions and the disjunctions are balanced, so the depth of the node only grows with the logarithm
+     * of the number of clauses. Every variable is one {@link Atom}, which is shared by all of its {@link LocalAtom}s.
+     * A variable is named by {@link #getAtomVariables()}, or {@code X<variable>} if it is not mapped to an atom.
+     * An empty clause is a False atom, and a store with no clauses is a True atom.
+     *
+     * @return The node
+     */
+    public Node toNode() {
+        Atom[] names = atomNames();
+        if (clauseCount == 0) return new LocalAtom(0, null, new Atom(DefaultFactory.TRUE_ATOMS[0]));
+        return conjunction(null, 0, 0, clauseCount, names);
+    }
+
+    @Override
+    public String toString() {
+        return "ClauseStore{" +
+                "variables=" + variables +
+                ", clauses=" + clauseCount +
+                ", literals=" + literalCount +
+                "}";
+    }
+
+    /* Internal */
+
+    // the literals of all clauses, for the writer
+    int[] literals() {
+        return literals;
+    }
+
+    int start(int clause) {
+        return clause == 0 ? 0 : ends[clause - 1];
+    }
+
+    int end(int clause) {
+        return ends[clause];
+    }
+
+    private Atom[] atomNames() {
+        Atom[] names = new Atom[variables + 1];
+        Set<String> used = new HashSet<>();
+        for (Map.Entry<String, Integer> atom : atoms.entrySet()) {
+            names[atom.getValue()] = new Atom(atom.getKey());
+            used.add(atom.getKey());
+        }
+        for (int v = 1; v <= variables; v++) {
+            if (names[v] != null) continue;
+            String name = "X" + v;
+            while (used.contains(name)) name = "X" + name;
+            names[v] = new Atom(name);
+        }
+        return names;
+    }
+
+    private Node conjunction(Node parent, int level, int from, int to, Atom[] names) {
+        if (to - from == 1) return disjunction(parent, level, start(from), ends[from], names);
+
+        int middle = (from + to) >>> 1;
+        SyntheticFormula formula = new SyntheticFormula(level, DefaultFactory.AND, parent);
+        Node left = conjunction(formula, level + 1, from, middle, names);
+        Node right = conjunction(formula, level + 1, middle, to, names);
+        return formula.setChildren(left, right);
+    }
+
+    private Node disjunction(Node parent, int level, int from, int to, Atom[] names) {
+        if (to == from) return new LocalAtom(level, parent, new Atom(DefaultFactory.FALSE_ATOMS[0]));
+        if (to - from == 1) return literal(parent, level, literals[from], names);
+
+        int middle = (from + to) >>> 1;
+        SyntheticFormula formula = new SyntheticFormula(level, DefaultFactory.OR, parent);
+        Node left = disjunction(formula, level + 1, from, middle, names);
+        Node right = disjunction(formula, level + 1, middle, to, names);
+        return formula.setChildren(left, right);
+    }
+
+    private Node literal(Node parent, int level, int literal, Atom[] names) {
+        if (literal > 0) return new LocalAtom(level, parent, names[literal]);
+
+        SyntheticFormula negation = new SyntheticFormula(level, DefaultFactory.NEG, parent);
+        return negation.setChildren(new LocalAtom(level + 1, negation, names[-literal]));
+    }
+
+    private void checkClause(int clause) {
+        if (clause < 0 || clause >= clauseCount)
+            throw new IndexOutOfBoundsException("Cannot get the clause " + clause + " of a store of " + clauseCount + " clauses!");
+    }
+
+}
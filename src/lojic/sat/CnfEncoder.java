@@ -0,0 +1,324 @@
+package lojic.sat;
+
+import lojic.nodes.Formula;
+import lojic.nodes.Node;
+import lojic.nodes.connectives.Connective;
+import lojic.table.TTableBuilder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author AlienIdeology
+ *
+ * A Tseitin and Plaisted-Greenbaum encoder of {@link Node}s into clauses
+ *
+ * Every formula is given a variable (a gate) that stands for the formula, so the clauses grow linearly with the size
+ * of the node instead of exponentially. Any connective, including {@code XOR}, {@code IFF}, {@code NAND} and
+ * {@code NOR}, is encoded from its truth code (See {@link Connective#getTruthCode()}):
+ * a two-operand function is, up to negating its operands and its result, either a constant, an operand,
+ * the conjunction or the exclusive disjunction of its operands, so only {@code AND} and {@code XOR} gates are needed.
+ * Negations and constants need no gate at all.
+ *
+ * A gate is equivalent to its formula with two halves of clauses: the gate implies the formula, and
+ * the formula implies the gate. The Tseitin encoding adds both halves. The Plaisted-Greenbaum encoding only
+ * adds the half that the polarity of the occurrence needs (a formula that must be true only needs the first half),
+ * which keeps the satisfiability and saves up to half of the clauses.
+ * Clauses are added lazily from the root, so a gate shared by many formulas adds each half at most once.
+ *
+ * Atoms with the same string are the same variable, and True/False atoms are recognized with the settings of a
+ * {@link TTableBuilder}. Gates are hashed by their operands, so the same formula is encoded once
+ * in every node given to the same encoder.
+ */
+public class CnfEncoder {
+
+    private static final byte AND = 1, XOR = 2;
+    private static final byte POSITIVE = 1, NEGATIVE = 2;
+
+    private final ClauseSink sink;
+    private final TTableBuilder settings;
+    private final Map<String, Integer> atoms;
+    private int trueLiteral; // a variable that is always true, 0 until it is needed
+
+    // gate definitions, indexed by variable
+    private byte[] kinds;
+    private int[] lefts;
+    private int[] rights;
+    private byte[] added; // the halves of the clauses that are added
+
+    // open addressing hash table of the gates, from their kinds and operands to their variables
+    private long[] keys;
+    private int[] gates;
+    private int gateCount;
+
+    private int[] stack;
+
+    /**
+     * Constructor of an encoder
+     *
+     * @param sink The sink which the variables and the clauses are added to, such as a {@link SatSolver}
+     * @param settings The settings that recognize True/False atoms
+     */
+    public CnfEncoder(ClauseSink sink, TTableBuilder settings) {
+        this.sink = sink;
+        this.settings = settings;
+        this.atoms = new LinkedHashMap<>();
+        this.kinds = new byte[16];
+        this.lefts = new int[16];
+        this.rights = new int[16];
+        this.added = new byte[16];
+        this.keys = new long[64];
+        this.gates = new int[64];
+        this.stack = new int[16];
+    }
+
+    /**
+     * Encode a node with the Tseitin encoding
+     * The returned literal is true under an assignment exactly when the node is true, so it can be used in any clause.
+     *
+     * @param node The node
+     * @return The literal that is equivalent to the node
+     */
+    public int encode(Node node) {
+        int literal = define(node);
+        require(literal);
+        require(-literal);
+        return literal;
+    }
+
+    /**
+     * Encode a node with the Plaisted-Greenbaum encoding, for one polarity
+     * If the polarity is positive, the returned literal implies the node, so adding the literal as a unit clause
+     * asserts that the node is true. Otherwise the node implies the literal, so adding the negation of the literal
+     * as a unit clause asserts that the node is false. In general, the literal can only be used in clauses
+     * in which it occurs with the given polarity.
+     *
+     * @param node The node
+     * @param positive true for a positive occurrence
+     * @return The literal
+     */
+    public int encode(Node node, boolean positive) {
+        int literal = define(node);
+        require(positive ? literal : -literal);
+        return literal;
+    }
+
+    /**
+     * Get the variables of the encoded atoms, in the order which they are encoded
+     * True/False atoms are not variables.
+     *
+     * @return The map of atom strings to variables
+     */
+    public Map<String, Integer> getAtomVariables() {
+        return Collections.unmodifiableMap(atoms);
+    }
+
+    /**
+     * Get the sink which this encoder adds the variables and the clauses to
+     *
+     * @return The sink
+     */
+    public ClauseSink getSink() {
+        return sink;
+    }
+
+    /* Definitions */
+
+    // get the literal of a node, defining gates without adding their clauses
+    private int define(Node node) {
+        Map<Node, Integer> literals = new IdentityHashMap<>();
+        // children are visited before their parents
+        node.climb().forEach(n -> literals.put(n, n.isFormula()
+                ? defineFormula((Formula) n, literals)
+                : defineAtom(n.getString())));
+        return literals.get(node);
+    }
+
+    private int defineAtom(String atom) {
+        if (settings.isTAtom(atom)) return constant(true);
+        if (settings.isFAtom(atom)) return constant(false);
+        return atoms.computeIfAbsent(atom, a -> variable());
+    }
+
+    private int defineFormula(Formula formula, Map<Node, Integer> literals) {
+        Connective connective = formula.getConnective();
+        Node[] children = formula.getChildren();
+        if (connective.isUnary()) {
+            return unary(connective.getTruthCode(), literals.get(children[0]));
+        }
+        return binary(connective.getTruthCode(), literals.get(children[0]), literals.get(children[1]));
+    }
+
+    // bit r of the code is the value of the function when the literal has the value r
+    private int unary(int code, int literal) {
+        switch (code & 0b11) {
+            case 0b00: return constant(false);
+            case 0b11: return constant(true);
+            case 0b10: return literal;
+            default: return -literal;
+        }
+    }
+
+    // bit (l << 1) | r of the code is the value of the function when the literals have the values l and r
+    private int binary(int code, int left, int right) {
+        // fold constants and repeated variables into one operand
+        if (isConstant(left)) {
+            return unary(left > 0 ? code >> 2 : code, right);
+        }
+        if (isConstant(right)) {
+            int shift = right > 0 ? 1 : 0;
+            return unary((code >> (2 | shift) & 1) << 1 | (code >> shift & 1), left);
+        }
+        if (left == right) {
+            return unary((code >> 3 & 1) << 1 | (code & 1), left);
+        }
+        if (left == -right) {
+            return unary((code >> 2 & 1) << 1 | (code >> 1 & 1), left);
+        }
+
+        int ones = Integer.bitCount(code & 0b1111);
+        if (ones == 0) return constant(false);
+        if (ones == 4) return constant(true);
+        if (ones == 1 || ones == 3) {
+            // one true (or false) row: the conjunction of the operands that take the values of that row
+            int row = Integer.numberOfTrailingZeros(ones == 1 ? code : ~code);
+            int gate = gate(AND, (row & 0b10) != 0 ? left : -left, (row & 0b01) != 0 ? right : -right);
+            return ones == 1 ? gate : -gate;
+        }
+        switch (code & 0b1111) {
+            case 0b1100: return left;
+            case 0b0011: return -left;
+            case 0b1010: return right;
+            case 0b0101: return -right;
+            default:
+                // the negations of the operands negate the gate
+                boolean negated = ((left < 0) != (right < 0)) ^ ((code & 0b1111) == 0b1001);
+                int gate = gate(XOR, Math.abs(left), Math.abs(right));
+                return negated ? -gate : gate;
+        }
+    }
+
+    private int gate(byte kind, int left, int right) {
+        int a = Math.min(left, right), b = Math.max(left, right);
+        long key = (long) kind << 62 | (long) unsigned(a) << 31 | unsigned(b);
+
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) return gates[slot];
+            slot = (slot + 1) & mask;
+        }
+
+        int g = variable();
+        kinds[g] = kind;
+        lefts[g] = a;
+        rights[g] = b;
+        keys[slot] = key;
+        gates[slot] = g;
+        if (++gateCount * 2 > keys.length) rehash();
+        return g;
+    }
+
+    private int constant(boolean value) {
+        if (trueLiteral == 0) {
+            trueLiteral = variable();
+            sink.addClause(trueLiteral);
+        }
+        return value ? trueLiteral : -trueLiteral;
+    }
+
+    private boolean isConstant(int literal) {
+        return trueLiteral != 0 && Math.abs(literal) == trueLiteral;
+    }
+
+    private int variable() {
+        int v = sink.newVariable();
+        if (v >= kinds.length) {
+            int capacity = Math.max(kinds.length * 2, v + 1);
+            kinds = Arrays.copyOf(kinds, capacity);
+            lefts = Arrays.copyOf(lefts, capacity);
+            rights = Arrays.copyOf(rights, capacity);
+            added = Arrays.copyOf(added, capacity);
+        }
+        return v;
+    }
+
+    /* Clauses */
+
+    /*
+        Algorithm:
+            1. A literal that occurs positively needs the half of its gate's clauses in which the literal implies the gate's
+               formula, which is the positive half for a positive literal and the negative half for a negative one
+            2. Add the clauses of the half, and require the operands with the polarities they occur in those clauses
+            3. Stop at atoms and at halves that are already added
+     */
+    private void require(int literal) {
+        int size = 0;
+        stack[size++] = literal;
+        while (size > 0) {
+            int lit = stack[--size];
+            int g = Math.abs(lit);
+            byte half = lit > 0 ? POSITIVE : NEGATIVE;
+            if (kinds[g] == 0 || (added[g] & half) != 0) continue;
+            added[g] |= half;
+
+            int a = lefts[g], b = rights[g];
+            if (size + 4 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2 + 4);
+            if (kinds[g] == AND) {
+                if (half == POSITIVE) {
+                    sink.addClause(-g, a);
+                    sink.addClause(-g, b);
+                    stack[size++] = a;
+                    stack[size++] = b;
+                } else {
+                    sink.addClause(g, -a, -b);
+                    stack[size++] = -a;
+                    stack[size++] = -b;
+                }
+            } else {
+                if (half == POSITIVE) {
+                    sink.addClause(-g, a, b);
+                    sink.addClause(-g, -a, -b);
+                } else {
+                    sink.addClause(g, -a, b);
+                    sink.addClause(g, a, -b);
+                }
+                stack[size++] = a;
+                stack[size++] = -a;
+                stack[size++] = b;
+                stack[size++] = -b;
+            }
+        }
+    }
+
+    /* Internal */
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldGates = gates;
+        keys = new long[oldKeys.length * 2];
+        gates = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0) continue;
+            int slot = hash(oldKeys[i]) & mask;
+            while (keys[slot] != 0) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            gates[slot] = oldGates[i];
+        }
+    }
+
+    // the literal v is 2v, and the literal -v is 2v + 1
+    private static int unsigned(int literal) {
+        return literal > 0 ? literal << 1 : (-literal << 1) | 1;
+    }
+
+    private static int hash(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+
+}
@@ -0,0 +1,283 @@
+package lojic.sat;
+
+import lojic.nodes.Node;
+import lojic.parser.SyntaxException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author AlienIdeology
+ *
+ * A streaming reader of CNF files in the DIMACS format (See {@link DimacsWriter} for the format)
+ *
+ * The input is read byte by byte from a buffer and numbers are parsed in place, so no strings are created
+ * for the clauses, and every clause is handed to a {@link ClauseSink} as soon as it is read.
+ * Reading into a {@link ClauseStore} takes 4 bytes per literal, which is less than the text of the literal,
+ * so a store can hold files that are larger than the heap.
+ * A file is read through memory-mapped windows of at most {@value #MAP_SIZE} bytes, and other inputs through
+ * a buffer of {@value #BUFFER_SIZE} bytes.
+ *
+ * Comments of the form {@code c var <variable> <atom>} name the atoms of variables, and a line starting with
+ * {@code %} ends the input, as in some benchmark files. A clause may span multiple lines, and the last clause may
+ * omit its terminating {@code 0}.
+ */
+public class DimacsReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long MAP_SIZE = 1L << 30;
+
+    private final ReadableByteChannel channel;
+    private final FileChannel file; // null if the input is not mapped
+    private long mapped; // the position of the next window of the file
+    private ByteBuffer buffer;
+    private long offset; // the number of bytes before the buffer
+
+    private final Map<String, Integer> atoms;
+    private int[] clause;
+
+    /**
+     * Constructor of a reader of a channel
+     * The reader buffers its input, so the channel does not need to be buffered.
+     *
+     * @param channel The channel to read from
+     */
+    public DimacsReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.file = null;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.buffer.flip();
+        this.atoms = new LinkedHashMap<>();
+        this.clause = new int[16];
+    }
+
+    /**
+     * Constructor of a reader of a file, which is memory-mapped
+     *
+     * @param path The path of the file
+     * @throws IOException if the file cannot be opened
+     */
+    public DimacsReader(Path path) throws IOException {
+        this.file = FileChannel.open(path, StandardOpenOption.READ);
+        this.channel = file;
+        this.buffer = ByteBuffer.allocate(0);
+        this.atoms = new LinkedHashMap<>();
+        this.clause = new int[16];
+    }
+
+    /**
+     * Read the input into a new {@link ClauseStore}, with the atoms named by the comments of the input
+     *
+     * @return The clause store
+     * @throws IOException if the input cannot be read
+     * @throws SyntaxException if the input is not a valid DIMACS CNF
+     */
+    public ClauseStore readStore() throws IOException {
+        ClauseStore store = new ClauseStore();
+        read(store);
+        for (Map.Entry<String, Integer> atom : atoms.entrySet()) {
+            // comments of unknown variables are ignored
+            int variable = atom.getValue();
+            if (variable >= 1 && variable <= store.getVariableCount()) store.setAtomVariable(atom.getKey(), variable);
+        }
+        return store;
+    }
+
+    /**
+     * Read the input into a {@link Node}, which is a conjunction of the clauses
+     * @see ClauseStore#toNode() for the structure of the node
+     *
+     * @return The node
+     * @throws IOException if the input cannot be read
+     * @throws SyntaxException if the input is not a valid DIMACS CNF
+     */
+    public Node readNode() throws IOException {
+        return readStore().toNode();
+    }
+
+    /**
+     * Read the input into a sink, such as a {@link SatSolver}
+     * The variables of the header are added to the sink first, so the variables of the input are the first
+     * variables of the sink.
+     *
+     * @param sink The sink
+     * @return The number of clauses read
+     * @throws IOException if the input cannot be read
+     * @throws SyntaxException if the input is not a valid DIMACS CNF, or the sink has more variables than the header
+     */
+    public long read(ClauseSink sink) throws IOException {
+        int variables = -1;
+        long clauses = 0;
+        int size = 0;
+
+        int b;
+        while ((b = skipWhitespace()) != -1) {
+            if (b == 'c') {
+                readComment();
+            } else if (b == 'p') {
+                if (variables != -1) throw error("Cannot read a second header");
+                expectWord("cnf");
+                variables = (int) readNumber(Integer.MAX_VALUE);
+                readNumber(Long.MAX_VALUE); // the number of clauses is not needed
+                if (sink.getVariableCount() > variables) throw error("Cannot read into a sink with more variables than the header");
+                while (sink.getVariableCount() < variables) sink.newVariable();
+            } else if (b == '%') {
+                break;
+            } else {
+                if (variables == -1) throw error("Cannot read a clause before the header");
+                buffer.position(buffer.position() - 1);
+                int literal = (int) readNumber(variables);
+                if (literal == 0) {
+                    sink.addClause(Arrays.copyOf(clause, size));
+                    clauses++;
+                    size = 0;
+                } else {
+                    if (size == clause.length) clause = Arrays.copyOf(clause, size * 2);
+                    clause[size++] = literal;
+                }
+            }
+        }
+
+        if (size > 0) {
+            sink.addClause(Arrays.copyOf(clause, size));
+            clauses++;
+        }
+        if (variables == -1) throw error("Cannot read a DIMACS CNF without a header");
+        return clauses;
+    }
+
+    /**
+     * Get the atoms named by the comments of the input that has been read
+     *
+     * @return The map of atom strings to variables
+     */
+    public Map<String, Integer> getAtomVariables() {
+        return Collections.unmodifiableMap(atoms);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /* Parsing */
+
+    // c var <variable> <atom>, other comments are skipped
+    private void readComment() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b = next();
+        while (b != -1 && b != '\n') {
+            line.write(b);
+            b = next();
+        }
+
+        String[] words = new String(line.toByteArray(), StandardCharsets.UTF_8).trim().split("\\s+", 3);
+        if (words.length == 3 && words[0].equals(DimacsWriter.ATOM_COMMENT)) {
+            try {
+                atoms.put(words[2], Integer.parseInt(words[1]));
+            } catch (NumberFormatException e) {
+                // an ordinary comment
+            }
+        }
+    }
+
+    private void expectWord(String word) throws IOException {
+        int b = skipSpaces();
+        for (int i = 0; i < word.length(); i++, b = next()) {
+            if (b != word.charAt(i)) throw error("Cannot read a header that is not \"p " + word + "\"");
+        }
+        if (!isSpace(b)) throw error("Cannot read a header that is not \"p " + word + "\"");
+    }
+
+    // a signed number, whose absolute value is at most the limit
+    private long readNumber(long limit) throws IOException {
+        int b = skipWhitespace();
+        boolean negative = b == '-';
+        if (negative) b = next();
+        if (b < '0' || b > '9') throw error("Cannot read a number");
+
+        long value = 0;
+        while (b >= '0' && b <= '9') {
+            value = value * 10 + (b - '0');
+            if (value > limit) throw error("Cannot read a number larger than " + limit);
+            b = next();
+        }
+        if (b != -1 && !isSpace(b)) throw error("Cannot read a number");
+        if (b != -1) buffer.position(buffer.position() - 1);
+        return negative ? -value : value;
+    }
+
+    private int skipWhitespace() throws IOException {
+        int b = next();
+        while (b != -1 && (isSpace(b) || b == '\n' || b == '\r')) b = next();
+        return b;
+    }
+
+    private int skipSpaces() throws IOException {
+        int b = next();
+        while (b == ' ' || b == '\t') b = next();
+        return b;
+    }
+
+    private static boolean isSpace(int b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    /* Input */
+
+    private int next() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) return -1;
+        return buffer.get() & 0xFF;
+    }
+
+    /*
+        Keep the last byte of the previous buffer at the start of the new buffer,
+        so that a byte can always be put back after it is read
+     */
+    private boolean fill() throws IOException {
+        int limit = buffer.limit();
+        byte last = limit > 0 ? buffer.get(limit - 1) : 0;
+        if (file != null) {
+            if (mapped >= file.size()) return false;
+            long keep = limit > 0 ? 1 : 0;
+            long start = mapped - keep;
+            buffer = file.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MAP_SIZE, file.size() - start));
+            offset = start;
+            mapped = start + buffer.limit();
+            buffer.position((int) keep);
+            return buffer.hasRemaining();
+        }
+
+        buffer.clear();
+        if (limit == 0) {
+            offset = 0;
+        } else {
+            offset += limit - 1;
+            buffer.put(last);
+        }
+        int start = buffer.position();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        buffer.flip();
+        buffer.position(start);
+        return buffer.hasRemaining();
+    }
+
+    private SyntaxException error(String message) {
+        return new SyntaxException(message + " at byte " + (offset + buffer.position()) + " of the DIMACS CNF!");
+    }
+
+}
@@ -0,0 +1,174 @@
+package lojic.sat;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * @author AlienIdeology
+ *
+ * A streaming writer of CNF files in the DIMACS format
+ *
+ * A DIMACS CNF file has a header {@code p cnf <variables> <clauses>}, followed by one clause per line:
+ * the literals of the clause (See {@link SatSolver} for the format of literals) and a terminating {@code 0}.
+ * Lines starting with {@code c} are comments. The atoms of a {@link ClauseStore} are written as the comments
+ * {@code c var <variable> <atom>} before the header, which {@link DimacsReader} reads back.
+ *
+ * Numbers are converted into bytes directly in a buffer, so no strings are created for the clauses
+ * and a file of any size can be written with a constant amount of memory.
+ */
+public class DimacsWriter implements Closeable, Flushable {
+
+    /**
+     * The prefix of the comments that map atoms to variables
+     */
+    public static final String ATOM_COMMENT = "var";
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int position;
+
+    /**
+     * Constructor of a writer
+     * The writer buffers its output, so the stream does not need to be buffered.
+     *
+     * @param out The stream to write to
+     */
+    public DimacsWriter(OutputStream out) {
+        this.out = out;
+        this.buffer = new byte[BUFFER_SIZE];
+    }
+
+    /**
+     * Write the atoms, the header and the clauses of a store
+     *
+     * @param store The clause store
+     * @return This writer for method chaining
+     * @throws IOException if the stream cannot be written
+     */
+    public DimacsWriter write(ClauseStore store) throws IOException {
+        for (Map.Entry<String, Integer> atom : store.getAtomVariables().entrySet()) {
+            writeComment(ATOM_COMMENT + " " + atom.getValue() + " " + atom.getKey());
+        }
+        writeHeader(store.getVariableCount(), store.getClauseCount());
+
+        int[] literals = store.literals();
+        for (int c = 0; c < store.getClauseCount(); c++) {
+            for (int i = store.start(c), end = store.end(c); i < end; i++) {
+                writeInt(literals[i]);
+                writeByte(' ');
+            }
+            writeByte('0');
+            writeByte('\n');
+        }
+        return this;
+    }
+
+    /**
+     * Write a comment line
+     *
+     * @param comment The comment, which must be on one line
+     * @return This writer for method chaining
+     * @throws IOException if the stream cannot be written
+     * @throws IllegalArgumentException if the comment has more than one line
+     */
+    public DimacsWriter writeComment(String comment) throws IOException {
+        if (comment.indexOf('\n') != -1 || comment.indexOf('\r') != -1)
+            throw new IllegalArgumentException("Cannot write a comment of more than one line!");
+        writeByte('c');
+        writeByte(' ');
+        for (byte b : comment.getBytes(StandardCharsets.UTF_8)) writeByte(b);
+        writeByte('\n');
+        return this;
+    }
+
+    /**
+     * Write the header line
+     * Use this method with {@link #writeClause(int...)} to write clauses that are not in a {@link ClauseStore}.
+     *
+     * @param variables The number of variables
+     * @param clauses The number of clauses that follow
+     * @return This writer for method chaining
+     * @throws IOException if the stream cannot be written
+     */
+    public DimacsWriter writeHeader(int variables, long clauses) throws IOException {
+        for (byte b : "p cnf ".getBytes(StandardCharsets.US_ASCII)) writeByte(b);
+        writeInt(variables);
+        writeByte(' ');
+        writeLong(clauses);
+        writeByte('\n');
+        return this;
+    }
+
+    /**
+     * Write a clause line
+     *
+     * @param literals The literals of the clause
+     * @return This writer for method chaining
+     * @throws IOException if the stream cannot be written
+     */
+    public DimacsWriter writeClause(int... literals) throws IOException {
+        for (int literal : literals) {
+            writeInt(literal);
+            writeByte(' ');
+        }
+        writeByte('0');
+        writeByte('\n');
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+
+    /* Internal */
+
+    private void writeByte(int b) throws IOException {
+        if (position == buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    private void writeInt(int value) throws IOException {
+        writeLong(value);
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (position + 20 > buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        // write the digits backwards, then reverse them
+        int start = position;
+        do {
+            buffer[position++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        for (int i = start, j = position - 1; i < j; i++, j--) {
+            byte swap = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = swap;
+        }
+    }
+
+}
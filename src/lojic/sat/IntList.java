@@ -0,0 +1,29 @@
+package lojic.sat;
+
+import java.util.Arrays;
+
+/**
+ * Internal class of a growable list of {@code int}s
+ * User should ignore this class
+ */
+final class IntList {
+
+    int[] data = new int[4];
+    int size;
+
+    void add(int value) {
+        if (size == data.length) data = Arrays.copyOf(data, size * 2);
+        data[size++] = value;
+    }
+
+    void add(int first, int second) {
+        if (size + 2 > data.length) data = Arrays.copyOf(data, size * 2 + 2);
+        data[size++] = first;
+        data[size++] = second;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+}
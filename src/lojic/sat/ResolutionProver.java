@@ -0,0 +1,338 @@
+package lojic.sat;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * @author AlienIdeology
+ *
+ * A saturation prover that refutes clauses by resolution
+ *
+ * The prover follows the given-clause loop: the clauses are passive at first, and the shortest passive clause
+ * (the oldest of the shortest) is selected as the given clause, which is resolved with every active clause
+ * on each of its literals, and then becomes active. The clauses are unsatisfiable exactly when the empty clause
+ * is derived, and satisfiable when no passive clause is left. Since short clauses are selected first, unit clauses
+ * are resolved as soon as they are derived, so long chains of Horn-like clauses are refuted quickly.
+ *
+ * Clauses that are subsumed by another clause (a subset of its literals) are redundant and deleted:
+ * a given clause that is subsumed by an active clause is dropped (forward subsumption), and the active clauses that
+ * the given clause subsumes are deleted (backward subsumption). Active clauses are indexed by every literal, which finds
+ * the clauses to resolve with and the clauses that may be subsumed, and by their smallest literal, which finds
+ * the clauses that may subsume. Every clause also has a feature vector, its size and a 64-bit signature of its literals,
+ * which rejects most candidates before their literals are compared.
+ *
+ * Clauses are stored in one {@code int} array, with their literals sorted. Variables and literals are
+ * as in {@link SatSolver}.
+ */
+public class ResolutionProver implements ClauseSink {
+
+    /**
+     * The default number of clauses, including the derived clauses, at which the prover gives up
+     */
+    public static final int DEFAULT_CLAUSE_LIMIT = 1 << 21;
+
+    private static final byte PASSIVE = 0, ACTIVE = 1, DELETED = 2;
+
+    private int variables;
+    private int clauseLimit;
+
+    // clauses: literals are internal (see SatSolver), and sorted
+    private int[] arena;
+    private int arenaSize;
+    private int[] starts;
+    private int[] sizes;
+    private long[] signatures;
+    private byte[] states;
+    private int clauseCount;
+
+    private IntList[] occurrences; // the active clauses of each literal
+    private IntList[] firsts; // the active clauses of each smallest literal
+    private final PriorityQueue<Long> passive;
+
+    private boolean refuted;
+    private long resolvents;
+    private long subsumed;
+
+    private int[] buffer;
+
+    /**
+     * Constructor of an empty prover
+     */
+    public ResolutionProver() {
+        this.clauseLimit = DEFAULT_CLAUSE_LIMIT;
+        this.arena = new int[256];
+        this.starts = new int[64];
+        this.sizes = new int[64];
+        this.signatures = new long[64];
+        this.states = new byte[64];
+        this.occurrences = new IntList[0];
+        this.firsts = new IntList[0];
+        this.passive = new PriorityQueue<>();
+        this.buffer = new int[16];
+    }
+
+    @Override
+    public int newVariable() {
+        variables++;
+        occurrences = Arrays.copyOf(occurrences, variables * 2);
+        firsts = Arrays.copyOf(firsts, variables * 2);
+        for (int l = variables * 2 - 2; l < variables * 2; l++) {
+            occurrences[l] = new IntList();
+            firsts[l] = new IntList();
+        }
+        return variables;
+    }
+
+    @Override
+    public int getVariableCount() {
+        return variables;
+    }
+
+    /**
+     * Add a clause, which is passive until it is selected
+     * Repeated literals are removed, and a clause with a literal and its negation is ignored.
+     *
+     * @param literals The literals
+     * @return false if the empty clause has been added or derived
+     * @throws IllegalArgumentException if a literal is {@code 0} or its variable has not been added
+     */
+    @Override
+    public boolean addClause(int... literals) {
+        int[] clause = new int[literals.length];
+        for (int i = 0; i < literals.length; i++) {
+            int literal = literals[i];
+            if (literal == 0 || Math.abs(literal) > variables)
+                throw new IllegalArgumentException("Cannot add a clause with the unknown literal " + literal + "!");
+            clause[i] = literal > 0 ? (literal - 1) << 1 : ((-literal - 1) << 1) | 1;
+        }
+        Arrays.sort(clause);
+
+        int size = 0;
+        for (int i = 0; i < clause.length; i++) {
+            if (size > 0 && clause[size - 1] == clause[i]) continue;
+            if (size > 0 && clause[size - 1] == (clause[i] ^ 1)) return !refuted; // a tautology
+            clause[size++] = clause[i];
+        }
+        store(clause, size);
+        return !refuted;
+    }
+
+    /**
+     * Set the number of clauses, including the derived clauses, at which the prover gives up
+     * A set of clauses can have exponentially many resolvents, so {@link #prove()} may need a limit to stop.
+     *
+     * @param clauseLimit The limit, {@link #DEFAULT_CLAUSE_LIMIT} by default
+     * @return This prover for method chaining
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    public ResolutionProver setClauseLimit(int clauseLimit) {
+        if (clauseLimit <= 0)
+            throw new IllegalArgumentException("Cannot set a clause limit that is not positive!");
+        this.clauseLimit = clauseLimit;
+        return this;
+    }
+
+    /**
+     * Saturate the clauses by resolution
+     * The prover can be resumed by another invocation after it gives up, or after more clauses are added.
+     *
+     * @return {@link SatSolver.Result#UNSATISFIABLE} if the empty clause is derived, {@link SatSolver.Result#SATISFIABLE}
+     * if no more clauses can be derived, or {@link SatSolver.Result#UNKNOWN} if the clause limit is reached
+     */
+    public SatSolver.Result prove() {
+        while (!refuted) {
+            if (clauseCount >= clauseLimit) return SatSolver.Result.UNKNOWN;
+            Long next = passive.poll();
+            if (next == null) return SatSolver.Result.SATISFIABLE;
+
+            int given = (int) (long) next;
+            if (states[given] == DELETED) continue;
+            if (isSubsumed(given)) {
+                states[given] = DELETED;
+                subsumed++;
+                continue;
+            }
+            subsume(given);
+            activate(given);
+            resolve(given);
+        }
+        return SatSolver.Result.UNSATISFIABLE;
+    }
+
+    /**
+     * Get the number of clauses, including the derived and the deleted clauses
+     *
+     * @return The number of clauses
+     */
+    public int getClauseCount() {
+        return clauseCount;
+    }
+
+    /**
+     * Get the number of resolvents that have been kept
+     *
+     * @return The number of resolvents
+     */
+    public long getResolvents() {
+        return resolvents;
+    }
+
+    /**
+     * Get the number of clauses that have been deleted by subsumption
+     *
+     * @return The number of subsumed clauses
+     */
+    public long getSubsumed() {
+        return subsumed;
+    }
+
+    /* Saturation */
+
+    private void resolve(int given) {
+        int start = starts[given], size = sizes[given];
+        for (int i = 0; i < size && !refuted; i++) {
+            int literal = arena[start + i];
+            IntList partners = occurrences[literal ^ 1];
+            // resolvents only add to the passive clauses, so the list does not change while it is read
+            for (int j = 0; j < partners.size && !refuted; j++) {
+                int partner = partners.data[j];
+                if (states[partner] != ACTIVE) continue;
+                int resolventSize = merge(given, partner, literal);
+                if (resolventSize < 0) continue; // a tautology
+                if (isSubsumed(buffer, resolventSize, signature(buffer, resolventSize))) continue;
+                store(Arrays.copyOf(buffer, resolventSize), resolventSize);
+                resolvents++;
+            }
+        }
+    }
+
+    // the resolvent of two clauses on a literal in the first clause, in the buffer, or -1 if it is a tautology
+    private int merge(int first, int second, int literal) {
+        int i = starts[first], iEnd = i + sizes[first];
+        int j = starts[second], jEnd = j + sizes[second];
+        if (buffer.length < sizes[first] + sizes[second]) buffer = new int[(sizes[first] + sizes[second]) * 2];
+
+        int size = 0;
+        while (i < iEnd || j < jEnd) {
+            int next;
+            if (j == jEnd || (i < iEnd && arena[i] <= arena[j])) {
+                next = arena[i++];
+                if (next == literal) continue;
+            } else {
+                next = arena[j++];
+                if (next == (literal ^ 1)) continue;
+            }
+            if (size > 0 && buffer[size - 1] == next) continue;
+            // a literal and its negation are next to each other once sorted
+            if (size > 0 && buffer[size - 1] == (next ^ 1)) return -1;
+            buffer[size++] = next;
+        }
+        return size;
+    }
+
+    private void activate(int clause) {
+        states[clause] = ACTIVE;
+        int start = starts[clause], size = sizes[clause];
+        for (int i = 0; i < size; i++) occurrences[arena[start + i]].add(clause);
+        firsts[arena[start]].add(clause);
+    }
+
+    /* Subsumption */
+
+    // forward: check if an active clause subsumes a clause
+    private boolean isSubsumed(int clause) {
+        return isSubsumed(Arrays.copyOfRange(arena, starts[clause], starts[clause] + sizes[clause]), sizes[clause], signatures[clause]);
+    }
+
+    private boolean isSubsumed(int[] literals, int size, long signature) {
+        // a subsuming clause has its smallest literal in the clause
+        for (int i = 0; i < size; i++) {
+            IntList candidates = firsts[literals[i]];
+            int kept = 0;
+            for (int j = 0; j < candidates.size; j++) {
+                int candidate = candidates.data[j];
+                if (states[candidate] != ACTIVE) continue;
+                candidates.data[kept++] = candidate;
+                if (sizes[candidate] <= size && (signatures[candidate] & ~signature) == 0
+                        && isSubset(arena, starts[candidate], sizes[candidate], literals, 0, size)) {
+                    candidates.size = kept + copyRest(candidates, j + 1, kept);
+                    return true;
+                }
+            }
+            candidates.size = kept;
+        }
+        return false;
+    }
+
+    // backward: delete the active clauses that a clause subsumes
+    private void subsume(int clause) {
+        int start = starts[clause], size = sizes[clause];
+        if (size == 0) return;
+
+        // a subsumed clause has every literal of the clause, so only the shortest list is read
+        IntList candidates = occurrences[arena[start]];
+        for (int i = 1; i < size; i++) {
+            if (occurrences[arena[start + i]].size < candidates.size) candidates = occurrences[arena[start + i]];
+        }
+        int kept = 0;
+        for (int j = 0; j < candidates.size; j++) {
+            int candidate = candidates.data[j];
+            if (states[candidate] != ACTIVE) continue;
+            if (sizes[candidate] >= size && (signatures[clause] & ~signatures[candidate]) == 0
+                    && isSubset(arena, start, size, arena, starts[candidate], sizes[candidate])) {
+                states[candidate] = DELETED;
+                subsumed++;
+                continue;
+            }
+            candidates.data[kept++] = candidate;
+        }
+        candidates.size = kept;
+    }
+
+    // check if the sorted literals of a are a subset of the sorted literals of b
+    private static boolean isSubset(int[] a, int aStart, int aSize, int[] b, int bStart, int bSize) {
+        int j = bStart, bEnd = bStart + bSize;
+        for (int i = aStart, aEnd = aStart + aSize; i < aEnd; i++) {
+            while (j < bEnd && b[j] < a[i]) j++;
+            if (j == bEnd || b[j] != a[i]) return false;
+            j++;
+        }
+        return true;
+    }
+
+    private static int copyRest(IntList list, int from, int to) {
+        int length = list.size - from;
+        System.arraycopy(list.data, from, list.data, to, length);
+        return length;
+    }
+
+    /* Internal */
+
+    private void store(int[] literals, int size) {
+        if (size == 0) refuted = true;
+        int c = clauseCount++;
+        if (c == starts.length) {
+            int capacity = starts.length * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+            signatures = Arrays.copyOf(signatures, capacity);
+            states = Arrays.copyOf(states, capacity);
+        }
+        if (arenaSize + size > arena.length) arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + size));
+        System.arraycopy(literals, 0, arena, arenaSize, size);
+        starts[c] = arenaSize;
+        sizes[c] = size;
+        signatures[c] = signature(literals, size);
+        states[c] = PASSIVE;
+        arenaSize += size;
+        // the shortest clauses first, then the oldest
+        passive.add((long) size << 32 | c);
+    }
+
+    private static long signature(int[] literals, int size) {
+        long signature = 0;
+        for (int i = 0; i < size; i++) signature |= 1L << (literals[i] & 63);
+        return signature;
+    }
+
+}
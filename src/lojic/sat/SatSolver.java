@@ -0,0 +1,883 @@
+package lojic.sat;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * @author AlienIdeology
+ *
+ * A conflict-driven clause-learning (CDCL) SAT solver
+ *
+ * Variables are numbered from {@code 1}, and literals are written as in the DIMACS format:
+ * the literal {@code v} is variable {@code v}, and the literal {@code -v} is its negation.
+ * Clauses are added with {@link #addClause(int...)}, then {@link #solve()} searches for an assignment of the variables
+ * that satisfies every clause. Clauses can still be added after solving, and the next {@link #solve()} keeps
+ * everything the solver has learned.
+ *
+ * A search can also be made under assumptions with {@link #solve(int...)}, which are literals that are only true
+ * for that search. Clauses learned under assumptions still follow from the clauses alone, so they are kept
+ * for the next searches. A clause that is guarded by a selector literal, {@code (-s ∨ C)}, can then be switched on
+ * by assuming {@code s}, and off by not assuming it. When the clauses cannot be satisfied under the assumptions,
+ * {@link #getFailedAssumptions()} is the subset of the assumptions that the refutation used.
+ *
+ * A search stops with {@link Result#UNKNOWN} soon after its thread is interrupted. Solvers with different seeds
+ * (See {@link #setSeed(long)}) search in different orders, which helps when many solvers race on the same clauses.
+ *
+ * The search follows the MiniSat family of solvers:
+ * 1. Unit propagation with two watched literals per clause, so only the clauses that watch a falsified literal are visited
+ * 2. VSIDS decisions: the unassigned variable that took part in the most recent conflicts is assigned next,
+ *    to the value it had last (phase saving)
+ * 3. Conflict analysis to the first unique implication point, and a learned clause that is minimized and kept
+ * 4. Restarts in the Luby sequence, which keep the learned clauses and the variable activities
+ * 5. Deletion of half of the learned clauses once there are too many of them, which keeps the clauses with the fewest
+ *    decision levels (literal block distance) and the most recent activity
+ *
+ * Clauses are stored in one {@code int} array: a header of the size, the flags and the activity of the clause,
+ * followed by its literals. A clause is referred to by the index of its header.
+ */
+public class SatSolver implements ClauseSink {
+
+    /**
+     * The result of {@link #solve()}
+     */
+    public enum Result {
+        /**
+         * The clauses are satisfied by the model of the solver
+         */
+        SATISFIABLE,
+        /**
+         * The clauses cannot be satisfied
+         */
+        UNSATISFIABLE,
+        /**
+         * The search stopped before it finished, such as when its thread is interrupted
+         */
+        UNKNOWN
+    }
+
+    // clause header: size, flags (learnt bit and literal block distance), activity
+    private static final int HEADER = 3;
+    private static final int LEARNT = 1;
+    private static final int NO_REASON = -1;
+
+    private static final int RESTART_FIRST = 100;
+    private static final double VARIABLE_DECAY = 0.95;
+    private static final double CLAUSE_DECAY = 0.999;
+    private static final double LEARNT_GROWTH = 1.1;
+
+    private int variables;
+    private boolean ok = true;
+
+    // clauses
+    private int[] arena = new int[1024];
+    private int arenaSize;
+    private final IntList clauses = new IntList();
+    private final IntList learnts = new IntList();
+    private IntList[] watches = new IntList[0]; // per literal, pairs of a clause that watches it and a blocker literal
+
+    // assignment, per literal: 1 if true, -1 if false, 0 if unassigned
+    private byte[] values = new byte[0];
+    private int[] levels = new int[0];
+    private int[] reasons = new int[0];
+    private int[] trail = new int[0];
+    private int trailSize;
+    private int propagated;
+    private final IntList trailLimits = new IntList();
+
+    // decisions
+    private double[] activity = new double[0];
+    private byte[] phases = new byte[0];
+    private int[] heap = new int[0];
+    private int heapSize;
+    private int[] heapIndex = new int[0];
+    private double variableIncrement = 1;
+    private double clauseIncrement = 1;
+    private double maxLearnts;
+
+    // conflict analysis
+    private byte[] seen = new byte[0];
+    private int[] levelStamps = new int[0];
+    private int stamp;
+    private final IntList learnt = new IntList();
+    private final IntList analyzed = new IntList();
+    private final IntList stack = new IntList();
+
+    // assumptions of the current search, and the assumptions which the last refutation used
+    private int[] assumptions = new int[0];
+    private int[] failed = new int[0];
+
+    private boolean[] model;
+    private SplittableRandom random; // null for the default order
+
+
+    private long conflicts;
+    private long decisions;
+    private long propagations;
+
+    /**
+     * Add a new variable
+     *
+     * @return The variable, which is the number of variables of this solver
+     */
+    @Override
+    public int newVariable() {
+        int v = variables++;
+        if (v == activity.length) grow(Math.max(16, v * 2));
+        watches[v * 2] = new IntList();
+        watches[v * 2 + 1] = new IntList();
+        reasons[v] = NO_REASON;
+        heapIndex[v] = -1;
+        if (random != null) {
+            // break the ties of the first decisions, and start from either phase
+            activity[v] = random.nextDouble() * 1e-5;
+            phases[v] = (byte) random.nextInt(2);
+        }
+        heapInsert(v);
+        return v + 1;
+    }
+
+    /**
+     * Get the number of variables
+     *
+     * @return The number of variables
+     */
+    @Override
+    public int getVariableCount() {
+        return variables;
+    }
+
+    /**
+     * Set the seed of this solver, which gives the variables that are added afterwards a random initial activity
+     * and a random initial phase
+     * The seed only changes the order of the search, so every seed gives the same result, but the time it takes
+     * can differ greatly.
+     *
+     * @param seed The seed
+     * @return This solver for method chaining
+     */
+    public SatSolver setSeed(long seed) {
+        this.random = new SplittableRandom(seed);
+        return this;
+    }
+
+    /**
+     * Add a clause, which is the disjunction of its literals
+     * Duplicated literals are removed, and a clause with both a literal and its negation is ignored.
+     *
+     * @param literals The literals
+     * @return false if the clauses of this solver can no longer be satisfied
+     * @throws IllegalArgumentException if a literal is {@code 0} or its variable has not been added
+     */
+    @Override
+    public boolean addClause(int... literals) {
+        for (int literal : literals) {
+            if (literal == 0 || Math.abs(literal) > variables)
+                throw new IllegalArgumentException("Cannot add a clause with the unknown literal " + literal + "!");
+        }
+        if (!ok) return false;
+
+        int[] lits = new int[literals.length];
+        for (int i = 0; i < lits.length; i++) lits[i] = toInternal(literals[i]);
+        Arrays.sort(lits);
+
+        // a literal and its negation are adjacent after sorting
+        int size = 0;
+        for (int i = 0; i < lits.length; i++) {
+            int lit = lits[i];
+            if (values[lit] == 1 || (size > 0 && lits[size - 1] == (lit ^ 1))) return true;
+            if (values[lit] == -1 || (size > 0 && lits[size - 1] == lit)) continue;
+            lits[size++] = lit;
+        }
+
+        if (size == 0) {
+            ok = false;
+        } else if (size == 1) {
+            enqueue(lits[0], NO_REASON);
+            ok = propagate() == NO_REASON;
+        } else {
+            int clause = allocate(lits, size, false, 0);
+            clauses.add(clause);
+            attach(clause);
+        }
+        return ok;
+    }
+
+    /**
+     * Search for an assignment that satisfies every clause
+     *
+     * @return {@link Result#SATISFIABLE} with a model, {@link Result#UNSATISFIABLE},
+     * or {@link Result#UNKNOWN} if the thread is interrupted
+     */
+    public Result solve() {
+        return solve(new int[0]);
+    }
+
+    /**
+     * Search for an assignment that satisfies every clause and every assumption
+     * The assumptions only hold for this search. If the result is {@link Result#UNSATISFIABLE} because of
+     * the assumptions, the clauses can still be satisfied without them, and {@link #getFailedAssumptions()}
+     * is the subset of the assumptions that cannot be satisfied together.
+     *
+     * @param assumptions The literals which are assumed to be true
+     * @return {@link Result#SATISFIABLE} with a model, {@link Result#UNSATISFIABLE},
+     * or {@link Result#UNKNOWN} if the thread is interrupted
+     * @throws IllegalArgumentException if a literal is {@code 0} or its variable has not been added
+     */
+    public Result solve(int... assumptions) {
+        int[] lits = new int[assumptions.length];
+        for (int i = 0; i < lits.length; i++) {
+            int literal = assumptions[i];
+            if (literal == 0 || Math.abs(literal) > variables)
+                throw new IllegalArgumentException("Cannot assume the unknown literal " + literal + "!");
+            lits[i] = toInternal(literal);
+        }
+
+        model = null;
+        failed = null;
+        Result result = Result.UNSATISFIABLE;
+        if (ok) {
+            this.assumptions = lits;
+            // every assumption may take a decision level of its own
+            if (levelStamps.length <= variables + lits.length) levelStamps = new int[variables + lits.length + 1];
+            if (maxLearnts == 0) maxLearnts = Math.max(clauses.size / 3.0, 2000);
+            result = Result.UNKNOWN;
+            for (int restarts = 0; result == Result.UNKNOWN && !isInterrupted(); restarts++) {
+                result = search((long) (luby(restarts) * RESTART_FIRST));
+            }
+
+            if (result == Result.SATISFIABLE) {
+                model = new boolean[variables];
+                for (int v = 0; v < variables; v++) model[v] = values[v * 2] == 1;
+                failed = new int[0];
+            } else if (result == Result.UNSATISFIABLE && failed == null) {
+                ok = false;
+            }
+            cancelUntil(0);
+            this.assumptions = new int[0];
+        }
+        // the clauses cannot be satisfied without any assumption, or the search stopped
+        if (failed == null) failed = new int[0];
+        return result;
+    }
+
+    /**
+     * Get the assumptions that the last {@link #solve(int...)} refuted
+     * The clauses cannot be satisfied when all of these literals are true, but the set is not always minimal.
+     * It is empty if the last search was satisfiable or stopped, or if the clauses cannot be satisfied at all.
+     *
+     * @return The failed assumptions, in the order which they were given
+     */
+    public int[] getFailedAssumptions() {
+        return failed.clone();
+    }
+
+    /**
+     * Assign some literals, each as a decision, and propagate them, then undo the assignment
+     * This looks ahead at the consequences of the literals without searching, such as to choose the variables
+     * to split on: a literal that implies many others simplifies the clauses the most.
+     *
+     * @param literals The literals which are assigned in order
+     * @return The number of variables that are assigned after the propagation, including the variables that
+     * the clauses fix on their own, or {@code -1} if the literals lead to a conflict
+     * @throws IllegalArgumentException if a literal is {@code 0} or its variable has not been added
+     */
+    public int probe(int... literals) {
+        for (int literal : literals) {
+            if (literal == 0 || Math.abs(literal) > variables)
+                throw new IllegalArgumentException("Cannot probe the unknown literal " + literal + "!");
+        }
+        if (!ok) return -1;
+        if (propagate() != NO_REASON) {
+            ok = false;
+            return -1;
+        }
+
+        int assigned = trailSize;
+        for (int literal : literals) {
+            int lit = toInternal(literal);
+            if (values[lit] == 1) continue;
+            if (values[lit] == -1) {
+                assigned = -1;
+                break;
+            }
+            trailLimits.add(trailSize);
+            enqueue(lit, NO_REASON);
+            if (propagate() != NO_REASON) {
+                assigned = -1;
+                break;
+            }
+            assigned = trailSize;
+        }
+        cancelUntil(0);
+        return assigned;
+    }
+
+    /**
+     * Get the value of a variable in the model found by the last {@link #solve()}
+     *
+     * @param variable The variable
+     * @return The value of the variable
+     * @throws IllegalStateException if the last {@link #solve()} was not satisfiable
+     * @throws IllegalArgumentException if the variable is unknown to the model
+     */
+    public boolean getValue(int variable) {
+        if (model == null)
+            throw new IllegalStateException("Cannot get the value of a variable without a model!");
+        if (variable < 1 || variable > model.length)
+            throw new IllegalArgumentException("Cannot get the value of the unknown variable " + variable + "!");
+        return model[variable - 1];
+    }
+
+    /**
+     * Check if the last {@link #solve()} found a model
+     *
+     * @return true if there is a model
+     */
+    public boolean hasModel() {
+        return model != null;
+    }
+
+    /**
+     * Get the number of conflicts in all searches of this solver
+     *
+     * @return The number of conflicts
+     */
+    public long getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * Get the number of decisions in all searches of this solver
+     *
+     * @return The number of decisions
+     */
+    public long getDecisions() {
+        return decisions;
+    }
+
+    /**
+     * Get the number of propagated literals in all searches of this solver
+     *
+     * @return The number of propagated literals
+     */
+    public long getPropagations() {
+        return propagations;
+    }
+
+    /* Search */
+
+    private Result search(long restartConflicts) {
+        long conflictsHere = 0;
+        while (true) {
+            int conflict = propagate();
+            if (conflict != NO_REASON) {
+                conflicts++;
+                conflictsHere++;
+                if (decisionLevel() == 0) return Result.UNSATISFIABLE;
+
+                if (isInterrupted()) return Result.UNKNOWN;
+
+                int backtrackLevel = analyze(conflict);
+                cancelUntil(backtrackLevel);
+                if (learnt.size == 1) {
+                    enqueue(learnt.data[0], NO_REASON);
+                } else {
+                    int clause = allocate(learnt.data, learnt.size, true, blockDistance());
+                    learnts.add(clause);
+                    attach(clause);
+                    bumpClause(clause);
+                    enqueue(learnt.data[0], clause);
+                }
+                variableIncrement /= VARIABLE_DECAY;
+                clauseIncrement /= CLAUSE_DECAY;
+            } else {
+                if (conflictsHere >= restartConflicts) {
+                    cancelUntil(0);
+                    return Result.UNKNOWN;
+                }
+                if (learnts.size - trailSize >= maxLearnts) reduceLearnts();
+
+                // the assumptions are decided first, one level each
+                int next = -1;
+                while (decisionLevel() < assumptions.length) {
+                    int assumption = assumptions[decisionLevel()];
+                    if (values[assumption] == 1) {
+                        trailLimits.add(trailSize);
+                    } else if (values[assumption] == -1) {
+                        analyzeFinal(assumption ^ 1);
+                        return Result.UNSATISFIABLE;
+                    } else {
+                        next = assumption;
+                        break;
+                    }
+                }
+                if (next == -1) {
+                    next = pickBranchLiteral();
+                    if (next == -1) return Result.SATISFIABLE;
+                }
+                decisions++;
+                trailLimits.add(trailSize);
+                enqueue(next, NO_REASON);
+            }
+        }
+    }
+
+    private static boolean isInterrupted() {
+        return Thread.currentThread().isInterrupted();
+    }
+
+    private int decisionLevel() {
+        return trailLimits.size;
+    }
+
+    private void enqueue(int lit, int reason) {
+        int v = lit >> 1;
+        values[lit] = 1;
+        values[lit ^ 1] = -1;
+        levels[v] = decisionLevel();
+        reasons[v] = reason;
+        trail[trailSize++] = lit;
+    }
+
+    private void cancelUntil(int level) {
+        if (decisionLevel() <= level) return;
+        int limit = trailLimits.data[level];
+        for (int i = trailSize - 1; i >= limit; i--) {
+            int lit = trail[i];
+            int v = lit >> 1;
+            values[lit] = 0;
+            values[lit ^ 1] = 0;
+            phases[v] = (byte) (lit & 1);
+            if (heapIndex[v] == -1) heapInsert(v);
+        }
+        trailSize = limit;
+        propagated = limit;
+        trailLimits.size = level;
+    }
+
+    private int pickBranchLiteral() {
+        while (heapSize > 0) {
+            int v = heapRemoveMax();
+            if (values[v * 2] == 0) return v * 2 + phases[v];
+        }
+        return -1;
+    }
+
+    /*
+        Algorithm:
+            1. For every literal that became true, visit the clauses that watch its negation
+            2. Keep the watch if the blocker or the other watched literal is true
+            3. Otherwise move the watch to a literal of the clause that is not false
+            4. If there is none, the other watched literal is implied, or the clause is a conflict
+     */
+    private int propagate() {
+        int[] arena = this.arena;
+        byte[] values = this.values;
+        int conflict = NO_REASON;
+        while (propagated < trailSize && conflict == NO_REASON) {
+            int falseLit = trail[propagated++] ^ 1;
+            propagations++;
+
+            IntList list = watches[falseLit];
+            int[] ws = list.data;
+            int n = list.size;
+            int i = 0, j = 0;
+            while (i < n) {
+                int clause = ws[i], blocker = ws[i + 1];
+                i += 2;
+                if (values[blocker] == 1) {
+                    ws[j++] = clause;
+                    ws[j++] = blocker;
+                    continue;
+                }
+
+                // make sure the false literal is the second watch
+                int base = clause + HEADER;
+                if (arena[base] == falseLit) {
+                    arena[base] = arena[base + 1];
+                    arena[base + 1] = falseLit;
+                }
+                int first = arena[base];
+                if (first != blocker && values[first] == 1) {
+                    ws[j++] = clause;
+                    ws[j++] = first;
+                    continue;
+                }
+
+                boolean moved = false;
+                for (int k = 2, size = arena[clause]; k < size; k++) {
+                    int lit = arena[base + k];
+                    if (values[lit] != -1) {
+                        arena[base + 1] = lit;
+                        arena[base + k] = falseLit;
+                        watches[lit].add(clause, first);
+                        moved = true;
+                        break;
+                    }
+                }
+                if (moved) continue;
+
+                ws[j++] = clause;
+                ws[j++] = first;
+                if (values[first] == -1) {
+                    conflict = clause;
+                    while (i < n) ws[j++] = ws[i++];
+                } else {
+                    enqueue(first, clause);
+                }
+            }
+            list.size = j;
+        }
+        return conflict;
+    }
+
+    /*
+        Algorithm:
+            1. Resolve the conflict clause with the reasons of its literals of the current decision level,
+               from the last assigned literal backwards, until one literal of the current level remains
+               (the first unique implication point)
+            2. The learned clause is the negation of that literal and the literals of lower levels
+            3. Remove the literals whose reasons only contain literals of the learned clause
+            4. Backtrack to the highest level among the other literals, where the learned clause is unit
+     */
+    private int analyze(int conflict) {
+        learnt.clear();
+        learnt.add(-1);
+
+        int paths = 0;
+        int lit = -1;
+        int index = trailSize - 1;
+        int clause = conflict;
+        do {
+            if ((arena[clause + 1] & LEARNT) != 0) bumpClause(clause);
+            int base = clause + HEADER;
+            for (int k = lit == -1 ? 0 : 1, size = arena[clause]; k < size; k++) {
+                int q = arena[base + k];
+                int v = q >> 1;
+                if (seen[v] == 0 && levels[v] > 0) {
+                    bumpVariable(v);
+                    seen[v] = 1;
+                    if (levels[v] >= decisionLevel()) paths++;
+                    else learnt.add(q);
+                }
+            }
+            while (seen[trail[index] >> 1] == 0) index--;
+            lit = trail[index--];
+            clause = reasons[lit >> 1];
+            seen[lit >> 1] = 0;
+            paths--;
+        } while (paths > 0);
+        learnt.data[0] = lit ^ 1;
+
+        // minimize, and clear the marks of all literals, including the ones removed or visited by the minimization
+        analyzed.clear();
+        int levelSet = 0;
+        for (int i = 1; i < learnt.size; i++) {
+            analyzed.add(learnt.data[i]);
+            levelSet |= abstractLevel(learnt.data[i] >> 1);
+        }
+        int size = 1;
+        for (int i = 1; i < learnt.size; i++) {
+            int q = learnt.data[i];
+            if (reasons[q >> 1] == NO_REASON || !isRedundant(q, levelSet)) learnt.data[size++] = q;
+        }
+        for (int i = 0; i < analyzed.size; i++) seen[analyzed.data[i] >> 1] = 0;
+        learnt.size = size;
+
+        if (size == 1) return 0;
+        int max = 1;
+        for (int i = 2; i < size; i++) {
+            if (levels[learnt.data[i] >> 1] > levels[learnt.data[max] >> 1]) max = i;
+        }
+        int swap = learnt.data[max];
+        learnt.data[max] = learnt.data[1];
+        learnt.data[1] = swap;
+        return levels[swap >> 1];
+    }
+
+    /*
+        Algorithm:
+            1. Mark the true negation of the failed assumption, then walk the trail backwards
+            2. A marked literal with a reason marks the other literals of its reason
+            3. A marked literal without a reason, above level 0, is an assumption that the refutation used
+     */
+    private void analyzeFinal(int lit) {
+        IntList used = new IntList();
+        used.add(lit ^ 1);
+        if (decisionLevel() > 0) {
+            seen[lit >> 1] = 1;
+            for (int i = trailSize - 1; i >= trailLimits.data[0]; i--) {
+                int v = trail[i] >> 1;
+                if (seen[v] == 0) continue;
+                int reason = reasons[v];
+                if (reason == NO_REASON) {
+                    used.add(trail[i]);
+                } else {
+                    for (int k = 1, size = arena[reason]; k < size; k++) {
+                        int q = arena[reason + HEADER + k];
+                        if (levels[q >> 1] > 0) seen[q >> 1] = 1;
+                    }
+                }
+                seen[v] = 0;
+            }
+            seen[lit >> 1] = 0;
+        }
+
+        // report the assumptions as they were given
+        boolean[] marks = new boolean[variables * 2];
+        for (int i = 0; i < used.size; i++) marks[used.data[i]] = true;
+        IntList result = new IntList();
+        for (int assumption : assumptions) {
+            if (marks[assumption]) {
+                marks[assumption] = false;
+                result.add((assumption & 1) == 0 ? (assumption >> 1) + 1 : -((assumption >> 1) + 1));
+            }
+        }
+        failed = Arrays.copyOf(result.data, result.size);
+    }
+
+    /*
+        A literal is redundant if it is implied by the other literals of the learned clause:
+        walk back through the reasons of the literal, and fail at a decision or at a literal of a level
+        that no literal of the clause has (tracked approximately by a bit set of levels)
+     */
+    private boolean isRedundant(int lit, int levelSet) {
+        stack.clear();
+        stack.add(lit);
+        int top = analyzed.size;
+        while (stack.size > 0) {
+            int reason = reasons[stack.data[--stack.size] >> 1];
+            int base = reason + HEADER;
+            for (int k = 1, size = arena[reason]; k < size; k++) {
+                int q = arena[base + k];
+                int v = q >> 1;
+                if (seen[v] != 0 || levels[v] == 0) continue;
+                if (reasons[v] != NO_REASON && (abstractLevel(v) & levelSet) != 0) {
+                    seen[v] = 1;
+                    stack.add(q);
+                    analyzed.add(q);
+                } else {
+                    for (int i = top; i < analyzed.size; i++) seen[analyzed.data[i] >> 1] = 0;
+                    analyzed.size = top;
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private int abstractLevel(int v) {
+        return 1 << (levels[v] & 31);
+    }
+
+    // the number of distinct decision levels of the learned clause
+    private int blockDistance() {
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(levelStamps, 0);
+            stamp = 1;
+        }
+        int distance = 0;
+        for (int i = 0; i < learnt.size; i++) {
+            int level = levels[learnt.data[i] >> 1];
+            if (levelStamps[level] != stamp) {
+                levelStamps[level] = stamp;
+                distance++;
+            }
+        }
+        return distance;
+    }
+
+    // the Luby sequence 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, ...
+    private static double luby(int x) {
+        int size = 1, sequence = 0;
+        while (size < x + 1) {
+            sequence++;
+            size = 2 * size + 1;
+        }
+        while (size - 1 != x) {
+            size = (size - 1) >> 1;
+            sequence--;
+            x = x % size;
+        }
+        return Math.pow(2, sequence);
+    }
+
+    /* Clauses */
+
+    private int allocate(int[] lits, int size, boolean learnt, int distance) {
+        if (arenaSize + HEADER + size > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + HEADER + size));
+        }
+        int clause = arenaSize;
+        arena[clause] = size;
+        arena[clause + 1] = (learnt ? LEARNT : 0) | (distance << 1);
+        arena[clause + 2] = Float.floatToRawIntBits(0f);
+        System.arraycopy(lits, 0, arena, clause + HEADER, size);
+        arenaSize += HEADER + size;
+        return clause;
+    }
+
+    private void attach(int clause) {
+        int first = arena[clause + HEADER], second = arena[clause + HEADER + 1];
+        watches[first].add(clause, second);
+        watches[second].add(clause, first);
+    }
+
+    private float clauseActivity(int clause) {
+        return Float.intBitsToFloat(arena[clause + 2]);
+    }
+
+    private void bumpClause(int clause) {
+        float activity = (float) (clauseActivity(clause) + clauseIncrement);
+        arena[clause + 2] = Float.floatToRawIntBits(activity);
+        if (activity > 1e20f) {
+            for (int i = 0; i < learnts.size; i++) {
+                int c = learnts.data[i];
+                arena[c + 2] = Float.floatToRawIntBits(clauseActivity(c) * 1e-20f);
+            }
+            clauseIncrement *= 1e-20;
+        }
+    }
+
+    // a clause is locked while it is the reason of its first literal
+    private boolean isLocked(int clause) {
+        int first = arena[clause + HEADER];
+        return values[first] == 1 && reasons[first >> 1] == clause;
+    }
+
+    /*
+        Algorithm:
+            1. Sort the learned clauses by their literal block distance, then by their activity
+            2. Delete the worse half, but keep binary clauses, clauses of two decision levels and reasons
+            3. Compact the clauses into a new array and watch them again
+     */
+    private void reduceLearnts() {
+        Integer[] sorted = new Integer[learnts.size];
+        for (int i = 0; i < sorted.length; i++) sorted[i] = learnts.data[i];
+        Arrays.sort(sorted, (c1, c2) -> {
+            int d1 = arena[c1 + 1] >>> 1, d2 = arena[c2 + 1] >>> 1;
+            if (d1 != d2) return Integer.compare(d1, d2);
+            return Float.compare(clauseActivity(c2), clauseActivity(c1));
+        });
+
+        learnts.clear();
+        for (int i = 0; i < sorted.length; i++) {
+            int clause = sorted[i];
+            if (i < sorted.length / 2 || arena[clause] == 2 || (arena[clause + 1] >>> 1) <= 2 || isLocked(clause)) {
+                learnts.add(clause);
+            }
+        }
+        collectGarbage();
+        maxLearnts *= LEARNT_GROWTH;
+    }
+
+    private void collectGarbage() {
+        int[] old = arena;
+        int size = 0;
+        for (int i = 0; i < clauses.size; i++) size += HEADER + old[clauses.data[i]];
+        for (int i = 0; i < learnts.size; i++) size += HEADER + old[learnts.data[i]];
+
+        arena = new int[Math.max(1024, size + size / 2)];
+        arenaSize = 0;
+        relocate(old, clauses);
+        relocate(old, learnts);
+
+        // the header of a moved clause holds its new index
+        for (int i = 0; i < trailSize; i++) {
+            int v = trail[i] >> 1;
+            if (reasons[v] != NO_REASON) reasons[v] = old[reasons[v] + 2];
+        }
+
+        for (int lit = 0; lit < variables * 2; lit++) watches[lit].clear();
+        for (int i = 0; i < clauses.size; i++) attach(clauses.data[i]);
+        for (int i = 0; i < learnts.size; i++) attach(learnts.data[i]);
+    }
+
+    private void relocate(int[] old, IntList list) {
+        for (int i = 0; i < list.size; i++) {
+            int clause = list.data[i];
+            int length = HEADER + old[clause];
+            System.arraycopy(old, clause, arena, arenaSize, length);
+            old[clause + 2] = arenaSize;
+            list.data[i] = arenaSize;
+            arenaSize += length;
+        }
+    }
+
+    /* Variable activity */
+
+    private void bumpVariable(int v) {
+        if ((activity[v] += variableIncrement) > 1e100) {
+            for (int i = 0; i < variables; i++) activity[i] *= 1e-100;
+            variableIncrement *= 1e-100;
+        }
+        if (heapIndex[v] != -1) heapUp(heapIndex[v]);
+    }
+
+    private void heapInsert(int v) {
+        heapIndex[v] = heapSize;
+        heap[heapSize++] = v;
+        heapUp(heapSize - 1);
+    }
+
+    private int heapRemoveMax() {
+        int max = heap[0];
+        heapIndex[max] = -1;
+        if (--heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapIndex[heap[0]] = 0;
+            heapDown(0);
+        }
+        return max;
+    }
+
+    private void heapUp(int i) {
+        int v = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (activity[heap[parent]] >= activity[v]) break;
+            heap[i] = heap[parent];
+            heapIndex[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = v;
+        heapIndex[v] = i;
+    }
+
+    private void heapDown(int i) {
+        int v = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && activity[heap[child + 1]] > activity[heap[child]]) child++;
+            if (activity[heap[child]] <= activity[v]) break;
+            heap[i] = heap[child];
+            heapIndex[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = v;
+        heapIndex[v] = i;
+    }
+
+    /* Internal */
+
+    private void grow(int capacity) {
+        watches = Arrays.copyOf(watches, capacity * 2);
+        values = Arrays.copyOf(values, capacity * 2);
+        levels = Arrays.copyOf(levels, capacity);
+        reasons = Arrays.copyOf(reasons, capacity);
+        trail = Arrays.copyOf(trail, capacity);
+        activity = Arrays.copyOf(activity, capacity);
+        phases = Arrays.copyOf(phases, capacity);
+        heap = Arrays.copyOf(heap, capacity);
+        heapIndex = Arrays.copyOf(heapIndex, capacity);
+        seen = Arrays.copyOf(seen, capacity);
+        levelStamps = Arrays.copyOf(levelStamps, capacity + 1);
+    }
+
+    // the internal literal of variable v is 2v if positive, 2v + 1 if negative
+    private static int toInternal(int literal) {
+        return literal > 0 ? (literal - 1) << 1 : ((-literal - 1) << 1) | 1;
+    }
+
+}
@@ -0,0 +1,143 @@
+package lojic.table;
+
+import java.util.List;
+
+/**
+ * @author AlienIdeology
+ *
+ * The storage of the truth values of a {@link Column}, one bit per row
+ * A bitmap is either dense, with every row packed into {@code long} words (See {@link Bits}),
+ * or compressed (See {@link RoaringBitmap}).
+ *
+ * This class is for the Lojic library's internal use only, users should ignore this
+ */
+abstract class Bitmap {
+
+    final int rows;
+
+    Bitmap(int rows) {
+        this.rows = rows;
+    }
+
+    abstract boolean get(int row);
+
+    abstract long count();
+
+    abstract boolean isEmpty();
+
+    abstract boolean isFull();
+
+    /**
+     * Copy the rows of a chunk (See {@link RoaringBitmap#chunks(int)}) into packed {@code long} words
+     * A compressed bitmap only decompresses the chunk, so a large bitmap can be read one chunk at a time.
+     *
+     * @param chunk The chunk index
+     * @param words The words to copy into, whose words of the chunk are overwritten
+     * @param offset The index of the word of the first row of the chunk
+     */
+    abstract void copyChunk(int chunk, long[] words, int offset);
+
+    /**
+     * Check if another bitmap of the same number of rows sets the same rows as this bitmap, one chunk at a time
+     *
+     * @param bitmap The other bitmap
+     * @return True if the bitmaps set the same rows
+     */
+    boolean rowsEqual(Bitmap bitmap) {
+        long[] words = new long[RoaringBitmap.CHUNK_WORDS], other = new long[RoaringBitmap.CHUNK_WORDS];
+        for (int c = 0; c < RoaringBitmap.chunks(rows); c++) {
+            copyChunk(c, words, 0);
+            bitmap.copyChunk(c, other, 0);
+            for (int w = 0; w < Bits.words(RoaringBitmap.chunkRows(rows, c)); w++) {
+                if (words[w] != other[w]) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get a bitmap with bits of the row index swapped in order (See {@link Bits#swapVariables(long[], int, int)})
+     * The bitmap is of the same storage as this bitmap.
+     *
+     * @param swaps Pairs of bits of the row index
+     * @return The new bitmap
+     */
+    abstract Bitmap swapVariables(List<int[]> swaps);
+
+    /**
+     * Get a bitmap of half of the rows, by folding the first half of the rows onto the second half
+     * (See {@link Bits#foldHalves(long[], int, boolean)})
+     * The bitmap is of the same storage as this bitmap.
+     *
+     * @param or True to fold with OR, false to fold with AND
+     * @return The new bitmap
+     */
+    abstract Bitmap foldHalves(boolean or);
+
+    /**
+     * Get the estimated number of bytes that this bitmap takes
+     *
+     * @return The number of bytes
+     */
+    abstract long bytes();
+
+    /**
+     * A bitmap of packed {@code long} words
+     */
+    static final class Dense extends Bitmap {
+
+        private final long[] words;
+
+        Dense(long[] words, int rows) {
+            super(rows);
+            this.words = words;
+        }
+
+        @Override
+        boolean get(int row) {
+            return Bits.get(words, row);
+        }
+
+        @Override
+        long count() {
+            return Bits.count(words);
+        }
+
+        @Override
+        boolean isEmpty() {
+            return Bits.isEmpty(words);
+        }
+
+        @Override
+        boolean isFull() {
+            return Bits.isFull(words, rows);
+        }
+
+        @Override
+        void copyChunk(int chunk, long[] words, int offset) {
+            int from = chunk * RoaringBitmap.CHUNK_WORDS;
+            System.arraycopy(this.words, from, words, offset, Math.min(RoaringBitmap.CHUNK_WORDS, this.words.length - from));
+        }
+
+        @Override
+        Bitmap swapVariables(List<int[]> swaps) {
+            long[] swapped = words.clone();
+            for (int[] swap : swaps) {
+                Bits.swapVariables(swapped, swap[0], swap[1]);
+            }
+            return new Dense(swapped, rows);
+        }
+
+        @Override
+        Bitmap foldHalves(boolean or) {
+            return new Dense(Bits.foldHalves(words, rows, or), rows >>> 1);
+        }
+
+        @Override
+        long bytes() {
+            return 16 + (long) words.length * Long.BYTES;
+        }
+
+    }
+
+}
@@ -0,0 +1,279 @@
+package lojic.table;
+
+import lojic.nodes.connectives.Connective;
+
+/**
+ * @author AlienIdeology
+ *
+ * Internal utilities for truth values packed into the bits of {@code long} words, in which
+ * bit {@code r % 64} of word {@code r / 64} holds the value of row {@code r}.
+ * Bits past the last row are always {@code 0}.
+ *
+ * This class is for the Lojic library's internal use only, users should ignore this
+ */
+public final class Bits {
+
+    // PROJECTIONS[v] has bit r set if bit v of the row index r is 1
+    static final long[] PROJECTIONS = new long[] {
+            0xAAAAAAAAAAAAAAAAL,
+            0xCCCCCCCCCCCCCCCCL,
+            0xF0F0F0F0F0F0F0F0L,
+            0xFF00FF00FF00FF00L,
+            0xFFFF0000FFFF0000L,
+            0xFFFFFFFF00000000L
+    };
+
+    private Bits() {}
+
+    /**
+     * Get the word whose bit {@code r} is set if bit {@code variable} of the row index {@code r} is {@code 1}
+     *
+     * @param variable The bit of the row index, from {@code 0} to {@code 5}
+     * @return The word
+     */
+    public static long projection(int variable) {
+        return PROJECTIONS[variable];
+    }
+
+    /**
+     * Get the number of words needed for a number of rows
+     *
+     * @param rows The number of rows
+     * @return The number of words
+     */
+    static int words(int rows) {
+        return (int) ((rows + 63L) >>> 6);
+    }
+
+    /**
+     * Get the mask of the valid bits of the last word
+     *
+     * @param rows The number of rows
+     * @return The mask
+     */
+    static long lastWordMask(int rows) {
+        return (rows & 63) == 0 ? -1L : (1L << rows) - 1;
+    }
+
+    static boolean get(long[] words, int row) {
+        return (words[row >>> 6] & (1L << row)) != 0;
+    }
+
+    static void set(long[] words, int row) {
+        words[row >>> 6] |= 1L << row;
+    }
+
+    static void clear(long[] words, int row) {
+        words[row >>> 6] &= ~(1L << row);
+    }
+
+    /**
+     * Get the first set row at or after a row
+     *
+     * @param words The words
+     * @param from The first row to check
+     * @return The row, or {@code -1} if no row after it is set
+     */
+    static int nextSet(long[] words, int from) {
+        int index = from >>> 6;
+        if (index >= words.length) return -1;
+        long word = words[index] & (-1L << from);
+        while (word == 0) {
+            if (++index == words.length) return -1;
+            word = words[index];
+        }
+        return (index << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Get the first clear row at or after a row
+     *
+     * @param words The words
+     * @param from The first row to check
+     * @return The row, which is past the last word if every row after it is set
+     */
+    static int nextClear(long[] words, int from) {
+        int index = from >>> 6;
+        if (index >= words.length) return from;
+        long word = ~words[index] & (-1L << from);
+        while (word == 0) {
+            if (++index == words.length) return index << 6;
+            word = ~words[index];
+        }
+        return (index << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Set the bits of a range of rows
+     *
+     * @param words The words
+     * @param from The first row, inclusive
+     * @param to The last row, exclusive
+     */
+    static void setRange(long[] words, int from, int to) {
+        if (from >= to) return;
+        int first = from >>> 6, last = (to - 1) >>> 6;
+        long firstMask = -1L << from, lastMask = -1L >>> -to;
+        if (first == last) {
+            words[first] |= firstMask & lastMask;
+            return;
+        }
+        words[first] |= firstMask;
+        for (int i = first + 1; i < last; i++) words[i] = -1L;
+        words[last] |= lastMask;
+    }
+
+    /**
+     * Clear the bits past the last row
+     *
+     * @param words The words, which may have more words than the rows need
+     * @param rows The number of rows
+     */
+    static void trim(long[] words, int rows) {
+        int last = words(rows) - 1;
+        if (last >= 0 && last < words.length) words[last] &= lastWordMask(rows);
+        for (int i = last + 1; i < words.length; i++) words[i] = 0;
+    }
+
+    static boolean isEmpty(long[] words) {
+        for (long word : words) {
+            if (word != 0) return false;
+        }
+        return true;
+    }
+
+    static boolean isFull(long[] words, int rows) {
+        for (int i = 0; i < words.length - 1; i++) {
+            if (words[i] != -1L) return false;
+        }
+        return words.length == 0 || words[words.length - 1] == lastWordMask(rows);
+    }
+
+    static long count(long[] words) {
+        long count = 0;
+        for (long word : words) count += Long.bitCount(word);
+        return count;
+    }
+
+    /**
+     * Get the binary truth code (See {@link Connective#getTruthCode()}) that computes a connective,
+     * in which a unary connective ignores its left operand
+     *
+     * @param connective The connective
+     * @return The binary truth code
+     */
+    static int binaryCode(Connective connective) {
+        int code = connective.getTruthCode();
+        if (connective.isBinary()) return code;
+        return ((code & 0b01) != 0 ? 0b0101 : 0) | ((code & 0b10) != 0 ? 0b1010 : 0);
+    }
+
+    /**
+     * Fill the truth values of the {@code k}-th of {@code n} atoms of a two-valued truth table
+     * The first atom is true on the first half of the rows, the second atom alternates every quarter, and so on
+     *
+     * @param words The words to be filled
+     * @param n The number of atoms
+     * @param k The index of the atom
+     */
+    static void fillAtom(long[] words, int n, int k) {
+        fillAtom(words, n, k, 0);
+    }
+
+    /**
+     * Fill the truth values of the {@code k}-th of {@code n} atoms of a two-valued truth table,
+     * starting from a word of the table
+     *
+     * @param words The words to be filled
+     * @param n The number of atoms
+     * @param k The index of the atom
+     * @param firstWord The index of the table's word that is filled into {@code words[0]}
+     */
+    static void fillAtom(long[] words, int n, int k, int firstWord) {
+        int variable = n - 1 - k; // a 0 bit of the row index denotes true
+        if (variable < 6) {
+            long pattern = ~PROJECTIONS[variable];
+            for (int i = 0; i < words.length; i++) words[i] = pattern;
+        } else {
+            int block = 1 << (variable - 6); // in words
+            for (int i = 0; i < words.length; i++) {
+                words[i] = (((firstWord + i) / block) & 1) == 0 ? -1L : 0L;
+            }
+        }
+    }
+
+    /**
+     * Swap two bits of the row index of a two-valued table, which swaps the order of two atoms
+     * (See {@link #fillAtom(long[], int, int)} for the bit of an atom)
+     *
+     * @param words The words, which are modified
+     * @param i A bit of the row index
+     * @param j Another bit of the row index
+     */
+    static void swapVariables(long[] words, int i, int j) {
+        if (i == j) return;
+        if (i > j) {
+            int temp = i;
+            i = j;
+            j = temp;
+        }
+
+        if (j < 6) {
+            // both bits are within a word: delta swap the rows with bit i = 1, bit j = 0 with the rows
+            // with bit i = 0, bit j = 1
+            int delta = (1 << j) - (1 << i);
+            long mask = PROJECTIONS[i] & ~PROJECTIONS[j];
+            for (int w = 0; w < words.length; w++) {
+                long t = ((words[w] >>> delta) ^ words[w]) & mask;
+                words[w] ^= t ^ (t << delta);
+            }
+        } else if (i < 6) {
+            // bit i is within a word, bit j is of the word index
+            int shift = 1 << i;
+            int wordBit = 1 << (j - 6);
+            long projection = PROJECTIONS[i];
+            for (int w = 0; w < words.length; w++) {
+                if ((w & wordBit) != 0) continue;
+                long a = words[w], b = words[w | wordBit];
+                words[w] = (a & ~projection) | ((b & ~projection) << shift);
+                words[w | wordBit] = (b & projection) | ((a & projection) >>> shift);
+            }
+        } else {
+            // both bits are of the word index
+            int bitI = 1 << (i - 6), bitJ = 1 << (j - 6);
+            for (int w = 0; w < words.length; w++) {
+                if ((w & bitI) != 0 && (w & bitJ) == 0) {
+                    int other = w ^ bitI ^ bitJ;
+                    long temp = words[w];
+                    words[w] = words[other];
+                    words[other] = temp;
+                }
+            }
+        }
+    }
+
+    /**
+     * Fold the first half of the rows of a two-valued table with the second half,
+     * which removes the first atom (the highest bit of the row index)
+     *
+     * @param words The words
+     * @param rows The number of rows, a power of 2 that is at least 2
+     * @param or True to fold with OR (existential projection), false to fold with AND (universal projection)
+     * @return The words of the folded rows
+     */
+    static long[] foldHalves(long[] words, int rows, boolean or) {
+        int half = rows >>> 1;
+        long[] folded = new long[words(half)];
+        if (half >= 64) {
+            int offset = folded.length;
+            for (int w = 0; w < folded.length; w++) {
+                folded[w] = or ? words[w] | words[w + offset] : words[w] & words[w + offset];
+            }
+        } else {
+            long low = words[0], high = words[0] >>> half;
+            folded[0] = (or ? low | high : low & high) & lastWordMask(half);
+        }
+        return folded;
+    }
+
+}
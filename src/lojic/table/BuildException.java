@@ -0,0 +1,66 @@
+package lojic.table;
+
+/**
+ * @author AlienIdeology
+ *
+ * A RuntimeException that is thrown when a {@link TTableBuilder} refuses or stops building a {@link TruthTable},
+ * because the table would exceed the builder's budget, or because the build is interrupted or cancelled
+ * @see TTableBuilder#setMaxRows(long)
+ * @see TTableBuilder#setMaxBytes(long)
+ * @see TTableBuilder#setTimeout(long)
+ * @see TTableBuilder#setCancellationToken(lojic.CancellationToken)
+ */
+public class BuildException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Type type;
+
+    public BuildException(Type type, Object... args) {
+        super(type.format(args));
+        this.type = type;
+    }
+
+    /**
+     * Get the reason why the table is not built
+     *
+     * @return The type of this exception
+     */
+    public Type getType() {
+        return type;
+    }
+
+    public enum Type {
+
+        /* Admission, checked before anything is allocated */
+        // %d: the number of rows, the limit
+        TOO_MANY_ROWS("Cannot build a TruthTable of %d rows, the limit is %d rows!"),
+        // %d: the estimated number of bytes, the limit
+        TOO_MANY_BYTES("Cannot build a TruthTable of an estimated %d bytes, the limit is %d bytes!"),
+
+        /* Checked while building */
+        // %d: the timeout in milliseconds
+        TIMEOUT("Cannot build a TruthTable within %d milliseconds!"),
+        INTERRUPTED("The thread building a TruthTable is interrupted!"),
+        CANCELLED("The TruthTable build is cancelled!")
+
+        ;
+
+        private final String msg;
+
+        Type(String msg) {
+            this.msg = msg;
+        }
+
+        public String format(Object... args) {
+            return String.format(msg, args);
+        }
+
+        @Override
+        public String toString() {
+            return msg;
+        }
+
+    }
+
+}
@@ -8,30 +8,47 @@ import lojic.nodes.Formula;
  *
  * A column of the {@link TruthTable},
  * a {@link Formula} and/or {@link Atom} (See {@link Column#getFormula()} and {@link Column#getAtom()},
- * and an array of boolean values ({@code boolean[] values}).
+ * and the truth values of every row.
+ *
+ * The truth values are packed into {@code long} words, 64 rows per word (See {@link #getValue(int)}),
+ * or compressed (See {@link TTableBuilder#setColumnStorage(ColumnStorage)}).
+ * A column of a three-valued table (See {@link Logic}) has a second bit-plane that marks the unknown rows.
  */
 public class Column {
 
     private final Formula formula;
     private Atom atom;
-    private final boolean[] values;
+    private final int rowSize;
+    private final Bitmap values; // rows that are true
+    private final Bitmap unknowns; // rows that are unknown, null if the table is two-valued
     private Column subColumnLeft;
     private Column subColumnRight;
 
-    Column(Formula formula, boolean[] values) {
-        this(formula, values, null, null);
+    Column(Formula formula, int rowSize, long[] values, long[] unknowns) {
+        this(formula, rowSize, values, unknowns, null, null);
+    }
+
+    Column(Atom atom, int rowSize, long[] values, long[] unknowns) {
+        this(atom, dense(values, rowSize), dense(unknowns, rowSize));
     }
 
-    Column(Atom atom, boolean[] values) {
-        this( null, values, null, null);
+    Column(Formula formula, int rowSize, long[] values, long[] unknowns,
+           Column subColumnLeft, Column subColumnRight) {
+        this(formula, dense(values, rowSize), dense(unknowns, rowSize), subColumnLeft, subColumnRight);
+    }
+
+    Column(Atom atom, Bitmap values, Bitmap unknowns) {
+        this(null, values, unknowns, null, null);
         this.atom = atom;
     }
 
-    Column(Formula formula, boolean[] values,
+    Column(Formula formula, Bitmap values, Bitmap unknowns,
            Column subColumnLeft, Column subColumnRight) {
         this.formula = formula;
         this.atom = null;
+        this.rowSize = values.rows;
         this.values = values;
+        this.unknowns = unknowns;
         this.subColumnLeft = subColumnLeft;
         this.subColumnRight = subColumnRight;
     }
@@ -79,24 +96,76 @@ public class Column {
      * @return True if this column is always true
      */
     public boolean isTautology() {
-        boolean isTautology = true;
-        for (boolean val : values) {
-            if (!val) isTautology = false;
-        }
-        return isTautology;
+        return values.isFull();
     }
 
     /**
      * Check if this column object has all {@code false} values
+     * In a three-valued table, unknown values are not {@code false}
      *
      * @return True if this column is always false
      */
     public boolean isContradiction() {
-        boolean isContradiction = true;
-        for (boolean val : values) {
-            if (val) isContradiction = false;
-        }
-        return isContradiction;
+        return values.isEmpty() && (unknowns == null || unknowns.isEmpty());
+    }
+
+    /**
+     * Check if this column has the same truth value as another column on every row
+     * The columns are compared one chunk of rows at a time, so a compressed column is not decompressed as a whole.
+     *
+     * @param column The other column
+     * @return True if the columns have the same number of rows and the same truth values
+     */
+    public boolean valueEquals(Column column) {
+        if (column.rowSize != rowSize || column.isThreeValued() != isThreeValued()) return false;
+        return values.rowsEqual(column.values) && (unknowns == null || unknowns.rowsEqual(column.unknowns));
+    }
+
+    /**
+     * Check if this column belongs to a three-valued table (See {@link Logic})
+     *
+     * @return True if the values of this column can be {@link TruthValue#UNKNOWN}
+     */
+    public boolean isThreeValued() {
+        return unknowns != null;
+    }
+
+    /**
+     * Get the number of rows of this column
+     *
+     * @return The number of rows
+     */
+    public int getRowSize() {
+        return rowSize;
+    }
+
+    /**
+     * Get the boolean value of a row
+     * In a three-valued table, this is {@code true} only if the value is {@link TruthValue#TRUE}
+     *
+     * @param row The row index
+     * @return The boolean value
+     * @throws ArrayIndexOutOfBoundsException if the index is out of range
+     *      ({@code index < 0 || index >= getRowSize()})
+     */
+    public boolean getValue(int row) {
+        checkRow(row);
+        return values.get(row);
+    }
+
+    /**
+     * Get the truth value of a row
+     *
+     * @param row The row index
+     * @return The truth value
+     * @throws ArrayIndexOutOfBoundsException if the index is out of range
+     *      ({@code index < 0 || index >= getRowSize()})
+     */
+    public TruthValue getTruthValue(int row) {
+        checkRow(row);
+        if (values.get(row)) return TruthValue.TRUE;
+        if (unknowns != null && unknowns.get(row)) return TruthValue.UNKNOWN;
+        return TruthValue.FALSE;
     }
 
     /**
@@ -104,12 +173,60 @@ public class Column {
      * This only includes the main boolean values. If there are sub-columns under this column,
      * use {@link #getSubColumnLeft()} and {@link #getSubColumnRight()}
      *
+     * The array is unpacked from this column on every invocation, so prefer {@link #getValue(int)}
+     * for reading a few rows. In a three-valued table, unknown values are {@code false}.
+     *
      * @return The boolean values of this column
      */
     public boolean[] getValues() {
+        long[] words = new long[RoaringBitmap.CHUNK_WORDS];
+        boolean[] array = new boolean[rowSize];
+        for (int c = 0; c < RoaringBitmap.chunks(rowSize); c++) {
+            values.copyChunk(c, words, 0);
+            for (int i = 0; i < RoaringBitmap.chunkRows(rowSize, c); i++) {
+                array[(c << 16) + i] = Bits.get(words, i);
+            }
+        }
+        return array;
+    }
+
+    /**
+     * Check if the truth values of this column are compressed
+     * @see TTableBuilder#setColumnStorage(ColumnStorage)
+     *
+     * @return True if this column is compressed
+     */
+    public boolean isCompressed() {
+        return values instanceof RoaringBitmap;
+    }
+
+    /**
+     * Get the estimated number of bytes that the truth values of this column take
+     * This does not include the sub-columns.
+     *
+     * @return The number of bytes
+     */
+    public long getMemoryUsage() {
+        return values.bytes() + (unknowns == null ? 0 : unknowns.bytes());
+    }
+
+    Bitmap getBitmap() {
         return values;
     }
 
+    Bitmap getUnknownBitmap() {
+        return unknowns;
+    }
+
+    private static Bitmap dense(long[] words, int rowSize) {
+        return words == null ? null : new Bitmap.Dense(words, rowSize);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= rowSize)
+            throw new ArrayIndexOutOfBoundsException("Row index out of range: " + row);
+    }
+
     /**
      * Check if this column has any sub-columns
      * @see TTableBuilder#setSubColumnsLevel(int) for more information on sub-columns
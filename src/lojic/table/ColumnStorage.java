@@ -0,0 +1,26 @@
+package lojic.table;
+
+/**
+ * @author AlienIdeology
+ *
+ * The storage of the truth values of the {@link Column}s that a {@link TTableBuilder} builds
+ * @see TTableBuilder#setColumnStorage(ColumnStorage)
+ */
+public enum ColumnStorage {
+
+    /**
+     * Every row is packed into {@code long} words, 64 rows per word
+     * This is the fastest storage for tables whose columns fit in memory.
+     */
+    DENSE,
+
+    /**
+     * The rows are split into chunks of 65536 rows, and each chunk is stored either as runs of {@code true} rows
+     * or as packed words, whichever is smaller
+     * The columns of atoms, and many columns of formulas, are long runs of the same truth value,
+     * so they take a fraction of the memory of {@link #DENSE} columns.
+     * Connectives are applied to the compressed chunks directly.
+     */
+    COMPRESSED
+
+}
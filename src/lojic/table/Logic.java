@@ -0,0 +1,47 @@
+package lojic.table;
+
+/**
+ * @author AlienIdeology
+ *
+ * The logic which a {@link TTableBuilder} evaluates formulas with
+ *
+ * In a three-valued logic, every atom has the value {@link TruthValue#UNKNOWN} besides {@code true} and {@code false},
+ * so a truth table of {@code n} atoms has {@code 3^n} rows. For each atom, the rows are in the order
+ * {@code T}, {@code F}, then {@code U}, so the rows without unknowns are in the same order as a two-valued table.
+ *
+ * @see TTableBuilder#setLogic(Logic)
+ */
+public enum Logic {
+
+    /**
+     * Two-valued logic, in which every atom is either {@code true} or {@code false}
+     */
+    CLASSICAL,
+
+    /**
+     * Strong Kleene logic
+     * A connective is {@code true} ({@code false}) if it would be {@code true} ({@code false}) no matter
+     * which truth values its unknown operands have, and it is unknown otherwise.
+     * For example, {@code U ∧ F} is {@code F}, {@code U ∨ F} is {@code U}, and {@code U → U} is {@code U}.
+     */
+    KLEENE,
+
+    /**
+     * Łukasiewicz logic
+     * This is the same as {@link #KLEENE}, except that a connective applied to two unknown operands has the value
+     * it has whenever its operands are equal, if that value is fixed.
+     * For example, {@code U → U} and {@code U ↔ U} are {@code T}, and {@code U ⊕ U} is {@code F},
+     * while {@code U ∧ U} is still {@code U}.
+     */
+    LUKASIEWICZ;
+
+    /**
+     * Check if this logic has the third truth value {@link TruthValue#UNKNOWN}
+     *
+     * @return True if this logic is three-valued
+     */
+    public boolean isThreeValued() {
+        return this != CLASSICAL;
+    }
+
+}
@@ -0,0 +1,750 @@
+package lojic.table;
+
+import lojic.DefaultFactory;
+import lojic.nodes.Node;
+import lojic.parser.LojicParser;
+
+import java.util.*;
+
+/**
+ * @author AlienIdeology
+ *
+ * A two-level minimizer that computes a minimal (or near-minimal) disjunctive or conjunctive normal form
+ * of a column of a {@link TruthTable}
+ *
+ * Two algorithms are supported:
+ * 1. Exact: Quine–McCluskey generation of all prime implicants, followed by a branch and bound search
+ *    for the cheapest cover. The cover is minimal unless the search exceeds {@value #SEARCH_LIMIT} steps,
+ *    in which case the best cover found so far is used.
+ * 2. Heuristic: Espresso-style EXPAND, IRREDUNDANT and REDUCE passes over a cover, which never
+ *    generates all prime implicants and stays practical for tables with {@value #HEURISTIC_THRESHOLD} or more atoms.
+ * By default, the algorithm is chosen by the number of atoms (See {@link Mode#AUTO}).
+ *
+ * Rows of the table can be marked as "don't cares", which the minimizer may treat as either {@code true} or {@code false}.
+ * The cost of a form is its number of terms, then its number of literals.
+ *
+ * The result is a {@link Node} built from the connectives {@link DefaultFactory#NEG}, {@link DefaultFactory#AND}
+ * and {@link DefaultFactory#OR}, with the same {@link TTableBuilder} settings as the table.
+ */
+public class Minimizer {
+
+    /**
+     * The number of atoms from which {@link Mode#AUTO} switches from the exact to the heuristic algorithm
+     */
+    public static final int HEURISTIC_THRESHOLD = 16;
+
+    /**
+     * The maximum number of steps of the exact cover search
+     */
+    public static final int SEARCH_LIMIT = 200_000;
+
+    private static final int TERM_COST = 64; // a term costs more than all literals of any term
+
+    private final TruthTable table;
+    private final String[] atoms; // atoms that are neither True nor False atoms
+    private final int rowSize;
+    private final long[] on;
+    private final long[] dontCares;
+
+    private Form form;
+    private Mode mode;
+
+    /**
+     * Constructor of a minimizer of the root column of a truth table
+     *
+     * @param table The truth table
+     */
+    public Minimizer(TruthTable table) {
+        this(table, table.getRootColumn());
+    }
+
+    /**
+     * Constructor of a minimizer of a column of a truth table
+     *
+     * @param table The truth table
+     * @param column The column to be minimized
+     * @throws IllegalArgumentException if the column does not have as many rows as the table,
+     * or if the table is three-valued (See {@link Logic})
+     */
+    public Minimizer(TruthTable table, Column column) {
+        this.table = table;
+        this.rowSize = table.getRowSize();
+
+        if (column.getRowSize() != rowSize)
+            throw new IllegalArgumentException("Cannot minimize a column that does not belong to the truth table!");
+        if (column.isThreeValued())
+            throw new IllegalArgumentException("Cannot minimize a column of a three-valued truth table!");
+
+        // a True/False atom has the same value on every row
+        List<String> names = new ArrayList<>();
+        // the root column of an atom node is an atom column too, but not another atom
+        for (Column atom : table.getColumns().subList(0, table.getColumnSize() - 1)) {
+            if (rowSize > 1 && !atom.isTautology() && !atom.isContradiction())
+                names.add(atom.getName());
+        }
+        this.atoms = names.toArray(new String[0]);
+
+        // the minimizer works on dense words, which are decompressed chunk by chunk without a second copy
+        this.on = new long[Bits.words(rowSize)];
+        for (int c = 0; c < RoaringBitmap.chunks(rowSize); c++) {
+            column.getBitmap().copyChunk(c, on, c * RoaringBitmap.CHUNK_WORDS);
+        }
+        this.dontCares = new long[Bits.words(rowSize)];
+
+        this.form = Form.DNF;
+        this.mode = Mode.AUTO;
+    }
+
+    /**
+     * Constructor of a minimizer of a node
+     * This builds the node's truth table with the settings of the node's {@link TTableBuilder}
+     *
+     * @param node The node
+     */
+    public Minimizer(Node node) {
+        this(node.buildTruthTable());
+    }
+
+    /**
+     * Set the normal form of the result
+     *
+     * @param form The normal form
+     * @return This minimizer for method chaining
+     */
+    public Minimizer setForm(Form form) {
+        this.form = Objects.requireNonNull(form, "The form of a minimizer cannot be null!");
+        return this;
+    }
+
+    /**
+     * Set the algorithm of the minimizer
+     *
+     * @param mode The algorithm
+     * @return This minimizer for method chaining
+     */
+    public Minimizer setMode(Mode mode) {
+        this.mode = Objects.requireNonNull(mode, "The mode of a minimizer cannot be null!");
+        return this;
+    }
+
+    /**
+     * Mark rows of the table as don't cares
+     *
+     * @param rows The row (x) indexes
+     * @return This minimizer for method chaining
+     * @throws IndexOutOfBoundsException if any row index is out of range
+     */
+    public Minimizer addDontCares(int... rows) {
+        for (int r : rows) {
+            if (r < 0 || r >= rowSize)
+                throw new IndexOutOfBoundsException("Row index provided for don't cares is out of bounds! Index: " + r);
+            Bits.set(dontCares, r);
+        }
+        return this;
+    }
+
+    /**
+     * Mark every row on which a column is {@code true} as a don't care
+     *
+     * @param column The column, which must have as many rows as the table
+     * @return This minimizer for method chaining
+     * @throws IllegalArgumentException if the column does not have as many rows as the table
+     */
+    public Minimizer addDontCares(Column column) {
+        if (column.getRowSize() != rowSize)
+            throw new IllegalArgumentException("Cannot use a column with a different number of rows as don't cares!");
+
+        long[] values = new long[RoaringBitmap.CHUNK_WORDS];
+        for (int c = 0; c < RoaringBitmap.chunks(rowSize); c++) {
+            column.getBitmap().copyChunk(c, values, 0);
+            int from = c * RoaringBitmap.CHUNK_WORDS;
+            for (int i = 0; i < Bits.words(RoaringBitmap.chunkRows(rowSize, c)); i++) {
+                dontCares[from + i] |= values[i];
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Get the normal form of the result
+     *
+     * @return The normal form
+     */
+    public Form getForm() {
+        return form;
+    }
+
+    /**
+     * Get the algorithm of the minimizer
+     *
+     * @return The algorithm
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Compute the minimized formula and return it as a string of official symbols
+     *
+     * @return The string formula
+     */
+    public String minimizeToString() {
+        int n = atoms.length;
+        long[] target = new long[on.length];
+        long[] dc = new long[on.length];
+        for (int i = 0; i < on.length; i++) {
+            dc[i] = dontCares[i];
+            // CNF is the negated DNF of the negated function
+            target[i] = (form == Form.DNF ? on[i] : ~on[i]) & ~dontCares[i];
+        }
+        target[target.length - 1] &= Bits.lastWordMask(rowSize);
+
+        boolean exact = mode == Mode.EXACT || (mode == Mode.AUTO && n < HEURISTIC_THRESHOLD);
+        List<Long> cubes = exact ? new Exact(n, target, dc).cover() : new Heuristic(n, target, dc).cover();
+        cubes.sort(null);
+
+        return format(cubes);
+    }
+
+    /**
+     * Compute the minimized formula
+     *
+     * @return The minimized formula, a node with the same {@link TTableBuilder} settings as the table
+     */
+    public Node minimize() {
+        Node node = LojicParser.parseDefault(minimizeToString());
+        node.getTableBuilder().copySetting(table.getNode().getTableBuilder());
+        return node;
+    }
+
+    /* Formatting */
+
+    private String format(List<Long> cubes) {
+        String and = DefaultFactory.AND.getOfficialSymbol();
+        String or = DefaultFactory.OR.getOfficialSymbol();
+        String neg = DefaultFactory.NEG.getOfficialSymbol();
+
+        boolean dnf = form == Form.DNF;
+
+        // no terms: false for DNF, true for CNF
+        // a term with no literals: true for DNF, false for CNF
+        boolean empty = cubes.isEmpty();
+        if (empty || dash(cubes.get(0)) == fullMask()) {
+            boolean value = dnf != empty;
+            if (atoms.length == 0) {
+                String constant = constant(value);
+                if (constant != null) return constant;
+            }
+            // without a True/False atom of the value, any atom of the table makes the constant
+            String a = atoms.length == 0 ? table.getAtomColumns().get(0).getName() : atoms[0];
+            return "(" + a + (value ? or : and) + neg + a + ")";
+        }
+
+        List<String> terms = new ArrayList<>();
+        for (long cube : cubes) {
+            List<String> literals = new ArrayList<>();
+            for (int i = 0; i < atoms.length; i++) {
+                int bit = 1 << (atoms.length - 1 - i);
+                if ((dash(cube) & bit) != 0) continue;
+
+                // a 0 bit on the row index is a true atom, CNF clauses negate the literals of the negated function
+                boolean positive = ((bits(cube) & bit) == 0) == dnf;
+                literals.add(positive ? atoms[i] : neg + atoms[i]);
+            }
+            terms.add(join(literals, dnf ? and : or, 0, literals.size()));
+        }
+        return join(terms, dnf ? or : and, 0, terms.size());
+    }
+
+    // join strings as a balanced tree, which keeps the parsed node shallow
+    private static String join(List<String> strings, String connective, int from, int to) {
+        if (to - from == 1) return strings.get(from);
+        int mid = (from + to) >>> 1;
+        return "(" + join(strings, connective, from, mid) + connective + join(strings, connective, mid, to) + ")";
+    }
+
+    // the first True/False atom of the value of the table's builder, or null if there is none
+    private String constant(boolean value) {
+        TTableBuilder builder = table.getNode().getTableBuilder();
+        String[] tfAtoms = value ? builder.getTrueAtoms() : builder.getFalseAtoms();
+        return tfAtoms != null && tfAtoms.length > 0 ? tfAtoms[0] : null;
+    }
+
+    private int fullMask() {
+        return atoms.length == 0 ? 0 : (int) ((1L << atoms.length) - 1);
+    }
+
+    /* Cubes */
+
+    /*
+        A cube is a product term, packed into a long:
+            The high 32 bits (dash) are the bits of the row index that the term does not depend on
+            The low 32 bits (bits) are the bits of the row index that the term requires, 0 for every dash bit
+        A row index bit of 0 denotes a true atom, as the first row of a truth table is all true.
+     */
+
+    private static long cube(int bits, int dash) {
+        return ((long) dash << 32) | (bits & 0xFFFFFFFFL);
+    }
+
+    private static int bits(long cube) {
+        return (int) cube;
+    }
+
+    private static int dash(long cube) {
+        return (int) (cube >>> 32);
+    }
+
+    private static boolean covers(long cube, int row) {
+        return (row & ~dash(cube)) == bits(cube);
+    }
+
+    private static long termCost(long cube, int atoms) {
+        return TERM_COST + atoms - Integer.bitCount(dash(cube));
+    }
+
+    /*
+        Exact algorithm:
+            1. Find every prime implicant. For every set of removed literals (dash), the implicants are a bitset over
+               the row indexes, which is the bitset of a smaller dash ANDed with itself shifted by one atom.
+               An implicant is prime if no atom can be removed from it.
+            2. Reduce the covering problem: select the essential primes, then drop the rows they cover
+               and the rows that are covered whenever another row is covered
+            3. Branch and bound, starting from the heuristic cover: pick the uncovered row with the fewest
+               covering primes, and try each of those primes
+     */
+    private static class Exact {
+
+        private final int atoms;
+        private final long[] target;
+        private final long[] dontCares;
+
+        private final List<Long> primes;
+        private int[][] primeRows; // rows that each prime covers
+        private int[][] rowPrimes; // primes that cover each row
+        private int mostRows; // the largest number of rows a prime covers
+        private List<Long> forced; // essential primes
+
+        private List<Long> best;
+        private long bestCost;
+        private int steps;
+
+        Exact(int atoms, long[] target, long[] dontCares) {
+            this.atoms = atoms;
+            this.target = target;
+            this.dontCares = dontCares;
+            this.primes = new ArrayList<>();
+        }
+
+        List<Long> cover() {
+            int rows = 1 << atoms;
+            long[] allowed = new long[target.length];
+            boolean empty = true;
+            for (int i = 0; i < target.length; i++) {
+                allowed[i] = target[i] | dontCares[i];
+                if (target[i] != 0) empty = false;
+            }
+            if (empty) return new ArrayList<>();
+
+            primes(allowed, 0, 0);
+            index(rows);
+
+            best = new Heuristic(atoms, target, dontCares).cover();
+            bestCost = cost(best);
+
+            BitSet uncovered = new BitSet();
+            uncovered.set(0, rowPrimes.length);
+            search(uncovered, new ArrayDeque<>(forced), cost(forced));
+            return best;
+        }
+
+        // implicants: the bits of every implicant with the dash, vars at or below minVar are already decided
+        private void primes(long[] implicants, int dash, int minVar) {
+            long[] expandable = new long[implicants.length];
+            for (int v = 0; v < atoms; v++) {
+                if ((dash & (1 << v)) != 0) continue;
+
+                long[] merged = merge(implicants, v);
+                boolean any = false;
+                for (int w = 0; w < merged.length; w++) {
+                    if (merged[w] != 0) any = true;
+                    expandable[w] |= merged[w] | partners(merged, w, v);
+                }
+
+                // visit every dash once, by only adding atoms above the highest dash atom
+                if (any && v >= minVar) primes(merged, dash | (1 << v), v + 1);
+            }
+
+            for (int w = 0; w < implicants.length; w++) {
+                long prime = implicants[w] & ~expandable[w];
+                while (prime != 0) {
+                    int bits = (w << 6) | Long.numberOfTrailingZeros(prime);
+                    primes.add(cube(bits, dash));
+                    prime &= prime - 1;
+                }
+            }
+        }
+
+        // the implicants with a 0 bit of var v whose partner (with a 1 bit of var v) is also an implicant
+        private static long[] merge(long[] implicants, int v) {
+            long[] merged = new long[implicants.length];
+            if (v < 6) {
+                int shift = 1 << v;
+                for (int w = 0; w < implicants.length; w++) {
+                    merged[w] = implicants[w] & (implicants[w] >>> shift) & ~Bits.PROJECTIONS[v];
+                }
+            } else {
+                int offset = 1 << (v - 6);
+                for (int w = 0; w < implicants.length; w++) {
+                    if ((w & offset) == 0) merged[w] = implicants[w] & implicants[w + offset];
+                }
+            }
+            return merged;
+        }
+
+        // the partners (with a 1 bit of var v) of merged implicants on word w
+        private static long partners(long[] merged, int w, int v) {
+            if (v < 6) return merged[w] << (1 << v);
+            int offset = 1 << (v - 6);
+            return (w & offset) != 0 ? merged[w - offset] : 0L;
+        }
+
+        private void index(int rows) {
+            // the primes that cover every target row
+            List<List<Integer>> covering = new ArrayList<>(rows);
+            for (int r = 0; r < rows; r++) covering.add(null);
+            for (int p = 0; p < primes.size(); p++) {
+                long prime = primes.get(p);
+                int dash = dash(prime);
+                int base = bits(prime);
+                int sub = 0;
+                do {
+                    int row = base | sub;
+                    if (Bits.get(target, row)) {
+                        if (covering.get(row) == null) covering.set(row, new ArrayList<>());
+                        covering.get(row).add(p);
+                    }
+                    sub = (sub - dash) & dash;
+                } while (sub != 0);
+            }
+
+            // rows that only one prime covers make the prime essential
+            forced = new ArrayList<>();
+            BitSet essential = new BitSet();
+            for (List<Integer> ps : covering) {
+                if (ps != null && ps.size() == 1) essential.set(ps.get(0));
+            }
+
+            // drop rows covered by essential primes, then rows that are covered by every prime of another row
+            List<BitSet> remaining = new ArrayList<>();
+            Set<BitSet> seen = new HashSet<>();
+            for (List<Integer> ps : covering) {
+                if (ps == null) continue;
+                BitSet set = new BitSet();
+                for (int p : ps) set.set(p);
+                if (!set.intersects(essential) && seen.add(set)) remaining.add(set);
+            }
+            remaining.sort(Comparator.comparingInt(BitSet::cardinality));
+
+            List<BitSet> kept = new ArrayList<>();
+            for (BitSet set : remaining) {
+                boolean dominated = false;
+                for (BitSet other : kept) {
+                    BitSet and = (BitSet) other.clone();
+                    and.and(set);
+                    if (and.equals(other)) {
+                        dominated = true;
+                        break;
+                    }
+                }
+                if (!dominated) kept.add(set);
+            }
+
+            for (int p = essential.nextSetBit(0); p >= 0; p = essential.nextSetBit(p + 1)) {
+                forced.add(primes.get(p));
+            }
+
+            rowPrimes = new int[kept.size()][];
+            List<List<Integer>> rowsOfPrime = new ArrayList<>();
+            for (int p = 0; p < primes.size(); p++) rowsOfPrime.add(new ArrayList<>());
+            for (int row = 0; row < kept.size(); row++) {
+                rowPrimes[row] = kept.get(row).stream().toArray();
+                for (int p : rowPrimes[row]) rowsOfPrime.get(p).add(row);
+            }
+
+            primeRows = new int[primes.size()][];
+            mostRows = 1;
+            for (int p = 0; p < primes.size(); p++) {
+                primeRows[p] = rowsOfPrime.get(p).stream().mapToInt(Integer::intValue).toArray();
+                mostRows = Math.max(mostRows, primeRows[p].length);
+            }
+        }
+
+        private void search(BitSet uncovered, Deque<Long> chosen, long chosenCost) {
+            if (uncovered.isEmpty()) {
+                if (chosenCost < bestCost) {
+                    bestCost = chosenCost;
+                    best = new ArrayList<>(chosen);
+                }
+                return;
+            }
+
+            // every prime covers at most mostRows rows
+            long bound = chosenCost + TERM_COST * (long) ((uncovered.cardinality() + mostRows - 1) / mostRows);
+            if (bound >= bestCost || ++steps > SEARCH_LIMIT) return;
+
+            // branch on the row with the fewest covering primes
+            int row = -1;
+            int fewest = Integer.MAX_VALUE;
+            for (int r = uncovered.nextSetBit(0); r >= 0; r = uncovered.nextSetBit(r + 1)) {
+                if (rowPrimes[r].length < fewest) {
+                    fewest = rowPrimes[r].length;
+                    row = r;
+                }
+            }
+
+            Integer[] candidates = Arrays.stream(rowPrimes[row]).boxed().toArray(Integer[]::new);
+            Arrays.sort(candidates, (p1, p2) -> primeRows[p2].length - primeRows[p1].length);
+            for (int p : candidates) {
+                BitSet next = (BitSet) uncovered.clone();
+                for (int r : primeRows[p]) next.clear(r);
+
+                chosen.push(primes.get(p));
+                search(next, chosen, chosenCost + termCost(primes.get(p), atoms));
+                chosen.pop();
+            }
+        }
+
+        private long cost(List<Long> cover) {
+            long cost = 0;
+            for (long cube : cover) cost += termCost(cube, atoms);
+            return cost;
+        }
+
+    }
+
+    /*
+        Heuristic algorithm (Espresso-style):
+            1. EXPAND every uncovered target row into a prime, greedily raising the literal that covers the most
+               uncovered target rows without covering an off row
+            2. IRREDUNDANT: remove terms whose target rows are all covered by other terms
+            3. REDUCE every term to the smallest term that contains its uniquely covered target rows,
+               then EXPAND and IRREDUNDANT again, as long as the cost decreases
+     */
+    private static class Heuristic {
+
+        private static final int MAX_PASSES = 8;
+
+        private final int atoms;
+        private final int rows;
+        private final long[] target;
+        private final long[] allowed; // target or don't care rows
+
+        private int[] coverage;
+
+        Heuristic(int atoms, long[] target, long[] dontCares) {
+            this.atoms = atoms;
+            this.rows = 1 << atoms;
+            this.target = target;
+            this.allowed = new long[target.length];
+            for (int i = 0; i < target.length; i++) allowed[i] = target[i] | dontCares[i];
+        }
+
+        List<Long> cover() {
+            coverage = new int[rows];
+            List<Long> cover = new ArrayList<>();
+            for (int r = 0; r < rows; r++) {
+                if (Bits.get(target, r) && coverage[r] == 0) {
+                    long cube = expand(cube(r, 0));
+                    cover.add(cube);
+                    addCoverage(cube, 1);
+                }
+            }
+            cover = irredundant(cover);
+
+            long cost = cost(cover);
+            for (int pass = 0; pass < MAX_PASSES; pass++) {
+                List<Long> next = reduceExpand(cover);
+                long nextCost = cost(next);
+                if (nextCost >= cost) break;
+                cover = next;
+                cost = nextCost;
+            }
+            return cover;
+        }
+
+        private long expand(long cube) {
+            while (true) {
+                int bestV = -1;
+                int bestGain = -1;
+                for (int v = 0; v < atoms; v++) {
+                    int bit = 1 << v;
+                    if ((dash(cube) & bit) != 0) continue;
+
+                    // the half that raising the literal adds to the cube
+                    long half = cube(bits(cube) ^ bit, dash(cube));
+                    int gain = gain(half);
+                    if (gain > bestGain) {
+                        bestGain = gain;
+                        bestV = v;
+                    }
+                }
+                if (bestV == -1) return cube;
+
+                int bit = 1 << bestV;
+                cube = cube(bits(cube) & ~bit, dash(cube) | bit);
+            }
+        }
+
+        // the number of uncovered target rows of a cube, or -1 if it contains an off row
+        private int gain(long cube) {
+            int dash = dash(cube);
+            int base = bits(cube);
+            int gain = 0;
+            int sub = 0;
+            do {
+                int row = base | sub;
+                if (!Bits.get(allowed, row)) return -1;
+                if (Bits.get(target, row) && coverage[row] == 0) gain++;
+                sub = (sub - dash) & dash;
+            } while (sub != 0);
+            return gain;
+        }
+
+        private void addCoverage(long cube, int delta) {
+            int dash = dash(cube);
+            int base = bits(cube);
+            int sub = 0;
+            do {
+                coverage[base | sub] += delta;
+                sub = (sub - dash) & dash;
+            } while (sub != 0);
+        }
+
+        // true if every target row of the cube is covered by another cube
+        private boolean redundant(long cube) {
+            int dash = dash(cube);
+            int base = bits(cube);
+            int sub = 0;
+            do {
+                int row = base | sub;
+                if (Bits.get(target, row) && coverage[row] < 2) return false;
+                sub = (sub - dash) & dash;
+            } while (sub != 0);
+            return true;
+        }
+
+        private List<Long> irredundant(List<Long> cover) {
+            // try to remove the most expensive (smallest) cubes first
+            List<Long> sorted = new ArrayList<>(cover);
+            sorted.sort(Comparator.comparingInt(c -> Integer.bitCount(dash(c))));
+
+            List<Long> result = new ArrayList<>();
+            for (long cube : sorted) {
+                if (redundant(cube)) {
+                    addCoverage(cube, -1);
+                } else {
+                    result.add(cube);
+                }
+            }
+            return result;
+        }
+
+        private List<Long> reduceExpand(List<Long> cover) {
+            int[] saved = coverage.clone();
+
+            // REDUCE, smallest cubes first
+            List<Long> sorted = new ArrayList<>(cover);
+            sorted.sort(Comparator.comparingInt(c -> Integer.bitCount(dash(c))));
+            List<Long> reduced = new ArrayList<>();
+            for (long cube : sorted) {
+                addCoverage(cube, -1);
+                long smaller = reduce(cube);
+                if (smaller != -1L) {
+                    addCoverage(smaller, 1);
+                    reduced.add(smaller);
+                }
+            }
+
+            // EXPAND, largest cubes first, which may reach different primes than before
+            reduced.sort(Comparator.comparingInt(c -> -Integer.bitCount(dash(c))));
+            List<Long> expanded = new ArrayList<>();
+            for (long cube : reduced) {
+                addCoverage(cube, -1);
+                long prime = expand(cube);
+                addCoverage(prime, 1);
+                expanded.add(prime);
+            }
+
+            List<Long> result = irredundant(expanded);
+            if (cost(result) >= cost(cover)) {
+                coverage = saved;
+                return cover;
+            }
+            return result;
+        }
+
+        // the supercube of the target rows that no other cube covers, or -1 if there are none
+        private long reduce(long cube) {
+            int dash = dash(cube);
+            int base = bits(cube);
+            int and = -1;
+            int or = 0;
+            boolean found = false;
+            int sub = 0;
+            do {
+                int row = base | sub;
+                if (Bits.get(target, row) && coverage[row] == 0) {
+                    and &= row;
+                    or |= row;
+                    found = true;
+                }
+                sub = (sub - dash) & dash;
+            } while (sub != 0);
+
+            if (!found) return -1L;
+            int newDash = and ^ or;
+            return cube(and & ~newDash, newDash);
+        }
+
+        private long cost(List<Long> cover) {
+            long cost = 0;
+            for (long cube : cover) cost += termCost(cube, atoms);
+            return cost;
+        }
+
+    }
+
+    /**
+     * The normal form of a minimized formula
+     */
+    public enum Form {
+        /**
+         * Disjunctive normal form, a disjunction of conjunctions of literals
+         */
+        DNF,
+        /**
+         * Conjunctive normal form, a conjunction of disjunctions of literals
+         */
+        CNF
+    }
+
+    /**
+     * The algorithm of a minimizer
+     */
+    public enum Mode {
+        /**
+         * Use the exact algorithm for fewer than {@value Minimizer#HEURISTIC_THRESHOLD} atoms, and the heuristic algorithm otherwise
+         */
+        AUTO,
+        /**
+         * Use the exact Quine–McCluskey algorithm
+         */
+        EXACT,
+        /**
+         * Use the heuristic Espresso-style algorithm
+         */
+        HEURISTIC
+    }
+
+}
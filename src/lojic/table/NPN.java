@@ -0,0 +1,327 @@
+package lojic.table;
+
+import lojic.nodes.Atom;
+import lojic.nodes.Formula;
+import lojic.nodes.LocalAtom;
+import lojic.nodes.Node;
+import lojic.nodes.connectives.Connective;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author AlienIdeology
+ *
+ * NPN canonicalization of Boolean functions with at most {@value #MAX_ATOMS} atoms
+ *
+ * Two functions are NPN-equivalent if one can be obtained from the other by
+ * Negating atoms, Permuting (renaming) atoms and Negating the output.
+ * The canonical form of a function is the smallest (unsigned) truth table among its NPN-equivalent functions
+ * that are in normal form: at most half of the rows are true, every atom is false on at most as many true rows
+ * as it is true, and the atoms are ordered by the number of true rows on which they are false, the first atom
+ * having the fewest. Every function has such equivalents, and the normal form does not depend on how an equivalent
+ * is reached, so NPN-equivalent functions have the same canonical form.
+ *
+ * A truth table of {@code n} atoms is packed into a {@code long}, in which bit {@code r} is the value of the
+ * function on row {@code r} of the {@link TruthTable} (See {@link TTableBuilder} for the order of rows):
+ * the first atom is {@code true} on the first half of the rows, the second atom alternates every quarter, and so on.
+ * Only the lowest {@code 2^n} bits are significant.
+ *
+ * Instead of trying all {@code 2 * 2^n * n!} variants, the canonization fixes the output negation, the atom negations
+ * and the order of the atoms from these counts, and only tries the choices that the counts leave open:
+ * both output negations if exactly half of the rows are true, both negations of the atoms that are false on exactly
+ * half of the true rows, and the orders of the atoms that have the same count. A typical function has no such choice.
+ * The open choices are walked through with one word operation each: atom negations in Gray code order
+ * (one atom flip each), and orders in Steinhaus-Johnson-Trotter order (one adjacent swap each).
+ * The flip and swap sequences are precomputed tables.
+ */
+public final class NPN {
+
+    /**
+     * The maximum number of atoms a function can have to be canonized, since the truth table must fit into a {@code long}
+     */
+    public static final int MAX_ATOMS = 6;
+
+    // Masks used to swap the row index bits v and v + 1: kept bits, bits moved up, bits moved down
+    private static final long[][] SWAP_MASKS = new long[][] {
+            {0x9999999999999999L, 0x2222222222222222L, 0x4444444444444444L},
+            {0xC3C3C3C3C3C3C3C3L, 0x0C0C0C0C0C0C0C0CL, 0x3030303030303030L},
+            {0xF00FF00FF00FF00FL, 0x00F000F000F000F0L, 0x0F000F000F000F00L},
+            {0xFF0000FFFF0000FFL, 0x0000FF000000FF00L, 0x00FF000000FF0000L},
+            {0xFFFF00000000FFFFL, 0x00000000FFFF0000L, 0x0000FFFF00000000L}
+    };
+
+    // FLIPS[n] is the Gray code sequence of atom flips, SWAPS[n] is the sequence of adjacent swaps
+    private static final int[][] FLIPS = new int[MAX_ATOMS + 1][];
+    private static final int[][] SWAPS = new int[MAX_ATOMS + 1][];
+
+    static {
+        for (int n = 0; n <= MAX_ATOMS; n++) {
+            FLIPS[n] = new int[(1 << n) - 1];
+            for (int i = 1; i < (1 << n); i++) {
+                FLIPS[n][i - 1] = Integer.numberOfTrailingZeros(i);
+            }
+            SWAPS[n] = adjacentSwaps(n);
+        }
+    }
+
+    private NPN() {}
+
+    /**
+     * Get the NPN class of a node
+     * True/False atoms are recognized with the settings of the node's {@link TTableBuilder}.
+     * @see Node#npnClass()
+     *
+     * @param node The node
+     * @return The canonical truth table of the node
+     * @throws UnsupportedOperationException if the node has more than {@value #MAX_ATOMS} atoms
+     */
+    public static long classOf(Node node) {
+        return canonize(truthTable(node), countAtoms(node));
+    }
+
+    /**
+     * Check if two nodes are the same function up to renaming atoms, negating atoms or negating the output
+     *
+     * @param node1 The first node
+     * @param node2 The second node
+     * @return True if the nodes are NPN-equivalent
+     * @throws UnsupportedOperationException if any node has more than {@value #MAX_ATOMS} atoms
+     */
+    public static boolean isEquivalent(Node node1, Node node2) {
+        int n = Math.max(countAtoms(node1), countAtoms(node2));
+        return canonize(truthTable(node1), n) == canonize(truthTable(node2), n);
+    }
+
+    /**
+     * Get the packed truth table of a node
+     * Atoms are ordered as in {@link Node#getDistinctAtoms()}, and True/False atoms are not counted as atoms.
+     * The table is repeated throughout the unused high bits of the {@code long}
+     *
+     * @param node The node
+     * @return The packed truth table
+     * @throws UnsupportedOperationException if the node has more than {@value #MAX_ATOMS} atoms
+     */
+    public static long truthTable(Node node) {
+        TTableBuilder builder = node.getTableBuilder();
+        Map<String, Long> words = new HashMap<>();
+
+        List<Atom> atoms = new ArrayList<>();
+        for (Atom atom : node.getDistinctAtoms()) {
+            String name = atom.toString();
+            if (builder.isTAtom(name)) words.put(name, -1L);
+            else if (builder.isFAtom(name)) words.put(name, 0L);
+            else atoms.add(atom);
+        }
+
+        int n = atoms.size();
+        if (n > MAX_ATOMS)
+            throw new UnsupportedOperationException("Cannot compute the NPN class of a node with more than " + MAX_ATOMS + " atoms!");
+
+        for (int k = 0; k < n; k++) {
+            // the first atom is true on the first half of the rows
+            words.put(atoms.get(k).toString(), ~Bits.PROJECTIONS[n - 1 - k]);
+        }
+        return evaluate(node, words);
+    }
+
+    /**
+     * Compute the NPN canonical form of a packed truth table
+     *
+     * @param truthTable The packed truth table
+     * @param atoms The number of atoms of the truth table
+     * @return The canonical truth table, with only the lowest {@code 2^atoms} bits set
+     * @throws IllegalArgumentException if the number of atoms is {@code < 0 || > }{@value #MAX_ATOMS}
+     */
+    public static long canonize(long truthTable, int atoms) {
+        if (atoms < 0 || atoms > MAX_ATOMS)
+            throw new IllegalArgumentException("The number of atoms must be between 0 and " + MAX_ATOMS + "!");
+
+        long t = replicate(truthTable, atoms);
+        int ones = Long.bitCount(t & mask(atoms));
+        int half = (1 << atoms) >>> 1;
+        long best = -1L;
+        if (atoms == 0 || ones <= half) best = min(best, canonizePhase(t, atoms));
+        if (atoms == 0 || ones >= half) best = min(best, canonizePhase(~t, atoms));
+        return best & mask(atoms);
+    }
+
+    /**
+     * Negate an atom of a packed truth table
+     *
+     * @param truthTable The packed truth table
+     * @param variable The bit of the row index that denotes the atom ({@code n - 1} for the first of {@code n} atoms)
+     * @return The packed truth table with the atom negated
+     */
+    public static long flip(long truthTable, int variable) {
+        int shift = 1 << variable;
+        long projection = Bits.PROJECTIONS[variable];
+        return ((truthTable & projection) >>> shift) | ((truthTable & ~projection) << shift);
+    }
+
+    /**
+     * Swap two adjacent atoms of a packed truth table
+     *
+     * @param truthTable The packed truth table
+     * @param variable The lower bit of the two adjacent bits of the row index that denote the atoms
+     * @return The packed truth table with the atoms swapped
+     */
+    public static long swap(long truthTable, int variable) {
+        int shift = 1 << variable;
+        long[] masks = SWAP_MASKS[variable];
+        return (truthTable & masks[0]) | ((truthTable & masks[1]) << shift) | ((truthTable & masks[2]) >>> shift);
+    }
+
+    /* Internal */
+
+    private static long evaluate(Node node, Map<String, Long> words) {
+        if (node instanceof LocalAtom) {
+            return words.get(node.getString());
+        }
+
+        Formula formula = (Formula) node;
+        Connective connective = formula.getConnective();
+        Node[] children = formula.getChildren();
+        if (connective.isUnary()) {
+            return connective.computeBits(evaluate(children[0], words));
+        }
+        return Connective.computeBits(connective.getTruthCode(),
+                evaluate(children[0], words), evaluate(children[1], words));
+    }
+
+    private static int countAtoms(Node node) {
+        TTableBuilder builder = node.getTableBuilder();
+        int count = 0;
+        for (Atom atom : node.getDistinctAtoms()) {
+            if (!builder.isTAtom(atom.toString()) && !builder.isFAtom(atom.toString())) count++;
+        }
+        return count;
+    }
+
+    // repeat the lowest 2^atoms bits throughout the long
+    private static long replicate(long truthTable, int atoms) {
+        long t = truthTable & mask(atoms);
+        for (int width = 1 << atoms; width < 64; width <<= 1) {
+            t |= t << width;
+        }
+        return t;
+    }
+
+    private static long mask(int atoms) {
+        return atoms == MAX_ATOMS ? -1L : (1L << (1 << atoms)) - 1;
+    }
+
+    private static long min(long t1, long t2) {
+        return Long.compareUnsigned(t1, t2) <= 0 ? t1 : t2;
+    }
+
+    /*
+        Algorithm:
+            1. Count the true rows on which every atom is false, and negate the atoms that are false on more of them
+               than they are true
+            2. Sort the atoms by their counts with adjacent swaps, the first atom (the highest bit) having the fewest
+            3. The atoms with the same count form a group, whose orders are all tried,
+               and the group that is false on exactly half of the true rows also has all of its negations tried
+     */
+    // the smallest normal form of a truth table whose output negation is fixed
+    private static long canonizePhase(long t, int atoms) {
+        long mask = mask(atoms);
+        int ones = Long.bitCount(t & mask);
+        int[] counts = new int[atoms];
+        for (int v = 0; v < atoms; v++) {
+            counts[v] = Long.bitCount(t & mask & Bits.PROJECTIONS[v]);
+            if (2 * counts[v] > ones) {
+                t = flip(t, v);
+                counts[v] = ones - counts[v];
+            }
+        }
+
+        // the counts are non-increasing from the lowest bit to the highest
+        for (int i = 0; i < atoms; i++) {
+            for (int v = 0; v + 1 < atoms - i; v++) {
+                if (counts[v] < counts[v + 1]) {
+                    t = swap(t, v);
+                    int count = counts[v];
+                    counts[v] = counts[v + 1];
+                    counts[v + 1] = count;
+                }
+            }
+        }
+
+        int groups = 0;
+        int[] starts = new int[atoms + 1];
+        int free = -1;
+        for (int v = 0; v < atoms; v++) {
+            if (v == 0 || counts[v] != counts[v - 1]) {
+                if (2 * counts[v] == ones) free = groups;
+                starts[groups++] = v;
+            }
+        }
+        starts[groups] = atoms;
+        return permuteGroups(t, starts, groups, 0, free);
+    }
+
+    // the smallest truth table among the orders of the groups from a group on, and the negations of the free group
+    private static long permuteGroups(long t, int[] starts, int groups, int group, int free) {
+        if (group == groups) {
+            if (free == -1) return t;
+            long best = t;
+            for (int flip : FLIPS[starts[free + 1] - starts[free]]) {
+                t = flip(t, starts[free] + flip);
+                best = min(best, t);
+            }
+            return best;
+        }
+
+        int[] swaps = SWAPS[starts[group + 1] - starts[group]];
+        long best = -1L;
+        for (int i = 0; i <= swaps.length; i++) {
+            best = min(best, permuteGroups(t, starts, groups, group + 1, free));
+            if (i < swaps.length) t = swap(t, starts[group] + swaps[i]);
+        }
+        return best;
+    }
+
+    /*
+        Steinhaus-Johnson-Trotter algorithm:
+            1. Every element starts looking to its left
+            2. Repeatedly swap the largest element that looks at a smaller adjacent element,
+               then turn around every element larger than the swapped one
+            3. This visits all n! permutations with n! - 1 adjacent swaps
+     */
+    private static int[] adjacentSwaps(int n) {
+        int[] perm = new int[n];
+        int[] dirs = new int[n];
+        for (int i = 0; i < n; i++) {
+            perm[i] = i;
+            dirs[i] = -1;
+        }
+
+        List<Integer> swaps = new ArrayList<>();
+        while (true) {
+            int mobile = -1;
+            for (int i = 0; i < n; i++) {
+                int j = i + dirs[perm[i]];
+                if (j >= 0 && j < n && perm[j] < perm[i]
+                        && (mobile == -1 || perm[i] > perm[mobile])) {
+                    mobile = i;
+                }
+            }
+            if (mobile == -1) break;
+
+            int element = perm[mobile];
+            int j = mobile + dirs[element];
+            perm[mobile] = perm[j];
+            perm[j] = element;
+            swaps.add(Math.min(mobile, j));
+
+            for (int e = element + 1; e < n; e++) {
+                dirs[e] = -dirs[e];
+            }
+        }
+        return swaps.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+}
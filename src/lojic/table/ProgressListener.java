@@ -0,0 +1,22 @@
+package lojic.table;
+
+/**
+ * @author AlienIdeology
+ *
+ * A listener that is notified of the progress of a {@link TTableBuilder#build()}
+ * The listener is invoked on the thread that builds the table, after each column is computed,
+ * so it should return quickly.
+ * @see TTableBuilder#setProgressListener(ProgressListener)
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    /**
+     * Invoked after a column (of an atom or a formula, including sub-formulas) is computed
+     *
+     * @param columns The number of columns computed so far
+     * @param totalColumns The number of columns to be computed
+     */
+    void onProgress(int columns, int totalColumns);
+
+}
@@ -0,0 +1,464 @@
+package lojic.table;
+
+import lojic.nodes.connectives.Connective;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author AlienIdeology
+ *
+ * A compressed bitmap in the style of Roaring bitmaps
+ * The rows are split into chunks of {@value #CHUNK_ROWS} rows, and each chunk is stored in the smaller of two containers:
+ * 1. A run container, which stores the runs of consecutive set rows as pairs of 16-bit row offsets
+ * 2. A bitmap container, which stores the packed words of the chunk (See {@link Bits})
+ * Empty and full chunks are run containers of zero or one run, so the column of an atom, which is long runs of
+ * {@code true} followed by long runs of {@code false}, takes a few bytes per chunk instead of 8 KB.
+ *
+ * A connective is applied chunk by chunk: two run containers are merged run by run,
+ * and other containers are decompressed into the words of one chunk.
+ * Containers are immutable, so consecutive chunks with the same rows (such as the chunks of an atom that alternates
+ * every few rows) share one container.
+ *
+ * This class is for the Lojic library's internal use only, users should ignore this
+ */
+final class RoaringBitmap extends Bitmap {
+
+    static final int CHUNK_ROWS = 1 << 16;
+    static final int CHUNK_WORDS = CHUNK_ROWS >>> 6;
+
+    // a run container with as many runs takes as many bytes as a bitmap container
+    private static final int MAX_RUNS = CHUNK_WORDS * Long.BYTES / (2 * Character.BYTES);
+
+    private final Container[] chunks;
+
+    RoaringBitmap(Container[] chunks, int rows) {
+        super(rows);
+        this.chunks = chunks;
+    }
+
+    /**
+     * Get the number of chunks of a number of rows
+     *
+     * @param rows The number of rows
+     * @return The number of chunks
+     */
+    static int chunks(int rows) {
+        return (int) ((rows + (long) CHUNK_ROWS - 1) >>> 16);
+    }
+
+    /**
+     * Get the number of rows of a chunk
+     *
+     * @param rows The number of rows of the bitmap
+     * @param chunk The chunk index
+     * @return The number of rows of the chunk
+     */
+    static int chunkRows(int rows, int chunk) {
+        return Math.min(CHUNK_ROWS, rows - (chunk << 16));
+    }
+
+    Container chunk(int index) {
+        return chunks[index];
+    }
+
+    @Override
+    boolean get(int row) {
+        return chunks[row >>> 16].get(row & (CHUNK_ROWS - 1));
+    }
+
+    @Override
+    long count() {
+        long count = 0;
+        for (Container chunk : chunks) count += chunk.count();
+        return count;
+    }
+
+    @Override
+    boolean isEmpty() {
+        for (Container chunk : chunks) {
+            if (chunk.count() != 0) return false;
+        }
+        return true;
+    }
+
+    @Override
+    boolean isFull() {
+        for (int c = 0; c < chunks.length; c++) {
+            if (chunks[c].count() != chunkRows(rows, c)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    void copyChunk(int chunk, long[] words, int offset) {
+        Arrays.fill(words, offset, offset + Bits.words(chunkRows(rows, chunk)), 0);
+        chunks[chunk].toWords(words, offset);
+    }
+
+    /*
+        Algorithm:
+            1. The low 16 bits of the row index are of the rows within a chunk, and the other bits are of the chunk index
+            2. Two bits of the chunk index swap the containers of the chunks
+            3. Two bits within a chunk swap the rows of every chunk, which keeps an empty or a full chunk
+            4. A bit within a chunk and a bit of the chunk index exchange the rows of pairs of chunks
+            5. Consecutive chunks that share a container keep sharing the swapped container
+     */
+    @Override
+    Bitmap swapVariables(List<int[]> swaps) {
+        Container[] swapped = chunks.clone();
+        long[] low = new long[CHUNK_WORDS], high = new long[CHUNK_WORDS];
+        for (int[] swap : swaps) {
+            int i = Math.min(swap[0], swap[1]), j = Math.max(swap[0], swap[1]);
+            if (i == j) continue;
+
+            if (i >= 16) {
+                int bitI = 1 << (i - 16), bitJ = 1 << (j - 16);
+                for (int c = 0; c < swapped.length; c++) {
+                    if ((c & bitI) != 0 && (c & bitJ) == 0) {
+                        int other = c ^ bitI ^ bitJ;
+                        Container temp = swapped[c];
+                        swapped[c] = swapped[other];
+                        swapped[other] = temp;
+                    }
+                }
+            } else if (j < 16) {
+                Container previous = null, result = null;
+                for (int c = 0; c < swapped.length; c++) {
+                    int rows = chunkRows(this.rows, c);
+                    if (isConstant(swapped[c], rows)) continue;
+                    if (swapped[c] != previous) {
+                        previous = swapped[c];
+                        Arrays.fill(low, 0);
+                        previous.toWords(low, 0);
+                        Bits.swapVariables(low, i, j);
+                        result = compress(low, rows);
+                    }
+                    swapped[c] = result;
+                }
+            } else {
+                // every chunk is full, since the table has at least 2^17 rows
+                int chunkBit = 1 << (j - 16);
+                Container previousLow = null, previousHigh = null, resultLow = null, resultHigh = null;
+                for (int c = 0; c < swapped.length; c++) {
+                    if ((c & chunkBit) != 0) continue;
+                    int other = c | chunkBit;
+                    Container l = swapped[c], h = swapped[other];
+                    if (l == h && isConstant(l, CHUNK_ROWS)) continue;
+                    if (l != previousLow || h != previousHigh) {
+                        previousLow = l;
+                        previousHigh = h;
+                        Arrays.fill(low, 0);
+                        Arrays.fill(high, 0);
+                        l.toWords(low, 0);
+                        h.toWords(high, 0);
+                        exchange(low, high, i);
+                        resultLow = compress(low, CHUNK_ROWS);
+                        resultHigh = compress(high, CHUNK_ROWS);
+                    }
+                    swapped[c] = resultLow;
+                    swapped[other] = resultHigh;
+                }
+            }
+        }
+        return new RoaringBitmap(swapped, rows);
+    }
+
+    @Override
+    Bitmap foldHalves(boolean or) {
+        int half = rows >>> 1;
+        if (half < CHUNK_ROWS) {
+            // both halves are in the first chunk
+            long[] words = new long[CHUNK_WORDS];
+            chunks[0].toWords(words, 0);
+            return new RoaringBitmap(new Container[] {compress(Bits.foldHalves(words, rows, or), half)}, half);
+        }
+
+        int code = or ? 0b1110 : 0b1000;
+        Container[] folded = new Container[chunks.length / 2];
+        long[][] scratch = new long[3][CHUNK_WORDS];
+        for (int c = 0; c < folded.length; c++) {
+            Container l = chunks[c], r = chunks[c + folded.length];
+            folded[c] = c > 0 && l == chunks[c - 1] && r == chunks[c - 1 + folded.length]
+                    ? folded[c - 1]
+                    : apply(code, l, r, CHUNK_ROWS, scratch);
+        }
+        return new RoaringBitmap(folded, half);
+    }
+
+    @Override
+    long bytes() {
+        long bytes = 16 + 8L * chunks.length;
+        for (int c = 0; c < chunks.length; c++) {
+            // consecutive chunks of the same rows share a container
+            if (c == 0 || chunks[c] != chunks[c - 1]) bytes += chunks[c].bytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Compress the packed words of a bitmap
+     *
+     * @param words The words
+     * @param rows The number of rows
+     * @return The compressed bitmap
+     */
+    static RoaringBitmap fromWords(long[] words, int rows) {
+        Container[] chunks = new Container[chunks(rows)];
+        for (int c = 0; c < chunks.length; c++) {
+            int from = c * CHUNK_WORDS;
+            chunks[c] = compress(Arrays.copyOfRange(words, from, Math.min(words.length, from + CHUNK_WORDS)),
+                    chunkRows(rows, c));
+        }
+        return new RoaringBitmap(chunks, rows);
+    }
+
+    /* Containers */
+
+    /**
+     * Compress the words of a chunk into the smaller container
+     *
+     * @param words The words, which may be reused by the caller afterwards
+     * @param rows The number of rows of the chunk, bits past which must be 0
+     * @return The container
+     */
+    static Container compress(long[] words, int rows) {
+        int length = Bits.words(rows);
+        int runs = 0;
+        long carry = 0; // the last bit of the previous word
+        for (int i = 0; i < length; i++) {
+            runs += Long.bitCount(words[i] & ~((words[i] << 1) | carry));
+            carry = words[i] >>> 63;
+        }
+        if (runs >= MAX_RUNS) {
+            return new BitmapContainer(Arrays.copyOf(words, length));
+        }
+
+        /*
+            Algorithm:
+                1. Skip the zero words, the start of a run is the lowest set bit
+                2. Fill the bits below the run with ones, skip the words of all ones,
+                   the end of the run is the lowest zero bit
+                3. Clear the ones and repeat
+         */
+        char[] pairs = new char[runs * 2];
+        int run = 0;
+        int index = 0;
+        long word = length == 0 ? 0 : words[0];
+        while (run < runs) {
+            while (word == 0) word = words[++index];
+            int start = (index << 6) + Long.numberOfTrailingZeros(word);
+            word |= word - 1;
+            while (word == -1L && index < length - 1) word = words[++index];
+            int end = word == -1L ? (index + 1) << 6 : (index << 6) + Long.numberOfTrailingZeros(~word);
+            pairs[run * 2] = (char) start;
+            pairs[run * 2 + 1] = (char) (end - 1);
+            word &= word + 1;
+            run++;
+        }
+        return new RunContainer(pairs);
+    }
+
+    /**
+     * Apply a two-valued connective to the chunks of two bitmaps
+     *
+     * @param code The binary truth code (See {@link Bits#binaryCode(Connective)})
+     * @param left The left bitmap
+     * @param right The right bitmap
+     * @param chunk The chunk index
+     * @param scratch Three arrays of {@value #CHUNK_WORDS} words to decompress into
+     * @return The container of the result
+     */
+    static Container apply(int code, RoaringBitmap left, RoaringBitmap right, int chunk, long[][] scratch) {
+        return apply(code, left.chunks[chunk], right.chunks[chunk], chunkRows(left.rows, chunk), scratch);
+    }
+
+    private static Container apply(int code, Container l, Container r, int rows, long[][] scratch) {
+        if (l instanceof RunContainer && r instanceof RunContainer) {
+            Container merged = merge(code, (RunContainer) l, (RunContainer) r, rows);
+            if (merged != null) return merged;
+        }
+
+        int length = Bits.words(rows);
+        long[] lw = scratch[0], rw = scratch[1], out = scratch[2];
+        Arrays.fill(lw, 0, length, 0);
+        Arrays.fill(rw, 0, length, 0);
+        l.toWords(lw, 0);
+        r.toWords(rw, 0);
+        for (int i = 0; i < length; i++) {
+            out[i] = Connective.computeBits(code, lw[i], rw[i]);
+        }
+        Arrays.fill(out, length, out.length, 0);
+        Bits.trim(out, rows);
+        return compress(out, rows);
+    }
+
+    // check if a container of a number of rows is empty or full
+    private static boolean isConstant(Container container, int rows) {
+        int count = container.count();
+        return count == 0 || count == rows;
+    }
+
+    // exchange the rows of the low chunk whose bit i is 1 with the rows of the high chunk whose bit i is 0
+    private static void exchange(long[] low, long[] high, int i) {
+        if (i < 6) {
+            int shift = 1 << i;
+            long projection = Bits.PROJECTIONS[i];
+            for (int w = 0; w < CHUNK_WORDS; w++) {
+                long a = low[w], b = high[w];
+                low[w] = (a & ~projection) | ((b & ~projection) << shift);
+                high[w] = (b & projection) | ((a & projection) >>> shift);
+            }
+        } else {
+            int wordBit = 1 << (i - 6);
+            for (int w = 0; w < CHUNK_WORDS; w++) {
+                if ((w & wordBit) != 0) continue;
+                long temp = low[w | wordBit];
+                low[w | wordBit] = high[w];
+                high[w] = temp;
+            }
+        }
+    }
+
+    /*
+        Algorithm:
+            1. The runs of both containers split the chunk into segments, on which both operands are constant
+            2. Walk the segments in order, and emit the segments on which the connective is true as runs,
+               joining adjacent ones
+            3. Give up (return null) if the result has too many runs for a run container
+     */
+    private static Container merge(int code, RunContainer left, RunContainer right, int rows) {
+        char[] l = left.pairs, r = right.pairs;
+        char[] pairs = new char[Math.min(2 * MAX_RUNS, l.length + r.length + 2)];
+        int runs = 0;
+        int li = 0, ri = 0; // the index of the next run of each operand
+        int position = 0;
+        while (position < rows) {
+            // the value of each operand at the position, and where the value changes next
+            boolean lv = li < l.length && l[li] <= position;
+            boolean rv = ri < r.length && r[ri] <= position;
+            int lNext = lv ? l[li + 1] + 1 : (li < l.length ? l[li] : rows);
+            int rNext = rv ? r[ri + 1] + 1 : (ri < r.length ? r[ri] : rows);
+            int next = Math.min(lNext, rNext);
+
+            int bit = (lv ? 0b10 : 0) | (rv ? 0b01 : 0);
+            if ((code & (1 << bit)) != 0) {
+                if (runs > 0 && pairs[runs * 2 - 1] + 1 == position) {
+                    pairs[runs * 2 - 1] = (char) (next - 1);
+                } else {
+                    if (runs * 2 == pairs.length) return null;
+                    pairs[runs * 2] = (char) position;
+                    pairs[runs * 2 + 1] = (char) (next - 1);
+                    runs++;
+                }
+            }
+
+            if (lv && next == lNext) li += 2;
+            if (rv && next == rNext) ri += 2;
+            position = next;
+        }
+        return new RunContainer(Arrays.copyOf(pairs, runs * 2));
+    }
+
+    /**
+     * The storage of a chunk of at most {@value #CHUNK_ROWS} rows
+     */
+    abstract static class Container {
+
+        abstract boolean get(int row);
+
+        abstract int count();
+
+        /**
+         * Set the bits of the rows of this container
+         *
+         * @param words The words, which must be cleared
+         * @param offset The word index of the first row of this container
+         */
+        abstract void toWords(long[] words, int offset);
+
+        abstract long bytes();
+
+    }
+
+    /**
+     * A container of runs, stored as pairs of the first and the last row of each run
+     */
+    static final class RunContainer extends Container {
+
+        private final char[] pairs;
+
+        RunContainer(char[] pairs) {
+            this.pairs = pairs;
+        }
+
+        @Override
+        boolean get(int row) {
+            // binary search for the last run that starts at or before the row
+            int low = 0, high = pairs.length / 2 - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (pairs[mid * 2] <= row) low = mid + 1;
+                else high = mid - 1;
+            }
+            return high >= 0 && row <= pairs[high * 2 + 1];
+        }
+
+        @Override
+        int count() {
+            int count = 0;
+            for (int i = 0; i < pairs.length; i += 2) {
+                count += pairs[i + 1] - pairs[i] + 1;
+            }
+            return count;
+        }
+
+        @Override
+        void toWords(long[] words, int offset) {
+            int base = offset << 6;
+            for (int i = 0; i < pairs.length; i += 2) {
+                Bits.setRange(words, base + pairs[i], base + pairs[i + 1] + 1);
+            }
+        }
+
+        @Override
+        long bytes() {
+            return 16 + 16 + (long) pairs.length * Character.BYTES;
+        }
+
+    }
+
+    /**
+     * A container of packed words
+     */
+    static final class BitmapContainer extends Container {
+
+        private final long[] words;
+
+        BitmapContainer(long[] words) {
+            this.words = words;
+        }
+
+        @Override
+        boolean get(int row) {
+            return Bits.get(words, row);
+        }
+
+        @Override
+        int count() {
+            return (int) Bits.count(words);
+        }
+
+        @Override
+        void toWords(long[] words, int offset) {
+            System.arraycopy(this.words, 0, words, offset, this.words.length);
+        }
+
+        @Override
+        long bytes() {
+            return 16 + 16 + (long) words.length * Long.BYTES;
+        }
+
+    }
+
+}
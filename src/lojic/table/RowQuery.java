@@ -0,0 +1,222 @@
+package lojic.table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+
+/**
+ * @author AlienIdeology
+ *
+ * A query of the rows of a {@link TruthTable} on which columns have certain truth values
+ * For example, the rows where {@code P} is true, {@code R} is false and the root column is false:
+ * <pre>
+ * table.query().where("P", true).where("R", false).where(table.getRootColumn(), false).count();
+ * </pre>
+ *
+ * The packed words of the columns (See {@link Column}) are intersected 64 rows at a time, one chunk of rows
+ * at a time, so a compressed column is never decompressed as a whole.
+ * The result is computed again by every invocation of {@link #count()}, {@link #first()} or {@link #iterator()}.
+ * @see TruthTable#query()
+ */
+public class RowQuery {
+
+    private final TruthTable table;
+    private final List<Column> columns;
+    private final List<TruthValue> values;
+
+    /**
+     * Constructor of a query that matches every row of a table
+     * This constructor is for the Lojic library's internal use only, users should ignore this
+     * @see TruthTable#query()
+     *
+     * @param table The truth table
+     */
+    RowQuery(TruthTable table) {
+        this.table = table;
+        this.columns = new ArrayList<>();
+        this.values = new ArrayList<>();
+    }
+
+    /**
+     * Only match the rows on which a column has a boolean value
+     * In a three-valued table, an unknown value is neither {@code true} nor {@code false}
+     *
+     * @param column The name of an atom column, the root column, or a sub-column of the table
+     * @param value The boolean value
+     * @return This query for method chaining
+     * @throws IllegalArgumentException if the table has no column of the name
+     */
+    public RowQuery where(String column, boolean value) {
+        return where(column, value ? TruthValue.TRUE : TruthValue.FALSE);
+    }
+
+    /**
+     * Only match the rows on which a column has a truth value
+     *
+     * @param column The name of an atom column, the root column, or a sub-column of the table
+     * @param value The truth value
+     * @return This query for method chaining
+     * @throws IllegalArgumentException if the table has no column of the name
+     * @throws NullPointerException if the truth value is null
+     */
+    public RowQuery where(String column, TruthValue value) {
+        Column found = null;
+        for (Column c : table.getColumns()) {
+            found = find(c, column);
+            if (found != null) break;
+        }
+        if (found == null)
+            throw new IllegalArgumentException("Cannot query a column " + column + " that is not in the TruthTable!");
+        return where(found, value);
+    }
+
+    /**
+     * Only match the rows on which a column has a boolean value
+     * In a three-valued table, an unknown value is neither {@code true} nor {@code false}
+     *
+     * @param column The column, which must have as many rows as the table
+     * @param value The boolean value
+     * @return This query for method chaining
+     * @throws IllegalArgumentException if the column does not have as many rows as the table
+     */
+    public RowQuery where(Column column, boolean value) {
+        return where(column, value ? TruthValue.TRUE : TruthValue.FALSE);
+    }
+
+    /**
+     * Only match the rows on which a column has a truth value
+     *
+     * @param column The column, which must have as many rows as the table
+     * @param value The truth value
+     * @return This query for method chaining
+     * @throws IllegalArgumentException if the column does not have as many rows as the table
+     * @throws NullPointerException if any parameter is null
+     */
+    public RowQuery where(Column column, TruthValue value) {
+        Objects.requireNonNull(column, "Cannot query a null column!");
+        Objects.requireNonNull(value, "Cannot query a null truth value!");
+        if (column.getRowSize() != table.getRowSize())
+            throw new IllegalArgumentException("Cannot query a column with a different number of rows!");
+
+        columns.add(column);
+        values.add(value);
+        return this;
+    }
+
+    /**
+     * Count the matched rows
+     *
+     * @return The number of matched rows
+     */
+    public int count() {
+        long[] rows = new long[RoaringBitmap.CHUNK_WORDS];
+        long[] scratch = new long[RoaringBitmap.CHUNK_WORDS];
+        long count = 0;
+        for (int c = 0; c < chunks(); c++) {
+            count += Bits.count(evaluate(c, rows, scratch));
+        }
+        return (int) count;
+    }
+
+    /**
+     * Get the index of the first matched row
+     *
+     * @return The row (x) index, or {@code -1} if no row matches
+     */
+    public int first() {
+        long[] rows = new long[RoaringBitmap.CHUNK_WORDS];
+        long[] scratch = new long[RoaringBitmap.CHUNK_WORDS];
+        for (int c = 0; c < chunks(); c++) {
+            int row = Bits.nextSet(evaluate(c, rows, scratch), 0);
+            if (row != -1) return (c << 16) + row;
+        }
+        return -1;
+    }
+
+    /**
+     * Get an iterator of the indexes of the matched rows, in ascending order
+     * The rows are matched lazily, one chunk of {@value RoaringBitmap#CHUNK_ROWS} rows at a time.
+     *
+     * @return The iterator of row (x) indexes
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        long[] rows = new long[RoaringBitmap.CHUNK_WORDS];
+        long[] scratch = new long[RoaringBitmap.CHUNK_WORDS];
+        int chunks = chunks();
+        return new PrimitiveIterator.OfInt() {
+            private int chunk = -1;
+            private int index = RoaringBitmap.CHUNK_WORDS - 1;
+            private long word = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (word == 0) {
+                    if (index < RoaringBitmap.CHUNK_WORDS - 1) {
+                        word = rows[++index];
+                    } else if (chunk < chunks - 1) {
+                        evaluate(++chunk, rows, scratch);
+                        index = 0;
+                        word = rows[0];
+                    } else {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) throw new NoSuchElementException("No more rows matched by the RowQuery!");
+                int row = (chunk << 16) + (index << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                return row;
+            }
+        };
+    }
+
+    private int chunks() {
+        return RoaringBitmap.chunks(table.getRowSize());
+    }
+
+    // intersect the rows of a chunk that satisfy each condition, the words past the rows of the chunk are cleared
+    private long[] evaluate(int chunk, long[] rows, long[] scratch) {
+        int rowSize = RoaringBitmap.chunkRows(table.getRowSize(), chunk);
+        int length = Bits.words(rowSize);
+        Arrays.fill(rows, 0);
+        Bits.setRange(rows, 0, rowSize);
+
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
+            TruthValue value = values.get(i);
+
+            if (value != TruthValue.UNKNOWN) {
+                column.getBitmap().copyChunk(chunk, scratch, 0);
+                for (int w = 0; w < length; w++) {
+                    rows[w] &= value == TruthValue.TRUE ? scratch[w] : ~scratch[w];
+                }
+            }
+            Bitmap unknowns = column.getUnknownBitmap();
+            if (unknowns == null) {
+                if (value == TruthValue.UNKNOWN) Arrays.fill(rows, 0);
+            } else if (value != TruthValue.TRUE) {
+                unknowns.copyChunk(chunk, scratch, 0);
+                for (int w = 0; w < length; w++) {
+                    rows[w] &= value == TruthValue.UNKNOWN ? scratch[w] : ~scratch[w];
+                }
+            }
+        }
+        return rows;
+    }
+
+    // find a column by name among a column and its sub-columns
+    private static Column find(Column column, String name) {
+        if (column == null) return null;
+        if (column.getName().equals(name)) return column;
+        Column found = find(column.getSubColumnLeft(), name);
+        return found != null ? found : find(column.getSubColumnRight(), name);
+    }
+
+}
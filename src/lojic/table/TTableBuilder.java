@@ -1,5 +1,6 @@
 package lojic.table;
 
+import lojic.CancellationToken;
 import lojic.DefaultFactory;
 import lojic.nodes.Atom;
 import lojic.nodes.Formula;
@@ -9,24 +10,60 @@ import lojic.nodes.connectives.Connective;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * This is the builder for a truth table
  *
  * This allows for truth tables of any Node in the same structure to have unique settings
+ *
+ * Columns are computed 64 rows at a time: the truth values are packed into {@code long} words,
+ * and each connective is applied to whole words through its truth code (See {@link Connective#getTruthCode()}).
+ *
+ * A build can be limited by a budget of rows, memory and time, and can be stopped by interrupting its thread or by
+ * a {@link CancellationToken}. The rows and memory are checked before anything is allocated. A build that is refused
+ * or stopped throws a {@link BuildException}.
  */
 public class TTableBuilder {
 
     public static final int COLUMN_ALL_LEVELS = -1;
 
+    /**
+     * The value of a budget setting that does not limit the build
+     * @see #setMaxRows(long)
+     * @see #setMaxBytes(long)
+     * @see #setTimeout(long)
+     */
+    public static final long NO_LIMIT = -1;
+
     private Node node;
     private final List<Column> columns; // Internally stored columns
+    private final Map<String, Column> atomColumns;
+    private final Map<Node, Column> formulaColumns;
     private int rowSize;
 
     private String[] trueAtoms;
     private String[] falseAtoms;
     private int subColumnsLevel;
+    private Logic logic;
+    private long maxRows;
+    private long maxBytes;
+    private long timeout;
+    private CancellationToken cancellationToken;
+    private ProgressListener progressListener;
+    private ColumnStorage columnStorage;
+    private long usedBytes; // by the compressed columns of the current build
+    private long deadline; // of the current build, in System#nanoTime
+    private Map<String, Column> reusable; // formula columns of a previous table, by name
+    private int reuseFactor; // the number of rows that each row of the previous table becomes
+    private List<int[]> reuseSwaps; // the swaps that move the new atoms into place
+    private int progress; // the number of columns of the current build that are done
     //private List<Node> showNodeColumns;
 
     /**
@@ -47,14 +84,23 @@ public class TTableBuilder {
     public TTableBuilder(Node node) {
         useDefaultTFAtoms();
         disableSubColumns();
+        this.logic = Logic.CLASSICAL;
+        this.maxRows = NO_LIMIT;
+        this.maxBytes = NO_LIMIT;
+        this.timeout = NO_LIMIT;
+        this.columnStorage = ColumnStorage.DENSE;
 
         if (node == null) {
             this.node = null;
             this.columns = null;
+            this.atomColumns = null;
+            this.formulaColumns = null;
             this.rowSize = -1;
         } else {
             this.node = node;
             this.columns = new ArrayList<>();
+            this.atomColumns = new HashMap<>();
+            this.formulaColumns = new IdentityHashMap<>();
         }
     }
 
@@ -68,6 +114,13 @@ public class TTableBuilder {
         this.subColumnsLevel = builder.getSubColumnsLevel();
         this.trueAtoms = builder.getTrueAtoms();
         this.falseAtoms = builder.getFalseAtoms();
+        this.logic = builder.getLogic();
+        this.maxRows = builder.getMaxRows();
+        this.maxBytes = builder.getMaxBytes();
+        this.timeout = builder.getTimeout();
+        this.cancellationToken = builder.getCancellationToken();
+        this.progressListener = builder.getProgressListener();
+        this.columnStorage = builder.getColumnStorage();
         return this;
     }
 
@@ -175,19 +228,179 @@ public class TTableBuilder {
         return this;
     }
 
+    /**
+     * Set the logic which formulas are evaluated with
+     * In a three-valued logic, a table of {@code n} atoms has {@code 3^n} rows,
+     * and a formula is a tautology only if it is {@link TruthValue#TRUE} on every row.
+     * True/False Atoms are never unknown.
+     * @see Logic for the available logics and the order of rows
+     *
+     * @param logic The logic, {@link Logic#CLASSICAL} by default
+     * @return This table builder for method chaining
+     * @throws NullPointerException if the logic is null
+     */
+    public TTableBuilder setLogic(Logic logic) {
+        this.logic = Objects.requireNonNull(logic, "Cannot set the logic to null!");
+        return this;
+    }
+
+    /**
+     * Set the maximum number of rows of a table
+     * A table with more rows is refused before anything is allocated.
+     * Regardless of this setting, a table cannot have more than {@link Integer#MAX_VALUE} rows.
+     *
+     * @param maxRows The maximum number of rows, or {@link #NO_LIMIT}
+     * @return This table builder for method chaining
+     * @throws IllegalArgumentException if the number is neither positive nor {@link #NO_LIMIT}
+     */
+    public TTableBuilder setMaxRows(long maxRows) {
+        if (maxRows <= 0 && maxRows != NO_LIMIT) throw new IllegalArgumentException("The maximum number of rows must be positive!");
+        this.maxRows = maxRows;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of bytes that the columns of a table may take
+     * A table whose estimated size (See {@link #estimateBytes()}) is larger is refused before anything is allocated.
+     * Regardless of this setting, a table larger than the maximum memory of the JVM is refused.
+     *
+     * @param maxBytes The maximum number of bytes, or {@link #NO_LIMIT}
+     * @return This table builder for method chaining
+     * @throws IllegalArgumentException if the number is neither positive nor {@link #NO_LIMIT}
+     */
+    public TTableBuilder setMaxBytes(long maxBytes) {
+        if (maxBytes <= 0 && maxBytes != NO_LIMIT) throw new IllegalArgumentException("The maximum number of bytes must be positive!");
+        this.maxBytes = maxBytes;
+        return this;
+    }
+
+    /**
+     * Set the maximum wall-clock time of a build
+     * The deadline starts when {@link #build()} is invoked.
+     *
+     * @param timeout The timeout in milliseconds, or {@link #NO_LIMIT}
+     * @return This table builder for method chaining
+     * @throws IllegalArgumentException if the timeout is neither positive nor {@link #NO_LIMIT}
+     */
+    public TTableBuilder setTimeout(long timeout) {
+        if (timeout <= 0 && timeout != NO_LIMIT) throw new IllegalArgumentException("The timeout must be positive!");
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * Set the token that cancels builds
+     * The build stops soon after the token is cancelled.
+     *
+     * @param cancellationToken The token, or null to build without one
+     * @return This table builder for method chaining
+     */
+    public TTableBuilder setCancellationToken(CancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
+        return this;
+    }
+
+    /**
+     * Set the listener that is notified of the progress of builds
+     *
+     * @param progressListener The listener, or null to disable progress reports
+     * @return This table builder for method chaining
+     */
+    public TTableBuilder setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    /**
+     * Set the storage of the truth values of the columns
+     * @see ColumnStorage for the available storages
+     *
+     * @param columnStorage The storage, {@link ColumnStorage#DENSE} by default
+     * @return This table builder for method chaining
+     * @throws NullPointerException if the storage is null
+     */
+    public TTableBuilder setColumnStorage(ColumnStorage columnStorage) {
+        this.columnStorage = Objects.requireNonNull(columnStorage, "Cannot set the column storage to null!");
+        return this;
+    }
+
+    /**
+     * Get the number of rows of the table of this builder's node
+     *
+     * @return The number of rows, which may exceed the limit of a table
+     * @throws UnsupportedOperationException if this builder is an empty builder
+     */
+    public long estimateRows() {
+        if (node == null) throw new UnsupportedOperationException("Cannot estimate a TruthTable from an empty TTableBuilder!");
+        return rows(countVariables(node.getDistinctAtoms()));
+    }
+
+    /**
+     * Get the estimated number of bytes that the columns of the table of this builder's node take
+     * This counts the packed truth values of every atom, formula and sub-formula, which are computed
+     * even if they are not shown.
+     *
+     * The size of {@link ColumnStorage#COMPRESSED} columns is only known once they are computed,
+     * so this is the size of the columns if every chunk compresses to a single run.
+     * Such columns are measured again against {@link #setMaxBytes(long)} as they are computed.
+     *
+     * @return The estimated number of bytes
+     * @throws UnsupportedOperationException if this builder is an empty builder
+     */
+    public long estimateBytes() {
+        if (node == null) throw new UnsupportedOperationException("Cannot estimate a TruthTable from an empty TTableBuilder!");
+        long rows = estimateRows();
+        long columns = node.getDistinctAtoms().length + formulas().size() + 1;
+        long planes = logic.isThreeValued() ? 2 : 1;
+        if (columnStorage == ColumnStorage.COMPRESSED) {
+            long chunks = (Math.min(rows, Long.MAX_VALUE - 0xFFFF) + 0xFFFF) >>> 16;
+            return multiply(multiply(columns * planes, chunks), 40);
+        }
+        long words = (Math.min(rows, Long.MAX_VALUE - 63) + 63) >>> 6;
+        return multiply(multiply(columns * planes, words), Long.BYTES);
+    }
+
     /**
      * Build the truth table with the specified settings
      *
      * @return The truth table
      * @throws UnsupportedOperationException if this builder is an empty builder used to copy
      * TTableBuilder settings (such that the object is constructed with no parameter arguments
+     * @throws BuildException if the table exceeds the budget of this builder, or the build is interrupted or cancelled
      * @see #TTableBuilder() for constructing an empty builder
      */
     public TruthTable build() {
         if (node == null) throw new UnsupportedOperationException("Cannot build a TruthTable from an empty TTableBuilder!");
 
         List<Column> tabl = buildTable();
-        return new TruthTable(node, tabl, subColumnsLevel);
+        return new TruthTable(node, tabl, subColumnsLevel, logic, namedFormulaColumns());
+    }
+
+    /**
+     * Build the truth table with the specified settings, reusing the columns of a previous table
+     *
+     * This is useful when a formula grows, such as when a conjunct or a premise is added.
+     * Every formula and sub-formula that has a column in the previous table (shown or not) is not evaluated again.
+     * Instead, its column is extended: every row is repeated for the truth values of the new atoms,
+     * and the rows are rearranged if the new atoms are not after the atoms of the previous table.
+     *
+     * The previous table is not reused (and this is the same as {@link #build()}) if its logic is different,
+     * if any of its atoms does not appear in this builder's node or is a True/False atom in only one of the tables,
+     * or if the previous table is three-valued and its atoms are not the first atoms of this builder's node.
+     *
+     * @param previous The previous truth table
+     * @return The truth table
+     * @throws UnsupportedOperationException if this builder is an empty builder used to copy
+     * TTableBuilder settings (such that the object is constructed with no parameter arguments
+     * @throws BuildException if the table exceeds the budget of this builder, or the build is interrupted or cancelled
+     * @throws NullPointerException if the previous table is null
+     */
+    public TruthTable build(TruthTable previous) {
+        if (node == null) throw new UnsupportedOperationException("Cannot build a TruthTable from an empty TTableBuilder!");
+        Objects.requireNonNull(previous, "Cannot build a TruthTable from a null previous TruthTable!");
+
+        List<Column> tabl = buildTable(previous);
+        return new TruthTable(node, tabl, subColumnsLevel, logic, namedFormulaColumns());
     }
 
     /**
@@ -219,6 +432,76 @@ public class TTableBuilder {
         return subColumnsLevel;
     }
 
+    /**
+     * Get the logic which formulas are evaluated with
+     * @see #setLogic(Logic)
+     *
+     * @return The logic
+     */
+    public Logic getLogic() {
+        return logic;
+    }
+
+    /**
+     * Get the maximum number of rows of a table
+     * @see #setMaxRows(long)
+     *
+     * @return The maximum number of rows, or {@link #NO_LIMIT}
+     */
+    public long getMaxRows() {
+        return maxRows;
+    }
+
+    /**
+     * Get the maximum number of bytes that the columns of a table may take
+     * @see #setMaxBytes(long)
+     *
+     * @return The maximum number of bytes, or {@link #NO_LIMIT}
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Get the maximum wall-clock time of a build
+     * @see #setTimeout(long)
+     *
+     * @return The timeout in milliseconds, or {@link #NO_LIMIT}
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Get the storage of the truth values of the columns
+     * @see #setColumnStorage(ColumnStorage)
+     *
+     * @return The storage
+     */
+    public ColumnStorage getColumnStorage() {
+        return columnStorage;
+    }
+
+    /**
+     * Get the token that cancels builds
+     * @see #setCancellationToken(CancellationToken)
+     *
+     * @return The nullable token
+     */
+    public CancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+
+    /**
+     * Get the listener that is notified of the progress of builds
+     * @see #setProgressListener(ProgressListener)
+     *
+     * @return The nullable listener
+     */
+    public ProgressListener getProgressListener() {
+        return progressListener;
+    }
+
     /**
      * Check if a string would be interpreted as a "True Atom"
      * @see #setTrueAtoms(String...)
@@ -253,43 +536,71 @@ public class TTableBuilder {
     3. Select relevant columns from the list, restructure to include sub-columns (which are already made)
     */
     public List<Column> buildTable() {
-        // init rowsize
-        Atom[] atoms = node.getAtoms();
-        int noneTFAs = atoms.length;
-        for (Atom atom : atoms) {
-            if (isTAtom(atom.toString()) || isFAtom(atom.toString())) {
-                noneTFAs--;
-            }
-        }
-        this.rowSize = noneTFAs == 0 ? 1 : (int) Math.pow(2, noneTFAs);
+        return buildTable(null);
+    }
 
-        computeAtomTruths(atoms);
+    private List<Column> buildTable(TruthTable previous) {
+        // columns of a previous build are stale
+        columns.clear();
+        atomColumns.clear();
+        formulaColumns.clear();
 
-        Column root = columns.stream()
-                .filter(c -> c.getName().equals(node.getString()))
-                .findAny().orElse(null); // non-null
+        // admission: refuse before anything is allocated
+        Atom[] atoms = node.getDistinctAtoms();
+        int noneTFAs = countVariables(atoms);
+        long rows = rows(noneTFAs);
+        long rowLimit = maxRows == NO_LIMIT ? Integer.MAX_VALUE : Math.min(maxRows, Integer.MAX_VALUE);
+        if (rows > rowLimit)
+            throw new BuildException(BuildException.Type.TOO_MANY_ROWS, rows, rowLimit);
 
-        // Add atom columns
-        List<Column> columnsT = new ArrayList<>(columns);
+        long bytes = estimateBytes();
+        long byteLimit = maxBytes == NO_LIMIT ? Runtime.getRuntime().maxMemory()
+                : Math.min(maxBytes, Runtime.getRuntime().maxMemory());
+        if (bytes > byteLimit)
+            throw new BuildException(BuildException.Type.TOO_MANY_BYTES, bytes, byteLimit);
 
-        if (root == null) {
+        this.rowSize = (int) rows;
+        this.usedBytes = 0;
+        this.deadline = System.nanoTime() + timeout * 1_000_000L;
 
-            // build all formula columns
-            computeFormulaTruths();
+        List<Formula> formulas = formulas();
+        this.reusable = previous == null ? null : planReuse(previous, atoms);
+        this.progress = 0;
+        try {
+            computeAtomTruths(atoms, noneTFAs, atoms.length + formulas.size());
+            computeFormulaTruths(formulas, atoms.length + formulas.size());
 
-            root = columns.get(columns.size()-1);
+            Column root = node instanceof LocalAtom ? atomColumns.get(node.getString()) : null;
 
-            // handle sub-columns
-            if (subColumnsLevel != 0) {
-                buildSubColumns(root, 0);
-            }
+            // Add atom columns, which are computed first
+            List<Column> columnsT = new ArrayList<>(columns.subList(0, atomColumns.size()));
 
-            columnsT.add(root);
+            if (root == null) {
 
-        } else {
-            columnsT.add(new Column(((LocalAtom) node).getAtom(), root.getValues()));
+                root = formulaColumns.get(node);
+
+                // handle sub-columns
+                if (subColumnsLevel != 0) {
+                    buildSubColumns(root, 0);
+                }
+
+                columnsT.add(root);
+
+            } else {
+                columnsT.add(new Column(((LocalAtom) node).getAtom(), root.getBitmap(), root.getUnknownBitmap()));
+            }
+            return columnsT;
+
+        } catch (BuildException e) {
+            // release the partial table
+            columns.clear();
+            atomColumns.clear();
+            formulaColumns.clear();
+            throw e;
+        } finally {
+            this.reusable = null;
+            this.reuseSwaps = null;
         }
-        return columnsT;
     }
 
     /* Build Columns */
@@ -325,51 +636,282 @@ public class TTableBuilder {
 
     private Column getColumn(Node node) {
         if (node instanceof LocalAtom) {
-            return columns.stream()
-                    .filter(Column::isAtom)
-                    .filter(c -> c.getName().equals(node.getString()))
-                    .findAny().get(); // non-null
-        } else {
-            return columns.stream()
-                    .filter(c -> !c.isAtom())
-                    .filter(c -> c.getFormula().getLevel() == node.getLevel())
-                    .filter(c -> c.getName().equals(node.getString()))
-                    .findAny().get(); // non-null
+            return atomColumns.get(node.getString()); // non-null
+        }
+
+        Column column = formulaColumns.get(node);
+        if (column == null) {
+            // a reusable formula that is not extended yet
+            Formula formula = (Formula) node;
+            column = extend(formula, reusable.get(formula.getString()));
+            columns.add(column);
+            formulaColumns.put(formula, column);
         }
+        return column;
     }
 
     /*
         Construct column objects and fill in truth values for all formulas and sub-formulas.
         This should be invoked after atom truths are computed
      */
-    private void computeFormulaTruths() {
-        int levels = node.getLevels();
+    private void computeFormulaTruths(List<Formula> formulas, int totalColumns) {
+        // a reusable formula is only extended if a computed formula needs its column
+        Set<Node> needed = Collections.newSetFromMap(new IdentityHashMap<>());
+        needed.add(node);
+        for (Formula formula : formulas) {
+            if (!isReusable(formula)) needed.addAll(Arrays.asList(formula.getChildren()));
+        }
+
+        for (Formula formula : formulas) {
+            if (isReusable(formula)) {
+                if (needed.contains(formula)) {
+                    addColumn(formula, extend(formula, reusable.get(formula.getString())), totalColumns);
+                } else {
+                    // extended later if it is shown as a sub-column
+                    reportProgress(totalColumns);
+                }
+                continue;
+            }
 
-        for (int i = levels; i >= 0; i--) {
-            List<Node> nodes = node.getNodes(i);
-            for (Node n : nodes) {
-                if (!(n instanceof Formula)) continue;
+            Connective connective = formula.getConnective();
+            Node[] children = formula.getChildren();
 
-                Formula formula = (Formula) n;
-                boolean[] truths = new boolean[rowSize];
-                Connective connective = formula.getConnective();
+            // an unary connective ignores its left operand, which is the only child
+            Column right = getColumn(children[children.length - 1]);
+            Column left = connective.isBinary() ? getColumn(children[0]) : right;
+            int code = Bits.binaryCode(connective);
 
-                for (int j = 0; j < truths.length; j++) {
-                    Node child1 = formula.getChildren()[0];
-                    boolean left = getColumn(child1).getValues()[j];
+            Column column = columnStorage == ColumnStorage.DENSE
+                    ? computeDense(formula, code, left, right)
+                    : computeCompressed(formula, code, left, right);
+            addColumn(formula, column, totalColumns);
+        }
+    }
+
+    private Column computeDense(Formula formula, int code, Column left, Column right) {
+        int words = Bits.words(rowSize);
+        long[] truths = new long[words];
+        long[] unknowns = logic.isThreeValued() ? new long[words] : null;
+        Bitmap[] planes = {left.getBitmap(), left.getUnknownBitmap(), right.getBitmap(), right.getUnknownBitmap()};
+        long[][] scratch = new long[unknowns == null ? 2 : 6][RoaringBitmap.CHUNK_WORDS];
+
+        // compute the words one chunk at a time, which reads a compressed operand without decompressing it as a whole,
+        // checking the budget between chunks
+        for (int c = 0; c < RoaringBitmap.chunks(rowSize); c++) {
+            int from = c * RoaringBitmap.CHUNK_WORDS;
+            int length = Bits.words(RoaringBitmap.chunkRows(rowSize, c));
+            if (unknowns == null) {
+                planes[0].copyChunk(c, scratch[0], 0);
+                planes[2].copyChunk(c, scratch[1], 0);
+                for (int j = 0; j < length; j++) {
+                    truths[from + j] = Connective.computeBits(code, scratch[0][j], scratch[1][j]);
+                }
+            } else {
+                for (int i = 0; i < planes.length; i++) {
+                    planes[i].copyChunk(c, scratch[i], 0);
+                }
+                computeThreeValued(code, scratch[0], scratch[1], scratch[2], scratch[3],
+                        scratch[4], scratch[5], 0, length);
+                System.arraycopy(scratch[4], 0, truths, from, length);
+                System.arraycopy(scratch[5], 0, unknowns, from, length);
+            }
+            checkBudget();
+        }
+        Bits.trim(truths, rowSize);
+        if (unknowns != null) Bits.trim(unknowns, rowSize);
+        return new Column(formula, rowSize, truths, unknowns);
+    }
 
-                    if (connective.isUnary()) {
-                        truths[j] = connective.computeTruth(left);
+    private Column computeCompressed(Formula formula, int code, Column left, Column right) {
+        int chunks = RoaringBitmap.chunks(rowSize);
+        RoaringBitmap.Container[] truths = new RoaringBitmap.Container[chunks];
+        RoaringBitmap.Container[] unknowns = logic.isThreeValued() ? new RoaringBitmap.Container[chunks] : null;
+        long[][] scratch = new long[unknowns == null ? 3 : 6][RoaringBitmap.CHUNK_WORDS];
 
-                    } else if (connective.isBinary()) {
-                        Node child2 = formula.getChildren()[1];
-                        boolean right = getColumn(child2).getValues()[j];
-                        truths[j] = connective.computeTruth(left, right);
-                    }
+        for (int c = 0; c < chunks; c++) {
+            if (c > 0 && sameChunks(c, left, right)) {
+                // the operands repeat the previous chunk, so does the result
+                truths[c] = truths[c - 1];
+                if (unknowns != null) unknowns[c] = unknowns[c - 1];
+            } else if (unknowns == null) {
+                truths[c] = RoaringBitmap.apply(code, (RoaringBitmap) left.getBitmap(),
+                        (RoaringBitmap) right.getBitmap(), c, scratch);
+            } else {
+                // decompress the chunk of every plane
+                int rows = RoaringBitmap.chunkRows(rowSize, c);
+                Bitmap[] planes = {left.getBitmap(), left.getUnknownBitmap(), right.getBitmap(), right.getUnknownBitmap()};
+                for (int i = 0; i < planes.length; i++) {
+                    Arrays.fill(scratch[i], 0);
+                    ((RoaringBitmap) planes[i]).chunk(c).toWords(scratch[i], 0);
                 }
-                columns.add(new Column(formula, truths));
-                // DEBUG: System.out.println(formula.getString() + " " + Arrays.toString(truths));
+                computeThreeValued(code, scratch[0], scratch[1], scratch[2], scratch[3],
+                        scratch[4], scratch[5], 0, Bits.words(rows));
+                Bits.trim(scratch[4], rows);
+                Bits.trim(scratch[5], rows);
+                truths[c] = RoaringBitmap.compress(scratch[4], rows);
+                unknowns[c] = RoaringBitmap.compress(scratch[5], rows);
+            }
+            checkBudget();
+        }
+        return new Column(formula, new RoaringBitmap(truths, rowSize),
+                unknowns == null ? null : new RoaringBitmap(unknowns, rowSize), null, null);
+    }
+
+    /* Incremental Build */
+
+    /*
+        Algorithm:
+            1. A previous table can be reused if every atom keeps its role (a variable or a True/False atom),
+               and every variable of the previous table is a variable of this table
+            2. Repeating every row of the previous table for each assignment of the new variables lays out
+               the rows as if the previous variables came first, followed by the new variables
+            3. Swapping the bits of the row index moves every variable to its position in this table
+               (in a three-valued table, the previous variables must already come first)
+     */
+    private Map<String, Column> planReuse(TruthTable previous, Atom[] atoms) {
+        if (previous.getLogic() != logic) return null;
+
+        List<String> oldVariables = new ArrayList<>();
+        for (Column column : previous.getVariables()) oldVariables.add(column.getName());
+
+        List<Column> oldAtoms = previous.getColumns().subList(0, previous.getColumnSize() - 1);
+        for (Column column : oldAtoms) {
+            String name = column.getName();
+            boolean variable = oldVariables.contains(name);
+            if (variable == (isTAtom(name) || isFAtom(name))) return null;
+            if (!variable && column.isTautology() != isTAtom(name)) return null;
+        }
+
+        List<String> newVariables = new ArrayList<>();
+        for (Atom atom : atoms) {
+            String name = atom.toString();
+            if (!isTAtom(name) && !isFAtom(name)) newVariables.add(name);
+        }
+        if (!newVariables.containsAll(oldVariables) || previous.getRowSize() != rows(oldVariables.size()))
+            return null;
+
+        List<String> layout = new ArrayList<>(oldVariables);
+        for (String name : newVariables) {
+            if (!oldVariables.contains(name)) layout.add(name);
+        }
+        if (logic.isThreeValued() && !layout.equals(newVariables)) return null;
+
+        this.reuseFactor = rowSize / previous.getRowSize();
+        this.reuseSwaps = TruthTable.transpositions(layout, newVariables);
+        return previous.getFormulaColumns();
+    }
+
+    private boolean isReusable(Formula formula) {
+        return reusable != null && reusable.containsKey(formula.getString());
+    }
+
+    private Column extend(Formula formula, Column previous) {
+        Bitmap truths = duplicate(previous.getBitmap());
+        Bitmap unknowns = previous.isThreeValued() ? duplicate(previous.getUnknownBitmap()) : null;
+        checkBudget();
+        return new Column(formula, truths, unknowns, null, null);
+    }
+
+    /*
+        Algorithm:
+            1. Each chunk of the new plane repeats the rows of a part of one chunk of the previous plane,
+               which is decompressed once for all of the chunks that repeat it
+            2. The chunk is stored in the storage of this builder
+            3. Swap the bits of the row index to move the atoms into place
+     */
+    private Bitmap duplicate(Bitmap previous) {
+        boolean dense = columnStorage == ColumnStorage.DENSE;
+        int chunks = RoaringBitmap.chunks(rowSize);
+        long[] words = dense ? new long[Bits.words(rowSize)] : null;
+        RoaringBitmap.Container[] containers = dense ? null : new RoaringBitmap.Container[chunks];
+        long[] source = new long[RoaringBitmap.CHUNK_WORDS], chunk = new long[RoaringBitmap.CHUNK_WORDS];
+        int previousRows = rowSize / reuseFactor;
+        int loaded = -1;
+
+        for (int c = 0; c < chunks; c++) {
+            int rows = RoaringBitmap.chunkRows(rowSize, c);
+            long first = (long) c << 16;
+            int from = (int) (first / reuseFactor); // the previous rows [from, to) are repeated in this chunk
+            int to = (int) Math.min(previousRows, (first + rows + reuseFactor - 1) / reuseFactor);
+            int sourceChunk = from >>> 16;
+            if (sourceChunk != loaded) {
+                Arrays.fill(source, 0);
+                previous.copyChunk(sourceChunk, source, 0);
+                loaded = sourceChunk;
+            }
+
+            Arrays.fill(chunk, 0);
+            int base = sourceChunk << 16;
+            for (int start = Bits.nextSet(source, from - base); start != -1 && start < to - base; ) {
+                int end = Math.min(to - base, Bits.nextClear(source, start));
+                Bits.setRange(chunk, (int) Math.max(0, (long) (base + start) * reuseFactor - first),
+                        (int) Math.min(rows, (long) (base + end) * reuseFactor - first));
+                start = Bits.nextSet(source, end);
+            }
+
+            if (dense) System.arraycopy(chunk, 0, words, c * RoaringBitmap.CHUNK_WORDS, Bits.words(rows));
+            else containers[c] = RoaringBitmap.compress(chunk, rows);
+            checkBudget();
+        }
+
+        Bitmap bitmap = dense ? new Bitmap.Dense(words, rowSize) : new RoaringBitmap(containers, rowSize);
+        return bitmap.swapVariables(reuseSwaps);
+    }
+
+    // every computed formula column by name
+    private Map<String, Column> namedFormulaColumns() {
+        Map<String, Column> named = new HashMap<>();
+        for (Map.Entry<Node, Column> entry : formulaColumns.entrySet()) {
+            named.put(entry.getKey().getString(), entry.getValue());
+        }
+        return named;
+    }
+
+    // check if the chunk of every operand plane is the same container as the previous chunk
+    private boolean sameChunks(int chunk, Column left, Column right) {
+        if (RoaringBitmap.chunkRows(rowSize, chunk) != RoaringBitmap.CHUNK_ROWS) return false;
+        Bitmap[] planes = {left.getBitmap(), left.getUnknownBitmap(), right.getBitmap(), right.getUnknownBitmap()};
+        for (Bitmap plane : planes) {
+            if (plane == null) continue;
+            RoaringBitmap bitmap = (RoaringBitmap) plane;
+            if (bitmap.chunk(chunk) != bitmap.chunk(chunk - 1)) return false;
+        }
+        return true;
+    }
+
+    /*
+        Algorithm (Kleene extension of a truth code):
+            1. An operand "may be true" if it is true or unknown, and "may be false" if it is false or unknown
+            2. For each of the 4 rows (l, r) of the connective's truth table, the rows where the left operand
+               may be l and the right operand may be r may have the row's result
+            3. The result is true (false) where it may only be true (false), and unknown where it may be both
+            4. Łukasiewicz logic only differs when both operands are unknown,
+               in which case the result is f(T, T) if f(T, T) == f(F, F)
+     */
+    private void computeThreeValued(int code, long[] lt, long[] lu, long[] rt, long[] ru,
+                                    long[] truths, long[] unknowns, int from, int to) {
+        boolean equalDiagonal = ((code >>> 3) & 1) == (code & 1);
+
+        for (int j = from; j < to; j++) {
+            long leftFalse = ~lt[j], leftTrue = lt[j] | lu[j]; // may be false, may be true
+            long rightFalse = ~rt[j], rightTrue = rt[j] | ru[j];
+
+            long mayTrue = 0, mayFalse = 0;
+            for (int bit = 0; bit < 4; bit++) {
+                long rows = ((bit & 0b10) != 0 ? leftTrue : leftFalse) & ((bit & 0b01) != 0 ? rightTrue : rightFalse);
+                if ((code & (1 << bit)) != 0) mayTrue |= rows;
+                else mayFalse |= rows;
             }
+
+            long t = mayTrue & ~mayFalse;
+            long u = mayTrue & mayFalse;
+            if (logic == Logic.LUKASIEWICZ && equalDiagonal) {
+                long both = lu[j] & ru[j];
+                u &= ~both;
+                if ((code & 1) != 0) t |= both;
+            }
+            truths[j] = t;
+            unknowns[j] = u;
         }
     }
 
@@ -378,36 +920,142 @@ public class TTableBuilder {
             1. For N atoms, there are 2 ^ N rows.
             2. For each atom n (1 <= n <= N), true values should fill (2 ^ N) / (2 ^ n) slots, then false values
                The process (t->f->t...) repeats (2 ^ n times) until the whole column is filled.
+            3. In a three-valued logic, there are 3 ^ N rows, and the process (t->f->u->t...) repeats (3 ^ n times).
+            4. A compressed column is filled one chunk at a time
      */
-    private void computeAtomTruths(Atom[] atoms) {
+    private void computeAtomTruths(Atom[] atoms, int variables, int totalColumns) {
+        boolean threeValued = logic.isThreeValued();
+        boolean dense = columnStorage == ColumnStorage.DENSE;
+        int chunkRows = dense ? rowSize : RoaringBitmap.CHUNK_ROWS;
+        int chunks = dense ? 1 : RoaringBitmap.chunks(rowSize);
+
         int count = 0;
         for (Atom atom : atoms) {
-            boolean[] truths = new boolean[rowSize];
+            String name = atom.toString();
+            if (atomColumns.containsKey(name)) continue;
+
+            int kind = isTAtom(name) ? -1 : isFAtom(name) ? -2 : count++;
+            boolean repeats = !threeValued && (kind < 0 || variables - 1 - kind < 16);
+            long[] truths = new long[Bits.words(chunkRows)];
+            long[] unknowns = threeValued ? new long[truths.length] : null;
+            RoaringBitmap.Container[] truthChunks = new RoaringBitmap.Container[chunks];
+            RoaringBitmap.Container[] unknownChunks = new RoaringBitmap.Container[chunks];
+
+            for (int c = 0; c < chunks; c++) {
+                checkBudget();
+                if (c > 0 && repeats && RoaringBitmap.chunkRows(rowSize, c) == chunkRows) {
+                    // the atom alternates within a chunk, so every full chunk is the same
+                    truthChunks[c] = truthChunks[c - 1];
+                    continue;
+                }
+                int from = c * chunkRows;
+                int to = (int) Math.min(rowSize, (long) from + chunkRows);
+                if (!dense) {
+                    Arrays.fill(truths, 0);
+                    if (unknowns != null) Arrays.fill(unknowns, 0);
+                }
+                fillAtom(kind, variables, truths, unknowns, from, to);
 
-            if (isTAtom(atom.toString())) {
+                if (!dense) {
+                    truthChunks[c] = RoaringBitmap.compress(truths, to - from);
+                    if (unknowns != null) unknownChunks[c] = RoaringBitmap.compress(unknowns, to - from);
+                }
+            }
 
-                Arrays.fill(truths, true);
+            Column column = dense
+                    ? new Column(atom, rowSize, truths, unknowns)
+                    : new Column(atom, new RoaringBitmap(truthChunks, rowSize),
+                            unknowns == null ? null : new RoaringBitmap(unknownChunks, rowSize));
+            addColumn(column, totalColumns);
+            atomColumns.put(name, column);
+        }
+    }
+
+    // fill the rows [from, to) of the k-th atom (-1 for a true atom, -2 for a false atom), relative to from
+    private void fillAtom(int k, int variables, long[] truths, long[] unknowns, int from, int to) {
+        if (k == -1) {
+            Bits.setRange(truths, 0, to - from);
+        } else if (k == -2) {
+            // all false
+        } else if (!logic.isThreeValued()) {
+            Bits.fillAtom(truths, variables, k, from >>> 6);
+            Bits.trim(truths, to - from);
+        } else {
+            int slots = rowSize / (int) Math.pow(3, k + 1); // the amount of slots one should fill t/f/u
+            for (int index = from; index < to; ) {
+                int block = index / slots;
+                int end = (int) Math.min(to, (long) (block + 1) * slots);
+                int value = block % 3; // 0 = true, 1 = false, 2 = unknown
+                if (value == 0) Bits.setRange(truths, index - from, end - from);
+                else if (value == 2) Bits.setRange(unknowns, index - from, end - from);
+                index = end;
+            }
+        }
+    }
 
-            } else if (isFAtom(atom.toString())) {
+    private void addColumn(Formula formula, Column column, int totalColumns) {
+        addColumn(column, totalColumns);
+        formulaColumns.put(formula, column);
+    }
 
-                Arrays.fill(truths, false);
+    private void addColumn(Column column, int totalColumns) {
+        columns.add(column);
+        if (columnStorage == ColumnStorage.COMPRESSED && maxBytes != NO_LIMIT) {
+            // compressed columns can only be measured after they are computed
+            usedBytes += column.getMemoryUsage();
+            if (usedBytes > maxBytes)
+                throw new BuildException(BuildException.Type.TOO_MANY_BYTES, usedBytes, maxBytes);
+        }
+        reportProgress(totalColumns);
+    }
 
-            } else {
-                count++;
-                boolean value = true;
-                int times = (int) Math.pow(2, count); // the amount of times the process of filling should be repeated
-                int slots = rowSize / times; // the amount of slots one should fill true/false
-                // DEBUG: System.out.println("RowSize: " + rowsize + " Times: " + times + " Slots: " + slots);
-
-                int index = 0; // the starting index which t/f value changes
-                for (int j = 0; j < times; j++) {
-                    Arrays.fill(truths, index, (index + slots), value);
-                    value = !value;
-                    index += slots;
-                }
+    private void reportProgress(int totalColumns) {
+        progress++;
+        if (progressListener != null && progress <= totalColumns) progressListener.onProgress(progress, totalColumns);
+    }
+
+    /* Budget */
+
+    private int countVariables(Atom[] atoms) {
+        int variables = atoms.length;
+        for (Atom atom : atoms) {
+            if (isTAtom(atom.toString()) || isFAtom(atom.toString())) {
+                variables--;
             }
-            columns.add(new Column(atom, truths));
         }
+        return variables;
+    }
+
+    // 2 ^ variables (or 3 ^ variables), saturated at Long.MAX_VALUE
+    private long rows(int variables) {
+        long base = logic.isThreeValued() ? 3 : 2;
+        long rows = 1;
+        for (int i = 0; i < variables; i++) {
+            rows = multiply(rows, base);
+        }
+        return rows;
+    }
+
+    private static long multiply(long a, long b) {
+        return a > Long.MAX_VALUE / b ? Long.MAX_VALUE : a * b;
+    }
+
+    // every formula and sub-formula, with children before their parents
+    private List<Formula> formulas() {
+        List<Formula> formulas = new ArrayList<>();
+        node.climb().forEach(n -> {
+            if (n instanceof Formula) formulas.add((Formula) n);
+        });
+        return formulas;
+    }
+
+    private void checkBudget() {
+        if (Thread.currentThread().isInterrupted())
+            throw new BuildException(BuildException.Type.INTERRUPTED);
+        if (cancellationToken != null && cancellationToken.isCancelled())
+            throw new BuildException(BuildException.Type.CANCELLED);
+        if (timeout != NO_LIMIT && System.nanoTime() - deadline > 0)
+            throw new BuildException(BuildException.Type.TIMEOUT, timeout);
     }
 
 }
@@ -5,7 +5,12 @@ import lojic.nodes.Formula;
 import lojic.nodes.Node;
 import lojic.nodes.connectives.Connective;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -22,6 +27,8 @@ public class TruthTable {
     private final Node node;
     private final List<Column> columns; // Internally stored columns
     private final int subColumnsLevel;
+    private final Logic logic;
+    private final Map<String, Column> formulaColumns; // every computed formula column by name, shown or not
 
     /**
      * Constructor of TruthTable
@@ -30,11 +37,16 @@ public class TruthTable {
      *
      * @param node The node which the table is generated from
      * @param subColumnsLevel The level of sub-columns that this table has
+     * @param logic The logic which the table is evaluated with
+     * @param formulaColumns The columns of every formula and sub-formula, which {@link TTableBuilder#build(TruthTable)}
+     *                       can reuse
      */
-    TruthTable(Node node, List<Column> columns, int subColumnsLevel) {
+    TruthTable(Node node, List<Column> columns, int subColumnsLevel, Logic logic, Map<String, Column> formulaColumns) {
         this.node = node;
         this.columns = columns;
         this.subColumnsLevel = subColumnsLevel;
+        this.logic = logic;
+        this.formulaColumns = formulaColumns;
     }
 
     /**
@@ -99,7 +111,24 @@ public class TruthTable {
     public boolean[] getRow(int index) {
         boolean[] row = new boolean[getColumnSize()];
         for (int i = 0; i < getColumnSize(); i++) {
-            row[i] = columns.get(i).getValues()[index];
+            row[i] = columns.get(i).getValue(index);
+        }
+        return row;
+    }
+
+    /**
+     * Get a row of truth values by index
+     * Unlike {@link #getRow(int)}, this distinguishes unknown values of a three-valued table from false values
+     *
+     * @param index The row (x) index
+     * @return An array of truth values
+     * @throws ArrayIndexOutOfBoundsException if the index is out of range
+     *      ({@code index < 0 || index >= size()})
+     */
+    public TruthValue[] getTruthRow(int index) {
+        TruthValue[] row = new TruthValue[getColumnSize()];
+        for (int i = 0; i < getColumnSize(); i++) {
+            row[i] = columns.get(i).getTruthValue(index);
         }
         return row;
     }
@@ -116,7 +145,22 @@ public class TruthTable {
      *      ({@code index < 0 || index >= size()})
      */
     public boolean getCell(int rowIndex, int columnIndex) {
-        return columns.get(columnIndex).getValues()[rowIndex];
+        return columns.get(columnIndex).getValue(rowIndex);
+    }
+
+    /**
+     * Get a single truth value by row (x) and column (y) indexes
+     *
+     * @param rowIndex The row (x) index
+     * @param columnIndex The column (y) index
+     * @return The truth value
+     * @throws IndexOutOfBoundsException if the column index is out of range
+     *      {@code index < 0 || index >= size()})
+     * @throws ArrayIndexOutOfBoundsException if the row index is out of range
+     *      ({@code index < 0 || index >= size()})
+     */
+    public TruthValue getTruthCell(int rowIndex, int columnIndex) {
+        return columns.get(columnIndex).getTruthValue(rowIndex);
     }
 
     /**
@@ -126,7 +170,27 @@ public class TruthTable {
      */
     public int getRowSize() {
         return columns.isEmpty() ?
-                -1 : columns.get(0).getValues().length;
+                -1 : columns.get(0).getRowSize();
+    }
+
+    /**
+     * Check if this table is three-valued, such that its cells can be {@link TruthValue#UNKNOWN}
+     * @see TTableBuilder#setLogic(Logic)
+     *
+     * @return true if this table is three-valued
+     */
+    public boolean isThreeValued() {
+        return logic.isThreeValued();
+    }
+
+    /**
+     * Get the logic which this table is evaluated with
+     * @see TTableBuilder#setLogic(Logic)
+     *
+     * @return The logic
+     */
+    public Logic getLogic() {
+        return logic;
     }
 
     /**
@@ -183,6 +247,7 @@ public class TruthTable {
 
     /**
      * Check if the conclusion (last column) is a contradiction (it is always false).
+     * In a three-valued table, a column with unknown values is not a contradiction.
      *
      * @return true only if the conclusion is always false
      * @throws NullPointerException if the truth table is empty
@@ -194,6 +259,240 @@ public class TruthTable {
         return root.isContradiction();
     }
 
+    /**
+     * Start a query of the rows of this table on which columns have certain truth values
+     * A query can refer to sub-columns by name only if this table shows them
+     * (See {@link TTableBuilder#setSubColumnsLevel(int)}).
+     * @see RowQuery
+     *
+     * @return A new query that matches every row
+     */
+    public RowQuery query() {
+        return new RowQuery(this);
+    }
+
+    /* Transformations */
+
+    /**
+     * Get a copy of this table with the atoms in a different order
+     * The rows are rearranged so that the atoms are filled in the new order (See {@link TTableBuilder}),
+     * by swapping the bits of the packed columns. No formula is evaluated again.
+     *
+     * @param atoms The names of all atom columns of this table, in the new order
+     * @return The new truth table
+     * @throws IllegalArgumentException if the names are not a permutation of the names of the atom columns
+     * @throws UnsupportedOperationException if this table is three-valued
+     */
+    public TruthTable reorderAtoms(String... atoms) {
+        requireTwoValued("reorder the atoms of");
+        List<Column> atomColumns = columns.subList(0, columns.size() - 1);
+
+        List<Column> reordered = new ArrayList<>();
+        for (String atom : atoms) {
+            Column column = findAtomColumn(atomColumns, atom);
+            if (column == null || reordered.contains(column))
+                throw new IllegalArgumentException("Cannot reorder the atoms of a TruthTable with " + Arrays.toString(atoms) + "!");
+            reordered.add(column);
+        }
+        if (reordered.size() != atomColumns.size())
+            throw new IllegalArgumentException("Cannot reorder the atoms of a TruthTable with " + Arrays.toString(atoms) + "!");
+
+        List<Column> variables = variables();
+        List<Column> target = new ArrayList<>(reordered);
+        target.retainAll(variables);
+        int n = variables.size();
+        List<int[]> swaps = transpositions(variables, target);
+
+        Map<Column, Column> permuted = new IdentityHashMap<>();
+        List<Column> newColumns = new ArrayList<>();
+        for (Column column : reordered) {
+            Column atom = variables.contains(column)
+                    ? atomColumn(column, n, target.indexOf(column), getRowSize())
+                    : column;
+            permuted.put(column, atom);
+            newColumns.add(atom);
+        }
+        newColumns.add(permute(getRootColumn(), swaps, permuted));
+
+        Map<String, Column> formulas = new HashMap<>();
+        for (Map.Entry<String, Column> entry : formulaColumns.entrySet()) {
+            formulas.put(entry.getKey(), permute(entry.getValue(), swaps, permuted));
+        }
+        return new TruthTable(node, newColumns, subColumnsLevel, logic, formulas);
+    }
+
+    /**
+     * Get a copy of this table with atoms projected out existentially,
+     * such that the root column is {@code true} on a row if the root formula is {@code true}
+     * for some truth values of the projected atoms
+     * The columns of the projected atoms are removed, and the rows are halved for each of them
+     * by ORing the packed halves of the root column. No formula is evaluated again.
+     * The table has no sub-columns, as the sub-formulas are not projected.
+     *
+     * @param atoms The names of the atoms to be projected out
+     * @return The new truth table
+     * @throws IllegalArgumentException if any name is not an atom of this table, or is a True/False atom
+     * @throws UnsupportedOperationException if this table is three-valued
+     */
+    public TruthTable exists(String... atoms) {
+        return project(atoms, true);
+    }
+
+    /**
+     * Get a copy of this table with atoms projected out universally,
+     * such that the root column is {@code true} on a row if the root formula is {@code true}
+     * for all truth values of the projected atoms
+     * The columns of the projected atoms are removed, and the rows are halved for each of them
+     * by ANDing the packed halves of the root column. No formula is evaluated again.
+     * The table has no sub-columns, as the sub-formulas are not projected.
+     *
+     * @param atoms The names of the atoms to be projected out
+     * @return The new truth table
+     * @throws IllegalArgumentException if any name is not an atom of this table, or is a True/False atom
+     * @throws UnsupportedOperationException if this table is three-valued
+     */
+    public TruthTable forAll(String... atoms) {
+        return project(atoms, false);
+    }
+
+    /*
+        Algorithm:
+            1. Move the projected atom to the front with adjacent swaps, which keeps the order of the other atoms
+            2. The rows of the first atom being true and false are the first and second half,
+               so fold the halves with OR (exists) or AND (for all)
+            3. Repeat for each projected atom
+     */
+    private TruthTable project(String[] atoms, boolean or) {
+        requireTwoValued("project the atoms of");
+
+        List<Column> variables = variables();
+        int rows = getRowSize();
+        Bitmap root = getRootColumn().getBitmap();
+        for (String atom : atoms) {
+            Column column = findAtomColumn(variables, atom);
+            if (column == null)
+                throw new IllegalArgumentException("Cannot project out " + atom + ", which is not an atom of the TruthTable!");
+
+            int n = variables.size();
+            List<int[]> swaps = new ArrayList<>();
+            for (int pos = variables.indexOf(column); pos > 0; pos--) {
+                swaps.add(new int[] {n - 1 - pos, n - pos});
+            }
+            root = root.swapVariables(swaps).foldHalves(or);
+            rows >>>= 1;
+            variables.remove(column);
+        }
+
+        List<Column> newColumns = new ArrayList<>();
+        for (Column column : columns.subList(0, columns.size() - 1)) {
+            if (variables.contains(column)) {
+                newColumns.add(atomColumn(column, variables.size(), variables.indexOf(column), rows));
+            } else if (!isVariable(column)) {
+                // True/False atom
+                newColumns.add(atomColumn(column, 0, column.isTautology() ? -1 : -2, rows));
+            }
+        }
+        Column rootColumn = getRootColumn();
+        newColumns.add(rootColumn.isAtom()
+                ? new Column(rootColumn.getAtom(), root, null)
+                : new Column(rootColumn.getFormula(), root, null, null, null));
+        return new TruthTable(node, newColumns, 0, logic, new HashMap<>());
+    }
+
+    /**
+     * Get the swaps of the row index bits that rearrange atoms from one order to another
+     * This method is for the Lojic library's internal use only, users should ignore this
+     *
+     * @param current The atoms in the current order
+     * @param target The same atoms in the new order
+     * @return Pairs of bits to be swapped in order (See {@link Bits#swapVariables(long[], int, int)})
+     */
+    static <T> List<int[]> transpositions(List<T> current, List<T> target) {
+        int n = current.size();
+        List<T> order = new ArrayList<>(current);
+        List<int[]> swaps = new ArrayList<>();
+        for (int pos = 0; pos < n; pos++) {
+            int from = order.indexOf(target.get(pos));
+            if (from != pos) {
+                swaps.add(new int[] {n - 1 - pos, n - 1 - from});
+                order.set(from, order.get(pos));
+                order.set(pos, target.get(pos));
+            }
+        }
+        return swaps;
+    }
+
+    // every computed formula column by name
+    Map<String, Column> getFormulaColumns() {
+        return formulaColumns;
+    }
+
+    // atom columns that are neither True nor False atoms, in the order of the rows
+    List<Column> getVariables() {
+        return variables();
+    }
+
+    private Column permute(Column column, List<int[]> swaps, Map<Column, Column> permuted) {
+        if (column == null) return null;
+        Column result = permuted.get(column);
+        if (result != null) return result;
+
+        Bitmap values = column.getBitmap().swapVariables(swaps);
+        if (column.isAtom()) {
+            result = new Column(column.getAtom(), values, null);
+        } else {
+            result = new Column(column.getFormula(), values, null,
+                    permute(column.getSubColumnLeft(), swaps, permuted),
+                    permute(column.getSubColumnRight(), swaps, permuted));
+        }
+        permuted.put(column, result);
+        return result;
+    }
+
+    // a new column of the k-th of n atoms (-1 for a true atom, -2 for a false atom), in the storage of this table
+    private Column atomColumn(Column column, int n, int k, int rows) {
+        int chunks = RoaringBitmap.chunks(rows);
+        boolean compressed = getRootColumn().isCompressed();
+        long[] values = new long[compressed ? RoaringBitmap.CHUNK_WORDS : Bits.words(rows)];
+        RoaringBitmap.Container[] containers = new RoaringBitmap.Container[chunks];
+        for (int c = 0; c < (compressed ? chunks : 1); c++) {
+            int chunkRows = compressed ? RoaringBitmap.chunkRows(rows, c) : rows;
+            if (k == -1) Arrays.fill(values, -1L);
+            else if (k == -2) Arrays.fill(values, 0);
+            else Bits.fillAtom(values, n, k, c * RoaringBitmap.CHUNK_WORDS);
+            Bits.trim(values, chunkRows);
+            if (compressed) containers[c] = RoaringBitmap.compress(values, chunkRows);
+        }
+        return compressed
+                ? new Column(column.getAtom(), new RoaringBitmap(containers, rows), null)
+                : new Column(column.getAtom(), rows, values, null);
+    }
+
+    // atom columns that are neither True nor False atoms, which decide the order of the rows
+    private List<Column> variables() {
+        List<Column> variables = new ArrayList<>();
+        for (Column column : columns.subList(0, columns.size() - 1)) {
+            if (isVariable(column)) variables.add(column);
+        }
+        return variables;
+    }
+
+    private boolean isVariable(Column column) {
+        return column.isAtom() && getRowSize() > 1 && !column.isTautology() && !column.isContradiction();
+    }
+
+    private static Column findAtomColumn(List<Column> columns, String name) {
+        for (Column column : columns) {
+            if (column.isAtom() && column.getName().equals(name)) return column;
+        }
+        return null;
+    }
+
+    private void requireTwoValued(String action) {
+        if (isThreeValued())
+            throw new UnsupportedOperationException("Cannot " + action + " a three-valued truth table!");
+    }
+
     /**
      * Get the string representation of the table
      * The string is in the following format:
@@ -235,6 +534,8 @@ public class TruthTable {
      * </pre>
      * Sub-columns are columns of the truth values (of atoms or formulas) to the
      * right and left of the main formula
+     *
+     * A three-valued table prints unknown values as {@code U}.
      * @see TTableBuilder#setSubColumnsLevel(int) for more infornation on truth columns
      *
      * @return The string representation of the table
@@ -396,7 +697,7 @@ public class TruthTable {
     }
 
     private char tfChar(Column column, int index) {
-        return (column.getValues()[index]) ? 'T' : 'F';
+        return column.getTruthValue(index).getSymbol();
     }
 
 }
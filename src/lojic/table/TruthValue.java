@@ -0,0 +1,35 @@
+package lojic.table;
+
+/**
+ * @author AlienIdeology
+ *
+ * A truth value of a cell of a {@link TruthTable}
+ * {@link #UNKNOWN} only appears in tables built with a three-valued {@link Logic}
+ */
+public enum TruthValue {
+
+    TRUE('T'),
+    FALSE('F'),
+    UNKNOWN('U');
+
+    private final char symbol;
+
+    TruthValue(char symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * Get the character which a printed {@link TruthTable} shows for this truth value
+     *
+     * @return The symbol
+     */
+    public char getSymbol() {
+        return symbol;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(symbol);
+    }
+
+}
@@ -0,0 +1,56 @@
+package lojic.tableau;
+
+/**
+ * Internal class of the persistent signs of a branch
+ * User should ignore this class
+ *
+ * A persistent array of signs, which is a trie of 32 children per node. Setting a sign copies one path of the trie
+ * and shares the rest with the old array, so the branches of a tableau share the signs of their common ancestors.
+ */
+final class Signs {
+
+    static final byte NONE = 0, TRUE = 1, FALSE = 2;
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private final Object root; // null for a subtree of no signs
+    private final int shift;
+
+    private Signs(Object root, int shift) {
+        this.root = root;
+        this.shift = shift;
+    }
+
+    static Signs empty(int size) {
+        int shift = 0;
+        while (shift + BITS < 31 && (size - 1) >>> (shift + BITS) != 0) shift += BITS;
+        return new Signs(null, shift);
+    }
+
+    byte get(int index) {
+        Object node = root;
+        for (int s = shift; s > 0; s -= BITS) {
+            if (node == null) return NONE;
+            node = ((Object[]) node)[(index >>> s) & MASK];
+        }
+        return node == null ? NONE : ((byte[]) node)[index & MASK];
+    }
+
+    Signs with(int index, byte sign) {
+        return new Signs(set(root, shift, index, sign), shift);
+    }
+
+    private static Object set(Object node, int shift, int index, byte sign) {
+        if (shift == 0) {
+            byte[] leaf = node == null ? new byte[MASK + 1] : ((byte[]) node).clone();
+            leaf[index & MASK] = sign;
+            return leaf;
+        }
+        Object[] inner = node == null ? new Object[MASK + 1] : ((Object[]) node).clone();
+        int i = (index >>> shift) & MASK;
+        inner[i] = set(inner[i], shift - BITS, index, sign);
+        return inner;
+    }
+
+}
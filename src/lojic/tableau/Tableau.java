@@ -0,0 +1,421 @@
+package lojic.tableau;
+
+import lojic.nodes.Formula;
+import lojic.nodes.Node;
+import lojic.nodes.connectives.Connective;
+import lojic.table.TTableBuilder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+/**
+ * @author AlienIdeology
+ *
+ * An analytic tableau of signed formulas, which decides whether some assignment gives every formula its sign
+ *
+ * A signed formula {@code T A} (or {@code F A}) states that the formula {@code A} is true (or false).
+ * The rules of every connective are taken from its truth code (See {@link Connective#getTruthCode()}):
+ * an α rule adds the signed operands that the formula needs to one branch, such as {@code T (A ∧ B)} adding
+ * {@code T A, T B}, and a β rule splits the branch, such as {@code T (A ∨ B)} splitting into {@code T A | T B}.
+ * α rules are applied before β rules, so that branches split as late as possible. A β formula that the branch
+ * already satisfies is dropped, and a β formula that has one branch left which does not close is applied as an α rule.
+ * The branches of a β rule do not overlap: {@code T (A ∨ B)} splits into {@code T A | F A, T B}.
+ *
+ * A branch closes as soon as it holds a formula with both signs, which is checked for atoms and compound formulas
+ * alike. A tableau is closed when all of its branches close, which means that no assignment gives every formula
+ * its sign. Otherwise, the atoms of an open branch are such an assignment.
+ *
+ * Branches are explored depth-first. The formulas of a branch are kept in persistent lists and a persistent
+ * array of signs, so splitting a branch copies nothing, and the branches share everything of their common ancestors.
+ * An expansion stops with a {@link CancellationException} soon after its thread is interrupted.
+ */
+public class Tableau {
+
+    private static final byte ATOM = 0, TRUE = 1, FALSE = 2, UNARY = 3, BINARY = 4;
+    // the status of a branch of a β rule under the signs of a branch
+    private static final byte OPEN = 0, SATISFIED = 1, CLOSED = 2;
+
+    // the branches of the β rule of every two-operand function g, each of which is a list of
+    // (operand, sign) pairs, with the operand 0 for the left and 1 for the right
+    private static final int[][][] RULES = new int[16][][];
+    // the branches of every one-operand function, whose operand is stored as the left one
+    private static final int[][][] UNARY_RULES = new int[4][][];
+
+    static {
+        for (int g = 0; g < 16; g++) RULES[g] = rule(g);
+        for (int g = 0; g < 4; g++) {
+            // a unary function is a binary function that ignores its left operand
+            int[][] rule = rule(g << 2 | g);
+            UNARY_RULES[g] = new int[rule.length][];
+            for (int b = 0; b < rule.length; b++) UNARY_RULES[g][b] = rule[b].length == 0 ? rule[b] : new int[]{0, rule[b][1]};
+        }
+    }
+
+    private final TTableBuilder settings;
+
+    // formulas, indexed by their strings; a signed formula is (formula << 1) | sign
+    private final Map<String, Integer> formulas;
+    private byte[] kinds;
+    private int[] codes;
+    private int[] lefts;
+    private int[] rights;
+    private final List<String> atoms;
+    private final List<Integer> atomFormulas;
+    private int count;
+
+    private final List<Integer> roots;
+    private boolean expanded;
+    private Map<String, Boolean> openBranch;
+    private long branches;
+
+    /**
+     * Constructor of an empty tableau
+     *
+     * @param settings The settings that recognize True/False atoms
+     * @throws UnsupportedOperationException if the logic of the settings is three-valued
+     */
+    public Tableau(TTableBuilder settings) {
+        if (settings.getLogic().isThreeValued())
+            throw new UnsupportedOperationException("Cannot build a tableau with the three-valued logic " + settings.getLogic() + "!");
+        this.settings = settings;
+        this.formulas = new HashMap<>();
+        this.kinds = new byte[64];
+        this.codes = new int[64];
+        this.lefts = new int[64];
+        this.rights = new int[64];
+        this.atoms = new ArrayList<>();
+        this.atomFormulas = new ArrayList<>();
+        this.roots = new ArrayList<>();
+    }
+
+    /**
+     * Add a signed formula to the root of this tableau
+     *
+     * @param node The node
+     * @param value The sign, which is true for {@code T} and false for {@code F}
+     * @return This tableau for method chaining
+     * @throws IllegalStateException if the tableau is already expanded
+     */
+    public Tableau add(Node node, boolean value) {
+        if (expanded)
+            throw new IllegalStateException("Cannot add a formula to a tableau that is already expanded!");
+
+        Map<Node, Integer> ids = new IdentityHashMap<>();
+        // children are visited before their parents
+        node.climb().forEach(n -> ids.put(n, formula(n, ids)));
+        roots.add(ids.get(node) << 1 | (value ? 1 : 0));
+        return this;
+    }
+
+    /**
+     * Expand this tableau, and check if all of its branches close
+     *
+     * @return True if the tableau is closed
+     * @throws CancellationException if the thread is interrupted
+     */
+    public boolean isClosed() {
+        expand();
+        return openBranch == null;
+    }
+
+    /**
+     * Get the atoms of the first open branch, which give every formula of the tableau its sign
+     * Atoms that the branch does not need are {@code false}.
+     *
+     * @return The assignment of every atom in the order which they appear, or null if the tableau is closed
+     * @throws CancellationException if the thread is interrupted
+     */
+    public Map<String, Boolean> getOpenBranch() {
+        expand();
+        return openBranch;
+    }
+
+    /**
+     * Get the number of branches which have been explored, including the root branch
+     *
+     * @return The number of branches
+     * @throws CancellationException if the thread is interrupted
+     */
+    public long getBranchCount() {
+        expand();
+        return branches;
+    }
+
+    @Override
+    public String toString() {
+        return "Tableau{" +
+                "formulas=" + count +
+                ", roots=" + roots.size() +
+                (expanded ? ", closed=" + (openBranch == null) + ", branches=" + branches : "") +
+                "}";
+    }
+
+    /* Formulas */
+
+    private int formula(Node node, Map<Node, Integer> ids) {
+        Integer id = formulas.get(node.getString());
+        if (id != null) return id;
+
+        id = count;
+        if (count == kinds.length) {
+            kinds = Arrays.copyOf(kinds, count * 2);
+            codes = Arrays.copyOf(codes, count * 2);
+            lefts = Arrays.copyOf(lefts, count * 2);
+            rights = Arrays.copyOf(rights, count * 2);
+        }
+        count++;
+
+        if (node.isFormula()) {
+            Connective connective = ((Formula) node).getConnective();
+            Node[] children = ((Formula) node).getChildren();
+            kinds[id] = connective.isUnary() ? UNARY : BINARY;
+            codes[id] = connective.getTruthCode();
+            lefts[id] = ids.get(children[0]);
+            if (!connective.isUnary()) rights[id] = ids.get(children[1]);
+        } else if (settings.isTAtom(node.getString())) {
+            kinds[id] = TRUE;
+        } else if (settings.isFAtom(node.getString())) {
+            kinds[id] = FALSE;
+        } else {
+            kinds[id] = ATOM;
+            atoms.add(node.getString());
+            atomFormulas.add(id);
+        }
+        formulas.put(node.getString(), id);
+        return id;
+    }
+
+    /* Expansion */
+
+    /*
+        Algorithm:
+            1. Take a branch from the stack, and apply its α formulas one by one
+            2. A formula that already has its sign is skipped, and a formula that has the other sign closes the branch
+            3. When no α formula is left, check the β formulas against the signs of the branch:
+               a β formula that one of its branches already satisfies is dropped, a β formula whose branches
+               all contradict the signs closes the branch, and a β formula with one branch left is applied as α formulas
+            4. Split the branch by its next β formula into the branches that do not contradict the signs,
+               add the other sign of the single operands of the earlier branches to every branch, and push the new branches
+            5. A branch with no formula left is open
+     */
+    private void expand() {
+        if (expanded) return;
+        expanded = true;
+
+        Entry alphas = null;
+        for (int i = roots.size() - 1; i >= 0; i--) alphas = new Entry(roots.get(i), alphas);
+
+        Deque<Branch> stack = new ArrayDeque<>();
+        stack.push(new Branch(alphas, null, Signs.empty(Math.max(count, 1))));
+        branches = 1;
+        while (!stack.isEmpty()) {
+            if (Thread.currentThread().isInterrupted()) {
+                // the expansion starts over if it is asked again
+                expanded = false;
+                throw new CancellationException("Cannot finish the expansion of the tableau, since the thread is interrupted!");
+            }
+
+            Branch branch = stack.pop();
+            if (!applyAlphas(branch) || !pruneBetas(branch)) continue;
+            if (branch.betas == null) {
+                openBranch = assignment(branch.signs);
+                return;
+            }
+
+            int beta = branch.betas.signed;
+            int[][] rule = rule(beta >>> 1, (beta & 1) != 0);
+            // the first branch is explored first
+            for (int b = rule.length - 1; b >= 0; b--) {
+                if (status(beta >>> 1, rule[b], branch.signs) == CLOSED) continue;
+                Entry added = operands(beta >>> 1, rule[b], null);
+                // a later branch takes the other sign of an earlier branch's single operand, so the branches do not overlap
+                for (int e = 0; e < b; e++) {
+                    if (rule[e].length == 2) added = operands(beta >>> 1, new int[]{rule[e][0], rule[e][1] ^ 1}, added);
+                }
+                stack.push(new Branch(added, branch.betas.next, branch.signs));
+                branches++;
+            }
+        }
+    }
+
+    // apply the α formulas of a branch, and return false if the branch closes
+    private boolean applyAlphas(Branch branch) {
+        Entry alphas = branch.alphas;
+        Entry betas = branch.betas;
+        Signs signs = branch.signs;
+        while (alphas != null) {
+            int signed = alphas.signed;
+            alphas = alphas.next;
+
+            int id = signed >>> 1;
+            boolean value = (signed & 1) != 0;
+            byte sign = value ? Signs.TRUE : Signs.FALSE;
+            byte current = signs.get(id);
+            if (current == sign) continue;
+            if (current != Signs.NONE) return false;
+            signs = signs.with(id, sign);
+
+            switch (kinds[id]) {
+                case ATOM:
+                    break;
+                case TRUE:
+                    if (!value) return false;
+                    break;
+                case FALSE:
+                    if (value) return false;
+                    break;
+                default:
+                    int[][] rule = rule(id, value);
+                    if (rule.length == 0) return false;
+                    if (rule.length > 1) {
+                        betas = new Entry(signed, betas);
+                        break;
+                    }
+                    alphas = operands(id, rule[0], alphas);
+            }
+        }
+        branch.alphas = null;
+        branch.betas = betas;
+        branch.signs = signs;
+        return true;
+    }
+
+    // drop the satisfied β formulas of a branch and apply the ones with one branch left,
+    // and return false if the branch closes
+    private boolean pruneBetas(Branch branch) {
+        while (true) {
+            List<Integer> kept = new ArrayList<>();
+            Entry forced = null;
+            boolean pruned = false;
+            for (Entry entry = branch.betas; entry != null; entry = entry.next) {
+                int id = entry.signed >>> 1;
+                int[][] rule = rule(id, (entry.signed & 1) != 0);
+                int open = 0, last = -1;
+                boolean satisfied = false;
+                for (int b = 0; b < rule.length && !satisfied; b++) {
+                    byte status = status(id, rule[b], branch.signs);
+                    if (status == SATISFIED) {
+                        satisfied = true;
+                    } else if (status == OPEN) {
+                        open++;
+                        last = b;
+                    }
+                }
+                if (satisfied) {
+                    pruned = true;
+                } else if (open == 0) {
+                    return false;
+                } else if (open == 1) {
+                    pruned = true;
+                    forced = operands(id, rule[last], forced);
+                } else {
+                    kept.add(entry.signed);
+                }
+            }
+            if (!pruned) return true;
+
+            Entry betas = null;
+            for (int i = kept.size() - 1; i >= 0; i--) betas = new Entry(kept.get(i), betas);
+            branch.betas = betas;
+            if (forced == null) return true;
+            branch.alphas = forced;
+            if (!applyAlphas(branch)) return false;
+        }
+    }
+
+    // check a branch of a β rule against the signs: satisfied if every operand has its sign,
+    // closed if an operand has the other sign, or open otherwise
+    private byte status(int id, int[] operands, Signs signs) {
+        byte status = SATISFIED;
+        for (int i = 0; i < operands.length; i += 2) {
+            int operand = operands[i] == 0 ? lefts[id] : rights[id];
+            byte current = signs.get(operand);
+            if (current == Signs.NONE) {
+                status = OPEN;
+            } else if (current != (operands[i + 1] != 0 ? Signs.TRUE : Signs.FALSE)) {
+                return CLOSED;
+            }
+        }
+        return status;
+    }
+
+    // add the signed operands of a branch of a rule to a list
+    private Entry operands(int id, int[] operands, Entry list) {
+        for (int i = 0; i < operands.length; i += 2) {
+            int operand = operands[i] == 0 ? lefts[id] : rights[id];
+            list = new Entry(operand << 1 | operands[i + 1], list);
+        }
+        return list;
+    }
+
+    private int[][] rule(int id, boolean value) {
+        int code = value ? codes[id] : ~codes[id];
+        return kinds[id] == UNARY ? UNARY_RULES[code & 0b11] : RULES[code & 0b1111];
+    }
+
+    // cover the true rows of g with the fewest branches: single operands first, then both operands
+    private static int[][] rule(int g) {
+        if (g == 0) return new int[0][];
+        if (g == 0b1111) return new int[][]{{}};
+
+        List<int[]> branches = new ArrayList<>();
+        int covered = 0;
+        // the rows of left = 1, left = 0, right = 1 and right = 0
+        int[] masks = {0b1100, 0b0011, 0b1010, 0b0101};
+        int[][] singles = {{0, 1}, {0, 0}, {1, 1}, {1, 0}};
+        for (int i = 0; i < 4; i++) {
+            if ((masks[i] & ~g) == 0) {
+                branches.add(singles[i]);
+                covered |= masks[i];
+            }
+        }
+        for (int row = 0; row < 4; row++) {
+            if ((g >> row & 1) != 0 && (covered >> row & 1) == 0) branches.add(new int[]{0, row >> 1, 1, row & 1});
+        }
+        return branches.toArray(new int[0][]);
+    }
+
+    private Map<String, Boolean> assignment(Signs signs) {
+        Map<String, Boolean> assignment = new LinkedHashMap<>();
+        for (int i = 0; i < atoms.size(); i++) assignment.put(atoms.get(i), signs.get(atomFormulas.get(i)) == Signs.TRUE);
+        return assignment;
+    }
+
+    /* Internal */
+
+    // a persistent list of signed formulas
+    private static final class Entry {
+
+        private final int signed;
+        private final Entry next;
+
+        private Entry(int signed, Entry next) {
+            this.signed = signed;
+            this.next = next;
+        }
+
+    }
+
+    private static final class Branch {
+
+        private Entry alphas;
+        private Entry betas;
+        private Signs signs;
+
+        private Branch(Entry alphas, Entry betas, Signs signs) {
+            this.alphas = alphas;
+            this.betas = betas;
+            this.signs = signs;
+        }
+
+    }
+
+}